@@ -29,6 +29,7 @@ import org.hawkular.inventory.api.model.DataEntity;
 import org.hawkular.inventory.api.model.Entity;
 import org.hawkular.inventory.api.model.Environment;
 import org.hawkular.inventory.api.model.Feed;
+import org.hawkular.inventory.api.model.InventoryStructure;
 import org.hawkular.inventory.api.model.MetadataPack;
 import org.hawkular.inventory.api.model.Metric;
 import org.hawkular.inventory.api.model.MetricType;
@@ -107,6 +108,16 @@ public class EmptyInventory implements Inventory {
         throw entityNotFound(Tenant.class);
     }
 
+    @Override
+    public void importTenant(InventoryStructure<Tenant.Blueprint> structure) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void importTenant(String tenantId, InputStream graphSON) {
+        throw new UnsupportedOperationException();
+    }
+
     @Override public <T extends AbstractElement<?, ?>> T getElement(CanonicalPath path) {
         throw entityNotFound(Tenant.class);
     }
@@ -30,6 +30,7 @@ import org.hawkular.inventory.api.model.ElementVisitor;
 import org.hawkular.inventory.api.model.Entity;
 import org.hawkular.inventory.api.model.Environment;
 import org.hawkular.inventory.api.model.Feed;
+import org.hawkular.inventory.api.model.InventoryStructure;
 import org.hawkular.inventory.api.model.MetadataPack;
 import org.hawkular.inventory.api.model.Metric;
 import org.hawkular.inventory.api.model.MetricType;
@@ -496,11 +497,43 @@ public interface Inventory extends AutoCloseable, Tenants.Container<Tenants.Read
      * This method returns the {@link java.io.InputStream} with the GraphSON representation of the whole sub-graph
      * of given tenantId. It's basically the graph dump.
      *
+     * <p>The GraphSON is written to the stream as the graph is read, so the caller should consume the stream promptly
+     * and close it when done. The implementations may limit the number of the dumps running at the same time.
+     *
      * @param tenantId the tenantId for which we want the GraphSON
      * @return the InputStream with the GraphSON representation
+     * @throws InventoryBusyException if too many dumps are running at the moment
      */
     InputStream getGraphSON(String tenantId);
 
+    /**
+     * Bulk-loads a new tenant with all its content. This is meant for seeding or restoring large tenants and is much
+     * faster than creating the entities one by one.
+     *
+     * <p>Unlike with the normal creation of the entities, no notifications are sent about the imported entities,
+     * the data of the data entities are not validated against the schemas and the tenant is not created atomically,
+     * i.e. its content is visible while the import runs. If the import fails, the partially imported tenant is
+     * deleted.
+     *
+     * @param structure the structure of the tenant to import
+     * @throws EntityAlreadyExistsException if the tenant already exists
+     */
+    void importTenant(InventoryStructure<Tenant.Blueprint> structure);
+
+    /**
+     * Bulk-loads a new tenant from its GraphSON dump, as produced by {@link #getGraphSON(String)}. The dump is
+     * processed as it is read.
+     *
+     * <p>The same caveats as with the {@link #importTenant(InventoryStructure)} apply. Additionally, the edges going
+     * out of the tenant's subgraph to the vertices not present in the dump are ignored.
+     *
+     * @param tenantId the id of the tenant in the dump
+     * @param graphSON the GraphSON dump of the tenant
+     * @throws EntityAlreadyExistsException if the tenant already exists
+     * @throws IllegalArgumentException if the dump contains entities of other tenants
+     */
+    void importTenant(String tenantId, InputStream graphSON);
+
     <T extends AbstractElement<?, ?>> T getElement(CanonicalPath path);
 
     <T extends Entity<?, ?>> Iterator<T> getTransitiveClosureOver(CanonicalPath startingPoint,
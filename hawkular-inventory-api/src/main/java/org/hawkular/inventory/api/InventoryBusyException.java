@@ -0,0 +1,35 @@
+/*
+ * Copyright 2015-2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.api;
+
+/**
+ * Thrown when the inventory refuses to start an operation, because there are too many of them running at the moment.
+ * The operation can be retried later.
+ *
+ * @author Lukas Krejci
+ * @since 0.19.0
+ */
+public class InventoryBusyException extends InventoryException {
+
+    public InventoryBusyException(String message) {
+        super(message);
+    }
+
+    public InventoryBusyException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
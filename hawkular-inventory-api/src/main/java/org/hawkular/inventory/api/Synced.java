@@ -16,8 +16,12 @@
  */
 package org.hawkular.inventory.api;
 
+import java.util.Iterator;
+
 import org.hawkular.inventory.api.model.Entity;
+import org.hawkular.inventory.api.model.SyncConfiguration;
 import org.hawkular.inventory.api.model.SyncHash;
+import org.hawkular.inventory.api.model.SyncNode;
 import org.hawkular.inventory.api.model.SyncRequest;
 
 /**
@@ -43,6 +47,7 @@ public final class Synced {
         /**
          * This is useful for figuring out what changed about the structure of the entity
          * @return the hash of the entity together with the hashes of all contained entities
+         * @throws EntityNotFoundException if the entity doesn't exist
          */
         SyncHash.Tree treeHash();
 
@@ -57,5 +62,21 @@ public final class Synced {
          * @param syncRequest the synchronization request with configuration and actual data.
          */
         void synchronize(SyncRequest<B> syncRequest);
+
+        /**
+         * Synchronizes the entity and any of its children using a stream of nodes of the new structure in the
+         * depth-first order. The implementations are free to process the nodes as they come, skipping the subtrees
+         * with the sync hash matching the one stored in the inventory, so that the whole structure never needs to be
+         * held in memory.
+         *
+         * <p>The semantics are the same as with {@link #synchronize(SyncRequest)}. The default implementation merely
+         * reconstructs the whole structure from the nodes and delegates to that method.
+         *
+         * @param configuration the configuration of the synchronization
+         * @param nodes the nodes of the new structure in the depth-first order, starting with the root
+         */
+        default void synchronize(SyncConfiguration configuration, Iterator<SyncNode> nodes) {
+            synchronize(new SyncRequest<>(configuration, SyncNode.<B>toStructure(nodes)));
+        }
     }
 }
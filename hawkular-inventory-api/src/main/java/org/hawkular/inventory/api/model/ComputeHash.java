@@ -123,6 +123,25 @@ final class ComputeHash {
                                          boolean computeContent, boolean computeSync,
                                          Consumer<IntermediateHashContext> onStartChild,
                                          BiConsumer<IntermediateHashContext, IntermediateHashResult> onEndChild) {
+        return treeOf(inventory, rootPath, computeIdentity, computeContent, computeSync, onStartChild, onEndChild,
+                null);
+    }
+
+    /**
+     * Computes the tree of hashes but doesn't descend into the children for which the {@code knownIdentityHashes}
+     * function returns a non-null value. Such children only contribute the provided identity hash to their parent and
+     * are not reported to the {@code onStartChild} and {@code onEndChild} callbacks.
+     *
+     * @param knownIdentityHashes given a path relative to the root, returns the identity hash of the entity on that
+     *                            path if it is known to be up-to-date, null otherwise. If the function itself is null,
+     *                            the full tree is computed.
+     */
+    static IntermediateHashResult treeOf(InventoryStructure<?> inventory, CanonicalPath rootPath,
+                                         boolean computeIdentity,
+                                         boolean computeContent, boolean computeSync,
+                                         Consumer<IntermediateHashContext> onStartChild,
+                                         BiConsumer<IntermediateHashContext, IntermediateHashResult> onEndChild,
+                                         Function<RelativePath, String> knownIdentityHashes) {
         ComputeHash.DigestComputingWriter wrt = new ComputeHash.DigestComputingWriter(ComputeHash.newDigest());
 
         ComputeHash.HashConstructor ctor = new ComputeHash.HashConstructor(wrt) {
@@ -142,7 +161,7 @@ final class ComputeHash {
                 computeContent, computeSync,
                 //we don't want the root element in the relative paths of the children so that they are easily
                 //appendable to the root.
-                (rp) -> rp.slide(1, 0)
+                (rp) -> rp.slide(1, 0), knownIdentityHashes
         );
 
     }
@@ -150,6 +169,14 @@ final class ComputeHash {
     static IntermediateHashResult computeHash(CanonicalPath entityPath, Blueprint entity, HashableView structure,
                                               HashConstructor bld, boolean compIdentity, boolean compContent,
                                               boolean compSync, Function<RelativePath, RelativePath> pathCompleter) {
+        return computeHash(entityPath, entity, structure, bld, compIdentity, compContent, compSync, pathCompleter,
+                null);
+    }
+
+    static IntermediateHashResult computeHash(CanonicalPath entityPath, Blueprint entity, HashableView structure,
+                                              HashConstructor bld, boolean compIdentity, boolean compContent,
+                                              boolean compSync, Function<RelativePath, RelativePath> pathCompleter,
+                                              Function<RelativePath, String> knownIdentityHashes) {
 
         Class<?> entityType = Inventory.types().byBlueprint(entity.getClass()).getElementType();
 
@@ -401,7 +428,23 @@ final class ComputeHash {
             }
 
             private void appendEntityIdentity(Entity.Blueprint child, IntermediateHashContext ctx) {
-                ctx.identity.append(child.accept(this, ctx).identityHash);
+                if (knownIdentityHashes == null) {
+                    ctx.identity.append(child.accept(this, ctx).identityHash);
+                    return;
+                }
+
+                //the root of the context contains the root entity, too, so let's get rid of it to obtain the path
+                //relative to the root
+                RelativePath childPath = ctx.root.modified().extend(Blueprint.getSegmentTypeOf(child), child.getId())
+                        .get().slide(1, 0);
+
+                String knownHash = knownIdentityHashes.apply(childPath);
+                if (knownHash != null) {
+                    //no need to descend into the child's subtree if we already know its up-to-date hash
+                    ctx.identity.append(knownHash);
+                } else {
+                    ctx.identity.append(child.accept(this, ctx).identityHash);
+                }
             }
         }, new IntermediateHashContext(RelativePath.empty().get()));
     }
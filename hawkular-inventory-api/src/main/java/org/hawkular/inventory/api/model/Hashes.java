@@ -20,6 +20,7 @@ import java.io.Serializable;
 import java.util.Map;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
+import java.util.function.Function;
 
 import org.hawkular.inventory.api.model.ComputeHash.IntermediateHashContext;
 import org.hawkular.inventory.api.model.ComputeHash.IntermediateHashResult;
@@ -46,6 +47,27 @@ public final class Hashes implements Serializable {
     }
 
     public static Tree treeOf(InventoryStructure<?> root, CanonicalPath rootPath) {
+        return treeOf(root, rootPath, null);
+    }
+
+    /**
+     * Computes the tree of hashes of the provided structure, reusing the identity hashes of the entities known not to
+     * have changed. The subtrees of such entities are not traversed at all (and therefore the structure is not asked
+     * for their children) and they are not part of the returned tree.
+     * <p>
+     * Because the identity hash of an entity only depends on its own data and the identity hashes of its direct
+     * children, this makes it possible to update the hashes of a changed entity and its ancestors without
+     * re-computing the whole tree.
+     *
+     * @param root                the structure to compute the hashes of
+     * @param rootPath            the canonical path of the root of the structure
+     * @param knownIdentityHashes given a path relative to the root, returns the identity hash of the entity if it is
+     *                            known to be up-to-date or null if the hashes of the entity need to be computed. If
+     *                            null, all hashes in the tree are computed.
+     * @return the tree of the computed hashes
+     */
+    public static Tree treeOf(InventoryStructure<?> root, CanonicalPath rootPath,
+                              Function<RelativePath, String> knownIdentityHashes) {
         Tree.AbstractBuilder<?>[] tbld =
                 new Tree.AbstractBuilder[1];
 
@@ -68,7 +90,8 @@ public final class Hashes implements Serializable {
             }
         };
 
-        IntermediateHashResult res = ComputeHash.treeOf(root, rootPath, true, true, true, startChild, endChild);
+        IntermediateHashResult res = ComputeHash.treeOf(root, rootPath, true, true, true, startChild, endChild,
+                knownIdentityHashes);
 
         tbld[0].withPath(res.path).withHash(new Hashes(res));
 
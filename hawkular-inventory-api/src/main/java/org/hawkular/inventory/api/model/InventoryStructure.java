@@ -27,6 +27,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.Spliterator;
 import java.util.Spliterators;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -75,6 +76,21 @@ public interface InventoryStructure<Root extends Entity.Blueprint> {
      */
     static <E extends Entity<B, ?>, B extends Entity.Blueprint>
     InventoryStructure<B> of(E rootEntity, Inventory inventory) {
+        return of(rootEntity, inventory, e -> {});
+    }
+
+    /**
+     * Creates a lazily loaded online inventory structure, backed by the provided inventory instance. Each entity loaded
+     * from the inventory is passed to the provided listener before it is converted to a blueprint. This can be used
+     * to gather the data that is not part of the blueprints, like the hashes, without loading the entities again.
+     *
+     * @param rootEntity the root entity of which to create the structure of
+     * @param inventory  the inventory to load the data from
+     * @param onLoad     the listener called with each entity loaded from the inventory
+     * @return the structure of given entity and its children
+     */
+    static <E extends Entity<B, ?>, B extends Entity.Blueprint>
+    InventoryStructure<B> of(E rootEntity, Inventory inventory, Consumer<? super Entity<?, ?>> onLoad) {
         return new InventoryStructure<B>() {
             B root = Inventory.asBlueprint(rootEntity);
 
@@ -228,8 +244,10 @@ public interface InventoryStructure<Root extends Entity.Blueprint> {
                         Spliterator<X> sit = Spliterators.spliterator(it, Long.MAX_VALUE, Spliterator.DISTINCT &
                                 Spliterator.IMMUTABLE & Spliterator.NONNULL);
 
-                        return StreamSupport.stream(sit, false).map(e -> (BB) Inventory.asBlueprint(e))
-                                .onClose(it::close);
+                        return StreamSupport.stream(sit, false).map(e -> {
+                            onLoad.accept(e);
+                            return (BB) Inventory.asBlueprint(e);
+                        }).onClose(it::close);
                     }
                 }, null);
             }
@@ -241,6 +259,8 @@ public interface InventoryStructure<Root extends Entity.Blueprint> {
                 Entity<?, ?> entity = (Entity<?, ?>) inventory.inspect(pathToElement, ResolvableToSingle.class)
                         .entity();
 
+                onLoad.accept(entity);
+
                 return Inventory.asBlueprint(entity);
             }
         };
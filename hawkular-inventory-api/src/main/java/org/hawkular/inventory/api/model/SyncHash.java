@@ -16,7 +16,11 @@
  */
 package org.hawkular.inventory.api.model;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
@@ -87,6 +91,102 @@ public final class SyncHash {
         return ((Tree.Builder)tbld[0]).build();
     }
 
+    /**
+     * Finds the subtrees of the reported tree that differ from the tree stored in the inventory. This is useful for
+     * figuring out which parts of the inventory structure need to be synchronized without having to send the whole
+     * structure.
+     *
+     * <p>The reported tree doesn't need to be complete - it can contain for example only the root and its immediate
+     * children. A node of the reported tree without children is considered to stand for its whole subtree.
+     *
+     * <p>A differing node is reported as a whole subtree if its children cannot explain the difference, i.e. if the
+     * stored node has children not present in the reported tree (which would need to be deleted) or if all the
+     * reported children match (which means the data of the node itself changed). Otherwise the differing children are
+     * reported and the node itself is reported among the {@link Differences#getEntities() entities}, because the hash
+     * of a node covers its children, so it is not possible to tell whether the data of the node changed, too.
+     *
+     * <p>The tree hashes contain nodes for the data entities that are not present in the inventory structure (i.e. an
+     * empty configuration of a resource). Such paths can be reported, too, and the reporter can safely ignore them.
+     *
+     * @param stored   the tree hash of the entity as stored in the inventory or null if there is no such entity
+     * @param reported the tree hash of the entity reported for example by an agent
+     * @return the differences between the trees with the paths as they appear in the reported tree
+     */
+    public static Differences differences(Tree stored, Tree reported) {
+        Differences ret = new Differences();
+        collectDifferences(stored, reported, ret);
+        return ret;
+    }
+
+    private static void collectDifferences(Tree stored, Tree reported, Differences result) {
+        if (stored != null && Objects.equals(stored.getHash(), reported.getHash())) {
+            return;
+        }
+
+        if (stored == null || reported.getChildren().isEmpty()) {
+            result.subtrees.add(reported.getPath());
+            return;
+        }
+
+        for (Tree storedChild : stored.getChildren()) {
+            if (reported.getChild(storedChild.getPath().getSegment()) == null) {
+                //the stored child needs to be deleted, which is only possible by syncing its parent
+                result.subtrees.add(reported.getPath());
+                return;
+            }
+        }
+
+        //the parents precede their children in the entities
+        int entityIndex = result.entities.size();
+        result.entities.add(reported.getPath());
+
+        int differingChildren = result.subtrees.size();
+        for (Tree reportedChild : reported.getChildren()) {
+            collectDifferences(stored.getChild(reportedChild.getPath().getSegment()), reportedChild, result);
+        }
+
+        //each differing child ends up in the subtrees or has a descendant there
+        if (differingChildren == result.subtrees.size()) {
+            result.entities.remove(entityIndex);
+            result.subtrees.add(reported.getPath());
+        }
+    }
+
+    /**
+     * The result of the comparison of the reported tree hash with the stored one.
+     *
+     * @see #differences(Tree, Tree)
+     */
+    public static final class Differences {
+        private final List<RelativePath> subtrees = new ArrayList<>();
+        private final List<RelativePath> entities = new ArrayList<>();
+
+        private Differences() {
+
+        }
+
+        /**
+         * @return the paths of the subtrees that need to be synchronized as a whole, none of them being a parent of
+         * another
+         */
+        public List<RelativePath> getSubtrees() {
+            return Collections.unmodifiableList(subtrees);
+        }
+
+        /**
+         * @return the paths of the parents of the differing subtrees, whose own data might have changed, too. These
+         * need to be synchronized without their children (i.e. with a configuration that doesn't sync any types).
+         * The parents precede their children in the list.
+         */
+        public List<RelativePath> getEntities() {
+            return Collections.unmodifiableList(entities);
+        }
+
+        public boolean isEmpty() {
+            return subtrees.isEmpty() && entities.isEmpty();
+        }
+    }
+
     public static final class Tree extends AbstractHashTree<Tree, String> {
         //jackson support
         private Tree() {
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2015-2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.api.model;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+
+import org.hawkular.inventory.paths.RelativePath;
+
+/**
+ * A single node of an inventory structure sent to the inventory as part of a streaming synchronization. The nodes of
+ * the structure are sent in the depth-first order, each node being immediately followed by its children. The path of
+ * the node is relative to the root of the synchronized structure, the root itself having an empty path.
+ *
+ * <p>Each node carries the sync hash of the subtree it represents as computed by the sender so that the inventory can
+ * skip the subtrees that didn't change without having to compare them entity by entity.
+ *
+ * @author Lukas Krejci
+ * @since 0.19.0
+ */
+public final class SyncNode {
+    private final RelativePath path;
+    private final String syncHash;
+    private final Entity.Blueprint blueprint;
+
+    public static SyncNode of(RelativePath path, String syncHash, Entity.Blueprint blueprint) {
+        return new SyncNode(path, syncHash, blueprint);
+    }
+
+    public SyncNode(RelativePath path, String syncHash, Entity.Blueprint blueprint) {
+        if (path == null) {
+            throw new IllegalArgumentException("path cannot be null");
+        }
+
+        if (blueprint == null) {
+            throw new IllegalArgumentException("blueprint cannot be null");
+        }
+
+        this.path = path;
+        this.syncHash = syncHash;
+        this.blueprint = blueprint;
+    }
+
+    /**
+     * Reconstructs the inventory structure from the nodes sent in the depth-first order. This is useful for the
+     * implementations that cannot process the nodes as they come and need to have the whole structure at hand.
+     *
+     * @param nodes the nodes of the structure in the depth-first order, starting with the root
+     * @param <B> the type of the blueprint of the root entity
+     * @return the inventory structure
+     * @throws IllegalArgumentException if the nodes are not in the depth-first order
+     */
+    @SuppressWarnings("unchecked")
+    public static <B extends Entity.Blueprint> InventoryStructure<B> toStructure(Iterator<SyncNode> nodes) {
+        if (!nodes.hasNext()) {
+            throw new IllegalArgumentException("At least the root of the structure needs to be supplied.");
+        }
+
+        SyncNode root = nodes.next();
+        if (root.getPath().isDefined()) {
+            throw new IllegalArgumentException("The first node of the structure needs to be its root.");
+        }
+
+        InventoryStructure.Builder<B> bld = InventoryStructure.of((B) root.getBlueprint());
+
+        Deque<InventoryStructure.AbstractBuilder<?>> parents = new ArrayDeque<>();
+        parents.push(bld);
+
+        while (nodes.hasNext()) {
+            SyncNode node = nodes.next();
+
+            while (!parents.isEmpty() && !parents.peek().getPath().isParentOf(node.getPath())) {
+                parents.pop();
+            }
+
+            if (parents.isEmpty() || parents.peek().getPath().getDepth() + 1 != node.getPath().getDepth()) {
+                throw new IllegalArgumentException("Node on path " + node.getPath() + " doesn't follow its parent" +
+                        " in the depth-first order.");
+            }
+
+            parents.push(parents.peek().startChild(node.getBlueprint()));
+        }
+
+        return bld.build();
+    }
+
+    public RelativePath getPath() {
+        return path;
+    }
+
+    /**
+     * @return the sync hash of the node as computed by the sender or null if the sender didn't compute it, in which
+     * case the node is always compared with the inventory
+     */
+    public String getSyncHash() {
+        return syncHash;
+    }
+
+    public Entity.Blueprint getBlueprint() {
+        return blueprint;
+    }
+
+    @Override public String toString() {
+        return "SyncNode[" + "path=" + path + ", syncHash='" + syncHash + '\'' + ']';
+    }
+}
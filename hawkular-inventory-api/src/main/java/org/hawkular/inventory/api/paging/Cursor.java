@@ -0,0 +1,60 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.api.paging;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.util.Base64;
+
+/**
+ * Encodes and decodes the cursors used by the cursor-based (also known as keyset) paging.
+ *
+ * <p>A cursor is an opaque token identifying the position in the results after which the next page starts. The
+ * clients are not supposed to create or interpret the cursors, they merely pass on the cursor they obtained from
+ * {@link Page#getNextCursor()}.
+ *
+ * @author Lukas Krejci
+ * @since 0.19.0
+ */
+public final class Cursor {
+
+    private Cursor() {
+
+    }
+
+    /**
+     * @param lastKey the sort key of the last element on a page
+     * @return the cursor pointing after the element
+     */
+    public static String encode(String lastKey) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(lastKey.getBytes(UTF_8));
+    }
+
+    /**
+     * @param cursor the cursor to decode
+     * @return the sort key the cursor points after or null if the cursor is null or empty (i.e. points to the start of
+     * the results)
+     * @throws IllegalArgumentException if the cursor is not valid
+     */
+    public static String decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+
+        return new String(Base64.getUrlDecoder().decode(cursor), UTF_8);
+    }
+}
@@ -68,6 +68,16 @@ public class Page<T> implements Iterator<T>, AutoCloseable, Iterable<T> {
         return totalSize;
     }
 
+    /**
+     * Only available with the {@link PageContext#isCursorBased() cursor-based} paging and only once all the elements of
+     * the page have been read.
+     *
+     * @return the cursor pointing to the next page of the results or null if there are no more results
+     */
+    public String getNextCursor() {
+        return null;
+    }
+
     /**
      * Try to avoid calling this method in production code, because it can have bad impact on performance
      * <p>
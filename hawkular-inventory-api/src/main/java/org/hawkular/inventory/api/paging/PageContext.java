@@ -19,6 +19,7 @@ package org.hawkular.inventory.api.paging;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * @author Lukas Krejci
@@ -26,9 +27,12 @@ import java.util.List;
  */
 public class PageContext {
     public static final int UNLIMITED_PAGE_SIZE = -1;
+    public static final int UNLIMITED_TOTAL_SIZE = -1;
 
     private final int pageSize;
     private final int pageNumber;
+    private final int totalSizeLimit;
+    private final String cursor;
     private final List<Order> order;
 
     public PageContext(int pageNumber, int pageSize, Order... orders) {
@@ -37,14 +41,40 @@ public class PageContext {
         }
         this.pageNumber = pageSize >= 0 ? pageNumber : 0;
         this.pageSize = pageSize;
+        this.totalSizeLimit = UNLIMITED_TOTAL_SIZE;
+        this.cursor = null;
         List<Order> tmp = new ArrayList<>();
         Collections.addAll(tmp, orders);
         this.order = Collections.unmodifiableList(tmp);
     }
 
     public PageContext(int pageNumber, int pageSize, Iterable<Order> orders) {
-        this.pageNumber = pageSize >= 0 ? pageNumber : 0;
+        this(pageNumber, pageSize, UNLIMITED_TOTAL_SIZE, orders);
+    }
+
+    /**
+     * @param pageNumber     the number of the page (0-based)
+     * @param pageSize       the size of the page or {@link #UNLIMITED_PAGE_SIZE}
+     * @param totalSizeLimit the limit up to which to count the total size of the results, 0 not to count it at all or
+     *                       {@link #UNLIMITED_TOTAL_SIZE} to count it exactly
+     * @param orders         the ordering of the results
+     */
+    public PageContext(int pageNumber, int pageSize, int totalSizeLimit, Iterable<Order> orders) {
+        this(pageNumber, pageSize, totalSizeLimit, null, orders);
+    }
+
+    /**
+     * @param pageNumber     the number of the page (0-based), ignored if the cursor is not null
+     * @param pageSize       the size of the page or {@link #UNLIMITED_PAGE_SIZE}
+     * @param totalSizeLimit see {@link #PageContext(int, int, int, Iterable)}
+     * @param cursor         the cursor to continue from or null if the paging is not cursor-based
+     * @param orders         the ordering of the results, ignored if the cursor is not null
+     */
+    public PageContext(int pageNumber, int pageSize, int totalSizeLimit, String cursor, Iterable<Order> orders) {
+        this.pageNumber = pageSize >= 0 && cursor == null ? pageNumber : 0;
         this.pageSize = pageSize;
+        this.totalSizeLimit = totalSizeLimit < 0 ? UNLIMITED_TOTAL_SIZE : totalSizeLimit;
+        this.cursor = cursor;
         List<Order> tmp = new ArrayList<>();
         orders.forEach(tmp::add);
         if (tmp.size() == 0) {
@@ -104,6 +134,48 @@ public class PageContext {
         return pageSize >= 0;
     }
 
+    /**
+     * Counting the total size of the results usually requires going through all of them, which is expensive if only
+     * a single page of the results is requested. If the total size is limited, it is only counted up to the limit
+     * (or up to the end of the page if that is further). If there are more results than that, the total size
+     * reported by the {@link Page} is greater than this limit, but is not exact.
+     *
+     * @return the limit up to which to count the total size of the results, 0 if it should not be counted at all or
+     * {@link #UNLIMITED_TOTAL_SIZE} if it should be counted exactly
+     */
+    public int getTotalSizeLimit() {
+        return totalSizeLimit;
+    }
+
+    /**
+     * @return true if the total size of the results is not counted exactly
+     * @see #getTotalSizeLimit()
+     */
+    public boolean isTotalSizeLimited() {
+        return totalSizeLimit >= 0;
+    }
+
+    /**
+     * The cursor-based (also known as keyset) paging doesn't skip the elements of the previous pages like the paging
+     * by the page numbers does. Instead, it continues right after the last element of the previous page, identified
+     * by the cursor obtained from {@link Page#getNextCursor()}. The results are ordered by their canonical paths and
+     * the total size of the results is not counted.
+     *
+     * @return the cursor to continue from, empty string to start from the beginning of the results or null if the
+     * paging is not cursor-based
+     */
+    public String getCursor() {
+        return cursor;
+    }
+
+    /**
+     * @return true if the paging is cursor-based
+     * @see #getCursor()
+     */
+    public boolean isCursorBased() {
+        return cursor != null;
+    }
+
     /**
      * This list of ordering fields.
      *
@@ -120,7 +192,8 @@ public class PageContext {
 
         PageContext that = (PageContext) o;
 
-        return pageSize == that.pageSize && pageNumber == that.pageNumber && this.order.equals(that.order);
+        return pageSize == that.pageSize && pageNumber == that.pageNumber && totalSizeLimit == that.totalSizeLimit
+                && Objects.equals(cursor, that.cursor) && this.order.equals(that.order);
 
     }
 
@@ -128,12 +201,13 @@ public class PageContext {
     public int hashCode() {
         int result = pageSize;
         result = 31 * result + pageNumber;
+        result = 31 * result + totalSizeLimit;
         return result;
     }
 
     @Override public String toString() {
         return "PagingState[" + "order=" + order + ", pageNumber=" + pageNumber + ", pageSize=" +
-                pageSize + ']';
+                pageSize + ", totalSizeLimit=" + totalSizeLimit + ", cursor=" + cursor + ']';
     }
 
 }
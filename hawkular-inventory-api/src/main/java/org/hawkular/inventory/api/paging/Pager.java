@@ -17,6 +17,7 @@
 package org.hawkular.inventory.api.paging;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -59,6 +60,19 @@ public final class Pager extends PageContext {
         return new Pager(0, UNLIMITED_PAGE_SIZE, order);
     }
 
+    /**
+     * Creates a pager for the cursor-based paging.
+     *
+     * @param cursor   the cursor obtained from {@link Page#getNextCursor()} or null to start from the beginning
+     * @param pageSize the number of the elements on the page
+     * @return a new pager instance
+     * @see PageContext#getCursor()
+     */
+    public static Pager after(String cursor, int pageSize) {
+        return new Pager(0, pageSize, UNLIMITED_TOTAL_SIZE, cursor == null ? "" : cursor,
+                Collections.singletonList(Order.unspecified()));
+    }
+
     /**
      * @return a pager that returns at most a single result.
      */
@@ -85,6 +99,27 @@ public final class Pager extends PageContext {
         super(pageNumber, pageSize, orders);
     }
 
+    /**
+     * @param pageNumber     see {@link #Pager(int, int, Order...)}
+     * @param pageSize       see {@link #Pager(int, int, Order...)}
+     * @param totalSizeLimit see {@link #getTotalSizeLimit()}
+     * @param orders         see {@link #Pager(int, int, Order...)}
+     */
+    public Pager(int pageNumber, int pageSize, int totalSizeLimit, Iterable<Order> orders) {
+        super(pageNumber, pageSize, totalSizeLimit, orders);
+    }
+
+    /**
+     * @param pageNumber     see {@link #Pager(int, int, Order...)}
+     * @param pageSize       see {@link #Pager(int, int, Order...)}
+     * @param totalSizeLimit see {@link #getTotalSizeLimit()}
+     * @param cursor         see {@link #getCursor()}
+     * @param orders         see {@link #Pager(int, int, Order...)}
+     */
+    public Pager(int pageNumber, int pageSize, int totalSizeLimit, String cursor, Iterable<Order> orders) {
+        super(pageNumber, pageSize, totalSizeLimit, cursor, orders);
+    }
+
     /**
      * If this is a limited pager ({@link #isLimited()}), returns the pager pointing to the next page of the results.
      *
@@ -92,10 +127,16 @@ public final class Pager extends PageContext {
      * results.
      *
      * @return a new pager instance
+     * @throws IllegalStateException if this is a cursor-based pager, because the next page of those can only be
+     * obtained using the cursor returned with the current page
      */
     public Pager nextPage() {
+        if (isCursorBased()) {
+            throw new IllegalStateException("Use the cursor from the current page to get the next page.");
+        }
+
         if (getPageSize() >= 0) {
-            return new Pager(getPageNumber() + 1, getPageSize(), getOrder());
+            return new Pager(getPageNumber() + 1, getPageSize(), getTotalSizeLimit(), getOrder());
         } else {
             return this;
         }
@@ -105,14 +146,14 @@ public final class Pager extends PageContext {
      * If this is a limited pager ({@link #isLimited()}), returns the pager pointing to the previous page of the
      * results.
      *
-     * If this is an unlimited pager, then simply returns this very pager because there can be no other page of the
-     * results.
+     * If this is an unlimited pager or a cursor-based pager, then simply returns this very pager because there can be
+     * no other page of the results or it cannot be determined.
      *
      * @return a new pager instance
      */
     public Pager previousPage() {
-        if (getPageNumber() > 0 && getPageSize() >= 0) {
-            return new Pager(getPageNumber() - 1, getPageSize(), getOrder());
+        if (getPageNumber() > 0 && getPageSize() >= 0 && !isCursorBased()) {
+            return new Pager(getPageNumber() - 1, getPageSize(), getTotalSizeLimit(), getOrder());
         } else {
             return this;
         }
@@ -121,6 +162,8 @@ public final class Pager extends PageContext {
     public static final class Builder {
         private int pageNumber;
         private int pageSize;
+        private int totalSizeLimit = UNLIMITED_TOTAL_SIZE;
+        private String cursor;
         private List<Order> order = new ArrayList<>();
 
         private Builder() {
@@ -131,6 +174,25 @@ public final class Pager extends PageContext {
             return this;
         }
 
+        /**
+         * @param limit the limit up to which to count the total size of the results, 0 not to count it at all
+         * @see PageContext#getTotalSizeLimit()
+         */
+        public Builder withTotalSizeLimit(int limit) {
+            this.totalSizeLimit = limit;
+            return this;
+        }
+
+        /**
+         * @param cursor the cursor to continue from (empty to start from the beginning) or null to page by the page
+         *               numbers
+         * @see PageContext#getCursor()
+         */
+        public Builder withCursor(String cursor) {
+            this.cursor = cursor;
+            return this;
+        }
+
         public Builder withStartPage(int pageNumber) {
             this.pageNumber = pageNumber;
             return this;
@@ -155,7 +217,7 @@ public final class Pager extends PageContext {
         }
 
         public Pager build() {
-            return new Pager(pageNumber, pageSize, order);
+            return new Pager(pageNumber, pageSize, totalSizeLimit, cursor, order);
         }
     }
 }
@@ -17,6 +17,7 @@
 package org.hawkular.inventory.api.paging;
 
 import java.util.Iterator;
+import java.util.function.Supplier;
 
 /**
  * Holds the lambda function to be able to correctly calculate the total size, once the
@@ -28,9 +29,23 @@ import java.util.Iterator;
 public class SizeAwarePage<T> extends Page<T> {
     private HasTotalSize hasTotalSize;
     private long totalSize;
+    private Supplier<String> nextCursorSupplier;
+    private String nextCursor;
 
     public SizeAwarePage(Iterator<T> wrapped, PageContext pageContext, HasTotalSize hasTotalSize) {
+        this(wrapped, pageContext, hasTotalSize, () -> null);
+    }
+
+    /**
+     * @param wrapped            the iterator over the elements of the page
+     * @param pageContext        the page context
+     * @param hasTotalSize       the function to compute the total size once the iterator is depleted
+     * @param nextCursorSupplier the function to compute the cursor of the next page once the iterator is depleted
+     */
+    public SizeAwarePage(Iterator<T> wrapped, PageContext pageContext, HasTotalSize hasTotalSize,
+                         Supplier<String> nextCursorSupplier) {
         super(wrapped, pageContext, HasTotalSize.NOT_DEPLETED);
+        this.nextCursorSupplier = nextCursorSupplier;
         this.totalSize = HasTotalSize.NOT_DEPLETED;
         if (hasTotalSize == null) {
             throw new IllegalArgumentException("hasTotalSize can't be null");
@@ -54,6 +69,14 @@ public class SizeAwarePage<T> extends Page<T> {
         return totalSize;
     }
 
+    @Override public String getNextCursor() {
+        if (nextCursorSupplier != null && !hasNext()) {
+            nextCursor = nextCursorSupplier.get();
+            nextCursorSupplier = null;
+        }
+        return nextCursor;
+    }
+
     @Override public boolean hasNext() {
         return super.hasNext();
     }
@@ -66,6 +89,8 @@ public class SizeAwarePage<T> extends Page<T> {
     @Override public void close() {
         getTotalSize();
         this.hasTotalSize = null;
+        getNextCursor();
+        this.nextCursorSupplier = null;
         super.close();
     }
 
@@ -36,6 +36,7 @@ public class TransformingPage<I, O> extends Page<O> {
     private Page<I> wrappedPage;
     private PageContext pageContext;
     private Long totalSize;
+    private String nextCursor;
 
     public TransformingPage(Page<I> wrappedPage, Function<? super I, ? extends O> conversionFunction) {
         super(wrappedPage.getPageContext(), wrappedPage.getTotalSize());
@@ -76,6 +77,11 @@ public class TransformingPage<I, O> extends Page<O> {
         return totalSize == null ? getPage().getTotalSize() : totalSize;
     }
 
+    @Override
+    public String getNextCursor() {
+        return wrappedPage == null ? nextCursor : wrappedPage.getNextCursor();
+    }
+
     @Override
     public List<O> toList() {
         try {
@@ -90,6 +96,7 @@ public class TransformingPage<I, O> extends Page<O> {
     public void close() {
         this.totalSize = wrappedPage.getTotalSize();
         this.wrappedPage.close();
+        this.nextCursor = wrappedPage.getNextCursor();
         this.wrappedPage = null;
         this.conversionFunction = null;
         super.close();
@@ -0,0 +1,276 @@
+/*
+ * Copyright 2015-2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.base;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.hawkular.inventory.api.Interest;
+import org.hawkular.inventory.api.Log;
+import org.hawkular.inventory.api.model.AbstractElement;
+
+import rx.subjects.Subject;
+
+/**
+ * Delivers the notifications to the subscribers on a pool of worker threads, so that the committing threads don't
+ * wait for the subscribers.
+ *
+ * <p>Each interest has its own bounded buffer of the pending notifications, which is drained by at most one worker at
+ * a time, so the notifications of a single interest are delivered in the order they were sent. A worker delivers at
+ * most {@link #DRAIN_BATCH_SIZE} notifications before it lets the other interests have their turn, so that a slow
+ * subscriber only slows down its own notifications (as long as there are enough workers).
+ *
+ * @author Lukas Krejci
+ * @since 0.19.0
+ */
+final class AsyncNotificationDispatcher implements ObservableContext.Dispatcher {
+    private static final int DRAIN_BATCH_SIZE = 64;
+    private static final long CLOSE_TIMEOUT_SECONDS = 10;
+
+    private final int capacity;
+    private final OverflowPolicy overflowPolicy;
+    private final ExecutorService workers;
+    private final Map<Subject<?, ?>, Mailbox<?>> mailboxes = new ConcurrentHashMap<>();
+
+    /**
+     * @param capacity       the maximum number of the pending notifications per interest
+     * @param overflowPolicy what to do when the buffer of an interest is full
+     * @param workerCount    the number of the threads delivering the notifications
+     */
+    AsyncNotificationDispatcher(int capacity, OverflowPolicy overflowPolicy, int workerCount) {
+        this.capacity = capacity;
+        this.overflowPolicy = overflowPolicy;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(workerCount,
+                r -> new WorkerThread(r, "hawkular-inventory-notifications-" + threadCount.incrementAndGet()));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <C> void dispatch(Interest<C, ?> interest, Subject<C, C> subject, Object entity, C actionContext) {
+        Mailbox<C> mailbox = (Mailbox<C>) mailboxes.computeIfAbsent(subject, s -> new Mailbox<>(interest, subject));
+
+        if (mailbox.offer(entity, actionContext)) {
+            schedule(mailbox);
+        }
+    }
+
+    @Override
+    public void forget(Subject<?, ?> subject) {
+        mailboxes.remove(subject);
+    }
+
+    @Override
+    public Map<Interest<?, ?>, NotificationLag> getLags() {
+        Map<Interest<?, ?>, NotificationLag> ret = new HashMap<>();
+        mailboxes.values().forEach(m -> ret.put(m.interest, m.getLag()));
+        return ret;
+    }
+
+    /**
+     * Stops accepting new notifications and waits a while for the pending ones to be delivered.
+     */
+    @Override
+    public void close() {
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                workers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            workers.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void schedule(Mailbox<?> mailbox) {
+        try {
+            workers.execute(mailbox::drain);
+        } catch (RejectedExecutionException e) {
+            //we're closed, so let's deliver in the caller's thread
+            mailbox.drain();
+        }
+    }
+
+    private static Object entityKey(Object entity) {
+        return entity instanceof AbstractElement ? ((AbstractElement<?, ?>) entity).getPath() : entity;
+    }
+
+    enum OverflowPolicy {
+        /**
+         * The sender waits until there is a free space in the buffer.
+         */
+        BLOCK,
+
+        /**
+         * The oldest pending notification is dropped to make space for the new one.
+         */
+        DROP_OLDEST,
+
+        /**
+         * A pending notification about the same entity is replaced by the new one (keeping its place in the buffer).
+         * If there is none, the oldest pending notification is dropped when the buffer is full.
+         */
+        COALESCE;
+
+        static OverflowPolicy fromConfiguration(String value) {
+            switch (value) {
+                case "block":
+                    return BLOCK;
+                case "drop-oldest":
+                    return DROP_OLDEST;
+                case "coalesce":
+                    return COALESCE;
+                default:
+                    throw new IllegalArgumentException("Unknown notification overflow policy: '" + value
+                            + "'. Only 'block', 'drop-oldest' and 'coalesce' are supported.");
+            }
+        }
+    }
+
+    private static final class WorkerThread extends Thread {
+        WorkerThread(Runnable target, String name) {
+            super(target, name);
+            setDaemon(true);
+        }
+    }
+
+    private static final class Pending<C> {
+        final C actionContext;
+        final long enqueuedAt;
+
+        Pending(C actionContext, long enqueuedAt) {
+            this.actionContext = actionContext;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+
+    private final class Mailbox<C> {
+        final Interest<C, ?> interest;
+        private final Subject<C, C> subject;
+
+        //the keys are the entities when coalescing, otherwise unique objects
+        private final LinkedHashMap<Object, Pending<C>> pending = new LinkedHashMap<>();
+        private boolean scheduled;
+        private long delivered;
+        private long dropped;
+        private long coalesced;
+        private long maxLagNanos;
+
+        Mailbox(Interest<C, ?> interest, Subject<C, C> subject) {
+            this.interest = interest;
+            this.subject = subject;
+        }
+
+        /**
+         * @return true if the mailbox needs to be scheduled for draining
+         */
+        synchronized boolean offer(Object entity, C actionContext) {
+            Pending<C> notification = new Pending<>(actionContext, System.nanoTime());
+
+            if (overflowPolicy == OverflowPolicy.COALESCE) {
+                Object key = entityKey(entity);
+                Pending<C> previous = pending.get(key);
+                if (previous != null) {
+                    //keep the place in the queue and the time the entity started waiting
+                    pending.put(key, new Pending<>(actionContext, previous.enqueuedAt));
+                    coalesced++;
+                    return false;
+                }
+            }
+
+            if (pending.size() >= capacity) {
+                //a subscriber sending notifications from the worker would wait for itself
+                if (overflowPolicy == OverflowPolicy.BLOCK && !(Thread.currentThread() instanceof WorkerThread)) {
+                    try {
+                        while (pending.size() >= capacity) {
+                            wait();
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        dropped++;
+                        Log.LOGGER.debugf("Interrupted while waiting to dispatch %s to the subscribers of %s.",
+                                actionContext, interest);
+                        return false;
+                    }
+                } else if (overflowPolicy != OverflowPolicy.BLOCK) {
+                    Iterator<Pending<C>> it = pending.values().iterator();
+                    it.next();
+                    it.remove();
+                    dropped++;
+                }
+            }
+
+            pending.put(overflowPolicy == OverflowPolicy.COALESCE ? entityKey(entity) : new Object(), notification);
+
+            if (scheduled) {
+                return false;
+            } else {
+                scheduled = true;
+                return true;
+            }
+        }
+
+        void drain() {
+            for (int i = 0; i < DRAIN_BATCH_SIZE; ++i) {
+                Pending<C> next;
+                synchronized (this) {
+                    Iterator<Pending<C>> it = pending.values().iterator();
+                    if (!it.hasNext()) {
+                        scheduled = false;
+                        return;
+                    }
+
+                    next = it.next();
+                    it.remove();
+
+                    maxLagNanos = Math.max(maxLagNanos, System.nanoTime() - next.enqueuedAt);
+                    delivered++;
+
+                    //wake up the senders waiting for the space in the buffer
+                    notifyAll();
+                }
+
+                try {
+                    subject.onNext(next.actionContext);
+                } catch (Exception e) {
+                    Log.LOGGER.debugf(e, "Failed to deliver %s to the subscribers of %s.", next.actionContext,
+                            interest);
+                }
+            }
+
+            //let the other interests have their turn, we're still scheduled
+            schedule(this);
+        }
+
+        synchronized NotificationLag getLag() {
+            long oldest = pending.isEmpty() ? 0 : System.nanoTime() - pending.values().iterator().next().enqueuedAt;
+
+            return new NotificationLag(pending.size(), TimeUnit.NANOSECONDS.toMillis(oldest),
+                    TimeUnit.NANOSECONDS.toMillis(maxLagNanos), delivered, dropped, coalesced);
+        }
+    }
+}
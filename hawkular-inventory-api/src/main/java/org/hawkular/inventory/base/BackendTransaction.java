@@ -74,6 +74,14 @@ public class BackendTransaction<E> implements Transaction<E> {
         backend.deleteStructuredData(dataRepresentation);
     }
 
+    @Override public Iterator<E> getEntitiesDefiningOutsideOfSubtree(E subtreeRoot) {
+        return backend.getEntitiesDefiningOutsideOfSubtree(subtreeRoot);
+    }
+
+    @Override public void deleteSubtree(E subtreeRoot) {
+        backend.deleteSubtree(subtreeRoot);
+    }
+
     @Override public E descendToData(E dataEntityRepresentation, RelativePath dataPath) {
         return backend.descendToData(dataEntityRepresentation, dataPath);
     }
@@ -21,6 +21,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
@@ -35,6 +36,7 @@ import org.hawkular.inventory.api.TransactionFrame;
 import org.hawkular.inventory.api.filters.With;
 import org.hawkular.inventory.api.model.AbstractElement;
 import org.hawkular.inventory.api.model.Entity;
+import org.hawkular.inventory.api.model.InventoryStructure;
 import org.hawkular.inventory.api.model.Relationship;
 import org.hawkular.inventory.api.model.Tenant;
 import org.hawkular.inventory.api.paging.Page;
@@ -65,6 +67,39 @@ public abstract class BaseInventory<E> implements Inventory {
             .withPropertyNameAndSystemProperty("hawkular.inventory.transaction.retries")
             .withEnvironmentVariables("HAWKULAR_INVENTORY_TRANSACTION_RETRIES").build();
 
+    /**
+     * Either "sync" (the default), in which case the notifications are delivered to the subscribers in the thread that
+     * committed the transaction, or "async", in which case they are delivered by a pool of dispatch threads.
+     */
+    public static final Configuration.Property NOTIFICATION_DISPATCH = Configuration.Property.builder()
+            .withPropertyNameAndSystemProperty("hawkular.inventory.notifications.dispatch")
+            .withEnvironmentVariables("HAWKULAR_INVENTORY_NOTIFICATIONS_DISPATCH").build();
+
+    /**
+     * The maximum number of the notifications waiting for the delivery to the subscribers of a single interest when
+     * dispatching asynchronously. Defaults to 1000.
+     */
+    public static final Configuration.Property NOTIFICATION_QUEUE_SIZE = Configuration.Property.builder()
+            .withPropertyNameAndSystemProperty("hawkular.inventory.notifications.queue-size")
+            .withEnvironmentVariables("HAWKULAR_INVENTORY_NOTIFICATIONS_QUEUE_SIZE").build();
+
+    /**
+     * The number of the threads delivering the notifications when dispatching asynchronously. Defaults to 2.
+     */
+    public static final Configuration.Property NOTIFICATION_DISPATCH_THREADS = Configuration.Property.builder()
+            .withPropertyNameAndSystemProperty("hawkular.inventory.notifications.dispatch-threads")
+            .withEnvironmentVariables("HAWKULAR_INVENTORY_NOTIFICATIONS_DISPATCH_THREADS").build();
+
+    /**
+     * What to do when the subscribers of an interest don't keep up with the notifications when dispatching
+     * asynchronously. One of "block" (the default, the committing thread waits for a free space in the queue),
+     * "drop-oldest" (the oldest pending notification is dropped) or "coalesce" (a pending notification about the same
+     * entity is replaced by the new one, otherwise the oldest one is dropped).
+     */
+    public static final Configuration.Property NOTIFICATION_OVERFLOW = Configuration.Property.builder()
+            .withPropertyNameAndSystemProperty("hawkular.inventory.notifications.overflow")
+            .withEnvironmentVariables("HAWKULAR_INVENTORY_NOTIFICATIONS_OVERFLOW").build();
+
     private InventoryBackend<E> backend;
     private final ObservableContext observableContext;
     private Configuration configuration;
@@ -135,6 +170,7 @@ public abstract class BaseInventory<E> implements Inventory {
     @Override
     public final void initialize(Configuration configuration) {
         this.backend = doInitialize(configuration);
+        observableContext.configure(configuration);
 
         tenantContext = new TraversalContext<>(this, Query.empty(),
                 Query.path().with(With.type(Tenant.class)).get(), backend, Tenant.class, configuration,
@@ -184,6 +220,8 @@ public abstract class BaseInventory<E> implements Inventory {
 
     @Override
     public final void close() throws Exception {
+        observableContext.close();
+
         if (backend != null) {
             backend.close();
             backend = null;
@@ -220,11 +258,30 @@ public abstract class BaseInventory<E> implements Inventory {
         return observableContext.getObservableFor(interest);
     }
 
+    /**
+     * @return how much the delivery of the notifications lags behind the commits for each observed interest. Empty if
+     * the notifications are dispatched synchronously.
+     * @see #NOTIFICATION_DISPATCH
+     */
+    public Map<Interest<?, ?>, NotificationLag> getNotificationLags() {
+        return observableContext.getLags();
+    }
+
     @Override
     public InputStream getGraphSON(String tenantId) {
         return getBackend().getGraphSON(tenantId);
     }
 
+    @Override
+    public void importTenant(InventoryStructure<Tenant.Blueprint> structure) {
+        BulkImporter.importTenant(tenantContext, structure);
+    }
+
+    @Override
+    public void importTenant(String tenantId, InputStream graphSON) {
+        BulkImporter.importTenant(tenantContext, tenantId, () -> getBackend().importGraphSON(tenantId, graphSON));
+    }
+
     @Override
     public AbstractElement<?, ?> getElement(CanonicalPath path) {
         try {
@@ -25,8 +25,10 @@ import static org.hawkular.inventory.api.Action.syncHashChanged;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
@@ -65,13 +67,20 @@ import org.hawkular.inventory.paths.SegmentType;
  * <p>Most importantly it takes care of minimizing the number of computations needed to compute identity hashes of
  * entities. To compute identity hash of a parent resource, one needs to compute the hashes of all its children so if
  * also the child is modified, it only is necessary to compute the tree of the identity hashes of the parent and pick
- * the hashes of the modified children from that.
+ * the hashes of the modified children from that. The children that have not been modified are not re-hashed at all,
+ * their stored identity hashes are used instead (see {@link #incrementalTreeOf(Entity, ProcessingTree)}).
  *
  * @author Lukas Krejci
  * @since 0.13.0
  */
 public class BasePreCommit<BE> implements Transaction.PreCommit<BE> {
 
+    /**
+     * The number of changed entities under an entity from which it is cheaper to load the children of all of them
+     * using a single query than to load them one query per changed entity and child type.
+     */
+    private static final int BULK_LOAD_THRESHOLD = 32;
+
     /**
      * Notifications about entities that are not hashable and therefore need no processing
      */
@@ -202,12 +211,62 @@ public class BasePreCommit<BE> implements Transaction.PreCommit<BE> {
         @SuppressWarnings("unchecked")
         Entity<? extends Entity.Blueprint, ?> e = (Entity<? extends Entity.Blueprint, ?>) changedEntity.element;
         Hashes.Tree treeHash = computeHashes
-                ? Hashes.treeOf(InventoryStructure.of(e, inventory), e.getPath())
+                ? incrementalTreeOf(e, changedEntity)
                 : Hashes.Tree.builder().build();
 
         __correctChangesNoPrologue(changedEntity, treeHash);
     }
 
+    /**
+     * Computes the tree hash of the provided entity, only descending into the children that have changed in this
+     * transaction.
+     * <p>
+     * The identity hash of an entity is computed from its own data and the identity hashes of its direct children.
+     * Each identity-hashable entity has its identity hash persisted, so the untouched children can contribute their
+     * stored identity hash to the hash of the parent without their subtrees needing to be loaded. As a consequence
+     * only the changed entities and their ancestors are re-hashed, together with their direct children that need to
+     * be loaded to obtain their stored hashes.
+     * <p>
+     * The returned tree only contains the re-computed entities.
+     *
+     * @param root    the entity to compute the tree hash of
+     * @param changes the processing tree of the entity, containing all its changed descendants
+     * @return the tree hash of the entity
+     */
+    private Hashes.Tree incrementalTreeOf(Entity<? extends Entity.Blueprint, ?> root, ProcessingTree<BE> changes) {
+        CanonicalPath rootPath = root.getPath();
+
+        Set<CanonicalPath> changedPaths = new HashSet<>();
+        changes.dfsTraversal(t -> {
+            changedPaths.add(t.cp);
+            return true;
+        });
+
+        Map<CanonicalPath, String> storedIdentityHashes = new HashMap<>();
+        Consumer<Entity<?, ?>> recordHash = e -> {
+            if (e instanceof IdentityHashable) {
+                storedIdentityHashes.put(e.getPath(), ((IdentityHashable) e).getIdentityHash());
+            }
+        };
+
+        //the online structure issues a query per each changed entity and type of its children. If there are a lot of
+        //changes, it is cheaper to load the children of all of them at once. Either way, only the changed entities and
+        //their direct children are loaded, however large the rest of the subtree of the root is (save for the subtrees
+        //of the children that don't have their identity hash stored yet).
+        InventoryStructure<?> structure;
+        if (changedPaths.size() >= BULK_LOAD_THRESHOLD) {
+            structure = BulkStructureLoader.loadChildren(tx, root, changedPaths, (rp, e) -> recordHash.accept(e));
+        } else {
+            structure = InventoryStructure.of(root, inventory, recordHash);
+        }
+
+        return Hashes.treeOf(structure, rootPath, rp -> {
+            CanonicalPath cp = rp.applyTo(rootPath);
+            //a null stored hash means that the entity has never been hashed, so we need to compute it
+            return changedPaths.contains(cp) ? null : storedIdentityHashes.get(cp);
+        });
+    }
+
     private void correctChanges(ProcessingTree<BE> changedEntity, Hashes.Tree newHash) {
         if (__correctChangesPrologue(changedEntity)) {
             return;
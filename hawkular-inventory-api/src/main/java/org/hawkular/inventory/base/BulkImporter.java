@@ -0,0 +1,423 @@
+/*
+ * Copyright 2015-2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.base;
+
+import static java.util.stream.Collectors.toList;
+
+import static org.hawkular.inventory.api.Relationships.Direction.outgoing;
+import static org.hawkular.inventory.api.Relationships.WellKnown.contains;
+import static org.hawkular.inventory.api.Relationships.WellKnown.defines;
+import static org.hawkular.inventory.api.Relationships.WellKnown.hasData;
+import static org.hawkular.inventory.api.Relationships.WellKnown.incorporates;
+import static org.hawkular.inventory.api.Relationships.WellKnown.isParentOf;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import org.hawkular.inventory.api.EntityAlreadyExistsException;
+import org.hawkular.inventory.api.EntityNotFoundException;
+import org.hawkular.inventory.api.Inventory;
+import org.hawkular.inventory.api.Log;
+import org.hawkular.inventory.api.Query;
+import org.hawkular.inventory.api.Relationships;
+import org.hawkular.inventory.api.model.Blueprint;
+import org.hawkular.inventory.api.model.DataEntity;
+import org.hawkular.inventory.api.model.Entity;
+import org.hawkular.inventory.api.model.Hashes;
+import org.hawkular.inventory.api.model.IdentityHashable;
+import org.hawkular.inventory.api.model.InventoryStructure;
+import org.hawkular.inventory.api.model.Metric;
+import org.hawkular.inventory.api.model.MetricType;
+import org.hawkular.inventory.api.model.Resource;
+import org.hawkular.inventory.api.model.ResourceType;
+import org.hawkular.inventory.api.model.Syncable;
+import org.hawkular.inventory.api.model.Tenant;
+import org.hawkular.inventory.base.spi.CommitFailureException;
+import org.hawkular.inventory.base.spi.ElementNotFoundException;
+import org.hawkular.inventory.paths.CanonicalPath;
+import org.hawkular.inventory.paths.RelativePath;
+
+/**
+ * Bulk-loads the whole structure of a new tenant, bypassing the checks and the bookkeeping that the API does for each
+ * created entity.
+ *
+ * <p>The hashes of the entities are computed from the structure, each hashed subtree (e.g. a feed) in one bottom-up
+ * pass, instead of being re-computed after each created entity. No notifications are sent about the created entities.
+ * The entities are written in batches, each in its own transaction, so that the backend can batch the writes and the
+ * transaction caches don't grow with the size of the tenant. The entities are written first and only then wired up
+ * with their types and custom relationships, so that the relationships can point anywhere in the tenant.
+ *
+ * <p>The tenant is not created atomically - its partially loaded content is visible to the other transactions while
+ * the import runs. If the import fails, the partially loaded tenant is deleted.
+ *
+ * @author Lukas Krejci
+ * @since 0.19.0
+ */
+final class BulkImporter {
+    private static final int BATCH_SIZE = 1000;
+
+    private BulkImporter() {
+
+    }
+
+    /**
+     * @param context   the context to obtain the transactions from
+     * @param structure the structure of the tenant
+     * @param <BE>      the type of the backend representation of entities
+     * @throws EntityAlreadyExistsException if the tenant already exists
+     */
+    static <BE> void importTenant(TraversalContext<BE, ?> context, InventoryStructure<Tenant.Blueprint> structure) {
+        CanonicalPath tenantPath = CanonicalPath.of().tenant(structure.getRoot().getId()).get();
+
+        checkDoesNotExist(context, tenantPath);
+
+        Batch<BE> batch = new Batch<>(context);
+        try {
+            traverseWithHashes(structure, tenantPath, (cp, blueprint, hashes) -> {
+                persist(batch, cp, blueprint, hashes);
+                batch.entityDone();
+            });
+
+            traverse(structure, path -> {
+                wireUp(batch, absolute(tenantPath, path), structure.get(path), tenantPath);
+                batch.entityDone();
+            });
+
+            batch.commit();
+        } catch (RuntimeException e) {
+            batch.rollback();
+            discard(context, tenantPath);
+            throw e;
+        }
+    }
+
+    /**
+     * Runs the provided import of the tenant and deletes the partially loaded tenant if it fails.
+     *
+     * @param context  the context to obtain the transactions from
+     * @param tenantId the id of the tenant being imported
+     * @param payload  the import itself
+     * @param <BE>     the type of the backend representation of entities
+     * @throws EntityAlreadyExistsException if the tenant already exists
+     */
+    static <BE> void importTenant(TraversalContext<BE, ?> context, String tenantId, Runnable payload) {
+        CanonicalPath tenantPath = CanonicalPath.of().tenant(tenantId).get();
+
+        checkDoesNotExist(context, tenantPath);
+
+        try {
+            payload.run();
+        } catch (RuntimeException e) {
+            discard(context, tenantPath);
+            throw e;
+        }
+    }
+
+    private static <BE> void persist(Batch<BE> batch, CanonicalPath cp, Blueprint blueprint, Hashes hashes) {
+        Transaction<BE> tx = batch.tx();
+
+        BE entity = tx.persist(cp, blueprint);
+        batch.remember(cp, entity);
+
+        if (cp.getSegment().getElementType() != Tenant.SEGMENT_TYPE) {
+            tx.relate(batch.find(cp.up()), entity, contains.name(), Collections.emptyMap());
+        }
+
+        //these are set by the API using an update after the entity is persisted
+        if (blueprint instanceof ResourceType.Blueprint) {
+            tx.update(entity, ResourceType.Update.builder().build());
+        } else if (blueprint instanceof MetricType.Blueprint) {
+            tx.update(entity, MetricType.Update.builder().withUnit(((MetricType.Blueprint) blueprint).getUnit())
+                    .build());
+        } else if (blueprint instanceof DataEntity.Blueprint) {
+            BE value = tx.persist(((DataEntity.Blueprint<?>) blueprint).getValue());
+            tx.relate(entity, value, hasData.name(), null);
+        }
+
+        tx.updateHashes(entity, hashes);
+    }
+
+    private static <BE> void wireUp(Batch<BE> batch, CanonicalPath cp, Blueprint blueprint, CanonicalPath tenantPath) {
+        Transaction<BE> tx = batch.tx();
+
+        BE entity = null;
+        if (blueprint instanceof Resource.Blueprint) {
+            CanonicalPath parentPath = cp.up();
+            entity = batch.find(cp);
+            CanonicalPath typePath = Util.canonicalize(((Resource.Blueprint) blueprint).getResourceTypePath(),
+                    tenantPath, parentPath, ResourceType.SEGMENT_TYPE);
+
+            tx.relate(findType(batch, typePath, cp), entity, defines.name(), null);
+
+            if (parentPath.getSegment().getElementType() == Resource.SEGMENT_TYPE) {
+                tx.relate(batch.find(parentPath), entity, isParentOf.name(), null);
+            }
+        } else if (blueprint instanceof Metric.Blueprint) {
+            CanonicalPath parentPath = cp.up();
+            entity = batch.find(cp);
+            CanonicalPath typePath = Util.canonicalize(((Metric.Blueprint) blueprint).getMetricTypePath(),
+                    tenantPath, parentPath, MetricType.SEGMENT_TYPE);
+
+            tx.relate(findType(batch, typePath, cp), entity, defines.name(), null);
+
+            if (parentPath.getSegment().getElementType() == Resource.SEGMENT_TYPE) {
+                tx.relate(batch.find(parentPath), entity, incorporates.name(), null);
+            }
+        }
+
+        if (blueprint instanceof Entity.Blueprint) {
+            Entity.Blueprint b = (Entity.Blueprint) blueprint;
+            if (!b.getOutgoingRelationships().isEmpty() || !b.getIncomingRelationships().isEmpty()) {
+                if (entity == null) {
+                    entity = batch.find(cp);
+                }
+
+                relate(batch, entity, outgoing, b.getOutgoingRelationships());
+                relate(batch, entity, Relationships.Direction.incoming, b.getIncomingRelationships());
+            }
+        }
+    }
+
+    private static <BE> BE findType(Batch<BE> batch, CanonicalPath typePath, CanonicalPath entityPath) {
+        try {
+            return batch.find(typePath);
+        } catch (EntityNotFoundException e) {
+            throw new IllegalArgumentException("Type '" + typePath + "' of the entity '" + entityPath + "' not found.");
+        }
+    }
+
+    private static <BE> void relate(Batch<BE> batch, BE entity, Relationships.Direction direction,
+                                    Map<String, Set<CanonicalPath>> otherEnds) {
+        otherEnds.forEach((name, ends) -> ends.forEach(end -> {
+            BE endObject = batch.find(end);
+
+            BE from = direction == outgoing ? entity : endObject;
+            BE to = direction == outgoing ? endObject : entity;
+
+            Util.createAssociation(batch.tx(), from, name, to, null);
+        }));
+    }
+
+    /**
+     * Calls the visitor with the entities of the structure together with their hashes, parents always preceding their
+     * children. The hashes of each hierarchically hashed subtree are computed in one bottom-up pass.
+     */
+    private static void traverseWithHashes(InventoryStructure<?> structure, CanonicalPath rootPath,
+                                           HashedEntityVisitor visitor) {
+        Deque<RelativePath> open = new ArrayDeque<>();
+        open.push(RelativePath.empty().get());
+
+        while (!open.isEmpty()) {
+            RelativePath path = open.pop();
+            Entity.Blueprint blueprint = (Entity.Blueprint) structure.get(path);
+            CanonicalPath cp = absolute(rootPath, path);
+            InventoryStructure<?> subtree = subtree(structure, path, blueprint);
+
+            Class<?> type = Inventory.types().bySegment(Blueprint.getSegmentTypeOf(blueprint)).getElementType();
+            if (Syncable.class.isAssignableFrom(type) || IdentityHashable.class.isAssignableFrom(type)) {
+                //the hashes of the entity depend on the whole subtree, which the tree of hashes covers
+                Deque<Hashes.Tree> openHashes = new ArrayDeque<>();
+                openHashes.push(Hashes.treeOf(subtree, cp));
+
+                while (!openHashes.isEmpty()) {
+                    Hashes.Tree tree = openHashes.pop();
+                    RelativePath treePath = RelativePath.empty().extend(path.getPath())
+                            .extend(tree.getPath().getPath()).get();
+                    visitor.visit(absolute(rootPath, treePath), structure.get(treePath), tree.getHash());
+                    tree.getChildren().forEach(openHashes::push);
+                }
+            } else {
+                //tenants and environments only have the content hash of their own
+                visitor.visit(cp, blueprint, Hashes.of(subtree, cp));
+                children(structure, path).forEach(open::push);
+            }
+        }
+    }
+
+    /**
+     * Calls the visitor with the paths of the entities of the structure, parents always preceding their children.
+     */
+    private static void traverse(InventoryStructure<?> structure, Consumer<RelativePath> visitor) {
+        Deque<RelativePath> open = new ArrayDeque<>();
+        open.push(RelativePath.empty().get());
+
+        while (!open.isEmpty()) {
+            RelativePath path = open.pop();
+            visitor.accept(path);
+            children(structure, path).forEach(open::push);
+        }
+    }
+
+    private static List<RelativePath> children(InventoryStructure<?> structure, RelativePath parent) {
+        try (Stream<Entity.Blueprint> children = structure.getAllChildren(parent)) {
+            return children.map(c -> RelativePath.empty().extend(parent.getPath())
+                    .extend(Blueprint.getSegmentTypeOf(c), c.getId()).get()).collect(toList());
+        }
+    }
+
+    private static CanonicalPath absolute(CanonicalPath rootPath, RelativePath path) {
+        return rootPath.modified().extend(path.getPath()).get();
+    }
+
+    /**
+     * @return the view of the subtree of the structure on the given path
+     */
+    private static InventoryStructure<?> subtree(InventoryStructure<?> structure, RelativePath path,
+                                                 Entity.Blueprint root) {
+        return new InventoryStructure<Entity.Blueprint>() {
+            @Override public Entity.Blueprint getRoot() {
+                return root;
+            }
+
+            @Override public <E extends Entity<? extends B, ?>, B extends Blueprint> Stream<B>
+            getChildren(RelativePath parent, Class<E> childType) {
+                return structure.getChildren(RelativePath.empty().extend(path.getPath()).extend(parent.getPath())
+                        .get(), childType);
+            }
+
+            @Override public Blueprint get(RelativePath p) {
+                return structure.get(RelativePath.empty().extend(path.getPath()).extend(p.getPath()).get());
+            }
+        };
+    }
+
+    private static <BE> void checkDoesNotExist(TraversalContext<BE, ?> context, CanonicalPath tenantPath) {
+        Transaction<BE> tx = context.startTransaction(new Transaction.PreCommit.Simple<>());
+        try {
+            tx.find(tenantPath);
+            throw new EntityAlreadyExistsException(tenantPath.getSegment().getElementId(),
+                    Query.filters(Query.to(tenantPath)));
+        } catch (ElementNotFoundException e) {
+            //good, this is what we want
+        } finally {
+            Transaction.Committable.from(tx).rollback();
+        }
+    }
+
+    private static <BE> void discard(TraversalContext<BE, ?> context, CanonicalPath tenantPath) {
+        Transaction.Committable<BE> tx = Transaction.Committable.from(
+                context.startTransaction(new Transaction.PreCommit.Simple<>()));
+        try {
+            tx.deleteSubtree(tx.find(tenantPath));
+            tx.commit();
+        } catch (ElementNotFoundException e) {
+            tx.rollback();
+        } catch (Exception e) {
+            Log.LOGGER.warnf(e, "Failed to delete the partially imported tenant %s.", tenantPath);
+            tx.rollback();
+        }
+    }
+
+    private interface HashedEntityVisitor {
+        void visit(CanonicalPath path, Blueprint blueprint, Hashes hashes);
+    }
+
+    /**
+     * The current transaction of the import together with the entities already looked up or created in it.
+     */
+    private static final class Batch<BE> {
+        private final TraversalContext<BE, ?> context;
+        private final Map<CanonicalPath, BE> entities = new HashMap<>();
+        private Transaction.Committable<BE> tx;
+        private int size;
+
+        Batch(TraversalContext<BE, ?> context) {
+            this.context = context;
+        }
+
+        Transaction<BE> tx() {
+            if (tx == null) {
+                //no notifications and no hash computations
+                tx = Transaction.Committable.from(context.startTransaction(new Transaction.PreCommit.Simple<>()));
+            }
+
+            return tx;
+        }
+
+        BE find(CanonicalPath cp) {
+            BE ret = entities.get(cp);
+            if (ret == null) {
+                try {
+                    ret = tx().find(cp);
+                } catch (ElementNotFoundException e) {
+                    throw new EntityNotFoundException(Query.filters(Query.to(cp)));
+                }
+                entities.put(cp, ret);
+            }
+
+            return ret;
+        }
+
+        void remember(CanonicalPath cp, BE entity) {
+            entities.put(cp, entity);
+        }
+
+        void entityDone() {
+            if (++size >= BATCH_SIZE) {
+                commit();
+            }
+        }
+
+        void commit() {
+            if (tx == null) {
+                return;
+            }
+
+            try {
+                tx.commit();
+            } catch (CommitFailureException e) {
+                endFailedCommit(e);
+                throw new TransactionFailureException(e, 1);
+            } catch (RuntimeException e) {
+                endFailedCommit(e);
+                throw e;
+            } finally {
+                tx = null;
+                size = 0;
+                //the backend representations are not valid outside of the transaction they were obtained in
+                entities.clear();
+            }
+        }
+
+        /**
+         * The failed transaction still needs to be ended before the import cleans up after itself.
+         */
+        private void endFailedCommit(Exception failure) {
+            if (tx.requiresRollbackAfterFailure(failure)) {
+                try {
+                    tx.rollback();
+                } catch (RuntimeException e) {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+
+        void rollback() {
+            if (tx != null) {
+                tx.rollback();
+                tx = null;
+            }
+        }
+    }
+}
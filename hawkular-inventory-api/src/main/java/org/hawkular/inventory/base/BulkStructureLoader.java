@@ -0,0 +1,205 @@
+/*
+ * Copyright 2015-2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.base;
+
+import static org.hawkular.inventory.api.Relationships.Direction.outgoing;
+import static org.hawkular.inventory.api.Relationships.WellKnown.contains;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterators;
+import java.util.function.BiConsumer;
+import java.util.stream.StreamSupport;
+
+import org.hawkular.inventory.api.Inventory;
+import org.hawkular.inventory.api.Query;
+import org.hawkular.inventory.api.filters.Related;
+import org.hawkular.inventory.api.filters.With;
+import org.hawkular.inventory.api.model.AbstractElement;
+import org.hawkular.inventory.api.model.Entity;
+import org.hawkular.inventory.api.model.IdentityHashable;
+import org.hawkular.inventory.api.model.InventoryStructure;
+import org.hawkular.inventory.api.paging.Order;
+import org.hawkular.inventory.api.paging.Page;
+import org.hawkular.inventory.api.paging.Pager;
+import org.hawkular.inventory.paths.CanonicalPath;
+import org.hawkular.inventory.paths.RelativePath;
+
+/**
+ * Loads the whole inventory structure under some root entity using a single traversal of the backend. Contrast this
+ * with the online inventory structure ({@link InventoryStructure#of(Entity, Inventory)}) that issues a query for
+ * each requested parent and child type.
+ *
+ * <p>The loaded structure is held in memory, indexed by the relative paths of the entities, and so is only suitable
+ * for the cases where the whole (or most of the) structure is going to be processed, like the hash computations or
+ * synchronization.
+ *
+ * @author Lukas Krejci
+ * @since 0.19.0
+ */
+final class BulkStructureLoader {
+
+    private BulkStructureLoader() {
+
+    }
+
+    /**
+     * Loads the structure of the root entity.
+     *
+     * @param tx         the transaction to use
+     * @param root       the backend representation of the root entity
+     * @param rootEntity the root entity
+     * @param onLoad     called for each loaded entity (excluding the root) together with its path relative to the
+     *                   root. The entities are reported in the order of their depth under the root, i.e. parents
+     *                   always precede their children.
+     * @param <BE>       the type of the backend representation of entities
+     * @param <B>        the type of the blueprint of the root entity
+     * @return the in-memory inventory structure of the root entity
+     */
+    static <BE, B extends Entity.Blueprint> InventoryStructure.Offline<B>
+    load(Transaction<BE> tx, BE root, Entity<B, ?> rootEntity, BiConsumer<RelativePath, Entity<?, ?>> onLoad) {
+        Iterator<BE> closure = tx.getTransitiveClosureOver(root, outgoing, contains.name());
+
+        //the data entities contain the structured data, but that is not part of the inventory structure
+        Iterator<Entity<?, ?>> entities = StreamSupport.stream(Spliterators.spliteratorUnknownSize(closure, 0), false)
+                .filter(e -> isStructureEntity(tx.extractType(e)))
+                .<Entity<?, ?>>map(e -> (Entity<?, ?>) tx.convert(e, tx.extractType(e)))
+                .iterator();
+
+        return build(rootEntity, entities, onLoad);
+    }
+
+    /**
+     * Loads only the given entities under the root and their direct children using a single query. This is the part
+     * of the structure the incremental hash computation needs if the given entities are the ones that changed (together
+     * with their ancestors up to the root). Contrary to {@link #load(Transaction, Object, Entity, BiConsumer)}, the
+     * cost is proportional to the number of the changed entities and not to the size of the whole subtree of the root.
+     *
+     * <p>The exception are the children without a stored identity hash (e.g. the ones stored before the identity
+     * hashes were), which the hash computation cannot take as they are. Their whole subtrees are loaded so that their
+     * hashes can be computed from scratch.
+     *
+     * @param tx         the transaction to use
+     * @param rootEntity the root entity
+     * @param parents    the paths of the entities to load the children of, including the root. Each of them must
+     *                   either be the root or have its parent in this collection, too.
+     * @param onLoad     see {@link #load(Transaction, Object, Entity, BiConsumer)}
+     * @param <BE>       the type of the backend representation of entities
+     * @param <B>        the type of the blueprint of the root entity
+     * @return the partial in-memory inventory structure of the root entity
+     */
+    static <BE, B extends Entity.Blueprint> InventoryStructure.Offline<B>
+    loadChildren(Transaction<BE> tx, Entity<B, ?> rootEntity, Collection<CanonicalPath> parents,
+                 BiConsumer<RelativePath, Entity<?, ?>> onLoad) {
+        Query query = Query.path().with(With.paths(parents.toArray(new CanonicalPath[parents.size()])),
+                Related.by(contains)).get();
+
+        List<Entity<?, ?>> children = new ArrayList<>();
+        List<BE> unhashedChildren = new ArrayList<>();
+        try (Page<BE> page = tx.query(query, Pager.unlimited(Order.unspecified()))) {
+            page.forEachRemaining(e -> {
+                Class<?> type = tx.extractType(e);
+                if (isStructureEntity(type)) {
+                    Entity<?, ?> child = (Entity<?, ?>) tx.convert(e, type);
+                    children.add(child);
+
+                    if (!parents.contains(child.getPath()) && !hasIdentityHash(child)) {
+                        unhashedChildren.add(e);
+                    }
+                }
+            });
+        }
+
+        for (BE child : unhashedChildren) {
+            Iterator<BE> closure = tx.getTransitiveClosureOver(child, outgoing, contains.name());
+            closure.forEachRemaining(e -> {
+                Class<?> type = tx.extractType(e);
+                if (isStructureEntity(type)) {
+                    children.add((Entity<?, ?>) tx.convert(e, type));
+                }
+            });
+        }
+
+        return build(rootEntity, children.iterator(), onLoad);
+    }
+
+    /**
+     * Builds the structure of the root entity from its already loaded descendants.
+     *
+     * @param rootEntity  the root entity
+     * @param descendants the descendants of the root entity in any order
+     * @param onLoad      see {@link #load(Transaction, Object, Entity, BiConsumer)}
+     * @param <B>         the type of the blueprint of the root entity
+     * @return the in-memory inventory structure of the root entity
+     */
+    static <B extends Entity.Blueprint> InventoryStructure.Offline<B>
+    build(Entity<B, ?> rootEntity, Iterator<? extends Entity<?, ?>> descendants,
+          BiConsumer<RelativePath, Entity<?, ?>> onLoad) {
+        CanonicalPath rootPath = rootEntity.getPath();
+        int rootDepth = rootPath.getDepth();
+
+        //the closure should be returned in the breadth-first order but let's not rely on that. Rather, bucket the
+        //entities by their depth so that we can be sure the parents are processed before their children.
+        List<List<Entity<?, ?>>> levels = new ArrayList<>();
+
+        while (descendants.hasNext()) {
+            Entity<?, ?> entity = descendants.next();
+
+            int level = entity.getPath().getDepth() - rootDepth - 1;
+            while (levels.size() <= level) {
+                levels.add(new ArrayList<>());
+            }
+
+            levels.get(level).add(entity);
+        }
+
+        InventoryStructure.Builder<B> bld = InventoryStructure.of(Inventory.asBlueprint(rootEntity));
+
+        Map<CanonicalPath, InventoryStructure.AbstractBuilder<?>> parents = new HashMap<>();
+        parents.put(rootPath, bld);
+
+        for (List<Entity<?, ?>> level : levels) {
+            for (Entity<?, ?> e : level) {
+                CanonicalPath path = e.getPath();
+                InventoryStructure.AbstractBuilder<?> parent = parents.get(path.up());
+                if (parent == null) {
+                    //the parent was not part of the structure, so neither is this entity
+                    continue;
+                }
+
+                parents.put(path, parent.startChild(Inventory.asBlueprint(e)));
+
+                onLoad.accept(path.relativeTo(rootPath), e);
+            }
+        }
+
+        return bld.build();
+    }
+
+    private static boolean hasIdentityHash(Entity<?, ?> entity) {
+        return entity instanceof IdentityHashable && ((IdentityHashable) entity).getIdentityHash() != null;
+    }
+
+    static boolean isStructureEntity(Class<?> type) {
+        return Entity.class.isAssignableFrom(type)
+                && InventoryStructure.EntityType.supports(AbstractElement.segmentTypeFromType(type));
+    }
+}
@@ -80,6 +80,16 @@ public class DelegatingInventoryBackend<E> implements InventoryBackend<E> {
         backend.deleteStructuredData(dataRepresentation);
     }
 
+    @Override
+    public Iterator<E> getEntitiesDefiningOutsideOfSubtree(E subtreeRoot) {
+        return backend.getEntitiesDefiningOutsideOfSubtree(subtreeRoot);
+    }
+
+    @Override
+    public void deleteSubtree(E subtreeRoot) {
+        backend.deleteSubtree(subtreeRoot);
+    }
+
     @Override
     public E descendToData(E dataEntityRepresentation, RelativePath dataPath) {
         return backend.descendToData(dataEntityRepresentation, dataPath);
@@ -138,6 +148,11 @@ public class DelegatingInventoryBackend<E> implements InventoryBackend<E> {
         return backend.getGraphSON(tenantId);
     }
 
+    @Override
+    public void importGraphSON(String tenantId, InputStream graphSON) {
+        backend.importGraphSON(tenantId, graphSON);
+    }
+
     @Override
     public E getRelationship(E source, E target, String relationshipName) throws ElementNotFoundException {
         return backend.getRelationship(source, target, relationshipName);
@@ -59,6 +59,14 @@ public class DelegatingTransaction<E> implements Transaction<E> {
         tx.deleteStructuredData(dataRepresentation);
     }
 
+    @Override public Iterator<E> getEntitiesDefiningOutsideOfSubtree(E subtreeRoot) {
+        return tx.getEntitiesDefiningOutsideOfSubtree(subtreeRoot);
+    }
+
+    @Override public void deleteSubtree(E subtreeRoot) {
+        tx.deleteSubtree(subtreeRoot);
+    }
+
     @Override public E descendToData(E dataEntityRepresentation, RelativePath dataPath) {
         return tx.descendToData(dataEntityRepresentation, dataPath);
     }
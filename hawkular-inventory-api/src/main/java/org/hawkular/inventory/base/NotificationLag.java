@@ -0,0 +1,94 @@
+/*
+ * Copyright 2015-2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.base;
+
+/**
+ * A snapshot of how much the delivery of the notifications to the subscribers of a single interest lags behind
+ * the commits when the notifications are dispatched asynchronously.
+ *
+ * @author Lukas Krejci
+ * @see BaseInventory#NOTIFICATION_DISPATCH
+ * @since 0.19.0
+ */
+public final class NotificationLag {
+    private final int pending;
+    private final long oldestPendingMillis;
+    private final long maxLagMillis;
+    private final long delivered;
+    private final long dropped;
+    private final long coalesced;
+
+    NotificationLag(int pending, long oldestPendingMillis, long maxLagMillis, long delivered, long dropped,
+                    long coalesced) {
+        this.pending = pending;
+        this.oldestPendingMillis = oldestPendingMillis;
+        this.maxLagMillis = maxLagMillis;
+        this.delivered = delivered;
+        this.dropped = dropped;
+        this.coalesced = coalesced;
+    }
+
+    /**
+     * @return the number of the notifications waiting to be delivered
+     */
+    public int getPending() {
+        return pending;
+    }
+
+    /**
+     * @return the time the oldest pending notification has been waiting for, in milliseconds, 0 if there are none
+     */
+    public long getOldestPendingMillis() {
+        return oldestPendingMillis;
+    }
+
+    /**
+     * @return the longest time a delivered notification waited for the delivery, in milliseconds
+     */
+    public long getMaxLagMillis() {
+        return maxLagMillis;
+    }
+
+    /**
+     * @return the number of the notifications delivered so far
+     */
+    public long getDelivered() {
+        return delivered;
+    }
+
+    /**
+     * @return the number of the notifications dropped because the subscribers didn't keep up with them
+     */
+    public long getDropped() {
+        return dropped;
+    }
+
+    /**
+     * @return the number of the notifications replaced by a later notification about the same entity before they
+     * were delivered
+     */
+    public long getCoalesced() {
+        return coalesced;
+    }
+
+    @Override
+    public String toString() {
+        return "NotificationLag[" + "pending=" + pending + ", oldestPendingMillis=" + oldestPendingMillis +
+                ", maxLagMillis=" + maxLagMillis + ", delivered=" + delivered + ", dropped=" + dropped +
+                ", coalesced=" + coalesced + ']';
+    }
+}
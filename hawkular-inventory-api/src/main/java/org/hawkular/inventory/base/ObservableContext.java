@@ -1,5 +1,5 @@
 /*
- * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * Copyright 2015-2016 Red Hat, Inc. and/or its affiliates
  * and other contributors as indicated by the @author tags.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
@@ -16,12 +16,17 @@
  */
 package org.hawkular.inventory.base;
 
-import java.util.Iterator;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.hawkular.inventory.api.Action;
+import org.hawkular.inventory.api.Configuration;
 import org.hawkular.inventory.api.Interest;
 import org.hawkular.inventory.api.Log;
 
@@ -35,11 +40,82 @@ import rx.subjects.Subject;
 /**
  * Hold the observables corresponding to different interests for being notified about on inventory.
  *
+ * <p>By default, the notifications are delivered to the subscribers in the thread that sends them. If configured so
+ * using {@link BaseInventory#NOTIFICATION_DISPATCH}, they are delivered asynchronously instead.
+ *
  * @author Lukas Krejci
  * @since 0.0.1
  */
 final class ObservableContext {
+    /**
+     * All the classes and interfaces a class is assignable to, i.e. the entity types of the interests that can match
+     * the instances of the class.
+     */
+    private static final ClassValue<List<Class<?>>> SUPERTYPES = new ClassValue<List<Class<?>>>() {
+        @Override
+        protected List<Class<?>> computeValue(Class<?> type) {
+            Set<Class<?>> ret = new LinkedHashSet<>();
+            collectSupertypes(type, ret);
+            return new ArrayList<>(ret);
+        }
+
+        private void collectSupertypes(Class<?> type, Set<Class<?>> result) {
+            if (type == null || !result.add(type)) {
+                return;
+            }
+
+            collectSupertypes(type.getSuperclass(), result);
+            for (Class<?> iface : type.getInterfaces()) {
+                collectSupertypes(iface, result);
+            }
+        }
+    };
+
     private final Map<Interest<?, ?>, SubjectAndWrapper<?>> observables = new ConcurrentHashMap<>();
+    private volatile Dispatcher dispatcher = Dispatcher.SYNCHRONOUS;
+
+    /**
+     * Sets up the dispatch of the notifications according to the configuration. The contexts are shared by the clones
+     * of the inventory, so this is only done once, when the inventory is initialized.
+     *
+     * @param configuration the configuration of the inventory
+     */
+    void configure(Configuration configuration) {
+        String dispatch = configuration.getProperty(BaseInventory.NOTIFICATION_DISPATCH, "sync");
+        switch (dispatch) {
+            case "sync":
+                break;
+            case "async":
+                int queueSize = Integer.parseInt(configuration.getProperty(BaseInventory.NOTIFICATION_QUEUE_SIZE,
+                        "1000"));
+                int threads = Integer.parseInt(
+                        configuration.getProperty(BaseInventory.NOTIFICATION_DISPATCH_THREADS, "2"));
+                AsyncNotificationDispatcher.OverflowPolicy overflow = AsyncNotificationDispatcher.OverflowPolicy
+                        .fromConfiguration(configuration.getProperty(BaseInventory.NOTIFICATION_OVERFLOW, "block"));
+
+                if (queueSize < 1 || threads < 1) {
+                    throw new IllegalArgumentException("The notification queue size and the number of the dispatch" +
+                            " threads must be positive.");
+                }
+
+                Dispatcher old = dispatcher;
+                dispatcher = new AsyncNotificationDispatcher(queueSize, overflow, threads);
+                old.close();
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown notification dispatch: '" + dispatch + "'. Only 'sync'" +
+                        " and 'async' are supported.");
+        }
+    }
+
+    /**
+     * Delivers the pending notifications (if dispatching asynchronously) and stops the dispatch.
+     */
+    void close() {
+        Dispatcher old = dispatcher;
+        dispatcher = Dispatcher.SYNCHRONOUS;
+        old.close();
+    }
 
     public <C> Observable<C> getObservableFor(Interest<C, ?> interest) {
         SubjectAndWrapper<C> sub = getSubjectAndWrapper(interest, true);
@@ -50,10 +126,40 @@ final class ObservableContext {
         return observables.containsKey(interest);
     }
 
-    @SuppressWarnings("unchecked")
-    public <C, T> Iterator<Subject<C, C>> matchingSubjects(Action<C, T> action, T object) {
-        return observables.entrySet().stream().filter((e) -> e.getKey().matches(action, object))
-                .map((e) -> ((SubjectAndWrapper<C>) e.getValue()).subject).iterator();
+    /**
+     * Sends the notification to the subscribers of all the interests matching the action and the entity.
+     *
+     * <p>An interest is equal to any other interest with the same action and entity type, so instead of checking each
+     * registered interest, this looks up the interests in the action on each of the supertypes of the entity. The cost
+     * of the notification therefore doesn't depend on the number of the registered interests.
+     *
+     * @param action        the action that occurred
+     * @param entity        the entity on which the action occurred
+     * @param actionContext the description of the action
+     * @param <C>           the type of the action description (aka context)
+     * @param <V>           the type of the entity
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public <C, V> void publish(Action<C, V> action, V entity, C actionContext) {
+        if (entity == null || observables.isEmpty()) {
+            return;
+        }
+
+        Dispatcher d = dispatcher;
+        for (Class<?> type : SUPERTYPES.get(entity.getClass())) {
+            Interest<C, ?> interest = new Interest(action, type);
+            SubjectAndWrapper<C> sub = (SubjectAndWrapper<C>) observables.get(interest);
+            if (sub != null) {
+                d.dispatch(interest, sub.subject, entity, actionContext);
+            }
+        }
+    }
+
+    /**
+     * @return the lag of the notification delivery per interest, empty if the notifications are sent synchronously
+     */
+    public Map<Interest<?, ?>, NotificationLag> getLags() {
+        return dispatcher.getLags();
     }
 
     private <C> SubjectAndWrapper<C> getSubjectAndWrapper(Interest<C, ?> interest, boolean initialize) {
@@ -61,8 +167,11 @@ final class ObservableContext {
         SubjectAndWrapper<C> sub = (SubjectAndWrapper<C>) observables.get(interest);
 
         if (initialize && sub == null) {
-            SubscriptionTracker tracker = new SubscriptionTracker(() -> observables.remove(interest));
             Subject<C, C> subject = PublishSubject.<C>create().toSerialized();
+            SubscriptionTracker tracker = new SubscriptionTracker(() -> {
+                observables.remove(interest);
+                dispatcher.forget(subject);
+            });
 
             //error handling:
             //OperatorIgnoreError - in case subscribers and us run in the same thread, an error in the subscriber
@@ -78,6 +187,44 @@ final class ObservableContext {
         return sub;
     }
 
+    /**
+     * Delivers the notifications to the subjects of the interests.
+     */
+    interface Dispatcher extends AutoCloseable {
+        Dispatcher SYNCHRONOUS = new Dispatcher() {
+            @Override
+            public <C> void dispatch(Interest<C, ?> interest, Subject<C, C> subject, Object entity,
+                                     C actionContext) {
+                subject.onNext(actionContext);
+            }
+
+            @Override
+            public void forget(Subject<?, ?> subject) {
+            }
+
+            @Override
+            public Map<Interest<?, ?>, NotificationLag> getLags() {
+                return Collections.emptyMap();
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+
+        <C> void dispatch(Interest<C, ?> interest, Subject<C, C> subject, Object entity, C actionContext);
+
+        /**
+         * Called when the last subscriber of the interest of the subject unsubscribes.
+         */
+        void forget(Subject<?, ?> subject);
+
+        Map<Interest<?, ?>, NotificationLag> getLags();
+
+        @Override
+        void close();
+    }
+
     private static class SubscriptionTracker {
 
         private final AtomicLong counter = new AtomicLong(0);
@@ -16,14 +16,14 @@
  */
 package org.hawkular.inventory.base;
 
-import static java.util.Collections.singletonList;
-
 import static org.hawkular.inventory.api.Relationships.Direction.outgoing;
 import static org.hawkular.inventory.api.Relationships.WellKnown.contains;
 
 import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Deque;
 import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -32,12 +32,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import java.util.Spliterators;
 import java.util.TreeSet;
-import java.util.function.Consumer;
-import java.util.function.Function;
-import java.util.stream.Stream;
-import java.util.stream.StreamSupport;
+import java.util.function.BiConsumer;
 
 import org.hawkular.inventory.api.Data;
 import org.hawkular.inventory.api.EntityNotFoundException;
@@ -66,6 +62,7 @@ import org.hawkular.inventory.api.model.Resource;
 import org.hawkular.inventory.api.model.ResourceType;
 import org.hawkular.inventory.api.model.SyncConfiguration;
 import org.hawkular.inventory.api.model.SyncHash;
+import org.hawkular.inventory.api.model.SyncNode;
 import org.hawkular.inventory.api.model.SyncRequest;
 import org.hawkular.inventory.api.model.Syncable;
 import org.hawkular.inventory.base.spi.ElementNotFoundException;
@@ -130,6 +127,172 @@ abstract class SingleSyncedFetcher<BE, E extends Entity<B, U> & Syncable, B exte
         return inTx(tx -> treeHashAndStructure(tx).getValue());
     }
 
+    /**
+     * Processes the nodes as they come, comparing each of them with the sync hash of the corresponding persisted
+     * entity. A matching subtree is skipped without being looked at any further. Only the path from the root to the
+     * currently processed node (together with the children seen under it so far) is kept in memory.
+     *
+     * <p>Because the nodes are consumed during the synchronization, the transaction cannot be retried in case the
+     * commit fails.
+     */
+    @SuppressWarnings("unchecked")
+    @Override public void synchronize(SyncConfiguration configuration, Iterator<SyncNode> nodes) {
+        boolean[] attempted = new boolean[1];
+
+        inTx(tx -> {
+            if (attempted[0]) {
+                throw new IllegalStateException("Streamed synchronization cannot be retried after a failed commit," +
+                        " because the synchronized nodes have already been consumed.");
+            }
+            attempted[0] = true;
+
+            if (!nodes.hasNext()) {
+                throw new IllegalArgumentException("At least the root of the structure needs to be supplied.");
+            }
+
+            SyncNode rootNode = nodes.next();
+            if (rootNode.getPath().isDefined()) {
+                throw new IllegalArgumentException("The first node of the structure needs to be its root.");
+            }
+
+            Inventory inv = context.inventory.keepTransaction(tx);
+
+            //the currently processed path in the tree, the top being the deepest node
+            Deque<StreamedNode<BE>> open = new ArrayDeque<>();
+
+            BE root = tx.querySingle(context.select().get());
+            if (root == null) {
+                @SuppressWarnings("unchecked")
+                B rootBlueprint = (B) rootNode.getBlueprint();
+                root = createMutator(tx).doCreate(rootBlueprint, tx).getEntityRepresentation();
+                open.push(new StreamedNode<>(rootNode.getPath(), null));
+            } else if (isUpToDate(tx, root, rootNode)) {
+                return null;
+            } else {
+                inv.inspect(tx.extractCanonicalPath(root), ResolvableToSingle.class)
+                        .update(updateFromBlueprint(rootNode.getBlueprint()));
+                open.push(new StreamedNode<>(rootNode.getPath(), root));
+            }
+
+            CanonicalPath rootPath = tx.extractCanonicalPath(root);
+
+            //the root of the up-to-date subtree we're currently skipping over
+            RelativePath skipped = null;
+
+            while (nodes.hasNext()) {
+                SyncNode node = nodes.next();
+                RelativePath path = node.getPath();
+
+                if (skipped != null && skipped.isParentOf(path)) {
+                    continue;
+                }
+                skipped = null;
+
+                while (!open.isEmpty() && !open.peek().path.isParentOf(path)) {
+                    finish(tx, inv, open.pop(), configuration);
+                }
+
+                if (open.isEmpty() || open.peek().path.getDepth() + 1 != path.getDepth()) {
+                    throw new IllegalArgumentException("Node on path " + path + " doesn't follow its parent in the" +
+                            " depth-first order.");
+                }
+
+                StreamedNode<BE> parent = open.peek();
+                parent.seenChildren.add(path.getSegment());
+
+                CanonicalPath cp = path.applyTo(rootPath);
+
+                BE existing = null;
+                if (!parent.isNew()) {
+                    try {
+                        existing = tx.find(cp);
+                    } catch (ElementNotFoundException e) {
+                        //fine, we're going to create it
+                    }
+                }
+
+                if (existing == null) {
+                    createEntity(inv, cp, node.getBlueprint());
+                    open.push(new StreamedNode<>(path, null));
+                } else if (isUpToDate(tx, existing, node)) {
+                    skipped = path;
+                } else {
+                    inv.inspect(cp, ResolvableToSingle.class).update(updateFromBlueprint(node.getBlueprint()));
+                    open.push(new StreamedNode<>(path, existing));
+                }
+            }
+
+            while (!open.isEmpty()) {
+                finish(tx, inv, open.pop(), configuration);
+            }
+
+            return null;
+        });
+    }
+
+    private boolean isUpToDate(Transaction<BE> tx, BE entity, SyncNode node) {
+        return node.getSyncHash() != null && node.getSyncHash().equals(tx.extractSyncHash(entity));
+    }
+
+    /**
+     * Called when all the children of the node have been streamed in. Deletes the persisted children that were not
+     * mentioned, honoring the sync configuration the same way as {@link #mergeTree(InventoryStructure,
+     * InventoryStructure, SyncConfiguration)} does.
+     */
+    private void finish(Transaction<BE> tx, Inventory inv, StreamedNode<BE> node, SyncConfiguration configuration) {
+        if (node.isNew()) {
+            //there can be no other children than those we've just created
+            return;
+        }
+
+        for (BE child : structureChildren(tx, node.entity)) {
+            CanonicalPath childCp = tx.extractCanonicalPath(child);
+            if (node.seenChildren.contains(childCp.getSegment())) {
+                continue;
+            }
+
+            if (configuration.getSyncedTypes().contains(childCp.getSegment().getElementType())) {
+                delete(inv, childCp);
+            } else if (configuration.isDeepSearch()) {
+                deleteSyncedDescendants(tx, inv, child, configuration.getSyncedTypes());
+            }
+        }
+    }
+
+    private void deleteSyncedDescendants(Transaction<BE> tx, Inventory inv, BE entity, Set<SegmentType> syncedTypes) {
+        for (BE child : structureChildren(tx, entity)) {
+            CanonicalPath childCp = tx.extractCanonicalPath(child);
+            if (syncedTypes.contains(childCp.getSegment().getElementType())) {
+                delete(inv, childCp);
+            } else {
+                deleteSyncedDescendants(tx, inv, child, syncedTypes);
+            }
+        }
+    }
+
+    private List<BE> structureChildren(Transaction<BE> tx, BE entity) {
+        //collect the children first so that we don't delete from under the iteration
+        List<BE> ret = new ArrayList<>();
+        for (BE rel : tx.getRelationships(entity, outgoing, contains.name())) {
+            BE child = tx.getRelationshipTarget(rel);
+            if (BulkStructureLoader.isStructureEntity(tx.extractType(child))) {
+                ret.add(child);
+            }
+        }
+
+        return ret;
+    }
+
+    private void delete(Inventory inv, CanonicalPath cp) {
+        try {
+            //delete using a normal API so that all checks are run
+            inv.inspect(cp, ResolvableToSingle.class).delete();
+        } catch (EntityNotFoundException e) {
+            Log.LOGGER.debug("Failed to find a child to be deleted on canonical path " + cp
+                    + ". Ignoring this since we were going to delete it anyway.", e);
+        }
+    }
+
     private InventoryStructure<B> mergeTree(InventoryStructure<B> currentTree, InventoryStructure<B> newTree,
                                     SyncConfiguration configuration) {
         if (configuration.isDeepSearch()) {
@@ -224,14 +387,7 @@ abstract class SingleSyncedFetcher<BE, E extends Entity<B, U> & Syncable, B exte
 
                     if (newChild == null) {
                         //ok, this entity is no longer in the new structure
-                        CanonicalPath childCp = oldChild.getPath().applyTo(root);
-                        try {
-                            //delete using a normal API so that all checks are run
-                            inv.inspect(childCp, ResolvableToSingle.class).delete();
-                        } catch (EntityNotFoundException e) {
-                            Log.LOGGER.debug("Failed to find a child to be deleted on canonical path " + childCp
-                                    + ". Ignoring this since we were going to delete it anyway.", e);
-                        }
+                        delete(inv, oldChild.getPath().applyTo(root));
                     } else {
                         //kewl, we have a matching child that we need to sync
                         //let's just postpone the actual update until the end of the method, just in case Java gets
@@ -284,13 +440,10 @@ abstract class SingleSyncedFetcher<BE, E extends Entity<B, U> & Syncable, B exte
         return set;
     }
 
-    @SuppressWarnings("unchecked")
     private void create(Transaction<BE> tx, CanonicalPath root, SyncHash.Tree tree,
                         InventoryStructure<?> newStructure) {
         Inventory inv = context.inventory.keepTransaction(tx);
         CanonicalPath childCp = tree.getPath().applyTo(root);
-        @SuppressWarnings("unchecked")
-        ResolvableToSingle<?, ?> parentAccess = inv.inspect(childCp.up(), ResolvableToSingle.class);
 
         Blueprint blueprint = newStructure.get(tree.getPath());
 
@@ -302,6 +455,18 @@ abstract class SingleSyncedFetcher<BE, E extends Entity<B, U> & Syncable, B exte
             return;
         }
 
+        createEntity(inv, childCp, blueprint);
+
+        for (SyncHash.Tree child : tree.getChildren()) {
+            create(tx, root, child, newStructure);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void createEntity(Inventory inv, CanonicalPath childCp, Blueprint blueprint) {
+        @SuppressWarnings("unchecked")
+        ResolvableToSingle<?, ?> parentAccess = inv.inspect(childCp.up(), ResolvableToSingle.class);
+
         childCp.getSegment().accept(new ElementTypeVisitor.Simple<Void, Void>() {
             @Override public Void visitFeed(Void parameter) {
                 ((Feeds.Container<Feeds.ReadWrite>) parentAccess).feeds().create((Feed.Blueprint) blueprint);
@@ -345,10 +510,6 @@ abstract class SingleSyncedFetcher<BE, E extends Entity<B, U> & Syncable, B exte
                 return null;
             }
         }, null);
-
-        for (SyncHash.Tree child : tree.getChildren()) {
-            create(tx, root, child, newStructure);
-        }
     }
 
     private Entity.Update updateFromBlueprint(Blueprint blueprint) {
@@ -394,115 +555,82 @@ abstract class SingleSyncedFetcher<BE, E extends Entity<B, U> & Syncable, B exte
 
     private Map.Entry<InventoryStructure<B>, SyncHash.Tree> treeHashAndStructure(Transaction<BE> tx) {
         BE root = tx.querySingle(context.select().get());
+        if (root == null) {
+            throw new EntityNotFoundException(context.entityClass, Query.filters(context.select().get()));
+        }
+
         E entity = tx.convert(root, context.entityClass);
 
-        SyncHash.Tree.Builder bld = SyncHash.Tree.builder();
-        InventoryStructure.Builder<B> structBld = InventoryStructure.of(Inventory.asBlueprint(entity));
+        SyncTreeCollector treeCollector = new SyncTreeCollector(entity);
 
-        bld.withPath(RelativePath.empty().get()).withHash(entity.getSyncHash());
+        InventoryStructure<B> structure = BulkStructureLoader.load(tx, root, entity, treeCollector);
 
-        //the closure is returned in a breadth-first manner
-        Iterator<BE> closure = tx.getTransitiveClosureOver(root, outgoing, contains.name());
+        return new SimpleImmutableEntry<>(structure, treeCollector.build());
+    }
 
-        if (closure.hasNext()) {
-            Function<BE, Entity<? extends Entity.Blueprint, ?>> convert =
-                    e -> (Entity<Entity.Blueprint, ?>) tx.convert(e, tx.extractType(e));
-            Stream<BE> st = StreamSupport.stream(Spliterators.spliteratorUnknownSize(closure, 0), false);
-            Iterator<Entity<? extends Entity.Blueprint, ?>> entities = st.map(convert).iterator();
+    private static final class StreamedNode<BE> {
+        final RelativePath path;
+        //null if the entity has just been created
+        final BE entity;
+        final Set<Path.Segment> seenChildren = new HashSet<>();
 
-            buildChildTree(tx, entity.getPath(), singletonList(bld), singletonList(structBld), new ArrayList<>(),
-                    new ArrayList<>(), entities.next(), entities);
+        StreamedNode(RelativePath path, BE entity) {
+            this.path = path;
+            this.entity = entity;
         }
 
-        return new SimpleImmutableEntry<>(structBld.build(), bld.build());
+        boolean isNew() {
+            return entity == null;
+        }
     }
 
-    @SuppressWarnings("unchecked")
-    private void buildChildTree(Transaction<BE> tx, CanonicalPath root,
-                                List<? extends SyncHash.Tree.AbstractBuilder<?>> possibleTreeParents,
-                                List<? extends InventoryStructure.AbstractBuilder<?>> possibleStructParents,
-                                List<SyncHash.Tree.ChildBuilder<?>> currentTreeRow,
-                                List<InventoryStructure.ChildBuilder<?>> currentStructRow,
-                                Entity<? extends Entity.Blueprint, ?> currentElement,
-                                Iterator<Entity<? extends Entity.Blueprint, ?>> nextElements) {
-
-        Consumer<Entity<? extends Entity.Blueprint, ?>> decider = e -> {
-            if (!(e instanceof Syncable)) {
+    /**
+     * Builds the sync hash tree out of the entities reported by the {@link BulkStructureLoader}. The tree builders are
+     * indexed by the paths of the entities, so finding the parent of each newly reported entity is a constant time
+     * operation.
+     */
+    static final class SyncTreeCollector implements BiConsumer<RelativePath, Entity<?, ?>> {
+        private final SyncHash.Tree.Builder root;
+        private final Map<CanonicalPath, SyncHash.Tree.AbstractBuilder<?>> builders = new HashMap<>();
+        private final List<SyncHash.Tree.ChildBuilder<?>> children = new ArrayList<>();
+
+        <R extends Entity<?, ?> & Syncable> SyncTreeCollector(R rootEntity) {
+            root = SyncHash.Tree.builder();
+            root.withPath(RelativePath.empty().get()).withHash(rootEntity.getSyncHash());
+            builders.put(rootEntity.getPath(), root);
+        }
+
+        @Override public void accept(RelativePath relativePath, Entity<?, ?> entity) {
+            if (!(entity instanceof Syncable)) {
                 return;
             }
 
-            CanonicalPath currentPath = e.getPath();
-            RelativePath relativeCurrentPath = currentPath.relativeTo(root);
-            SyncHash.Tree.AbstractBuilder<?> treeParent = findTreeParent(possibleTreeParents, relativeCurrentPath);
-            InventoryStructure.AbstractBuilder<?> structParent = findStructParent(possibleStructParents, relativeCurrentPath);
-
-            if ((treeParent == null && structParent != null) || (treeParent != null && structParent == null)) {
-                throw new IllegalStateException(
-                        "Inconsistent tree hash and inventory structure builders while computing the child tree of" +
-                                " entity " + root + ". This is a bug.");
+            //the loader reports the parents before their children, so if the parent is not here, it was not part of
+            //the tree and neither is the child
+            SyncHash.Tree.AbstractBuilder<?> parent = builders.get(entity.getPath().up());
+            if (parent == null) {
+                return;
             }
 
-            if (treeParent == null) {
-                //ok, our parents don't have this child. Seems like we need to start a new row.
+            SyncHash.Tree.ChildBuilder<?> child = parent.startChild();
+            child.withHash(((Syncable) entity).getSyncHash());
+            child.withPath(relativePath);
 
-                //first end our parents
-                possibleTreeParents.forEach(p -> {
-                    if (p instanceof SyncHash.Tree.ChildBuilder) {
-                        ((SyncHash.Tree.ChildBuilder<?>) p).endChild();
-                    }
-                });
-
-                possibleStructParents.forEach(p -> {
-                    if (p instanceof InventoryStructure.ChildBuilder) {
-                        ((InventoryStructure.ChildBuilder<?>) p).end();
-                    }
-                });
-
-                //and start processing the next row
-                buildChildTree(tx, root, currentTreeRow, currentStructRow, new ArrayList<>(), new ArrayList<>(), e,
-                        nextElements);
-            } else {
-                SyncHash.Tree.ChildBuilder<?> childTreeBuilder = treeParent.startChild();
-                childTreeBuilder.withHash(((Syncable) e).getSyncHash());
-                childTreeBuilder.withPath(relativeCurrentPath);
-                currentTreeRow.add(childTreeBuilder);
-
-                InventoryStructure.ChildBuilder<?> childStructBuilder =
-                        structParent.startChild(Inventory.asBlueprint(e));
-                currentStructRow.add(childStructBuilder);
-            }
-        };
-
-        decider.accept(currentElement);
-        while (nextElements.hasNext()) {
-            decider.accept(nextElements.next());
+            builders.put(entity.getPath(), child);
+            children.add(child);
         }
 
-        for (SyncHash.Tree.ChildBuilder<?> cb : currentTreeRow) {
-            cb.endChild();
-        }
+        SyncHash.Tree build() {
+            //the children are stored ordered by depth, so by ending them in the reverse order, we make sure that
+            //each child is complete before it is added to its parent
+            for (int i = children.size() - 1; i >= 0; --i) {
+                children.get(i).endChild();
+            }
 
-        for (InventoryStructure.ChildBuilder<?> cb : currentStructRow) {
-            cb.end();
+            return root.build();
         }
     }
 
-    private static SyncHash.Tree.AbstractBuilder<?>
-    findTreeParent(List<? extends SyncHash.Tree.AbstractBuilder<?>> possibleParents, RelativePath childPath) {
-        return possibleParents.stream()
-                .filter(p -> p.getPath().isParentOf(childPath) && p.getPath().getDepth() == childPath.getDepth() - 1)
-                .findAny()
-                .orElse(null);
-    }
-
-    private static InventoryStructure.AbstractBuilder<?>
-    findStructParent(List<? extends InventoryStructure.AbstractBuilder<?>> possibleParents, RelativePath childPath) {
-        return possibleParents.stream()
-                .filter(p -> p.getPath().isParentOf(childPath) && p.getPath().getDepth() == childPath.getDepth() - 1)
-                .findAny()
-                .orElse(null);
-    }
-
     private static Map<InventoryStructure.EntityType, Set<SyncHash.Tree>>
     splitByType(Collection<SyncHash.Tree> group) {
 
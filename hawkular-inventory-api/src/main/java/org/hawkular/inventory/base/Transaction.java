@@ -83,6 +83,10 @@ public interface Transaction<E> {
 
     void deleteStructuredData(E dataRepresentation);
 
+    Iterator<E> getEntitiesDefiningOutsideOfSubtree(E subtreeRoot);
+
+    void deleteSubtree(E subtreeRoot);
+
     E descendToData(E dataEntityRepresentation, RelativePath dataPath);
 
     CanonicalPath extractCanonicalPath(E entityRepresentation);
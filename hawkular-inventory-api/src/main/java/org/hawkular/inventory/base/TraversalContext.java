@@ -19,7 +19,6 @@ package org.hawkular.inventory.base;
 import static org.hawkular.inventory.api.filters.With.type;
 
 import java.util.EnumSet;
-import java.util.Iterator;
 import java.util.function.BiConsumer;
 
 import org.hawkular.inventory.api.Action;
@@ -36,8 +35,6 @@ import org.hawkular.inventory.api.model.Relationship;
 import org.hawkular.inventory.base.spi.InventoryBackend;
 import org.hawkular.inventory.paths.Path;
 
-import rx.subjects.Subject;
-
 /**
  * Holds the data needed throughout the construction of inventory traversal.
  *
@@ -296,11 +293,7 @@ public final class TraversalContext<BE, E extends AbstractElement<?, ?>> {
      * @param <V>           the type of the entity on which the action occurred
      */
     <C, V> void notify(V entity, C actionContext, Action<C, V> action) {
-        Iterator<Subject<C, C>> subjects = observableContext.matchingSubjects(action, entity);
-        while (subjects.hasNext()) {
-            Subject<C, C> s = subjects.next();
-            s.onNext(actionContext);
-        }
+        observableContext.publish(action, entity, actionContext);
     }
 
     public int getTransactionRetriesCount() {
@@ -18,16 +18,13 @@ package org.hawkular.inventory.base;
 
 import static org.hawkular.inventory.api.Action.created;
 import static org.hawkular.inventory.api.Action.deleted;
-import static org.hawkular.inventory.api.Relationships.Direction.both;
+import static org.hawkular.inventory.api.Relationships.Direction.incoming;
 import static org.hawkular.inventory.api.Relationships.Direction.outgoing;
 import static org.hawkular.inventory.api.Relationships.WellKnown.contains;
-import static org.hawkular.inventory.api.Relationships.WellKnown.defines;
-import static org.hawkular.inventory.api.Relationships.WellKnown.hasData;
 
-import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Random;
-import java.util.Set;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -334,70 +331,57 @@ final class Util {
             cleanupFunction.accept(entity, tx);
         }
 
-        Set<BE> verticesToDeleteThatDefineSomething = new HashSet<>();
-        Set<BE> dataToBeDeleted = new HashSet<>();
+        //check that no entity in the subtree would leave the entities it defines without a definition
+        Iterator<BE> definers = tx.getEntitiesDefiningOutsideOfSubtree(entity);
+        if (definers.hasNext()) {
+            BE e = definers.next();
 
-        Set<BE> deleted = new HashSet<>();
-        Set<BE> deletedRels = new HashSet<>();
+            //we avoid the convert() function here because the defining entity is only needed for the error message
+            String rootId = tx.extractId(entity);
+            String definingId = tx.extractId(e);
+            String rootType = entityClass.getSimpleName();
+            String definingType = tx.extractType(e).getSimpleName();
 
-        Consumer<BE> categorizer = (e) -> {
-            if (tx.hasRelationship(e, outgoing, defines.name())) {
-                verticesToDeleteThatDefineSomething.add(e);
-            } else {
-                deleted.add(e);
-            }
-            //not only the entity, but also its relationships are going to disappear
-            deletedRels.addAll(tx.getRelationships(e, both));
+            String rootEntity = "Entity[id=" + rootId + ", type=" + rootType + "]";
+            String definingEntity = "Entity[id=" + definingId + ", type=" + definingType + "]";
 
-            tx.getRelationships(e, outgoing, hasData.name()).forEach(rel -> {
-                dataToBeDeleted.add(tx.getRelationshipTarget(rel));
-            });
-        };
+            throw new IllegalArgumentException("Could not delete entity " + rootEntity + ". The entity " +
+                    definingEntity + ", which it (indirectly) contains, acts as a definition for some " +
+                    "entities that are not deleted along with it, which would leave them without a " +
+                    "definition. This is illegal.");
+        }
 
-        categorizer.accept(entity);
-        tx.getTransitiveClosureOver(entity, outgoing, contains.name())
-                .forEachRemaining(categorizer::accept);
+        //record the notifications to be sent out when the transaction commits. The notifications carry the converted
+        //elements, so this needs to happen before the delete. We walk the subtree as it is read from the backend
+        //instead of collecting it first.
+        CanonicalPath rootPath = tx.extractCanonicalPath(entity);
 
-        //we've gathered all entities to be deleted. Now record the notifications to be sent out when the transaction
-        //commits.
         Consumer<BE> addNotification = be -> {
             AbstractElement<?, ?> e = tx.convert(be, (Class<AbstractElement<?, ?>>) tx.extractType(be));
             tx.getPreCommit().addNotifications(new EntityAndPendingNotifications<>(be, e, deleted()));
         };
 
-        deleted.stream().filter(o -> isRepresentableInAPI(tx, o)).forEach(addNotification);
-        verticesToDeleteThatDefineSomething.stream().filter(o -> isRepresentableInAPI(tx, o)).forEach(addNotification);
+        Consumer<BE> notifier = be -> {
+            if (isRepresentableInAPI(tx, be)) {
+                addNotification.accept(be);
+            }
 
-        deletedRels.stream().filter(o -> isRepresentableInAPI(tx, o)).forEach(addNotification);
+            //not only the entity, but also its relationships are going to disappear. To report each relationship only
+            //once, the relationships within the subtree are reported with their sources.
+            tx.getRelationships(be, outgoing).stream().filter(rel -> isRepresentableInAPI(tx, rel))
+                    .forEach(addNotification);
 
-        //k, now we can delete them all... the order is not important anymore
-        for (BE e : deleted) {
-            tx.delete(e);
-        }
+            tx.getRelationships(be, incoming).stream().filter(rel -> {
+                CanonicalPath source = tx.extractCanonicalPath(tx.getRelationshipSource(rel));
+                return !rootPath.equals(source) && !rootPath.isParentOf(source) && isRepresentableInAPI(tx, rel);
+            }).forEach(addNotification);
+        };
 
-        for (BE e : verticesToDeleteThatDefineSomething) {
-            if (tx.hasRelationship(e, outgoing, defines.name())) {
-                //we avoid the convert() function here because it assumes the containing entities of the passed in
-                //entity exist. This might not be true during the delete because the transitive closure "walks" the
-                //entities from the "top" down the containment chain and the entities are immediately deleted.
-                String rootId = tx.extractId(entity);
-                String definingId = tx.extractId(e);
-                String rootType = entityClass.getSimpleName();
-                String definingType = tx.extractType(e).getSimpleName();
-
-                String rootEntity = "Entity[id=" + rootId + ", type=" + rootType + "]";
-                String definingEntity = "Entity[id=" + definingId + ", type=" + definingType + "]";
-
-                throw new IllegalArgumentException("Could not delete entity " + rootEntity + ". The entity " +
-                        definingEntity + ", which it (indirectly) contains, acts as a definition for some " +
-                        "entities that are not deleted along with it, which would leave them without a " +
-                        "definition. This is illegal.");
-            } else {
-                tx.delete(e);
-            }
-        }
+        notifier.accept(entity);
+        tx.getTransitiveClosureOver(entity, outgoing, contains.name()).forEachRemaining(notifier);
 
-        dataToBeDeleted.forEach(tx::deleteStructuredData);
+        //k, now we can delete the whole subtree along with the relationships and data in one go
+        tx.deleteSubtree(entity);
 
         if (postDelete != null) {
             postDelete.accept(entity, tx);
@@ -16,11 +16,21 @@
  */
 package org.hawkular.inventory.base.spi;
 
+import static org.hawkular.inventory.api.Relationships.Direction.outgoing;
+import static org.hawkular.inventory.api.Relationships.WellKnown.contains;
+import static org.hawkular.inventory.api.Relationships.WellKnown.defines;
+import static org.hawkular.inventory.api.Relationships.WellKnown.hasData;
+
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.Spliterators;
 import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import org.hawkular.inventory.api.Query;
 import org.hawkular.inventory.api.Relationships;
@@ -321,6 +331,55 @@ public interface InventoryBackend<E> extends AutoCloseable {
      */
     void deleteStructuredData(E dataRepresentation);
 
+    /**
+     * Finds the entities in the containment subtree of the provided entity (including the entity itself) that define
+     * some entities outside of that subtree. Such subtree cannot be deleted, because it would leave the defined
+     * entities without a definition.
+     *
+     * <p>The default implementation walks the subtree and checks the targets of the "defines" relationships of each
+     * entity in it. The backends are encouraged to provide a more efficient implementation.
+     *
+     * @param subtreeRoot the root of the containment subtree
+     * @return the possibly empty, lazily evaluated iterator over the entities defining something outside the subtree
+     */
+    default Iterator<E> getEntitiesDefiningOutsideOfSubtree(E subtreeRoot) {
+        CanonicalPath root = extractCanonicalPath(subtreeRoot);
+
+        Iterator<E> closure = getTransitiveClosureOver(subtreeRoot, outgoing, contains.name());
+
+        return Stream.concat(Stream.of(subtreeRoot),
+                StreamSupport.stream(Spliterators.spliteratorUnknownSize(closure, 0), false))
+                .filter(e -> getRelationships(e, outgoing, defines.name()).stream()
+                        .map(rel -> extractCanonicalPath(getRelationshipTarget(rel)))
+                        .anyMatch(cp -> !root.equals(cp) && !root.isParentOf(cp)))
+                .iterator();
+    }
+
+    /**
+     * Deletes the entity along with all the entities it (transitively) contains, all the relationships of those
+     * entities and all their structured data. The caller is responsible for checking that the subtree can be deleted
+     * (see {@link #getEntitiesDefiningOutsideOfSubtree(Object)}).
+     *
+     * <p>The default implementation deletes the elements one by one using {@link #delete(Object)} and
+     * {@link #deleteStructuredData(Object)}. The backends are encouraged to delete the whole subtree in bulk.
+     *
+     * @param subtreeRoot the root of the containment subtree to delete
+     */
+    default void deleteSubtree(E subtreeRoot) {
+        //the closure may be evaluated lazily from the top down, so we need to read it fully before deleting anything
+        List<E> subtree = new ArrayList<>();
+        subtree.add(subtreeRoot);
+        getTransitiveClosureOver(subtreeRoot, outgoing, contains.name()).forEachRemaining(subtree::add);
+
+        for (E e : subtree) {
+            for (E rel : getRelationships(e, outgoing, hasData.name())) {
+                deleteStructuredData(getRelationshipTarget(rel));
+            }
+        }
+
+        subtree.forEach(this::delete);
+    }
+
     /**
      * Commits the transaction.
      */
@@ -344,6 +403,21 @@ public interface InventoryBackend<E> extends AutoCloseable {
      */
     InputStream getGraphSON(String tenantId);
 
+    /**
+     * Loads the GraphSON dump of a tenant, as produced by {@link #getGraphSON(String)}, bypassing the inventory API.
+     * The caller makes sure the tenant doesn't exist yet and deletes the partially imported tenant if this fails.
+     *
+     * <p>See the javadoc in {@link org.hawkular.inventory.api.Inventory#importTenant(String, InputStream)}.
+     *
+     * <p>The default implementation throws {@link UnsupportedOperationException}.
+     *
+     * @param tenantId the id of the tenant in the dump
+     * @param graphSON the GraphSON dump
+     */
+    default void importGraphSON(String tenantId, InputStream graphSON) {
+        throw new UnsupportedOperationException("This backend doesn't support importing GraphSON.");
+    }
+
     <T extends Entity<?, ?>> Iterator<T> getTransitiveClosureOver(CanonicalPath startingPoint,
                                                                   Relationships.Direction direction, Class<T> clazz,
                                                                   String... relationshipNames);
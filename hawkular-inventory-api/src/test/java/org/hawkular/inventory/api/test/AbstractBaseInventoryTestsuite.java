@@ -42,7 +42,10 @@ import static org.hawkular.inventory.paths.DataRole.Resource.connectionConfigura
 import static org.hawkular.inventory.paths.DataRole.ResourceType.configurationSchema;
 import static org.hawkular.inventory.paths.DataRole.ResourceType.connectionConfigurationSchema;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.FileInputStream;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -59,12 +62,14 @@ import java.util.UUID;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 import org.hawkular.inventory.api.Action;
 import org.hawkular.inventory.api.Configuration;
 import org.hawkular.inventory.api.Data;
+import org.hawkular.inventory.api.EntityAlreadyExistsException;
 import org.hawkular.inventory.api.EntityNotFoundException;
 import org.hawkular.inventory.api.Environments;
 import org.hawkular.inventory.api.FeedAlreadyRegisteredException;
@@ -114,6 +119,7 @@ import org.hawkular.inventory.api.model.ResourceType;
 import org.hawkular.inventory.api.model.StructuredData;
 import org.hawkular.inventory.api.model.SyncConfiguration;
 import org.hawkular.inventory.api.model.SyncHash;
+import org.hawkular.inventory.api.model.SyncNode;
 import org.hawkular.inventory.api.model.SyncRequest;
 import org.hawkular.inventory.api.model.Tenant;
 import org.hawkular.inventory.api.paging.Order;
@@ -130,6 +136,9 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 import rx.Observable;
 import rx.Subscription;
 
@@ -1430,6 +1439,103 @@ public abstract class AbstractBaseInventoryTestsuite<E> {
         assert msList.size() == 0;
     }
 
+    @Test
+    public void testPagingWithLimitedTotalSize() throws Exception {
+        Metrics.Multiple metrics = inventory.tenants().getAll().environments().getAll().metrics().getAll();
+
+        List<Metric> allResults = metrics.entities(Pager.unlimited(Order.by("id", Order.Direction.DESCENDING)))
+                .toList();
+        Assert.assertEquals(3, allResults.size());
+
+        for (Order order : Arrays.asList(Order.by("id", Order.Direction.DESCENDING), Order.unspecified())) {
+            //the limit above the number of results keeps the total exact
+            Page<Metric> ms = metrics.entities(new Pager(0, 1, 5, Collections.singletonList(order)));
+            Assert.assertEquals(1, ms.toList().size());
+            Assert.assertEquals(3, ms.getTotalSize());
+
+            //the limit at the number of results still is exact
+            ms = metrics.entities(new Pager(0, 1, 3, Collections.singletonList(order)));
+            Assert.assertEquals(1, ms.toList().size());
+            Assert.assertEquals(3, ms.getTotalSize());
+
+            //the limit below the number of results only tells us there are more
+            ms = metrics.entities(new Pager(0, 1, 2, Collections.singletonList(order)));
+            Assert.assertEquals(1, ms.toList().size());
+            Assert.assertTrue(ms.getTotalSize() > 2);
+            Assert.assertTrue(ms.getTotalSize() <= 3);
+
+            //not counting the total still tells us there is a next page
+            ms = metrics.entities(new Pager(0, 1, 0, Collections.singletonList(order)));
+            Assert.assertEquals(1, ms.toList().size());
+            Assert.assertTrue(ms.getTotalSize() > 1);
+
+            //the pages are the same as with the exact total
+            if (order.isSpecific()) {
+                Pager pager = new Pager(0, 1, 1, Collections.singletonList(order));
+                for (Metric expected : allResults) {
+                    List<Metric> page = metrics.entities(pager).toList();
+                    Assert.assertEquals(Collections.singletonList(expected), page);
+                    pager = pager.nextPage();
+                    Assert.assertEquals(1, pager.getTotalSizeLimit());
+                }
+                Assert.assertTrue(metrics.entities(pager).toList().isEmpty());
+            }
+        }
+    }
+
+    @Test
+    public void testCursorPagingWithMixedCaseAndPunctuation() throws Exception {
+        List<String> tenantIds = Arrays.asList("testCursorPaging", "TestCursorPaging", "testCursorPaging-B",
+                "testCursorPaging_b", "testCursorPaging.b", "TESTCURSORPAGING~");
+        List<String> resourceIds = Arrays.asList("Alpha", "alpha", "ALPHA-2", "alpha_2", "alpha.2", "alpha~", "Beta",
+                "beta", "_gamma", "-gamma", "0delta", "zeta", "Zeta", "zeta-", "ZETA_", "z.e.t.a");
+        try {
+            for (String tenantId : tenantIds) {
+                inventory.tenants().create(Tenant.Blueprint.builder().withId(tenantId).build());
+            }
+
+            Feeds.Single feed = inventory.tenants().get("testCursorPaging").feeds()
+                    .create(Feed.Blueprint.builder().withId("feed").build());
+            feed.resourceTypes().create(ResourceType.Blueprint.builder().withId("resourceType").build());
+            for (String id : resourceIds) {
+                feed.resources().create(Resource.Blueprint.builder().withId(id)
+                        .withResourceTypePath("resourceType").build());
+            }
+
+            //the queries on all the tenants can seek to the cursor at the start of the query, the ones on the
+            //resources of a feed filter the results after the traversal
+            List<ResolvableToMany<? extends Entity<?, ?>>> queries = Arrays.asList(inventory.tenants().getAll(),
+                    feed.resources().getAll());
+            for (ResolvableToMany<? extends Entity<?, ?>> query : queries) {
+
+                List<String> expected = query.entities(Pager.unlimited(Order.unspecified())).toList().stream()
+                        .map(e -> e.getPath().toString()).sorted().collect(Collectors.toList());
+
+                for (int pageSize : new int[]{1, 2, 3, 5, 100}) {
+                    List<String> paged = new ArrayList<>();
+                    String cursor = null;
+                    int pages = 0;
+                    do {
+                        Page<? extends Entity<?, ?>> page = query.entities(Pager.after(cursor, pageSize));
+                        List<? extends Entity<?, ?>> entities = page.toList();
+                        Assert.assertTrue(entities.size() <= pageSize);
+                        entities.forEach(e -> paged.add(e.getPath().toString()));
+                        cursor = page.getNextCursor();
+                        Assert.assertTrue("Too many pages", ++pages <= expected.size() + 1);
+                    } while (cursor != null);
+
+                    Assert.assertEquals("Page size " + pageSize, expected, paged);
+                }
+            }
+        } finally {
+            for (String tenantId : tenantIds) {
+                if (inventory.tenants().get(tenantId).exists()) {
+                    inventory.tenants().get(tenantId).delete();
+                }
+            }
+        }
+    }
+
     @Test
     public void testGettingResourcesFromFeedsUsingEnvironments() throws Exception {
         Set<Resource> rs = inventory.tenants().get("com.acme.tenant").environments().get("production")
@@ -2137,6 +2243,69 @@ public abstract class AbstractBaseInventoryTestsuite<E> {
         }
     }
 
+    @Test
+    public void testIdentityHashesWithManyAndFewChangesInTransaction() throws Exception {
+        String tenantId = "testIdentityHashesWithManyAndFewChangesInTransaction";
+        try {
+            Feeds.Single f = inventory.tenants().create(Tenant.Blueprint.builder().withId(tenantId).build())
+                    .feeds().create(Feed.Blueprint.builder().withId("feed").build());
+
+            f.resourceTypes().create(ResourceType.Blueprint.builder().withId("resourceType").build());
+
+            //a lot of changes - the children of all the changed entities are loaded using a single query
+            inTransactionFrame(inv -> {
+                Feeds.Single feed = inv.tenants().get(tenantId).feeds().get("feed");
+                for (int i = 0; i < 50; ++i) {
+                    feed.resources().create(Resource.Blueprint.builder().withId("r" + i)
+                            .withResourceTypePath("resourceType").build());
+                }
+            });
+            assertIdentityHashesUpToDate(f);
+
+            //a few changes - the children of the changed entities are loaded one query at a time
+            inTransactionFrame(inv -> inv.tenants().get(tenantId).feeds().get("feed").resources().get("r7")
+                    .resources().create(Resource.Blueprint.builder().withId("child")
+                            .withResourceTypePath("../resourceType").build()));
+            assertIdentityHashesUpToDate(f);
+
+            //a lot of changes sparse in a larger tree, only their children are loaded, not the whole feed
+            inTransactionFrame(inv -> {
+                Feeds.Single feed = inv.tenants().get(tenantId).feeds().get("feed");
+                for (int i = 0; i < 50; i += 2) {
+                    feed.resources().get("r" + i).resources().create(Resource.Blueprint.builder().withId("child")
+                            .withResourceTypePath("../resourceType").build());
+                }
+            });
+            assertIdentityHashesUpToDate(f);
+        } finally {
+            if (inventory.tenants().get(tenantId).exists()) {
+                inventory.tenants().get(tenantId).delete();
+            }
+        }
+    }
+
+    private void inTransactionFrame(Consumer<Inventory> work) {
+        TransactionFrame frame = inventory.newTransactionFrame();
+        try {
+            work.accept(frame.boundInventory());
+            frame.commit();
+        } catch (RuntimeException e) {
+            frame.rollback();
+            throw e;
+        }
+    }
+
+    private void assertIdentityHashesUpToDate(Feeds.Single feed) {
+        Assert.assertEquals(IdentityHash.of(feed.entity(), inventory), feed.entity().getIdentityHash());
+
+        feed.resources().getAll().entities().forEach(r -> {
+            Assert.assertEquals(IdentityHash.of(r, inventory), r.getIdentityHash());
+
+            inventory.inspect(r).resources().getAll().entities().forEach(c ->
+                    Assert.assertEquals(IdentityHash.of(c, inventory), c.getIdentityHash()));
+        });
+    }
+
     @Test
     public void testTreeHash() throws Exception {
         String tenantId = "testTreeHash";
@@ -2211,6 +2380,11 @@ public abstract class AbstractBaseInventoryTestsuite<E> {
         }
     }
 
+    @Test(expected = EntityNotFoundException.class)
+    public void testTreeHashOfNonExistentEntity() throws Exception {
+        inventory.tenants().get("com.acme.tenant").feeds().get("nonexistent-feed").treeHash();
+    }
+
     @Test
     public void testSynchronizeNew() throws Exception {
         String tenantId = "testSynchronizeNew";
@@ -2280,6 +2454,177 @@ public abstract class AbstractBaseInventoryTestsuite<E> {
         }
     }
 
+    @Test
+    public void testImportTenant() throws Exception {
+        String tenantId = "testImportTenant";
+        List<Resource> createdResources = new ArrayList<>();
+        Subscription s = inventory.observable(Interest.in(Resource.class).being(created()))
+                .subscribe(createdResources::add);
+        try {
+            InventoryStructure<Tenant.Blueprint> structure = importedStructure(tenantId);
+
+            inventory.importTenant(structure);
+
+            Feeds.Single f = inventory.tenants().get(tenantId).feeds().get("feed");
+            Resources.Single r = f.resources().get("resource");
+
+            Assert.assertEquals("resourceType", r.entity().getType().getId());
+            Assert.assertEquals("metricType", r.metrics().get("metric").entity().getType().getId());
+            Assert.assertTrue(r.resources().get("childResource").exists());
+            Assert.assertEquals(42L, r.data().get(configuration).entity().getValue().getValue());
+
+            //the hashes are computed for the whole imported structure
+            Assert.assertEquals(IdentityHash.of(f.entity(), inventory), f.entity().getIdentityHash());
+            Assert.assertNotNull(r.entity().getSyncHash());
+
+            //no notifications are sent about the imported entities
+            Assert.assertTrue(createdResources.isEmpty());
+
+            try {
+                inventory.importTenant(structure);
+                Assert.fail("Importing an existing tenant should have failed.");
+            } catch (EntityAlreadyExistsException e) {
+                //good
+            }
+        } finally {
+            s.unsubscribe();
+            if (inventory.tenants().get(tenantId).exists()) {
+                inventory.tenants().get(tenantId).delete();
+            }
+        }
+    }
+
+    @Test
+    public void testGraphSONExportAndImportRoundTrip() throws Exception {
+        String tenantId = "testGraphSONExportAndImportRoundTrip";
+        try {
+            inventory.importTenant(importedStructure(tenantId));
+
+            Feeds.Single f = inventory.tenants().get(tenantId).feeds().get("feed");
+            Resources.Single r = f.resources().get("resource");
+            CanonicalPath childPath = r.resources().get("childResource").entity().getPath();
+            r.relationships(outgoing).linkWith("dependsOn", childPath, null);
+
+            Feed feed = f.entity();
+            Resource resource = r.entity();
+            Set<CanonicalPath> entities = allEntities(tenantId);
+
+            byte[] dump = graphSON(tenantId);
+
+            inventory.tenants().get(tenantId).delete();
+            Assert.assertFalse(inventory.tenants().get(tenantId).exists());
+
+            inventory.importTenant(tenantId, new ByteArrayInputStream(dump));
+
+            Assert.assertEquals(entities, allEntities(tenantId));
+            Assert.assertEquals(feed.getIdentityHash(), f.entity().getIdentityHash());
+            Assert.assertEquals(resource.getSyncHash(), r.entity().getSyncHash());
+            Assert.assertEquals("resourceType", r.entity().getType().getId());
+            Assert.assertEquals("metricType", r.metrics().get("metric").entity().getType().getId());
+            Assert.assertEquals(Long.valueOf(0), r.metrics().get("metric").entity().getCollectionInterval());
+            Assert.assertEquals(Long.valueOf(0), f.metricTypes().get("metricType").entity().getCollectionInterval());
+            Assert.assertEquals(42L, r.data().get(configuration).entity().getValue().getValue());
+            Assert.assertEquals(Collections.singleton(childPath), r.relationships(outgoing).named("dependsOn")
+                    .entities().stream().map(Relationship::getTarget).collect(toSet()));
+
+            try {
+                inventory.importTenant(tenantId, new ByteArrayInputStream(dump));
+                Assert.fail("Importing an existing tenant should have failed.");
+            } catch (EntityAlreadyExistsException e) {
+                //good
+            }
+        } finally {
+            if (inventory.tenants().get(tenantId).exists()) {
+                inventory.tenants().get(tenantId).delete();
+            }
+        }
+    }
+
+    @Test
+    public void testGraphSONExportContainsOnlyTheTenant() throws Exception {
+        String tenantId = "testGraphSONExportContainsOnlyTheTenant";
+        String otherTenantId = "testGraphSONExportContainsOnlyTheTenant-other";
+        try {
+            inventory.importTenant(importedStructure(tenantId));
+            inventory.importTenant(importedStructure(otherTenantId));
+
+            JsonNode dump = new ObjectMapper().readTree(graphSON(tenantId));
+
+            String tenantPath = CanonicalPath.of().tenant(tenantId).get().toString();
+            Set<String> vertexIds = new HashSet<>();
+            Set<CanonicalPath> dumpedEntities = new HashSet<>();
+            for (JsonNode vertex : dump.get("vertices")) {
+                vertexIds.add(vertex.get("_id").asText());
+
+                //the structured data and identity hash vertices don't have a canonical path
+                JsonNode cp = vertex.get("__cp");
+                if (cp != null) {
+                    //the properties are dumped together with their types
+                    String path = cp.get("value").asText();
+                    Assert.assertTrue("Vertex " + path + " is not in the tenant.",
+                            path.equals(tenantPath) || path.startsWith(tenantPath + "/"));
+                    dumpedEntities.add(CanonicalPath.fromString(path));
+                }
+            }
+
+            //the dump also contains the data entities, which are not "contained"
+            Assert.assertTrue(dumpedEntities.containsAll(allEntities(tenantId)));
+
+            Assert.assertTrue(dump.get("edges").size() > 0);
+            for (JsonNode edge : dump.get("edges")) {
+                Assert.assertTrue("Edge " + edge + " doesn't start in the tenant.",
+                        vertexIds.contains(edge.get("_outV").asText()));
+                Assert.assertTrue("Edge " + edge + " doesn't end in the tenant.",
+                        vertexIds.contains(edge.get("_inV").asText()));
+            }
+        } finally {
+            for (String id : asList(tenantId, otherTenantId)) {
+                if (inventory.tenants().get(id).exists()) {
+                    inventory.tenants().get(id).delete();
+                }
+            }
+        }
+    }
+
+    private byte[] graphSON(String tenantId) throws Exception {
+        ByteArrayOutputStream dump = new ByteArrayOutputStream();
+        try (InputStream in = inventory.getGraphSON(tenantId)) {
+            byte[] buffer = new byte[4096];
+            int cnt;
+            while ((cnt = in.read(buffer)) != -1) {
+                dump.write(buffer, 0, cnt);
+            }
+        }
+        return dump.toByteArray();
+    }
+
+    private static InventoryStructure<Tenant.Blueprint> importedStructure(String tenantId) {
+        return InventoryStructure.Offline
+                .of(Tenant.Blueprint.builder().withId(tenantId).build())
+                .startChild(Feed.Blueprint.builder().withId("feed").build())
+                /**/.addChild(ResourceType.Blueprint.builder().withId("resourceType").build())
+                /**/.addChild(MetricType.Blueprint.builder(MetricDataType.GAUGE)
+                /**/.withId("metricType").withInterval(0L).withUnit(MetricUnit.NONE).build())
+                /**/.startChild(Resource.Blueprint.builder().withId("resource")
+                /**/.withResourceTypePath("resourceType").build())
+                /*  */.addChild(Resource.Blueprint.builder().withId("childResource")
+                /*  */.withResourceTypePath("../resourceType").build())
+                /*  */.addChild(Metric.Blueprint.builder().withId("metric").withInterval(0L)
+                /*  */.withMetricTypePath("../metricType").build())
+                /*  */.addChild(DataEntity.Blueprint.<DataRole.Resource>builder().withRole(configuration)
+                /*  */.withValue(StructuredData.get().integral(42L)).build())
+                /**/.end()
+                .end()
+                .build();
+    }
+
+    private Set<CanonicalPath> allEntities(String tenantId) {
+        Set<CanonicalPath> ret = new HashSet<>();
+        inventory.getTransitiveClosureOver(CanonicalPath.of().tenant(tenantId).get(), outgoing, Entity.class,
+                contains.name()).forEachRemaining(e -> ret.add(e.getPath()));
+        return ret;
+    }
+
     @Test
     public void testSynchronizeNonExistent() throws Exception {
         String tenantId = "testSynchronizeNonExistent";
@@ -2419,6 +2764,89 @@ public abstract class AbstractBaseInventoryTestsuite<E> {
         }
     }
 
+    @Test
+    public void testStreamedSynchronizationMatchesMaterialized() throws Exception {
+        String materializedTenantId = "testStreamedSynchronizationMatchesMaterialized";
+        String streamedTenantId = "testStreamedSynchronizationMatchesMaterialized-streamed";
+        try {
+            Feeds.Single materialized = inventory.tenants()
+                    .create(Tenant.Blueprint.builder().withId(materializedTenantId).build())
+                    .feeds().create(Feed.Blueprint.builder().withId("feed").build());
+            Feeds.Single streamed = inventory.tenants()
+                    .create(Tenant.Blueprint.builder().withId(streamedTenantId).build())
+                    .feeds().create(Feed.Blueprint.builder().withId("feed").build());
+
+            SyncConfiguration config = SyncConfiguration.builder().withAllTypes().build();
+
+            InventoryStructure<Feed.Blueprint> initial = getSyncConfigStructure();
+            materialized.synchronize(new SyncRequest<>(config, initial));
+            streamed.synchronize(config, toSyncNodes(initial, rp -> null).iterator());
+
+            Assert.assertTrue(streamed.resources().get("resource2").resources().get("resource3").exists());
+            Assert.assertEquals(materialized.entity().getIdentityHash(), streamed.entity().getIdentityHash());
+
+            //remove a whole subtree and a leaf, add a new subtree
+            InventoryStructure.Offline.Builder<Feed.Blueprint> bld = InventoryStructure.Offline.copy(initial)
+                    .asBuilder();
+            bld.getChild(Path.Segment.from("r;resource2")).remove();
+            bld.getChild(Path.Segment.from("r;resource1")).getChild(Path.Segment.from("m;metric1")).remove();
+            bld.startChild(Resource.Blueprint.builder().withId("resource4").withResourceTypePath("resourceType")
+                    .build())
+                    .addChild(Resource.Blueprint.builder().withId("resource5")
+                            .withResourceTypePath("../resourceType").build())
+                    .end();
+            InventoryStructure<Feed.Blueprint> updated = bld.build();
+
+            //the resource type didn't change, so the stream can tell the inventory to skip it using its sync hash
+            String resourceTypeHash = streamed.resourceTypes().get("resourceType").entity().getSyncHash();
+            RelativePath resourceTypePath = RelativePath.to().resourceType("resourceType").get();
+
+            materialized.synchronize(new SyncRequest<>(config, updated));
+            streamed.synchronize(config, toSyncNodes(updated,
+                    rp -> rp.equals(resourceTypePath) ? resourceTypeHash : null).iterator());
+
+            Assert.assertFalse(streamed.resources().get("resource2").exists());
+            Assert.assertFalse(streamed.resources().get("resource2").resources().get("resource3").exists());
+            Assert.assertFalse(streamed.resources().get("resource1").metrics().get("metric1").exists());
+            Assert.assertTrue(streamed.resources().get("resource1").metrics().get("metric2").exists());
+            Assert.assertTrue(streamed.resources().get("resource4").resources().get("resource5").exists());
+            Assert.assertTrue(streamed.resourceTypes().get("resourceType").exists());
+
+            Assert.assertEquals(materialized.entity().getIdentityHash(), streamed.entity().getIdentityHash());
+            Assert.assertEquals(IdentityHash.of(streamed.entity(), inventory), streamed.entity().getIdentityHash());
+        } finally {
+            if (inventory.tenants().get(materializedTenantId).exists()) {
+                inventory.tenants().get(materializedTenantId).delete();
+            }
+            if (inventory.tenants().get(streamedTenantId).exists()) {
+                inventory.tenants().get(streamedTenantId).delete();
+            }
+        }
+    }
+
+    /**
+     * Lists the entities of the structure in the depth-first order expected by the streamed synchronization.
+     */
+    private static List<SyncNode> toSyncNodes(InventoryStructure<?> structure,
+                                              Function<RelativePath, String> syncHashes) {
+        List<SyncNode> ret = new ArrayList<>();
+        addSyncNodes(structure, RelativePath.empty().get(), structure.getRoot(), syncHashes, ret);
+        return ret;
+    }
+
+    private static void addSyncNodes(InventoryStructure<?> structure, RelativePath path, Entity.Blueprint blueprint,
+                                     Function<RelativePath, String> syncHashes, List<SyncNode> nodes) {
+        nodes.add(SyncNode.of(path, syncHashes.apply(path), blueprint));
+
+        List<Entity.Blueprint> children;
+        try (Stream<Entity.Blueprint> s = structure.getAllChildren(path)) {
+            children = s.collect(Collectors.toList());
+        }
+
+        children.forEach(c -> addSyncNodes(structure,
+                path.modified().extend(Blueprint.getSegmentTypeOf(c), c.getId()).get(), c, syncHashes, nodes));
+    }
+
     private static InventoryStructure<Feed.Blueprint> getSyncConfigStructure() {
         return InventoryStructure
                 .of(Feed.Blueprint.builder().withId("feed").build())
@@ -3143,6 +3571,31 @@ public abstract class AbstractBaseInventoryTestsuite<E> {
         dataAccess.update(DataEntity.Update.builder().withValue(origData).build());
     }
 
+    @Test
+    public void testUpdateStructuredDataChangingShape() throws Exception {
+        Data.Single dataAccess = inventory.inspect(
+                CanonicalPath.fromString("/t;com.example.tenant/e;test/r;playroom1/d;configuration"),
+                Data.Single.class);
+
+        StructuredData origData = dataAccess.entity().getValue();
+
+        StructuredData modified = StructuredData.get().map()
+                .putMap("answer").putIntegral("value", 42).closeMap()
+                .putList("primitives").addString("a").closeList()
+                .build();
+        dataAccess.update(DataEntity.Update.builder().withValue(modified).build());
+        Assert.assertEquals(modified, dataAccess.entity().getValue());
+        Assert.assertEquals(StructuredData.get().integral(42L),
+                dataAccess.data(RelativePath.to().structuredData().key("answer").key("value").get()));
+
+        modified = StructuredData.get().string("flat");
+        dataAccess.update(DataEntity.Update.builder().withValue(modified).build());
+        Assert.assertEquals(modified, dataAccess.entity().getValue());
+
+        dataAccess.update(DataEntity.Update.builder().withValue(origData).build());
+        Assert.assertEquals(origData, dataAccess.entity().getValue());
+    }
+
     @Test
     public void testFilteringByData() throws Exception {
         Data.Read<DataRole.Resource> configs = inventory.tenants().getAll().environments().getAll().resources()
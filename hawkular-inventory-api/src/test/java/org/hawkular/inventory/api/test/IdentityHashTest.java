@@ -28,6 +28,7 @@ import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 
 import org.hawkular.inventory.api.model.DataEntity;
+import org.hawkular.inventory.api.model.Hashes;
 import org.hawkular.inventory.api.model.IdentityHash;
 import org.hawkular.inventory.api.model.InventoryStructure;
 import org.hawkular.inventory.api.model.MetricDataType;
@@ -37,6 +38,7 @@ import org.hawkular.inventory.api.model.OperationType;
 import org.hawkular.inventory.api.model.Resource;
 import org.hawkular.inventory.api.model.ResourceType;
 import org.hawkular.inventory.api.model.StructuredData;
+import org.hawkular.inventory.paths.CanonicalPath;
 import org.hawkular.inventory.paths.DataRole;
 import org.hawkular.inventory.paths.RelativePath;
 import org.junit.Assert;
@@ -228,6 +230,40 @@ public class IdentityHashTest {
                 .findFirst().isPresent());
     }
 
+    @Test
+    public void testIncrementalHashTreeReusesKnownHashes() throws Exception {
+        Resource.Blueprint rb = Resource.Blueprint.builder().withId("res").withResourceTypePath("../rt;RT").build();
+        Resource.Blueprint crb =
+                Resource.Blueprint.builder().withId("childRes").withResourceTypePath("../../rt;RT").build();
+        Resource.Blueprint grb =
+                Resource.Blueprint.builder().withId("grandChild").withResourceTypePath("../../../rt;RT").build();
+
+        InventoryStructure<Resource.Blueprint> structure = InventoryStructure.of(rb).startChild(crb).addChild(grb)
+                .end().build();
+
+        CanonicalPath rootPath = CanonicalPath.of().tenant("t").feed("f").resource("res").get();
+        RelativePath childPath = RelativePath.to().resource("childRes").get();
+
+        Hashes.Tree full = Hashes.treeOf(structure, rootPath);
+        String childHash = full.getChild(childPath.getSegment()).getHash().getIdentityHash();
+
+        //reusing the correct hash of the child must not change the result
+        Hashes.Tree incremental = Hashes.treeOf(structure, rootPath, rp -> childPath.equals(rp) ? childHash : null);
+
+        Assert.assertEquals(full.getHash(), incremental.getHash());
+        //the child is not part of the tree, because it was not re-computed
+        Assert.assertNull(incremental.getChild(childPath.getSegment()));
+
+        String dummyConnConfHash = digest("" + connectionConfiguration +
+                dummyDataBlueprint(connectionConfiguration).getValue().toJSON());
+        String dummyconfHash = digest("" + configuration + dummyDataBlueprint(configuration).getValue().toJSON());
+        String resourceHash = digest(dummyconfHash + dummyConnConfHash + "known" + rb.getId());
+
+        Hashes.Tree withKnown = Hashes.treeOf(structure, rootPath, rp -> childPath.equals(rp) ? "known" : null);
+
+        Assert.assertEquals(resourceHash, withKnown.getHash().getIdentityHash());
+    }
+
     private String digest(String content) throws NoSuchAlgorithmException {
         byte[] digest = MessageDigest.getInstance("SHA-1").digest(content.getBytes(Charset.forName("UTF-8")));
 
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2015-2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.api.test;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+
+import java.util.Arrays;
+
+import org.hawkular.inventory.api.model.SyncHash;
+import org.hawkular.inventory.paths.RelativePath;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Lukas Krejci
+ * @since 0.19.0
+ */
+public class SyncHashTest {
+
+    private static final RelativePath ROOT = RelativePath.empty().get();
+    private static final RelativePath R2 = RelativePath.to().resource("r2").get();
+    private static final RelativePath R3 = RelativePath.to().resource("r3").get();
+
+    @Test
+    public void testDifferencesReportOnlyChangedChildren() throws Exception {
+        SyncHash.Tree stored = tree("root", "r1", "r2");
+
+        Assert.assertTrue(SyncHash.differences(stored, tree("root", "r1", "r2")).isEmpty());
+
+        SyncHash.Differences diffs = SyncHash.differences(stored, tree("root'", "r1", "r2'"));
+        Assert.assertEquals(singletonList(R2), diffs.getSubtrees());
+        Assert.assertEquals(singletonList(ROOT), diffs.getEntities());
+
+        diffs = SyncHash.differences(stored, tree("root'", "r1", "r2", "r3"));
+        Assert.assertEquals(singletonList(R3), diffs.getSubtrees());
+        Assert.assertEquals(singletonList(ROOT), diffs.getEntities());
+    }
+
+    @Test
+    public void testDifferencesReportParentIfChildrenDontExplainChange() throws Exception {
+        SyncHash.Tree stored = tree("root", "r1", "r2");
+
+        //the data of the root changed
+        assertSubtreeOnly(ROOT, SyncHash.differences(stored, tree("root'", "r1", "r2")));
+        //r2 needs to be deleted
+        assertSubtreeOnly(ROOT, SyncHash.differences(stored, tree("root'", "r1'")));
+        //no children reported
+        assertSubtreeOnly(ROOT, SyncHash.differences(stored, tree("root'")));
+        //nothing stored
+        assertSubtreeOnly(ROOT, SyncHash.differences(null, tree("root", "r1")));
+    }
+
+    @Test
+    public void testDifferencesReportAllParentsOfChangedSubtrees() throws Exception {
+        RelativePath r1 = RelativePath.to().resource("r1").get();
+        RelativePath r1c = RelativePath.to().resource("r1").resource("c").get();
+
+        SyncHash.Tree stored = SyncHash.Tree.builder().withPath(ROOT).withHash("root")
+                .startChild().withPath(r1).withHash("r1")
+                /**/.startChild().withPath(r1c).withHash("c").endChild()
+                .endChild()
+                .startChild().withPath(R2).withHash("r2").endChild()
+                .build();
+
+        SyncHash.Tree reported = SyncHash.Tree.builder().withPath(ROOT).withHash("root'")
+                .startChild().withPath(r1).withHash("r1'")
+                /**/.startChild().withPath(r1c).withHash("c'").endChild()
+                .endChild()
+                .startChild().withPath(R2).withHash("r2").endChild()
+                .build();
+
+        SyncHash.Differences diffs = SyncHash.differences(stored, reported);
+        Assert.assertEquals(singletonList(r1c), diffs.getSubtrees());
+        Assert.assertEquals(Arrays.asList(ROOT, r1), diffs.getEntities());
+    }
+
+    private static void assertSubtreeOnly(RelativePath path, SyncHash.Differences diffs) {
+        Assert.assertEquals(singletonList(path), diffs.getSubtrees());
+        Assert.assertEquals(emptyList(), diffs.getEntities());
+    }
+
+    private static SyncHash.Tree tree(String rootHash, String... childHashes) {
+        SyncHash.Tree.Builder bld = SyncHash.Tree.builder().withPath(ROOT).withHash(rootHash);
+
+        for (String h : childHashes) {
+            //the hash is the id of the child with a "'" appended if it differs
+            String id = h.replace("'", "");
+            bld.startChild().withPath(RelativePath.to().resource(id).get()).withHash(h).endChild();
+        }
+
+        return bld.build();
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2015-2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.base;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.hawkular.inventory.api.Action;
+import org.hawkular.inventory.api.Interest;
+import org.hawkular.inventory.api.model.Tenant;
+import org.hawkular.inventory.paths.CanonicalPath;
+import org.junit.Assert;
+import org.junit.Test;
+
+import rx.subjects.PublishSubject;
+import rx.subjects.Subject;
+
+/**
+ * @author Lukas Krejci
+ * @since 0.19.0
+ */
+public class AsyncNotificationDispatcherTest {
+
+    private final Interest<Tenant, Tenant> interest = Interest.in(Tenant.class).being(Action.created());
+
+    @Test(timeout = 10_000)
+    public void testCoalescesPendingNotificationsAboutSameEntity() throws Exception {
+        List<String> received = dispatchWhileSubscriberIsBusy(AsyncNotificationDispatcher.OverflowPolicy.COALESCE,
+                10, tenant("a", "0"), tenant("b", "1"), tenant("b", "2"), tenant("c", "3"));
+
+        Assert.assertEquals(Arrays.asList("0", "2", "3"), received);
+    }
+
+    @Test(timeout = 10_000)
+    public void testDropsOldestPendingNotificationsWhenFull() throws Exception {
+        List<String> received = dispatchWhileSubscriberIsBusy(AsyncNotificationDispatcher.OverflowPolicy.DROP_OLDEST,
+                2, tenant("a", "0"), tenant("b", "1"), tenant("c", "2"), tenant("d", "3"));
+
+        Assert.assertEquals(Arrays.asList("0", "2", "3"), received);
+    }
+
+    @Test(timeout = 10_000)
+    public void testBlocksSenderWhenFullAndKeepsOrder() throws Exception {
+        //more than a couple of drain batches, so that the mailbox gets rescheduled in between
+        int count = 200;
+
+        AsyncNotificationDispatcher dispatcher = new AsyncNotificationDispatcher(2,
+                AsyncNotificationDispatcher.OverflowPolicy.BLOCK, 1);
+        Subject<Tenant, Tenant> subject = PublishSubject.<Tenant>create().toSerialized();
+
+        List<String> received = new CopyOnWriteArrayList<>();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        subject.subscribe(t -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            received.add(t.getName());
+        });
+
+        Tenant first = tenant("t0", "0");
+        dispatcher.dispatch(interest, subject, first, first);
+        Assert.assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        //the sender is not one of the workers, so it is allowed to wait for the free space
+        AtomicInteger dispatched = new AtomicInteger();
+        Thread sender = new Thread(() -> {
+            for (int i = 1; i < count; ++i) {
+                Tenant t = tenant("t" + i, Integer.toString(i));
+                dispatcher.dispatch(interest, subject, t, t);
+                dispatched.incrementAndGet();
+            }
+        });
+        sender.start();
+
+        while (sender.getState() != Thread.State.WAITING) {
+            Thread.sleep(10);
+        }
+
+        Assert.assertEquals(2, dispatched.get());
+        Assert.assertEquals(2, dispatcher.getLags().get(interest).getPending());
+
+        release.countDown();
+        sender.join();
+        dispatcher.close();
+
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < count; ++i) {
+            expected.add(Integer.toString(i));
+        }
+
+        Assert.assertEquals(expected, received);
+
+        NotificationLag lag = dispatcher.getLags().get(interest);
+        Assert.assertEquals(0, lag.getPending());
+        Assert.assertEquals(count, lag.getDelivered());
+        Assert.assertEquals(0, lag.getDropped());
+    }
+
+    /**
+     * The first tenant is delivered right away and the subscriber doesn't process it until all the rest have been
+     * dispatched.
+     */
+    private List<String> dispatchWhileSubscriberIsBusy(AsyncNotificationDispatcher.OverflowPolicy policy,
+                                                       int capacity, Tenant... tenants) throws Exception {
+        AsyncNotificationDispatcher dispatcher = new AsyncNotificationDispatcher(capacity, policy, 1);
+        Subject<Tenant, Tenant> subject = PublishSubject.<Tenant>create().toSerialized();
+
+        List<String> received = new CopyOnWriteArrayList<>();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        subject.subscribe(t -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            received.add(t.getName());
+        });
+
+        dispatcher.dispatch(interest, subject, tenants[0], tenants[0]);
+        Assert.assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        for (int i = 1; i < tenants.length; ++i) {
+            dispatcher.dispatch(interest, subject, tenants[i], tenants[i]);
+        }
+
+        NotificationLag lag = dispatcher.getLags().get(interest);
+        Assert.assertEquals(2, lag.getPending());
+
+        release.countDown();
+        dispatcher.close();
+
+        lag = dispatcher.getLags().get(interest);
+        Assert.assertEquals(0, lag.getPending());
+        Assert.assertEquals(3, lag.getDelivered());
+        Assert.assertEquals(1, lag.getDropped() + lag.getCoalesced());
+
+        return received;
+    }
+
+    private static Tenant tenant(String id, String name) {
+        return new Tenant(name, CanonicalPath.of().tenant(id).get(), null);
+    }
+}
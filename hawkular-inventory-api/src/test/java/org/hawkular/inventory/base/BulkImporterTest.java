@@ -0,0 +1,94 @@
+/*
+ * Copyright 2015-2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.base;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+
+import org.hawkular.inventory.api.Configuration;
+import org.hawkular.inventory.api.model.InventoryStructure;
+import org.hawkular.inventory.api.model.Tenant;
+import org.hawkular.inventory.base.spi.CommitFailureException;
+import org.hawkular.inventory.base.spi.ElementNotFoundException;
+import org.hawkular.inventory.base.spi.InventoryBackend;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.mockito.Mockito;
+
+/**
+ * @author Lukas Krejci
+ * @since 0.19.0
+ */
+public class BulkImporterTest {
+
+    @Test
+    public void testFailedCommitIsRolledBackBeforeCleanup() throws Exception {
+        @SuppressWarnings("unchecked")
+        InventoryBackend<String> backend = Mockito.mock(InventoryBackend.class);
+
+        when(backend.startTransaction()).thenReturn(backend);
+        when(backend.requiresRollbackAfterFailure(any())).thenReturn(true);
+        when(backend.persist(any(), any())).thenAnswer(args -> args.getArguments()[0].toString());
+        //the tenant doesn't exist before the import and the failed import leaves nothing behind to delete
+        doThrow(new ElementNotFoundException()).when(backend).find(any());
+        doThrow(new CommitFailureException()).when(backend).commit();
+
+        TestInventory inventory = new TestInventory(backend);
+        inventory.initialize(new Configuration(null, null, Collections.emptyMap()));
+
+        try {
+            inventory.importTenant(InventoryStructure.Offline.of(Tenant.Blueprint.builder().withId("t").build())
+                    .build());
+            Assert.fail("The import should have failed.");
+        } catch (TransactionFailureException e) {
+            Assert.assertTrue(e.getCause() instanceof CommitFailureException);
+        }
+
+        //the failed transaction of the import is rolled back, then the transaction looking for the partially
+        //imported tenant to delete
+        InOrder order = inOrder(backend);
+        order.verify(backend).commit();
+        order.verify(backend, times(2)).rollback();
+    }
+
+    private static final class TestInventory extends BaseInventory<String> {
+        private final InventoryBackend<String> backend;
+
+        TestInventory(InventoryBackend<String> backend) {
+            this.backend = backend;
+        }
+
+        private TestInventory(TestInventory orig, TransactionConstructor<String> transactionConstructor) {
+            super(orig, orig.backend, transactionConstructor);
+            this.backend = orig.backend;
+        }
+
+        @Override protected BaseInventory<String> cloneWith(TransactionConstructor<String> transactionCtor) {
+            return new TestInventory(this, transactionCtor);
+        }
+
+        @Override protected InventoryBackend<String> doInitialize(Configuration configuration) {
+            return backend;
+        }
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2015-2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.base;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.hawkular.inventory.api.Action;
+import org.hawkular.inventory.api.Interest;
+import org.hawkular.inventory.api.model.AbstractElement;
+import org.hawkular.inventory.api.model.Entity;
+import org.hawkular.inventory.api.model.Environment;
+import org.hawkular.inventory.api.model.Feed;
+import org.hawkular.inventory.api.model.MetricType;
+import org.hawkular.inventory.api.model.Resource;
+import org.hawkular.inventory.api.model.Tenant;
+import org.hawkular.inventory.paths.CanonicalPath;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Checks which interests the notifications are dispatched to and that the cost of the dispatch doesn't grow with the
+ * number of the registered interests that don't match the notification.
+ *
+ * @author Lukas Krejci
+ * @since 0.19.0
+ */
+public class ObservableContextDispatchTest {
+
+    private static final int NOTIFICATIONS = 50_000;
+    private static final int RUNS = 5;
+    //a dispatch that checked every interest would be about 100 times slower with 1000 interests than with 10
+    private static final int MAX_SLOWDOWN = 5;
+    private static final Action<?, ?>[] ACTIONS = {Action.created(), Action.updated(), Action.deleted(),
+            Action.syncHashChanged(), Action.identityHashChanged(), Action.contentHashChanged()};
+
+    @Test
+    public void testDeliversNotificationsOnlyToMatchingInterests() throws Exception {
+        ObservableContext context = new ObservableContext();
+        Map<String, List<String>> received = new HashMap<>();
+
+        subscribe(context, received, "tenant created", Interest.in(Tenant.class).being(Action.created()));
+        subscribe(context, received, "tenant deleted", Interest.in(Tenant.class).being(Action.deleted()));
+        subscribe(context, received, "entity created", Interest.in(Entity.class).being(Action.created()));
+        subscribe(context, received, "entity deleted", Interest.in(Entity.class).being(Action.deleted()));
+        subscribe(context, received, "feed sync hash changed",
+                Interest.in(Feed.class).being(Action.syncHashChanged()));
+
+        //the interests no notification matches
+        subscribe(context, received, "feed deleted", Interest.in(Feed.class).being(Action.deleted()));
+        subscribe(context, received, "resource created", Interest.in(Resource.class).being(Action.created()));
+        subscribe(context, received, "environment created",
+                Interest.in(Environment.class).being(Action.created()));
+        subscribe(context, received, "metric type sync hash changed",
+                Interest.in(MetricType.class).being(Action.syncHashChanged()));
+
+        Tenant tenant = new Tenant(CanonicalPath.of().tenant("t").get(), null);
+        Feed feed = new Feed(CanonicalPath.of().tenant("t").feed("f").get(), null, null, null);
+
+        context.publish(Action.created(), tenant, tenant);
+        context.publish(Action.created(), feed, feed);
+        context.publish(Action.syncHashChanged(), feed, feed);
+        context.publish(Action.syncHashChanged(), feed, feed);
+        context.publish(Action.deleted(), tenant, tenant);
+
+        Map<String, List<String>> expected = new HashMap<>();
+        expected.put("tenant created", Collections.singletonList("t"));
+        expected.put("tenant deleted", Collections.singletonList("t"));
+        expected.put("entity created", Arrays.asList("t", "f"));
+        expected.put("entity deleted", Collections.singletonList("t"));
+        expected.put("feed sync hash changed", Arrays.asList("f", "f"));
+        expected.put("feed deleted", Collections.emptyList());
+        expected.put("resource created", Collections.emptyList());
+        expected.put("environment created", Collections.emptyList());
+        expected.put("metric type sync hash changed", Collections.emptyList());
+
+        Assert.assertEquals(expected, received);
+    }
+
+    @Test
+    public void testMatchesInterestsInSupertypesOfEntity() throws Exception {
+        ObservableContext context = new ObservableContext();
+        AtomicLong tenants = new AtomicLong();
+        AtomicLong entities = new AtomicLong();
+        AtomicLong resources = new AtomicLong();
+
+        context.getObservableFor(Interest.in(Tenant.class).being(Action.created()))
+                .subscribe(t -> tenants.incrementAndGet());
+        context.getObservableFor(Interest.in(Entity.class).being(Action.created()))
+                .subscribe(t -> entities.incrementAndGet());
+        context.getObservableFor(Interest.in(Resource.class).being(Action.created()))
+                .subscribe(t -> resources.incrementAndGet());
+
+        Tenant tenant = new Tenant(CanonicalPath.of().tenant("t").get(), null);
+        context.publish(Action.created(), tenant, tenant);
+        context.publish(Action.deleted(), tenant, tenant);
+
+        Assert.assertEquals(1, tenants.get());
+        Assert.assertEquals(1, entities.get());
+        Assert.assertEquals(0, resources.get());
+    }
+
+    @Test(timeout = 60_000)
+    public void testDispatchCostDoesNotDependOnNumberOfInterests() throws Exception {
+        //warm up
+        fastestDispatch(1_000);
+
+        long fewInterests = fastestDispatch(10);
+        long manyInterests = fastestDispatch(1_000);
+
+        Assert.assertTrue("Dispatch took " + fewInterests + "ns with 10 and " + manyInterests + "ns with 1000"
+                + " interests.", manyInterests <= MAX_SLOWDOWN * fewInterests);
+    }
+
+    /**
+     * The fastest of several runs is the least affected by the GC and the other noise on the machine.
+     *
+     * @return the shortest time in nanoseconds it took to dispatch the notifications
+     */
+    private static long fastestDispatch(int interestCount) {
+        long ret = Long.MAX_VALUE;
+        for (int i = 0; i < RUNS; ++i) {
+            ret = Math.min(ret, dispatch(interestCount));
+        }
+        return ret;
+    }
+
+    /**
+     * @return the time in nanoseconds it took to dispatch the notifications
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static long dispatch(int interestCount) {
+        ObservableContext context = new ObservableContext();
+        AtomicLong received = new AtomicLong();
+
+        context.getObservableFor(Interest.in(Tenant.class).being(Action.created()))
+                .subscribe(t -> received.incrementAndGet());
+        context.getObservableFor(Interest.in(Entity.class).being(Action.created()))
+                .subscribe(t -> received.incrementAndGet());
+
+        //the array types are just a convenient supply of distinct entity types that never match (with at most 255
+        //dimensions, which is enough for 1530 interests)
+        Class<?> type = Tenant.class;
+        for (int i = 0; i < interestCount; ++i) {
+            if (i % ACTIONS.length == 0) {
+                type = Array.newInstance(type, 0).getClass();
+            }
+
+            context.getObservableFor(new Interest(ACTIONS[i % ACTIONS.length], type)).subscribe(t -> {
+            });
+        }
+
+        Tenant tenant = new Tenant(CanonicalPath.of().tenant("t").get(), null);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < NOTIFICATIONS; ++i) {
+            context.publish(Action.created(), tenant, tenant);
+        }
+        long duration = System.nanoTime() - start;
+
+        Assert.assertEquals(2L * NOTIFICATIONS, received.get());
+
+        return duration;
+    }
+
+    private static void subscribe(ObservableContext context, Map<String, List<String>> received, String name,
+                                  Interest<?, ?> interest) {
+        List<String> ids = new ArrayList<>();
+        received.put(name, ids);
+        context.getObservableFor(interest).subscribe(e -> ids.add(((AbstractElement<?, ?>) e).getId()));
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2015-2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.base;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.hawkular.inventory.api.model.Entity;
+import org.hawkular.inventory.api.model.Feed;
+import org.hawkular.inventory.api.model.InventoryStructure;
+import org.hawkular.inventory.api.model.Resource;
+import org.hawkular.inventory.api.model.ResourceType;
+import org.hawkular.inventory.api.model.SyncHash;
+import org.hawkular.inventory.paths.CanonicalPath;
+import org.hawkular.inventory.paths.Path;
+import org.hawkular.inventory.paths.RelativePath;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Checks the reconstruction of the inventory structure and sync hash tree from the transitive closure of a feed.
+ * The feed is wide enough for the quadratic reconstruction to be noticeable.
+ *
+ * @author Lukas Krejci
+ * @since 0.19.0
+ */
+public class SyncTreeReconstructionTest {
+
+    private static final int TOP_LEVEL_RESOURCES = 1000;
+    private static final int CHILDREN_PER_RESOURCE = 99;
+
+    @Test(timeout = 60_000)
+    public void testReconstructsWideFeedInLinearTime() throws Exception {
+        CanonicalPath feedPath = CanonicalPath.of().tenant("t").feed("f").get();
+        Feed feed = new Feed(feedPath, "ih", "ch", "sh");
+        ResourceType type = new ResourceType(feedPath.extend(ResourceType.SEGMENT_TYPE, "rt").get(), null, null,
+                null);
+
+        //the closure in the breadth-first order
+        List<Entity<?, ?>> closure = new ArrayList<>(TOP_LEVEL_RESOURCES * (CHILDREN_PER_RESOURCE + 1));
+        for (int i = 0; i < TOP_LEVEL_RESOURCES; ++i) {
+            closure.add(resource(feedPath.extend(Resource.SEGMENT_TYPE, "r" + i).get(), type));
+        }
+        for (int i = 0; i < TOP_LEVEL_RESOURCES; ++i) {
+            CanonicalPath parent = feedPath.extend(Resource.SEGMENT_TYPE, "r" + i).get();
+            for (int j = 0; j < CHILDREN_PER_RESOURCE; ++j) {
+                closure.add(resource(parent.extend(Resource.SEGMENT_TYPE, "c" + j).get(), type));
+            }
+        }
+
+        SingleSyncedFetcher.SyncTreeCollector collector = new SingleSyncedFetcher.SyncTreeCollector(feed);
+        InventoryStructure<Feed.Blueprint> structure = BulkStructureLoader.build(feed, closure.iterator(),
+                collector);
+        SyncHash.Tree tree = collector.build();
+
+        Assert.assertEquals("sh", tree.getHash());
+        Assert.assertEquals(TOP_LEVEL_RESOURCES, tree.getChildren().size());
+
+        SyncHash.Tree r42 = tree.getChild(new Path.Segment(Resource.SEGMENT_TYPE, "r42"));
+        Assert.assertNotNull(r42);
+        Assert.assertEquals(RelativePath.to().resource("r42").get(), r42.getPath());
+        Assert.assertEquals(CHILDREN_PER_RESOURCE, r42.getChildren().size());
+        Assert.assertEquals("sh-r42/c7",
+                r42.getChild(new Path.Segment(Resource.SEGMENT_TYPE, "c7")).getHash());
+
+        try (Stream<Resource.Blueprint> s = structure.getChildren(RelativePath.empty().get(), Resource.class)) {
+            Assert.assertEquals(TOP_LEVEL_RESOURCES, s.count());
+        }
+
+        try (Stream<Resource.Blueprint> s = structure.getChildren(RelativePath.to().resource("r42").get(),
+                Resource.class)) {
+            Assert.assertEquals(CHILDREN_PER_RESOURCE, s.count());
+        }
+    }
+
+    private static Resource resource(CanonicalPath path, ResourceType type) {
+        String id = path.up().getSegment().getElementType() == Resource.SEGMENT_TYPE
+                ? path.up().getSegment().getElementId() + "/" + path.getSegment().getElementId()
+                : path.getSegment().getElementId();
+
+        return new Resource(path, "ih-" + id, "ch-" + id, "sh-" + id, type);
+    }
+}
@@ -76,7 +76,9 @@ public final class BusIntegration {
         ConnectionFactory connectionFactory = (ConnectionFactory) namingContext.lookup(
                 configuration.getConnectionFactoryJndiName());
 
-        this.messageSender = new MessageSender(connectionFactory, configuration.getInventoryChangesTopicName());
+        this.messageSender = new MessageSender(connectionFactory, configuration.getInventoryChangesTopicName(),
+                configuration.getPublishQueueSize(), configuration.getPublisherCount(),
+                configuration.getPublishBatchSize());
 
         install();
 
@@ -85,6 +87,9 @@ public final class BusIntegration {
 
     public void stop() throws NamingException, IOException {
         uninstall();
+        //no new events will come after the unsubscription, so let's publish what's left
+        messageSender.close();
+        messageSender = null;
         namingContext.close();
         namingContext = null;
         queryListener.close();
@@ -33,6 +33,9 @@ public final class Configuration {
     private final String connectionFactoryJndiName;
     private final String entityChangesTopicName;
     private final String queryQueueName;
+    private final int publishQueueSize;
+    private final int publisherCount;
+    private final int publishBatchSize;
 
     public static Configuration fromProperties(Properties properties) {
         Map<String, String> map = new HashMap<>();
@@ -59,6 +62,9 @@ public final class Configuration {
         String connectionFactoryJndiName = null;
         String entityChangesTopicName = null;
         String queryQueueName = null;
+        int publishQueueSize = 0;
+        int publisherCount = 0;
+        int publishBatchSize = 0;
 
         for (Property p : Property.values()) {
             String value = map.get(p);
@@ -76,10 +82,36 @@ public final class Configuration {
                 case INVENTORY_QUERY_QUEUE_NAME:
                     queryQueueName = value;
                     break;
+                case PUBLISH_QUEUE_SIZE:
+                    publishQueueSize = positiveInt(p, value);
+                    break;
+                case PUBLISHER_COUNT:
+                    publisherCount = positiveInt(p, value);
+                    break;
+                case PUBLISH_BATCH_SIZE:
+                    publishBatchSize = positiveInt(p, value);
+                    break;
             }
         }
 
-        return new Configuration(connectionFactoryJndiName, entityChangesTopicName, queryQueueName);
+        return new Configuration(connectionFactoryJndiName, entityChangesTopicName, queryQueueName,
+                publishQueueSize, publisherCount, publishBatchSize);
+    }
+
+    private static int positiveInt(Property property, String value) {
+        int ret;
+        try {
+            ret = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            ret = 0;
+        }
+
+        if (ret <= 0) {
+            throw new IllegalArgumentException("The value of " + property.getPropertyName() + " must be a positive" +
+                    " integer but was '" + value + "'.");
+        }
+
+        return ret;
     }
 
     public static Configuration getDefaultConfiguration() {
@@ -90,10 +122,14 @@ public final class Configuration {
         return new Builder();
     }
 
-    private Configuration(String connectionFactoryJndiName, String entityChangesTopicName, String queryQueueName) {
+    private Configuration(String connectionFactoryJndiName, String entityChangesTopicName, String queryQueueName,
+                          int publishQueueSize, int publisherCount, int publishBatchSize) {
         this.connectionFactoryJndiName = connectionFactoryJndiName;
         this.entityChangesTopicName = entityChangesTopicName;
         this.queryQueueName = queryQueueName;
+        this.publishQueueSize = publishQueueSize;
+        this.publisherCount = publisherCount;
+        this.publishBatchSize = publishBatchSize;
     }
 
     public String getConnectionFactoryJndiName() {
@@ -108,6 +144,29 @@ public final class Configuration {
         return queryQueueName;
     }
 
+    /**
+     * @return the maximum number of the inventory events waiting to be published to the bus
+     */
+    public int getPublishQueueSize() {
+        return publishQueueSize;
+    }
+
+    /**
+     * @return the number of the threads (each with its own JMS session) publishing the inventory events to the bus.
+     * The events are guaranteed to be published in the order they happened only if there is a single publisher.
+     */
+    public int getPublisherCount() {
+        return publisherCount;
+    }
+
+    /**
+     * @return the maximum number of the inventory events published in a single JMS transaction. 1 means the events are
+     * not published in transactions.
+     */
+    public int getPublishBatchSize() {
+        return publishBatchSize;
+    }
+
     public Builder modify() {
         EnumMap<Property, String> m = new EnumMap<>(Property.class);
         toMap().forEach((k, v) -> m.put(Property.valueOf(k), v));
@@ -120,6 +179,9 @@ public final class Configuration {
 
         ret.put(Property.CONNECTION_FACTORY_JNDI_NAME.propertyName, connectionFactoryJndiName);
         ret.put(Property.INVENTORY_CHANGES_TOPIC_NAME.propertyName, entityChangesTopicName);
+        ret.put(Property.PUBLISH_QUEUE_SIZE.propertyName, Integer.toString(publishQueueSize));
+        ret.put(Property.PUBLISHER_COUNT.propertyName, Integer.toString(publisherCount));
+        ret.put(Property.PUBLISH_BATCH_SIZE.propertyName, Integer.toString(publishBatchSize));
 
         return ret;
     }
@@ -130,7 +192,10 @@ public final class Configuration {
         INVENTORY_CHANGES_TOPIC_NAME("HawkularInventoryChanges",
                 "hawkular.inventory.bus.inventoryChangesTopicName"),
         INVENTORY_QUERY_QUEUE_NAME("HawkularInventoryQuery",
-                "hawkular.inventory.bus.inventoryQueryQueName");
+                "hawkular.inventory.bus.inventoryQueryQueName"),
+        PUBLISH_QUEUE_SIZE("10000", "hawkular.inventory.bus.publishQueueSize"),
+        PUBLISHER_COUNT("1", "hawkular.inventory.bus.publisherCount"),
+        PUBLISH_BATCH_SIZE("1", "hawkular.inventory.bus.publishBatchSize");
 
         private final String defaultValue;
         private final String propertyName;
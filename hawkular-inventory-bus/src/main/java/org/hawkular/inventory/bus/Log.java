@@ -39,4 +39,8 @@ public interface Log extends BasicLogger {
     @LogMessage(level = Logger.Level.WARN)
     @Message(id = 310001, value = "Failed to send message: %s")
     void failedToSendMessage(String message);
+
+    @LogMessage(level = Logger.Level.WARN)
+    @Message(id = 310002, value = "%d inventory events were not published to the bus before it was shut down.")
+    void eventsNotPublished(int count);
 }
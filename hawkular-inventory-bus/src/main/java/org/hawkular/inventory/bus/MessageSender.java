@@ -18,13 +18,22 @@ package org.hawkular.inventory.bus;
 
 import static org.hawkular.inventory.bus.Log.LOG;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import javax.jms.Connection;
 import javax.jms.ConnectionFactory;
 import javax.jms.JMSException;
+import javax.jms.Session;
+import javax.jms.Topic;
 
-import org.hawkular.bus.common.ConnectionContextFactory;
-import org.hawkular.bus.common.Endpoint;
 import org.hawkular.bus.common.MessageId;
 import org.hawkular.bus.common.MessageProcessor;
 import org.hawkular.bus.common.producer.ProducerConnectionContext;
@@ -33,37 +42,222 @@ import org.hawkular.inventory.api.model.Tenant;
 import org.hawkular.inventory.bus.api.InventoryEvent;
 
 /**
+ * Publishes the inventory events to the bus.
+ *
+ * <p>The events are put to a bounded queue and published asynchronously by a fixed number of publisher threads, so
+ * that the threads committing the inventory transactions don't wait for the broker. Only if the queue is full, the
+ * sending waits for the publishers to catch up.
+ *
+ * <p>All the publishers share a single JMS connection and each of them has its own session and producer, which are
+ * kept open as long as they work. If the publish batch size is greater than 1, the sessions are transacted and each
+ * publisher sends the events that queued up in the meantime (up to the batch size) in a single JMS transaction. The
+ * events of an inventory transaction are sent one right after another after the commit, so they usually end up in
+ * the same batch.
+ *
+ * <p>The events are published in the order they were sent only if there is a single publisher. With more publishers,
+ * the batches taken from the queue are published concurrently and can overtake each other.
+ *
  * @author Lukas Krejci
  * @since 0.0.1
  */
-final class MessageSender {
+final class MessageSender implements AutoCloseable {
+    private static final long CLOSE_TIMEOUT_SECONDS = 10;
+
     private final String topicName;
     private final ConnectionFactory topicConnectionFactory;
     private final MessageProcessor messageProcessor;
+    private final int batchSize;
+    private final BlockingQueue<Envelope> queue;
+    private final ExecutorService publishers;
+    private volatile boolean closed;
+    private Connection connection;
 
-    public MessageSender(ConnectionFactory topicConnectionFactory, String topicName) {
+    /**
+     * @param topicConnectionFactory the connection factory to create the connection with
+     * @param topicName              the name of the topic to publish the events to
+     * @param queueSize              the maximum number of the events waiting to be published
+     * @param publisherCount         the number of the publisher threads and therefore the JMS sessions
+     * @param batchSize              the maximum number of the events to publish in a single JMS transaction
+     */
+    public MessageSender(ConnectionFactory topicConnectionFactory, String topicName, int queueSize,
+                         int publisherCount, int batchSize) {
         this.topicConnectionFactory = topicConnectionFactory;
         this.topicName = topicName;
+        this.batchSize = batchSize;
+        this.queue = new ArrayBlockingQueue<>(queueSize);
 
         this.messageProcessor = new MessageProcessor();
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.publishers = Executors.newFixedThreadPool(publisherCount, r -> {
+            Thread t = new Thread(r, "hawkular-inventory-bus-publisher-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+
+        for (int i = 0; i < publisherCount; ++i) {
+            publishers.execute(this::publish);
+        }
     }
 
     public void send(Interest<?, ?> interest, Tenant tenant, Object entity) {
         InventoryEvent<?> message = InventoryEvent.from(interest.getAction(), tenant, entity);
         Map<String, String> headers = message.createMessageHeaders();
 
-
         message.setCorrelationId(new MessageId());
-        try (ConnectionContextFactory ccf = new ConnectionContextFactory(topicConnectionFactory)) {
 
-            ProducerConnectionContext producerConnectionContext = ccf.createProducerConnectionContext(
-                    new Endpoint(Endpoint.Type.TOPIC, topicName));
-            messageProcessor.send(producerConnectionContext, message, headers);
+        if (closed) {
+            LOG.failedToSendMessage(message.toString());
+            return;
+        }
 
-            Log.LOG.tracef("Sent message %s with headers %s to %s", message, headers,
-                    producerConnectionContext.getDestination());
-        } catch (JMSException e) {
+        try {
+            //blocks only if the publishers can't keep up, which is the back-pressure we want
+            queue.put(new Envelope(message, headers));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
             LOG.failedToSendMessage(message.toString());
         }
     }
+
+    /**
+     * Stops accepting new events and waits a while for the queued events to be published.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        publishers.shutdown();
+        try {
+            if (!publishers.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                publishers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            publishers.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+
+        if (!queue.isEmpty()) {
+            LOG.eventsNotPublished(queue.size());
+            queue.clear();
+        }
+
+        discardConnection(null);
+    }
+
+    private void publish() {
+        List<Envelope> batch = new ArrayList<>(batchSize);
+        ProducerConnectionContext context = null;
+
+        try {
+            while (!closed || !queue.isEmpty()) {
+                Envelope first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+
+                try {
+                    if (context == null) {
+                        context = createContext();
+                    }
+
+                    for (Envelope e : batch) {
+                        messageProcessor.send(context, e.message, e.headers);
+                    }
+
+                    if (batchSize > 1) {
+                        context.getSession().commit();
+                    }
+
+                    if (LOG.isTraceEnabled()) {
+                        batch.forEach(e -> LOG.tracef("Sent message %s with headers %s to %s", e.message, e.headers,
+                                topicName));
+                    }
+                } catch (JMSException | RuntimeException e) {
+                    //the publisher must keep draining the queue whatever happens to a single batch
+                    LOG.debugf(e, "Failed to publish %d events to %s.", batch.size(), topicName);
+                    batch.forEach(m -> LOG.failedToSendMessage(m.message.toString()));
+                    //the session might be broken, so let's start over with a new one for the next batch
+                    closeSession(context);
+                    context = null;
+                } finally {
+                    batch.clear();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            closeSession(context);
+        }
+    }
+
+    private ProducerConnectionContext createContext() throws JMSException {
+        Connection conn = getConnection();
+        boolean transacted = batchSize > 1;
+
+        Session session = conn.createSession(transacted, transacted ? Session.SESSION_TRANSACTED
+                : Session.AUTO_ACKNOWLEDGE);
+        Topic topic = session.createTopic(topicName);
+
+        ProducerConnectionContext ret = new ProducerConnectionContext();
+        ret.setConnection(conn);
+        ret.setSession(session);
+        ret.setDestination(topic);
+        ret.setMessageProducer(session.createProducer(topic));
+
+        return ret;
+    }
+
+    private synchronized Connection getConnection() throws JMSException {
+        if (connection == null) {
+            Connection conn = topicConnectionFactory.createConnection();
+            //a failed connection is replaced by a new one for the next batch
+            conn.setExceptionListener(e -> discardConnection(conn));
+            connection = conn;
+        }
+
+        return connection;
+    }
+
+    /**
+     * @param failed the connection that failed or null to close the current connection unconditionally
+     */
+    private synchronized void discardConnection(Connection failed) {
+        if (connection == null || (failed != null && failed != connection)) {
+            return;
+        }
+
+        try {
+            connection.close();
+        } catch (JMSException e) {
+            LOG.debugf(e, "Failed to close the connection to the bus.");
+        }
+
+        connection = null;
+    }
+
+    private static void closeSession(ProducerConnectionContext context) {
+        if (context == null) {
+            return;
+        }
+
+        //only close the session, the connection is shared among the publishers
+        try {
+            context.getSession().close();
+        } catch (JMSException e) {
+            LOG.debugf(e, "Failed to close the JMS session.");
+        }
+    }
+
+    private static final class Envelope {
+        final InventoryEvent<?> message;
+        final Map<String, String> headers;
+
+        Envelope(InventoryEvent<?> message, Map<String, String> headers) {
+            this.message = message;
+            this.headers = headers;
+        }
+    }
 }
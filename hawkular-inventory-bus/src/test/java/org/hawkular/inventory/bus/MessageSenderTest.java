@@ -0,0 +1,131 @@
+/*
+ * Copyright 2015-2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.bus;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.jms.Connection;
+import javax.jms.ConnectionFactory;
+import javax.jms.Message;
+import javax.jms.MessageProducer;
+import javax.jms.Session;
+import javax.jms.TextMessage;
+
+import org.hawkular.inventory.api.Action;
+import org.hawkular.inventory.api.Interest;
+import org.hawkular.inventory.api.model.Tenant;
+import org.hawkular.inventory.bus.api.TenantEvent;
+import org.hawkular.inventory.paths.CanonicalPath;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author Lukas Krejci
+ * @since 0.19.0
+ */
+public class MessageSenderTest {
+    private static final Interest<Tenant, Tenant> INTEREST = Interest.in(Tenant.class).being(Action.created());
+    private static final Tenant TENANT = new Tenant(CanonicalPath.of().tenant("t").get(), null);
+
+    private final List<String> published = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicInteger sendAttempts = new AtomicInteger();
+    private volatile int failingAttempt;
+    private ConnectionFactory connectionFactory;
+
+    @Before
+    public void setup() throws Exception {
+        AtomicInteger messageIds = new AtomicInteger();
+
+        MessageProducer producer = mock(MessageProducer.class);
+        doAnswer(args -> {
+            if (sendAttempts.incrementAndGet() == failingAttempt) {
+                throw new IllegalStateException("Simulated failure.");
+            }
+            published.add(entityId(((TextMessage) args.getArguments()[0]).getText()));
+            return null;
+        }).when(producer).send(any(Message.class));
+
+        Session session = mock(Session.class);
+        when(session.createProducer(any())).thenReturn(producer);
+        when(session.createTextMessage(anyString())).thenAnswer(args -> {
+            TextMessage message = mock(TextMessage.class);
+            when(message.getText()).thenReturn((String) args.getArguments()[0]);
+            when(message.getJMSMessageID()).thenReturn("ID:" + messageIds.incrementAndGet());
+            return message;
+        });
+
+        Connection connection = mock(Connection.class);
+        when(connection.createSession(anyBoolean(), anyInt())).thenReturn(session);
+
+        connectionFactory = mock(ConnectionFactory.class);
+        when(connectionFactory.createConnection()).thenReturn(connection);
+    }
+
+    @Test
+    public void testEventsPublishedInOrderWithDefaultConfiguration() throws Exception {
+        Configuration conf = Configuration.getDefaultConfiguration();
+
+        //a small queue so that the sending needs to wait for the publishers
+        List<String> sent = sendAll(new MessageSender(connectionFactory, "topic", 4, conf.getPublisherCount(),
+                conf.getPublishBatchSize()), 100);
+
+        Assert.assertEquals(sent, published);
+    }
+
+    @Test
+    public void testPublisherSurvivesFailedSend() throws Exception {
+        failingAttempt = 3;
+
+        List<String> sent = sendAll(new MessageSender(connectionFactory, "topic", 100, 1, 1), 10);
+
+        sent.remove(2);
+        Assert.assertEquals(sent, published);
+        Assert.assertEquals(10, sendAttempts.get());
+    }
+
+    private static List<String> sendAll(MessageSender sender, int count) {
+        List<String> ret = new ArrayList<>();
+        try {
+            for (int i = 0; i < count; ++i) {
+                String id = "e" + i;
+                sender.send(INTEREST, TENANT, new Tenant(CanonicalPath.of().tenant(id).get(), null));
+                ret.add(id);
+            }
+        } finally {
+            //waits for the queued events to be published
+            sender.close();
+        }
+
+        return ret;
+    }
+
+    private static String entityId(String json) {
+        return TenantEvent.fromJSON(json, TenantEvent.class).getObject().getId();
+    }
+}
@@ -18,14 +18,20 @@ package org.hawkular.inventory.impl.tinkerpop.spi;
 
 import static org.hawkular.inventory.impl.tinkerpop.spi.Log.LOG;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.stream.StreamSupport;
 
 import org.hawkular.inventory.api.Configuration;
 import org.hawkular.inventory.paths.CanonicalPath;
 
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Element;
+import com.tinkerpop.blueprints.Graph;
 import com.tinkerpop.blueprints.ThreadedTransactionalGraph;
 import com.tinkerpop.blueprints.TransactionalGraph;
+import com.tinkerpop.blueprints.Vertex;
 
 /**
  * This is a service interface that the Tinkerpop implementation will use to get a configured and initialized instance
@@ -162,6 +168,105 @@ public interface GraphProvider {
         }
     }
 
+    /**
+     * Looks up all the elements that have the provided indexed property set to any of the provided values. This is
+     * used to start the queries that look for several elements by their canonical paths or ids, so that the graph
+     * doesn't need to be scanned.
+     *
+     * <p>The default implementation is a union of the index lookups of the individual values using
+     * {@link Graph#getVertices(String, Object)} or {@link Graph#getEdges(String, Object)}. The implementations are
+     * encouraged to override this if the graph can look up all the values at once.
+     *
+     * @param graph       the graph to look up the elements in
+     * @param elementType either {@link Vertex} or {@link com.tinkerpop.blueprints.Edge}
+     * @param key         the indexed property
+     * @param values      the values of the property to look for
+     * @return the elements that have the property set to one of the values
+     */
+    default Iterable<Element> getByIndexedKey(Graph graph, Class<? extends Element> elementType, String key,
+                                              Collection<?> values) {
+        boolean vertices = Vertex.class.isAssignableFrom(elementType);
+        return () -> values.stream().distinct()
+                .flatMap(v -> StreamSupport.stream((vertices ? graph.getVertices(key, v) : graph.getEdges(key, v))
+                        .spliterator(), false))
+                .map(e -> (Element) e)
+                .iterator();
+    }
+
+    /**
+     * Executes the query natively, e.g. as a single statement in the database, instead of through the Gremlin pipes.
+     *
+     * <p>If the query has a {@link NativeQuery#getSeek() seek}, the results must be ordered and limited as it
+     * prescribes. The implementations that can't do that must return null.
+     *
+     * <p>The default implementation returns null, which means that the graph doesn't support the native queries.
+     *
+     * @param graph the graph to query
+     * @param query the query to execute
+     * @return the vertices found by the query or null if the query cannot be executed natively
+     */
+    default Iterable<Element> query(Graph graph, NativeQuery query) {
+        return null;
+    }
+
+    /**
+     * Computes the transitive closure of the vertex over the edges with given labels, i.e. all the vertices reachable
+     * from the vertex using the edges in given direction. The vertices are returned in the breadth-first order. Just
+     * as with a Gremlin loop, a vertex is returned once for each path leading to it.
+     *
+     * <p>The default implementation returns null, which means that the graph doesn't support computing the transitive
+     * closures natively and a Gremlin loop is used instead.
+     *
+     * @param graph     the graph
+     * @param start     the vertex to start at, not included in the closure
+     * @param direction the direction of the edges to follow
+     * @param labels    the labels of the edges to follow
+     * @return the vertices in the transitive closure or null if not supported
+     */
+    default Iterable<Element> getTransitiveClosure(Graph graph, Vertex start, Direction direction,
+                                                   String... labels) {
+        return null;
+    }
+
+    /**
+     * Finds the vertices among the root and its outgoing transitive closure over the edges with given labels that have
+     * an outgoing edge with the provided label leading to a vertex outside of the closure.
+     *
+     * <p>The default implementation returns null, which means that the graph doesn't support this natively and the
+     * closure is walked vertex by vertex instead.
+     *
+     * @param graph         the graph
+     * @param root          the root of the closure
+     * @param label         the label of the edges leading outside of the closure
+     * @param closureLabels the labels of the edges to follow when computing the closure
+     * @return the vertices with the edges leading outside of the closure or null if not supported
+     */
+    default Iterable<Element> getVerticesLinkingOutsideOfClosure(Graph graph, Vertex root, String label,
+                                                                 String... closureLabels) {
+        return null;
+    }
+
+    /**
+     * Removes the root and all the vertices in its outgoing transitive closure over the edges with given labels,
+     * including all their edges, in bulk.
+     *
+     * <p>The vertices can reference vertices shared with other vertices using the edges with the
+     * {@code referenceLabel}. Such shared vertices are removed, too, once the last edge with that label leading to
+     * them is removed.
+     *
+     * <p>The default implementation returns false, which means that the graph doesn't support bulk removal and the
+     * vertices are removed one by one instead.
+     *
+     * @param graph          the graph
+     * @param root           the root of the closure
+     * @param referenceLabel the label of the edges leading to the shared vertices, may be null
+     * @param labels         the labels of the edges to follow when computing the closure
+     * @return true if the vertices were removed, false if not supported
+     */
+    default boolean removeTransitiveClosure(Graph graph, Vertex root, String referenceLabel, String... labels) {
+        return false;
+    }
+
     /**
      * Translates the graph specific exception to an inventory exception.
      * <p>
@@ -0,0 +1,212 @@
+/*
+ * Copyright 2015-2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.impl.tinkerpop.spi;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.tinkerpop.blueprints.Direction;
+
+/**
+ * A simple traversal over the vertices of the graph that the graph providers can execute natively instead of through
+ * the Gremlin pipes.
+ *
+ * <p>The traversal starts with all the vertices in the graph and consists of a series of steps. A
+ * {@link PropertyFilter} step retains only the vertices that have the property set to one of the values, a {@link Hop}
+ * step moves to the vertices on the other side of the edges with given label.
+ *
+ * <p>Just as with the Gremlin pipes, a vertex is returned once for each way it was reached through the hops.
+ *
+ * <p>The query can optionally have a {@link Seek}, in which case the vertices are returned ordered by the value of
+ * the seek property and only those with the value greater than the seek value are returned.
+ *
+ * @author Lukas Krejci
+ * @see GraphProvider#query(com.tinkerpop.blueprints.Graph, NativeQuery)
+ * @since 0.19.0
+ */
+public final class NativeQuery {
+    private final List<Step> steps;
+    private final Seek seek;
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public NativeQuery(List<Step> steps) {
+        this(steps, null);
+    }
+
+    public NativeQuery(List<Step> steps, Seek seek) {
+        this.steps = Collections.unmodifiableList(new ArrayList<>(steps));
+        this.seek = seek;
+    }
+
+    public List<Step> getSteps() {
+        return steps;
+    }
+
+    /**
+     * @return the ordering and the range of the results or null if the results are not ordered
+     */
+    public Seek getSeek() {
+        return seek;
+    }
+
+    /**
+     * @param seek the new seek
+     * @return a copy of this query with the same steps and the provided seek
+     */
+    public NativeQuery withSeek(Seek seek) {
+        return new NativeQuery(steps, seek);
+    }
+
+    @Override
+    public String toString() {
+        return "NativeQuery" + steps + (seek == null ? "" : seek);
+    }
+
+    public abstract static class Step {
+        private Step() {
+        }
+    }
+
+    public static final class PropertyFilter extends Step {
+        private final String name;
+        private final List<Object> values;
+
+        public PropertyFilter(String name, List<Object> values) {
+            if (values.isEmpty()) {
+                throw new IllegalArgumentException("At least one value must be provided.");
+            }
+
+            this.name = name;
+            this.values = Collections.unmodifiableList(new ArrayList<>(values));
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return the non-empty list of the values the property can have
+         */
+        public List<Object> getValues() {
+            return values;
+        }
+
+        @Override
+        public String toString() {
+            return "PropertyFilter[name=" + name + ", values=" + values + "]";
+        }
+    }
+
+    public static final class Hop extends Step {
+        private final String label;
+        private final Direction direction;
+
+        public Hop(String label, Direction direction) {
+            this.label = label;
+            this.direction = direction;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        /**
+         * @return the direction of the edges to follow from the current vertices
+         */
+        public Direction getDirection() {
+            return direction;
+        }
+
+        @Override
+        public String toString() {
+            return "Hop[label=" + label + ", direction=" + direction + "]";
+        }
+    }
+
+    /**
+     * Orders the results by the value of a string property and returns only the vertices with the value greater than
+     * the provided one. The values are compared as with {@link String#compareTo(String)}, so that the seek is
+     * consistent with the same ordering done in Java. A graph provider that can't order the values that way must not
+     * execute a query with a seek.
+     */
+    public static final class Seek {
+        private final String property;
+        private final String after;
+        private final int limit;
+
+        /**
+         * @param property the property to order the results by
+         * @param after    the value the property of the results must be greater than or null to start at the beginning
+         * @param limit    the maximum number of results or -1 for no limit
+         */
+        public Seek(String property, String after, int limit) {
+            this.property = property;
+            this.after = after;
+            this.limit = limit;
+        }
+
+        public String getProperty() {
+            return property;
+        }
+
+        public String getAfter() {
+            return after;
+        }
+
+        public int getLimit() {
+            return limit;
+        }
+
+        @Override
+        public String toString() {
+            return "Seek[property=" + property + ", after=" + after + ", limit=" + limit + "]";
+        }
+    }
+
+    public static final class Builder {
+        private final List<Step> steps = new ArrayList<>();
+        private Seek seek;
+
+        private Builder() {
+
+        }
+
+        public Builder filter(String name, Object... values) {
+            steps.add(new PropertyFilter(name, Arrays.asList(values)));
+            return this;
+        }
+
+        public Builder hop(String label, Direction direction) {
+            steps.add(new Hop(label, direction));
+            return this;
+        }
+
+        public Builder seek(String property, String after, int limit) {
+            seek = new Seek(property, after, limit);
+            return this;
+        }
+
+        public NativeQuery build() {
+            return new NativeQuery(steps, seek);
+        }
+    }
+}
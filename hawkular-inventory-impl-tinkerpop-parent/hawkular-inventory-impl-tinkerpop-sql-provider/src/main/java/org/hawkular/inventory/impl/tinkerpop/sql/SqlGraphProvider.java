@@ -20,6 +20,7 @@ import java.io.IOException;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
@@ -40,11 +41,19 @@ import org.hawkular.inventory.api.filters.RelationFilter;
 import org.hawkular.inventory.api.model.Relationship;
 import org.hawkular.inventory.impl.tinkerpop.spi.GraphProvider;
 import org.hawkular.inventory.impl.tinkerpop.spi.IndexSpec;
+import org.hawkular.inventory.impl.tinkerpop.spi.NativeQuery;
 import org.hawkular.inventory.impl.tinkerpop.sql.impl.InsertException;
+import org.hawkular.inventory.impl.tinkerpop.sql.impl.NativeQueryCompiler;
 import org.hawkular.inventory.impl.tinkerpop.sql.impl.SqlGraph;
+import org.hawkular.inventory.impl.tinkerpop.sql.impl.SqlGraphQuery;
+import org.hawkular.inventory.impl.tinkerpop.sql.impl.SqlVertex;
 import org.hawkular.inventory.paths.CanonicalPath;
 
+import com.tinkerpop.blueprints.Contains;
+import com.tinkerpop.blueprints.Direction;
 import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Element;
+import com.tinkerpop.blueprints.Graph;
 import com.tinkerpop.blueprints.Parameter;
 import com.tinkerpop.blueprints.TransactionalGraph;
 import com.tinkerpop.blueprints.Vertex;
@@ -144,6 +153,52 @@ public class SqlGraphProvider implements GraphProvider {
         }
     }
 
+    @Override
+    @SuppressWarnings("unchecked")
+    public Iterable<Element> getByIndexedKey(Graph graph, Class<? extends Element> elementType, String key,
+                                             Collection<?> values) {
+        //a single IN (...) query on the unique properties table instead of a query per value
+        SqlGraphQuery query = ((SqlGraph) graph).query().has(key, Contains.IN, values);
+        Iterable<? extends Element> ret = Vertex.class.isAssignableFrom(elementType) ? query.vertices()
+                : query.edges();
+        return (Iterable<Element>) ret;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Iterable<Element> query(Graph graph, NativeQuery query) {
+        //the whole query as a single SQL statement instead of a statement per vertex and step of the pipeline
+        Iterable<? extends Element> ret = NativeQueryCompiler.execute((SqlGraph) graph, query);
+        return (Iterable<Element>) ret;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Iterable<Element> getTransitiveClosure(Graph graph, Vertex start, Direction direction, String... labels) {
+        if (direction == Direction.BOTH) {
+            return null;
+        }
+
+        //a single recursive query instead of a query per vertex
+        Iterable<? extends Element> ret = ((SqlVertex) start).getTransitiveClosure(direction, labels);
+        return (Iterable<Element>) ret;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Iterable<Element> getVerticesLinkingOutsideOfClosure(Graph graph, Vertex root, String label,
+                                                                String... closureLabels) {
+        //a single anti-join instead of checking the edges vertex by vertex
+        Iterable<? extends Element> ret = ((SqlVertex) root).getVerticesLinkingOutsideOfClosure(label, closureLabels);
+        return (Iterable<Element>) ret;
+    }
+
+    @Override
+    public boolean removeTransitiveClosure(Graph graph, Vertex root, String referenceLabel, String... labels) {
+        ((SqlGraph) graph).removeTransitiveClosure((SqlVertex) root, referenceLabel, labels);
+        return true;
+    }
+
     @Override public RuntimeException translateException(RuntimeException inputException, CanonicalPath affectedPath) {
         if (inputException instanceof InsertException) {
             if (Relationship.class.equals(affectedPath.getSegment().getElementType())) {
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2015-2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.impl.tinkerpop.sql.impl;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+/**
+ * A simple lock-free pool of idle connections shared by all the transactions of a graph. The pool doesn't limit the
+ * number of connections in use, it merely keeps at most {@code maxIdle} connections open for reuse once they are
+ * released.
+ *
+ * <p>If the datasource is itself pooled (as is the case with the datasources looked up in JNDI), there's no need to
+ * keep any idle connections around and the {@code maxIdle} can be 0.
+ *
+ * @author Lukas Krejci
+ * @since 0.19.0
+ */
+final class ConnectionPool {
+    private final DataSource dataSource;
+    private final int maxIdle;
+    private final ConcurrentLinkedDeque<Connection> idle = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+
+    ConnectionPool(DataSource dataSource, int maxIdle) {
+        this.dataSource = dataSource;
+        this.maxIdle = maxIdle;
+    }
+
+    DataSource getDataSource() {
+        return dataSource;
+    }
+
+    /**
+     * @return an idle connection or a new one if there is none. The returned connection is not in the auto-commit
+     * mode.
+     */
+    Connection borrow() throws SQLException {
+        Connection c;
+        while ((c = idle.pollFirst()) != null) {
+            idleCount.decrementAndGet();
+            if (!c.isClosed()) {
+                return c;
+            }
+        }
+
+        c = dataSource.getConnection();
+        c.setAutoCommit(false);
+        c.setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        Log.LOG.debugf("Opened connection %s", c);
+        return c;
+    }
+
+    /**
+     * Returns the connection to the pool. The connection must not be in the middle of a transaction.
+     *
+     * @param connection the connection to release
+     */
+    void release(Connection connection) throws SQLException {
+        if (connection.isClosed()) {
+            return;
+        }
+
+        if (idleCount.incrementAndGet() <= maxIdle) {
+            idle.offerFirst(connection);
+        } else {
+            idleCount.decrementAndGet();
+            close(connection);
+        }
+    }
+
+    /**
+     * Closes all the idle connections.
+     */
+    void close() throws SQLException {
+        Connection c;
+        while ((c = idle.pollFirst()) != null) {
+            idleCount.decrementAndGet();
+            close(c);
+        }
+    }
+
+    private void close(Connection connection) throws SQLException {
+        connection.close();
+        Log.LOG.debugf("Closed connection %s", connection);
+    }
+}
@@ -24,4 +24,9 @@ import java.sql.ResultSet;
 */
 interface ElementGenerator<T> {
     T generate(SqlGraph graph, ResultSet rs);
+
+    /**
+     * Generates the element from a row read by {@link Statements#query(String, java.util.List, String...)}.
+     */
+    T generate(SqlGraph graph, Object[] row);
 }
@@ -40,4 +40,8 @@ public interface Log extends BasicLogger {
     @Message(id = 30101, value = "A command failed, rolling back to the savepoint right before it.")
     @LogMessage(level = Logger.Level.INFO)
     void iRollingBackFailedCommand(@Cause Throwable cause);
+
+    @Message(id = 30102, value = "Failed to roll back the transaction after its commit failed.")
+    @LogMessage(level = Logger.Level.WARN)
+    void wRollbackAfterFailedCommitFailed(@Cause Throwable cause);
 }
@@ -0,0 +1,210 @@
+/*
+ * Copyright 2015-2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.impl.tinkerpop.sql.impl;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.hawkular.inventory.impl.tinkerpop.spi.NativeQuery;
+
+import com.tinkerpop.blueprints.CloseableIterable;
+import com.tinkerpop.blueprints.Contains;
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Vertex;
+
+/**
+ * Compiles a {@link NativeQuery} into a single SQL statement, so that it can be executed in one roundtrip instead of
+ * a query per vertex and step as is the case with the Gremlin pipes.
+ *
+ * <p>Each step of the query is a nested subquery returning the ids of the vertices. The filters are applied to the
+ * vertices using the same SQL as the {@link SqlGraphQuery} (so the indexed properties are looked up using the index)
+ * and the hops select the ids of the vertices on the other side of the edges from the previous subquery.
+ *
+ * <p>Note that unlike the Gremlin pipes, the SQL returns each vertex at most once, even if it was reached through
+ * several edges.
+ *
+ * <p>The seek of the query is only supported on the indexed properties. The ids returned by the steps are then joined
+ * with the index on the unique properties, which is scanned in the order of the values from the seek value onwards
+ * until the limit is reached. The values are compared using the {@link SqlGraph#binaryCollation() binary collation}
+ * so that the order is the same as in Java.
+ *
+ * @author Lukas Krejci
+ * @since 0.19.0
+ */
+public final class NativeQueryCompiler {
+
+    private NativeQueryCompiler() {
+        //no instances, thank you
+    }
+
+    /**
+     * @param graph the graph to query
+     * @param query the query
+     * @return the vertices found or null if the query cannot be compiled to SQL
+     */
+    public static CloseableIterable<Vertex> execute(SqlGraph graph, NativeQuery query) {
+        try {
+            QueryFilters.SqlAndParams sql = compile(graph, query);
+            if (sql == null) {
+                return null;
+            }
+
+            return new StatementIterable<Vertex>(SqlVertex.GENERATOR, graph, sql.sql.toString(), sql.params, -1,
+                    graph.getVerticesTableName(), graph.getVertexPropertiesTableName(),
+                    graph.getUniqueVertexPropertiesTableName(), graph.getEdgesTableName());
+        } catch (SQLException e) {
+            throw new SqlGraphException(e);
+        }
+    }
+
+    static QueryFilters.SqlAndParams compile(SqlGraph graph, NativeQuery query) throws SQLException {
+        Set<String> indexedKeys = graph.getIndexedKeys(Vertex.class);
+
+        QueryFilters filters = new QueryFilters();
+        String hopClause = null;
+        List<Object> hopParams = new ArrayList<>();
+
+        for (NativeQuery.Step step : query.getSteps()) {
+            if (step instanceof NativeQuery.PropertyFilter) {
+                NativeQuery.PropertyFilter filter = (NativeQuery.PropertyFilter) step;
+                if (SqlVertex.DISALLOWED_PROPERTY_NAMES.contains(filter.getName())
+                        || !isSupported(filter.getValues())) {
+                    return null;
+                }
+
+                if (filter.getValues().size() == 1) {
+                    filters.has(filter.getName(), filter.getValues().get(0));
+                } else {
+                    filters.has(filter.getName(), Contains.IN, filter.getValues());
+                }
+            } else {
+                NativeQuery.Hop hop = (NativeQuery.Hop) step;
+
+                QueryFilters.SqlAndParams previous = generate(graph, filters, indexedKeys,
+                        "SELECT " + graph.getVerticesTableName() + ".id", hopClause, hopParams);
+
+                hopParams = new ArrayList<>();
+                hopClause = hop(graph, hop, previous, hopParams);
+                filters = new QueryFilters();
+            }
+        }
+
+        NativeQuery.Seek seek = query.getSeek();
+        if (seek == null) {
+            return generate(graph, filters, indexedKeys, "SELECT id", hopClause, hopParams);
+        }
+
+        if (!indexedKeys.contains(seek.getProperty())) {
+            return null;
+        }
+
+        return seek(graph, seek, generate(graph, filters, indexedKeys,
+                "SELECT " + graph.getVerticesTableName() + ".id", hopClause, hopParams));
+    }
+
+    private static QueryFilters.SqlAndParams seek(SqlGraph graph, NativeQuery.Seek seek,
+                                                  QueryFilters.SqlAndParams vertices) throws SQLException {
+        String index = graph.getUniqueVertexPropertiesTableName();
+        String value = index + ".string_value" + graph.binaryCollation();
+
+        StringBuilder bld = new StringBuilder("SELECT ").append(index).append(".vertex_id FROM ").append(index)
+                .append(" WHERE ").append(index).append(".name = ? AND ");
+
+        List<Object> params = new ArrayList<>();
+        params.add(seek.getProperty());
+
+        if (seek.getAfter() != null) {
+            bld.append(value).append(" > ? AND ");
+            params.add(seek.getAfter());
+        }
+
+        bld.append(index).append(".vertex_id IN (").append(vertices.sql).append(") ORDER BY ").append(value);
+        params.addAll(vertices.params);
+
+        if (seek.getLimit() >= 0) {
+            bld.append(" LIMIT ").append(seek.getLimit());
+        }
+
+        return new QueryFilters.SqlAndParams(bld, params);
+    }
+
+    private static QueryFilters.SqlAndParams generate(SqlGraph graph, QueryFilters filters, Set<String> indexedKeys,
+                                                      String select, String hopClause, List<Object> hopParams)
+            throws SQLException {
+        QueryFilters.SqlAndParams ret = filters.generateStatement(select, graph.getVerticesTableName(),
+                graph.getVertexPropertiesTableName(), graph.getUniqueVertexPropertiesTableName(),
+                SqlVertex.getPropertyTableForeignKey(), SqlVertex.DISALLOWED_PROPERTY_NAMES, indexedKeys, hopClause);
+
+        //the hop clause precedes the filters in the where clause
+        ret.params.addAll(0, hopParams);
+
+        return ret;
+    }
+
+    private static String hop(SqlGraph graph, NativeQuery.Hop hop, QueryFilters.SqlAndParams previous,
+                              List<Object> params) {
+        String edges = graph.getEdgesTableName();
+
+        StringBuilder bld = new StringBuilder(graph.getVerticesTableName()).append(".id IN (");
+
+        if (hop.getDirection() != Direction.IN) {
+            appendEdgeEnds(bld, edges, "vertex_in", "vertex_out", previous);
+            params.add(hop.getLabel());
+            params.addAll(previous.params);
+        }
+
+        if (hop.getDirection() == Direction.BOTH) {
+            bld.append(" UNION ALL ");
+        }
+
+        if (hop.getDirection() != Direction.OUT) {
+            appendEdgeEnds(bld, edges, "vertex_out", "vertex_in", previous);
+            params.add(hop.getLabel());
+            params.addAll(previous.params);
+        }
+
+        return bld.append(")").toString();
+    }
+
+    private static void appendEdgeEnds(StringBuilder bld, String edges, String selectedEnd, String previousEnd,
+                                       QueryFilters.SqlAndParams previous) {
+        bld.append("SELECT ").append(edges).append(".").append(selectedEnd).append(" FROM ").append(edges)
+                .append(" WHERE ").append(edges).append(".label = ? AND ").append(edges).append(".")
+                .append(previousEnd).append(" IN (").append(previous.sql).append(")");
+    }
+
+    /**
+     * The SQL compares the values as either strings or numbers, based on the type of the first value, so all the
+     * values need to be of the same type.
+     */
+    private static boolean isSupported(List<Object> values) {
+        ValueType type = ValueType.of(values.get(0), false);
+        if (type == null || type == ValueType.NULL) {
+            return false;
+        }
+
+        for (Object v : values) {
+            if (ValueType.of(v, false) != type) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
@@ -22,6 +22,7 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import com.tinkerpop.blueprints.Compare;
 import com.tinkerpop.blueprints.Contains;
@@ -34,6 +35,15 @@ import com.tinkerpop.blueprints.Query;
  */
 final class QueryFilters {
 
+    /**
+     * The compactly stored structured data can be larger than the maximum size of an index entry, so this property is
+     * excluded from the index of the string values of the vertex properties (see schema.sql). Postgres uses such
+     * partial index only if it can prove from the query that the excluded rows can't match. It can't do that from the
+     * property name bound as a parameter in a generic plan of a prepared statement, so the string comparisons repeat
+     * the condition of the index as a literal.
+     */
+    static final String UNINDEXED_PROPERTY = "__structuredDataBlob";
+
     private final Map<String, List<OperatorAndValue>> filters = new HashMap<>();
 
     public Map<String, List<OperatorAndValue>> getFilters() {
@@ -95,8 +105,8 @@ final class QueryFilters {
     }
 
     SqlAndParams generateStatement(String select, String mainTable, String propsTable, String uniquePropsTable,
-                                   String propsTableFK, List<String> specialProps, String mainTableWhereClause)
-            throws SQLException {
+                                   String propsTableFK, List<String> specialProps, Set<String> indexedProps,
+                                   String mainTableWhereClause) throws SQLException {
 
         StringBuilder bld = new StringBuilder(select);
 
@@ -119,27 +129,29 @@ final class QueryFilters {
                 bld.append(" WHERE ");
             }
 
-            applyFilters(mainTable, propsTable, uniquePropsTable, propsTableFK, specialProps, bld, params);
+            applyFilters(mainTable, propsTable, uniquePropsTable, propsTableFK, specialProps, indexedProps, bld,
+                    params);
         }
 
         return new SqlAndParams(bld, params);
     }
 
     private void applyFilters(String mainTable, String propsTable, String uPropsTable, String propsTableFK,
-                              List<String> specialProps, StringBuilder bld, List<Object> params) {
+                              List<String> specialProps, Set<String> indexedProps, StringBuilder bld,
+                              List<Object> params) {
         Iterator<Map.Entry<String, List<OperatorAndValue>>> it = filters.entrySet().iterator();
 
         if (it.hasNext()) {
             Map.Entry<String, List<OperatorAndValue>> e = it.next();
             appendFilters(mainTable, propsTable, uPropsTable, propsTableFK, bld, params, e.getKey(), e.getValue(),
-                    specialProps);
+                    specialProps, indexedProps);
         }
 
         while (it.hasNext()) {
             bld.append(" AND ");
             Map.Entry<String, List<OperatorAndValue>> e = it.next();
             appendFilters(mainTable, propsTable, uPropsTable, propsTableFK, bld, params, e.getKey(), e.getValue(),
-                    specialProps);
+                    specialProps, indexedProps);
         }
     }
 
@@ -160,33 +172,38 @@ final class QueryFilters {
 
     private void appendFilters(String mainTable, String propsTable, String uPropsTable, String propsTableFK,
                                StringBuilder bld, List<Object> params, String name,
-                               List<QueryFilters.OperatorAndValue> opValues, List<String> namesOnMainTable) {
+                               List<QueryFilters.OperatorAndValue> opValues, List<String> namesOnMainTable,
+                               Set<String> indexedNames) {
 
         Iterator<QueryFilters.OperatorAndValue> it = opValues.iterator();
 
         boolean isOnMainTable = namesOnMainTable.contains(name);
+        String indexedTable = indexedNames.contains(name) ? uPropsTable : null;
 
         if (it.hasNext()) {
-            appendFilter(mainTable, propsTable, uPropsTable, propsTableFK, bld, params, name, it.next(), isOnMainTable);
+            appendFilter(mainTable, propsTable, uPropsTable, propsTableFK, bld, params, name, it.next(), isOnMainTable,
+                    indexedTable);
         }
 
         while (it.hasNext()) {
             bld.append(" AND ");
             appendFilter(mainTable, propsTable, uPropsTable, propsTableFK, bld, params, name, it.next(),
-                    isOnMainTable);
+                    isOnMainTable, indexedTable);
         }
     }
 
     private void appendFilter(String mainTable, String propsTable, String uPropsTable, String propsTableFK,
                               StringBuilder bld, List<Object> params, String name,
-                              QueryFilters.OperatorAndValue opValue, boolean isOnMainTable) {
+                              QueryFilters.OperatorAndValue opValue, boolean isOnMainTable, String indexedTable) {
         Predicate operator = opValue.operator;
         Object value = opValue.object;
         ValueType valueType = ValueType.of(value, false);
 
         bld.append("(");
 
-        if (operator instanceof QueryFilters.CustomPredicates) {
+        if (indexedTable != null && isIndexLookup(operator, value)) {
+            indexLookup(bld, params, mainTable, indexedTable, propsTableFK, name, valueType, value);
+        } else if (operator instanceof QueryFilters.CustomPredicates) {
             switch ((QueryFilters.CustomPredicates) operator) {
             case EXISTS:
                 // if the param is on the main table, it always exists so we don't need to test for that
@@ -280,9 +297,10 @@ final class QueryFilters {
                 params.add(value);
 
                 bld.append("(");
-                propertyComparison(op, valueType, bld, mainTable, propsTable, propsTableFK);
+                propertyComparison(op, valueType, bld, mainTable, propsTable, propsTableFK,
+                        isInPartialIndex(name, valueType));
                 bld.append(") OR (");
-                propertyComparison(op, valueType, bld, mainTable, uPropsTable, propsTableFK);
+                propertyComparison(op, valueType, bld, mainTable, uPropsTable, propsTableFK, false);
                 bld.append(")");
             }
         } else if (operator instanceof Contains) {
@@ -321,10 +339,11 @@ final class QueryFilters {
                     params.addAll(paramsToAdd);
                 } else {
                     bld.append("(");
-                    propertyComparison(op, valueType, bld, mainTable, propsTable, propsTableFK);
+                    propertyComparison(op, valueType, bld, mainTable, propsTable, propsTableFK,
+                            isInPartialIndex(name, valueType));
                     bld.replace(bld.length() - 2, bld.length(), collection.toString());
                     bld.append(") OR (");
-                    propertyComparison(op, valueType, bld, mainTable, uPropsTable, propsTableFK);
+                    propertyComparison(op, valueType, bld, mainTable, uPropsTable, propsTableFK, false);
                     bld.replace(bld.length() - 2, bld.length(), collection.toString());
                     bld.append(")");
                     params.addAll(paramsToAdd);
@@ -336,6 +355,46 @@ final class QueryFilters {
         bld.append(")");
     }
 
+    private static boolean isIndexLookup(Predicate operator, Object value) {
+        if (operator == Compare.EQUAL || operator == Query.Compare.EQUAL) {
+            return true;
+        } else if (operator == Contains.IN) {
+            return ((Iterable<?>) value).iterator().hasNext();
+        } else {
+            return false;
+        }
+    }
+
+    /**
+     * The indexed properties are unique, so instead of checking the property of each element using a correlated
+     * subquery, we can look up the ids of the matching elements directly in the index on the unique properties table.
+     * This turns the lookup of many elements by the values of an indexed property into a single index scan.
+     */
+    private void indexLookup(StringBuilder bld, List<Object> params, String mainTable, String indexedTable,
+                             String propsTableFK, String name, ValueType valueType, Object value) {
+        bld.append(mainTable).append(".id IN (SELECT ").append(indexedTable).append(".").append(propsTableFK)
+                .append(" FROM ").append(indexedTable).append(" WHERE ").append(indexedTable).append(".name = ? AND ")
+                .append(indexedTable).append(valueType.isNumeric() ? ".numeric_value" : ".string_value")
+                .append(" IN (");
+
+        params.add(name);
+
+        if (value instanceof Iterable) {
+            Iterator<?> it = ((Iterable<?>) value).iterator();
+            bld.append("?");
+            params.add(it.next());
+            while (it.hasNext()) {
+                bld.append(", ?");
+                params.add(it.next());
+            }
+        } else {
+            bld.append("?");
+            params.add(value);
+        }
+
+        bld.append("))");
+    }
+
     private StringBuilder propertyMatchPrologue(boolean match, StringBuilder bld, String mainTable, String propsTable,
                                                 String propsTableFK) {
         bld.append("1 ").append(match ? "IN" : "NOT IN").append(" (SELECT 1 FROM ").append(propsTable).append(" WHERE ")
@@ -344,10 +403,17 @@ final class QueryFilters {
         return bld;
     }
 
+    private static boolean isInPartialIndex(String name, ValueType valueType) {
+        return !valueType.isNumeric() && !UNINDEXED_PROPERTY.equals(name);
+    }
+
     private void propertyComparison(String operator, ValueType valueType, StringBuilder bld, String mainTable,
-                                    String propsTable, String propsTableFK) {
-        propertyMatchPrologue(true, bld, mainTable, propsTable, propsTableFK)
-            .append(propsTable).append(".name = ? AND ")
+                                    String propsTable, String propsTableFK, boolean inPartialIndex) {
+        propertyMatchPrologue(true, bld, mainTable, propsTable, propsTableFK);
+        if (inPartialIndex) {
+            bld.append(propsTable).append(".name <> '").append(UNINDEXED_PROPERTY).append("' AND ");
+        }
+        bld.append(propsTable).append(".name = ? AND ")
             .append(propsTable).append(valueType.isNumeric() ? ".numeric_value" : ".string_value")
             .append(" ").append(operator).append(" ?)");
     }
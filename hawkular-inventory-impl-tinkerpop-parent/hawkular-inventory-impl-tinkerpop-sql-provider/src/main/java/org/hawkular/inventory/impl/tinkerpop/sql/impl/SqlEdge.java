@@ -46,6 +46,12 @@ public final class SqlEdge extends SqlElement implements Edge {
                 throw new SqlGraphException(e);
             }
         }
+
+        @Override
+        public SqlEdge generate(SqlGraph graph, Object[] row) {
+            return new SqlEdge(graph, ((Number) row[0]).longValue(), ((Number) row[1]).longValue(),
+                    ((Number) row[2]).longValue(), (String) row[3]);
+        }
     };
 
     public static final List<String> DISALLOWED_PROPERTY_NAMES = Arrays.asList("id", "label");
@@ -69,14 +75,14 @@ public final class SqlEdge extends SqlElement implements Edge {
 
     @Override
     public void remove() {
-        synchronized (graph) {
-            graph.withSavePoint(() -> {
-                PreparedStatement stmt = graph.getStatements().getRemoveEdge(getId());
-                stmt.executeUpdate();
-                graph.setDirty();
-                return null;
-            });
-        }
+        graph.execute(() -> {
+            graph.flushAllWrites();
+            PreparedStatement stmt = graph.getStatements().getRemoveEdge(getId());
+            stmt.executeUpdate();
+            graph.invalidateCache(graph.getEdgesTableName(), graph.getEdgePropertiesTableName(),
+                    graph.getUniqueEdgePropertiesTableName());
+            return null;
+        });
     }
 
     @Override
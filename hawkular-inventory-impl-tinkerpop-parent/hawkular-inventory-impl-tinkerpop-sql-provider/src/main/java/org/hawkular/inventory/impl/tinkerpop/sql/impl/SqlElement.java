@@ -17,11 +17,15 @@
 package org.hawkular.inventory.impl.tinkerpop.sql.impl;
 
 import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.function.Consumer;
 
@@ -34,6 +38,11 @@ import com.tinkerpop.blueprints.Element;
  */
 abstract class SqlElement implements Element {
 
+    /**
+     * The maximum number of elements whose properties are loaded using a single query.
+     */
+    static final int PROPERTY_BATCH_SIZE = 100;
+
     protected final SqlGraph graph;
     private final Long id;
     private HashMap<String, Object> cachedProperties;
@@ -72,23 +81,96 @@ abstract class SqlElement implements Element {
             getPropertyTableElementIdName() + " = ? AND name = ?";
 
         try {
-            PreparedStatement stmt = graph.getStatements().get(sql);
-            stmt.setLong(1, id);
-            stmt.setString(2, key);
+            List<Object[]> rows = graph.getStatements().query(sql, Arrays.asList(id, key), table);
+            if (rows.isEmpty()) {
+                return null;
+            }
 
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (!rs.next()) {
-                    return null;
-                }
+            Object[] row = rows.get(0);
+            ValueType valueType = ValueType.values()[((Number) row[2]).intValue()];
 
-                int valueTypeInt = rs.getInt(3);
-                ValueType valueType = ValueType.values()[valueTypeInt];
+            return (T) valueType.convertFromDBType(row[valueType.isNumeric() ? 1 : 0]);
+        } catch (SQLException e) {
+            throw new SqlGraphException(e);
+        }
+    }
+
+    /**
+     * Loads the properties of all the provided elements using a single query per properties table instead of querying
+     * for the properties of each element separately.
+     *
+     * @param graph    the graph the elements come from
+     * @param elements the elements of the same type to load the properties of
+     */
+    static void loadProperties(SqlGraph graph, List<? extends SqlElement> elements) {
+        for (int start = 0; start < elements.size(); start += PROPERTY_BATCH_SIZE) {
+            loadPropertiesBatch(graph, elements.subList(start, Math.min(elements.size(),
+                    start + PROPERTY_BATCH_SIZE)));
+        }
+    }
+
+    private static void loadPropertiesBatch(SqlGraph graph, List<? extends SqlElement> elements) {
+        if (elements.isEmpty()) {
+            return;
+        }
+
+        SqlElement first = elements.get(0);
+
+        Map<Long, HashMap<String, Object>> properties = new HashMap<>();
+        List<Object> params = new ArrayList<>(PROPERTY_BATCH_SIZE);
+        for (SqlElement e : elements) {
+            properties.put(e.id, new HashMap<>());
+            params.add(e.id);
+        }
 
-                return (T) valueType.convertFromDBType(rs.getObject(valueType.isNumeric() ? 2 : 1));
+        //pad the parameters so that all the batches share the same prepared statement
+        while (params.size() < PROPERTY_BATCH_SIZE) {
+            params.add(first.id);
+        }
+
+        StringBuilder idList = new StringBuilder("?");
+        for (int i = 1; i < PROPERTY_BATCH_SIZE; ++i) {
+            idList.append(", ?");
+        }
+
+        Set<String> tables = new LinkedHashSet<>(Arrays.asList(first.getPropertiesTableName(),
+                first.getUniquePropertiesTableName()));
+
+        long transactionCount = graph.getTransactionCount();
+
+        try {
+            for (String table : tables) {
+                String sql = "SELECT " + first.getPropertyTableElementIdName()
+                        + ", name, string_value, numeric_value, value_type FROM " + table + " WHERE "
+                        + first.getPropertyTableElementIdName() + " IN (" + idList + ")";
+
+                for (Object[] row : graph.getStatements().query(sql, params, table)) {
+                    ValueType valueType = ValueType.values()[((Number) row[4]).intValue()];
+
+                    Object val = valueType.convertFromDBType(row[valueType.isNumeric() ? 3 : 2]);
+
+                    properties.get(((Number) row[0]).longValue()).put((String) row[1], val);
+                }
             }
         } catch (SQLException e) {
             throw new SqlGraphException(e);
         }
+
+        for (SqlElement e : elements) {
+            synchronized (e) {
+                //copy so that the elements with the same id don't share the cache
+                e.cachedProperties = new HashMap<>(properties.get(e.id));
+                e.transactionCountAtCacheCreation = transactionCount;
+            }
+        }
+    }
+
+    /**
+     * Called on the newly created elements, which are known not to have any properties yet.
+     */
+    synchronized void initEmptyPropertyCache() {
+        cachedProperties = new HashMap<>();
+        transactionCountAtCacheCreation = graph.getTransactionCount();
     }
 
     private synchronized void cacheProperties() {
@@ -100,28 +182,19 @@ abstract class SqlElement implements Element {
                         + " WHERE "
                         + getPropertyTableElementIdName() + " = ?";
 
-                synchronized (graph) {
-                    transactionCountAtCacheCreation = graph.getTransactionCount();
+                transactionCountAtCacheCreation = graph.getTransactionCount();
 
-                    try {
-                        PreparedStatement stmt = graph.getStatements().get(sql);
-                        stmt.setLong(1, id);
+                try {
+                    for (Object[] row : graph.getStatements().query(sql, Collections.singletonList(id), table)) {
+                        ValueType valueType = ValueType.values()[((Number) row[3]).intValue()];
 
-                        try (ResultSet rs = stmt.executeQuery()) {
-                            while (rs.next()) {
-                                int valueTypeInt = rs.getInt(4);
-                                ValueType valueType = ValueType.values()[valueTypeInt];
+                        Object val = valueType.convertFromDBType(row[valueType.isNumeric() ? 2 : 1]);
+                        String name = (String) row[0];
 
-                                Object val = valueType.convertFromDBType(rs.getObject(valueType.isNumeric() ? 3 : 2));
-                                String name = rs.getString(1);
-
-                                cachedProperties.put(name, val);
-                            }
-                        }
-
-                    } catch (SQLException e) {
-                        throw new SqlGraphException(e);
+                        cachedProperties.put(name, val);
                     }
+                } catch (SQLException e) {
+                    throw new SqlGraphException(e);
                 }
             };
 
@@ -137,26 +210,20 @@ abstract class SqlElement implements Element {
             return new HashSet<>(cachedProperties.keySet());
         }
 
-        synchronized (graph) {
-            String sql = "SELECT name FROM " + getPropertiesTableName() + " WHERE " + getPropertyTableElementIdName() +
-                    " = ?";
-
-            try {
-                PreparedStatement stmt = graph.getStatements().get(sql);
-                stmt.setLong(1, id);
+        String sql = "SELECT name FROM " + getPropertiesTableName() + " WHERE " + getPropertyTableElementIdName() +
+                " = ?";
 
-                Set<String> ret = new HashSet<>();
-
-                try (ResultSet rs = stmt.executeQuery()) {
-                    while (rs.next()) {
-                        ret.add(rs.getString(1));
-                    }
-                }
+        try {
+            Set<String> ret = new HashSet<>();
 
-                return ret;
-            } catch (SQLException e) {
-                throw new SqlGraphException(e);
+            for (Object[] row : graph.getStatements().query(sql, Collections.singletonList(id),
+                    getPropertiesTableName())) {
+                ret.add((String) row[0]);
             }
+
+            return ret;
+        } catch (SQLException e) {
+            throw new SqlGraphException(e);
         }
     }
 
@@ -182,42 +249,66 @@ abstract class SqlElement implements Element {
 
         Object usedValue = valueType.covertToDBType(value);
 
-        synchronized (graph) {
-            graph.withSavePoint(() -> {
-                String table = graph.getIndexedKeys(this.getClass()).contains(key)
-                        ? getUniquePropertiesTableName()
-                        : getPropertiesTableName();
+        boolean indexed = graph.getIndexedKeys(this.getClass()).contains(key);
+        String table = indexed ? getUniquePropertiesTableName() : getPropertiesTableName();
 
-                String sql = "UPDATE " + table + " SET " +
-                        (valueType.isNumeric() ? "numeric_value" : "string_value") + " = ?, value_type = ? WHERE " +
-                        getPropertyTableElementIdName() + " = ? AND name = ?";
+        WriteBuffer buffer = graph.getWriteBuffer();
+        if (!indexed && buffer != null && buffer.isNew(this)) {
+            //the element doesn't have the property in the database yet, so we can just insert it later on
+            buffer.insertProperty(table, getPropertyTableElementIdName(), id, key,
+                    valueType.isNumeric() ? null : usedValue, valueType.isNumeric() ? usedValue : null,
+                    valueType.ordinal());
 
-                PreparedStatement stmt = graph.getStatements().get(sql);
-                stmt.setObject(1, usedValue);
-                stmt.setInt(2, valueType.ordinal());
-                stmt.setLong(3, id);
-                stmt.setString(4, key);
-
-                if (stmt.executeUpdate() == 0) {
-                    sql = "INSERT INTO " + table + " (" + getPropertyTableElementIdName() +
-                            ", name, string_value, numeric_value, value_type) VALUES (?, ?, ?, ?, ?)";
-
-                    PreparedStatement stmt2 = graph.getStatements().get(sql);
-                    stmt2.setLong(1, id);
-                    stmt2.setString(2, key);
-                    stmt2.setObject(3, valueType.isNumeric() ? null : usedValue);
-                    stmt2.setObject(4, valueType.isNumeric() ? usedValue : null);
-                    stmt2.setInt(5, valueType.ordinal());
-
-                    stmt2.executeUpdate();
-                }
+            graph.invalidateCache(table);
 
-                if (cachedProperties != null) {
-                    cachedProperties.put(key, usedValue);
-                }
+            if (cachedProperties != null) {
+                cachedProperties.put(key, usedValue);
+            }
 
-                return null;
-            });
+            return;
+        }
+
+        SqlGraph.SQLCallable<Void> write = () -> {
+            graph.flushWrites(table);
+
+            String sql = "UPDATE " + table + " SET " +
+                    (valueType.isNumeric() ? "numeric_value" : "string_value") + " = ?, value_type = ? WHERE " +
+                    getPropertyTableElementIdName() + " = ? AND name = ?";
+
+            PreparedStatement stmt = graph.getStatements().get(sql);
+            stmt.setObject(1, usedValue);
+            stmt.setInt(2, valueType.ordinal());
+            stmt.setLong(3, id);
+            stmt.setString(4, key);
+
+            if (stmt.executeUpdate() == 0) {
+                sql = "INSERT INTO " + table + " (" + getPropertyTableElementIdName() +
+                        ", name, string_value, numeric_value, value_type) VALUES (?, ?, ?, ?, ?)";
+
+                PreparedStatement stmt2 = graph.getStatements().get(sql);
+                stmt2.setLong(1, id);
+                stmt2.setString(2, key);
+                stmt2.setObject(3, valueType.isNumeric() ? null : usedValue);
+                stmt2.setObject(4, valueType.isNumeric() ? usedValue : null);
+                stmt2.setInt(5, valueType.ordinal());
+
+                stmt2.executeUpdate();
+            }
+
+            graph.invalidateCache(table);
+
+            if (cachedProperties != null) {
+                cachedProperties.put(key, usedValue);
+            }
+
+            return null;
+        };
+
+        //only the unique properties can fail on a constraint violation that the callers might want to recover from
+        if (indexed) {
+            graph.withSavePoint(write);
+        } else {
+            graph.execute(write);
         }
     }
 
@@ -225,23 +316,26 @@ abstract class SqlElement implements Element {
     public synchronized <T> T removeProperty(String key) {
         T value = getProperty(key);
 
-        synchronized (graph) {
-            String sql = "DELETE FROM " + getPropertiesTableName() + " WHERE " + getPropertyTableElementIdName() +
-                    " = ? AND name = ?";
+        String sql = "DELETE FROM " + getPropertiesTableName() + " WHERE " + getPropertyTableElementIdName() +
+                " = ? AND name = ?";
 
-            return graph.withSavePoint(() -> {
+        return graph.execute(() -> {
+            WriteBuffer buffer = graph.getWriteBuffer();
+            if (buffer == null || !buffer.removeProperty(getPropertiesTableName(), id, key)) {
                 PreparedStatement stmt = graph.getStatements().get(sql);
                 stmt.setLong(1, id);
                 stmt.setString(2, key);
                 stmt.executeUpdate();
+            }
 
-                if (cachedProperties != null) {
-                    cachedProperties.remove(key);
-                }
+            graph.invalidateCache(getPropertiesTableName());
 
-                return value;
-            });
-        }
+            if (cachedProperties != null) {
+                cachedProperties.remove(key);
+            }
+
+            return value;
+        });
     }
 
     @Override
@@ -30,13 +30,18 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Savepoint;
 import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.sql.DataSource;
 
@@ -44,6 +49,7 @@ import org.apache.commons.configuration.Configuration;
 import org.apache.commons.configuration.MapConfiguration;
 
 import com.tinkerpop.blueprints.CloseableIterable;
+import com.tinkerpop.blueprints.Direction;
 import com.tinkerpop.blueprints.Edge;
 import com.tinkerpop.blueprints.Element;
 import com.tinkerpop.blueprints.Features;
@@ -54,12 +60,35 @@ import com.tinkerpop.blueprints.TransactionalGraph;
 import com.tinkerpop.blueprints.Vertex;
 
 /**
+ * A Blueprints graph stored in an RDBMS.
+ *
+ * <p>The graph instance is not thread-safe. Each thread is supposed to work with its own transaction obtained from
+ * {@link #newTransaction()}. Each transaction borrows a connection from a pool shared by all the transactions of the
+ * graph, owns its own prepared statements and caches and returns the connection to the pool when it ends. Concurrent
+ * transactions therefore run in parallel on different connections without any locking.
+ *
  * @author Lukas Krejci
  * @since 0.13.0
  */
 public final class SqlGraph implements ThreadedTransactionalGraph, KeyIndexableGraph {
     private static final Features FEATURES = new Features();
 
+    /**
+     * The version of the database schema. Each increment needs to be accompanied by a
+     * {@code schema-upgrade-<version>.sql} script that upgrades the schema from the previous version.
+     */
+    static final int SCHEMA_VERSION = 4;
+
+    /**
+     * The maximum number of the ids in a single bulk statement.
+     */
+    private static final int BULK_SIZE = 500;
+
+    /**
+     * The default maximum number of the rows held by the cache of the query results of a transaction.
+     */
+    private static final int DEFAULT_SELECT_CACHE_MAX_ROWS = 10_000;
+
     static {
         FEATURES.supportsSerializableObjectProperty = false;
         FEATURES.supportsBooleanProperty = true;
@@ -94,10 +123,9 @@ public final class SqlGraph implements ThreadedTransactionalGraph, KeyIndexableG
         FEATURES.supportsThreadIsolatedTransactions = false;
     }
 
-    private final DataSource dataSource;
+    private final SharedState shared;
     private Connection connection;
     private Statements statements;
-    private boolean dirty;
     private final String verticesTableName;
     private final String edgesTableName;
     private final String vertexPropertiesTableName;
@@ -109,9 +137,9 @@ public final class SqlGraph implements ThreadedTransactionalGraph, KeyIndexableG
     private final boolean loadPropertiesEagerly;
     private final boolean closeConnectionOnTransactionEnd;
     private final boolean cacheStatements;
+    private final TransactionCache transactionCache;
+    private final WriteBuffer writeBuffer;
     private long transactionCount;
-    private Set<String> vertexPropertyIndices;
-    private Set<String> edgePropertyIndices;
     private final IndexUpdater indexUpdater;
 
     private final WeakHashMap<Long, WeakReference<SqlVertex>> vertexCache = new WeakHashMap<>();
@@ -131,6 +159,14 @@ public final class SqlGraph implements ThreadedTransactionalGraph, KeyIndexableG
      * "vertex_properties".</li>
      * <li><code>sql.edgePropertiesTable</code> - the name of the table for edge properties. Defaults to
      * "edge_properties".</li>
+     * <li><code>sql.cacheSelects</code> - whether to cache the results of the queries for the duration of
+     * a transaction. Defaults to true.</li>
+     * <li><code>sql.cacheSelectsMaxRows</code> - the maximum number of the rows of the query results cached by a single
+     * transaction. Defaults to 10000.</li>
+     * <li><code>sql.batchWrites</code> - whether to buffer the inserts of the properties of the newly created
+     * elements and write them in JDBC batches. Defaults to true.</li>
+     * <li><code>sql.maxIdleConnections</code> - the maximum number of idle connections kept open for the reuse by
+     * the future transactions. Defaults to 8.</li>
      * </ul>
      *
      * @param configuration the configuration to use
@@ -138,8 +174,9 @@ public final class SqlGraph implements ThreadedTransactionalGraph, KeyIndexableG
      * @throws Exception
      */
     public SqlGraph(Configuration configuration) throws Exception {
-        this((DataSource) Class.forName(configuration.getString("sql.datasource.class")).newInstance(), configuration);
-        setupDataSource(dataSource, configuration);
+        this((DataSource) Class.forName(configuration.getString("sql.datasource.class")).newInstance(), configuration,
+                8);
+        setupDataSource(shared.connectionPool.getDataSource(), configuration);
     }
 
     public SqlGraph(Map<String, Object> configuration) throws Exception {
@@ -173,22 +210,40 @@ public final class SqlGraph implements ThreadedTransactionalGraph, KeyIndexableG
     }
 
     public SqlGraph(DataSource dataSource) {
-        this(dataSource, null, null, null, null, null, null, null);
+        this(new SharedState(new ConnectionPool(dataSource, 0)), null, null, null, null, null, null, null, null,
+                null, null);
     }
 
+    /**
+     * Instantiates a new SQL graph using the provided datasource. The datasource is assumed to be pooled and therefore
+     * no idle connections are kept open by the graph itself unless the {@code sql.maxIdleConnections} says otherwise.
+     *
+     * @param dataSource    the datasource to obtain the connections from
+     * @param configuration the configuration of the graph
+     */
     public SqlGraph(DataSource dataSource, Configuration configuration) throws Exception {
-        this(dataSource, configuration.getString("sql.verticesTable"),
+        this(dataSource, configuration, 0);
+    }
+
+    private SqlGraph(DataSource dataSource, Configuration configuration, int defaultMaxIdleConnections) {
+        this(new SharedState(new ConnectionPool(dataSource,
+                        configuration.getInt("sql.maxIdleConnections", defaultMaxIdleConnections))),
+                configuration.getString("sql.verticesTable"),
                 configuration.getString("sql.edgesTable"),
                 configuration.getString("sql.vertexPropertiesTable"),
                 configuration.getString("sql.edgePropertiesTable"),
                 configuration.getBoolean("sql.loadPropertiesEagerly", null),
                 configuration.getBoolean("sql.closeConnectionOnTransactionEnd", null),
-                configuration.getBoolean("sql.cacheStatements", null));
+                configuration.getBoolean("sql.cacheStatements", null),
+                configuration.getBoolean("sql.cacheSelects", null),
+                configuration.getInteger("sql.cacheSelectsMaxRows", null),
+                configuration.getBoolean("sql.batchWrites", null));
     }
 
-    private SqlGraph(DataSource dataSource, String vTable, String eTable, String vpTable, String epTable,
-                     Boolean loadPropertiesEagerly, Boolean closeConnectionOnTransactionEnd, Boolean cacheStatements) {
-        this.dataSource = dataSource;
+    private SqlGraph(SharedState shared, String vTable, String eTable, String vpTable, String epTable,
+                     Boolean loadPropertiesEagerly, Boolean closeConnectionOnTransactionEnd, Boolean cacheStatements,
+                     Boolean cacheSelects, Integer selectCacheMaxRows, Boolean batchWrites) {
+        this.shared = shared;
         verticesTableName = vTable == null ? "vertices" : vTable;
         edgesTableName = eTable == null ? "edges" : eTable;
         vertexPropertiesTableName = vpTable == null ? "vertex_properties" : vpTable;
@@ -197,6 +252,11 @@ public final class SqlGraph implements ThreadedTransactionalGraph, KeyIndexableG
         this.closeConnectionOnTransactionEnd =
                 closeConnectionOnTransactionEnd == null ? false : closeConnectionOnTransactionEnd;
         this.cacheStatements = cacheStatements == null ? true : cacheStatements;
+        this.transactionCache = cacheSelects == null || cacheSelects
+                ? new TransactionCache(shared.selectCacheHits, shared.selectCacheMisses,
+                selectCacheMaxRows == null ? DEFAULT_SELECT_CACHE_MAX_ROWS : selectCacheMaxRows)
+                : null;
+        this.writeBuffer = batchWrites == null || batchWrites ? new WriteBuffer(this) : null;
 
         this.vertexIndicesTableName = verticesTableName + "_uidxs";
         this.edgeIndicesTableName = edgesTableName + "_uidxs";
@@ -206,58 +266,43 @@ public final class SqlGraph implements ThreadedTransactionalGraph, KeyIndexableG
         this.indexUpdater = new IndexUpdater();
     }
 
-    public synchronized void createSchemaIfNeeded() throws SQLException, IOException {
+    /**
+     * Creates the schema if it doesn't exist yet or upgrades it to the latest version if it is older.
+     */
+    public void createSchemaIfNeeded() throws SQLException, IOException {
         ensureConnection();
 
+        boolean exists;
         try (Statement st = connection.createStatement()) {
             st.execute("SELECT 1 FROM " + getVerticesTableName());
-            return;
+            exists = true;
         } catch (SQLException ignored) {
             //good, the schema doesn't exist. Let's continue
             connection.rollback();
+            exists = false;
         }
 
         try {
-            String dbName = connection.getMetaData().getDatabaseProductName();
-            String script = dbName + "-schema.sql";
-            InputStream schemaStream = getClass().getClassLoader().getResourceAsStream(script);
-            if (schemaStream == null) {
-                schemaStream = getClass().getClassLoader().getResourceAsStream("schema.sql");
-            }
-
-            if (schemaStream == null) {
-                throw new AssertionError("Could not load the schema creation script.");
-            }
-
-            String contents = null;
-            try (InputStreamReader rdr = new InputStreamReader(schemaStream)) {
-                StringBuilder bld = new StringBuilder();
-                char[] buffer = new char[512];
-
-                int cnt;
-                while ((cnt = rdr.read(buffer)) != -1) {
-                    bld.append(buffer, 0, cnt);
+            int version;
+            if (exists) {
+                version = getSchemaVersion();
+                if (version >= SCHEMA_VERSION) {
+                    return;
                 }
-
-                contents = bld.toString();
+            } else {
+                runScript("schema.sql");
+                version = SCHEMA_VERSION;
             }
 
-            contents = contents.replace("%VERTICES%", verticesTableName);
-            contents = contents.replace("%VERTEX_PROPERTIES%", vertexPropertiesTableName);
-            contents = contents.replace("%EDGES%", edgesTableName);
-            contents = contents.replace("%EDGE_PROPERTIES%", edgePropertiesTableName);
-
-            String[] inst = contents.split(";");
-            try (Statement st = connection.createStatement()) {
-                for (int i = 0; i < inst.length; i++) {
-                    // we ensure that there is no spaces before or after the request string
-                    // in order to not execute empty statements
-                    if (!inst[i].trim().equals("")) {
-                        st.executeUpdate(inst[i]);
-                    }
-                }
+            while (version < SCHEMA_VERSION) {
+                version++;
+                Log.LOG.debugf("Upgrading the schema of %s to version %d", verticesTableName, version);
+                runScript("schema-upgrade-" + version + ".sql");
             }
 
+            setSchemaVersion(version);
+
+            shared.indicesLoaded = false;
             refreshIndices();
 
             connection.commit();
@@ -267,25 +312,85 @@ public final class SqlGraph implements ThreadedTransactionalGraph, KeyIndexableG
         }
     }
 
-    private synchronized void refreshIndices() {
-        if (vertexPropertyIndices == null) {
-            vertexPropertyIndices = new HashSet<>();
-            edgePropertyIndices = new HashSet<>();
+    private int getSchemaVersion() throws SQLException {
+        try (Statement st = connection.createStatement();
+             ResultSet rs = st.executeQuery("SELECT version FROM " + getSchemaVersionTableName())) {
+            return rs.next() ? rs.getInt(1) : 1;
+        } catch (SQLException e) {
+            //the schemas created before the versioning was introduced don't have the version table
+            connection.rollback();
+            return 1;
+        }
+    }
+
+    private void setSchemaVersion(int version) throws SQLException {
+        try (Statement st = connection.createStatement()) {
+            st.executeUpdate("DELETE FROM " + getSchemaVersionTableName());
+            st.executeUpdate("INSERT INTO " + getSchemaVersionTableName() + " (version) VALUES (" + version + ")");
+        }
+    }
+
+    /**
+     * Runs the SQL script from the classpath. The database specific version of the script (prefixed by the name of the
+     * database product) is preferred over the generic one.
+     */
+    private void runScript(String scriptName) throws SQLException, IOException {
+        String dbName = connection.getMetaData().getDatabaseProductName();
+        InputStream schemaStream = getClass().getClassLoader().getResourceAsStream(dbName + "-" + scriptName);
+        if (schemaStream == null) {
+            schemaStream = getClass().getClassLoader().getResourceAsStream(scriptName);
+        }
+
+        if (schemaStream == null) {
+            throw new AssertionError("Could not load the schema script " + scriptName + ".");
+        }
+
+        String contents = null;
+        try (InputStreamReader rdr = new InputStreamReader(schemaStream)) {
+            StringBuilder bld = new StringBuilder();
+            char[] buffer = new char[512];
+
+            int cnt;
+            while ((cnt = rdr.read(buffer)) != -1) {
+                bld.append(buffer, 0, cnt);
+            }
+
+            contents = bld.toString();
+        }
+
+        contents = contents.replace("%VERTICES%", verticesTableName);
+        contents = contents.replace("%VERTEX_PROPERTIES%", vertexPropertiesTableName);
+        contents = contents.replace("%EDGES%", edgesTableName);
+        contents = contents.replace("%EDGE_PROPERTIES%", edgePropertiesTableName);
+
+        String[] inst = contents.split(";");
+        try (Statement st = connection.createStatement()) {
+            for (int i = 0; i < inst.length; i++) {
+                // we ensure that there is no spaces before or after the request string
+                // in order to not execute empty statements (or the statements consisting only of comments)
+                if (!inst[i].replaceAll("(?m)^\\s*--.*$", "").trim().equals("")) {
+                    st.executeUpdate(inst[i]);
+                }
+            }
+        }
+    }
+
+    private void refreshIndices() {
+        if (!shared.indicesLoaded) {
             indexUpdater.on(Vertex.class).refreshIndices();
             indexUpdater.on(Edge.class).refreshIndices();
+            shared.indicesLoaded = true;
         }
     }
 
     @Override
-    public synchronized TransactionalGraph newTransaction() {
-        if (!dirty && !closeConnectionOnTransactionEnd) {
-            return this;
-        }
-
+    public TransactionalGraph newTransaction() {
         Log.LOG.debug("Opening new transaction...");
 
-        return new SqlGraph(dataSource, verticesTableName, edgesTableName, vertexPropertiesTableName,
-                edgePropertiesTableName, loadPropertiesEagerly, closeConnectionOnTransactionEnd, cacheStatements);
+        return new SqlGraph(shared, verticesTableName, edgesTableName, vertexPropertiesTableName,
+                edgePropertiesTableName, loadPropertiesEagerly, closeConnectionOnTransactionEnd, cacheStatements,
+                transactionCache != null, transactionCache == null ? null : transactionCache.getMaxRows(),
+                writeBuffer != null);
     }
 
     @Override
@@ -298,25 +403,34 @@ public final class SqlGraph implements ThreadedTransactionalGraph, KeyIndexableG
     }
 
     @Override
-    public synchronized void commit() {
+    public void commit() {
+        boolean committed = false;
         try {
-            initConnection();
+            if (connection != null) {
+                flushAllWrites();
 
-            Log.LOG.debug("Committing...");
+                Log.LOG.debug("Committing...");
 
-            connection.commit();
+                connection.commit();
+            }
 
+            committed = true;
             accountForTransactionEnd();
         } catch (SQLException e) {
             throw new SqlGraphException(e);
+        } finally {
+            if (!committed) {
+                endFailedCommit();
+            }
         }
     }
 
     @Override
-    public synchronized void rollback() {
+    public void rollback() {
         try {
-            initConnection();
-            connection.rollback();
+            if (connection != null) {
+                connection.rollback();
+            }
             accountForTransactionEnd();
         } catch (SQLException e) {
             throw new SqlGraphException(e);
@@ -329,23 +443,24 @@ public final class SqlGraph implements ThreadedTransactionalGraph, KeyIndexableG
     }
 
     @Override
-    public synchronized Vertex addVertex(Object id) {
-        return withSavePoint(() -> {
+    public Vertex addVertex(Object id) {
+        return execute(() -> {
             PreparedStatement stmt = statements.getAddVertex();
 
             if (stmt.executeUpdate() == 0) {
                 return null;
             }
             try (ResultSet rs = stmt.getGeneratedKeys()) {
-                Vertex ret = cache(statements.fromVertexResultSet(rs));
-                dirty = true;
+                SqlVertex ret = cache(statements.fromVertexResultSet(rs));
+                invalidateCache(verticesTableName);
+                created(ret);
                 return ret;
             }
         });
     }
 
     @Override
-    public synchronized SqlVertex getVertex(Object id) {
+    public SqlVertex getVertex(Object id) {
         Long realId = getId(id);
 
         if (realId == null) {
@@ -361,34 +476,99 @@ public final class SqlGraph implements ThreadedTransactionalGraph, KeyIndexableG
 
         initConnection();
         try {
-            PreparedStatement stmt = statements.getGetVertex(realId);
-            if (!stmt.execute()) {
-                return null;
-            }
+            List<Object[]> rows = statements.query("SELECT id FROM " + verticesTableName + " WHERE id = ?",
+                    Collections.singletonList(realId), verticesTableName);
 
-            try (ResultSet rs = stmt.getResultSet()) {
-                return cache(statements.fromVertexResultSet(rs));
-            }
+            return rows.isEmpty() ? null : cache(SqlVertex.GENERATOR.generate(this, rows.get(0)));
         } catch (SQLException e) {
             throw new SqlGraphException(e);
         }
     }
 
     @Override
-    public synchronized void removeVertex(Vertex vertex) {
-        withSavePoint(() -> {
+    public void removeVertex(Vertex vertex) {
+        execute(() -> {
+            //the removal cascades to the properties, so they need to be in the database
+            flushAllWrites();
             PreparedStatement stmt = statements.getRemoveVertex((Long) vertex.getId());
             if (stmt.executeUpdate() == 0) {
                 throw new IllegalStateException("Vertex with id " + vertex.getId() + " doesn't exist.");
             }
             vertexCache.remove(vertex.getId());
-            dirty = true;
+            //the removal cascades to the edges and properties
+            clearCache();
+            return null;
+        });
+    }
+
+    /**
+     * Removes the vertex and all the vertices in its outgoing transitive closure over the edges with the provided
+     * labels. The closure is read using a single recursive query and the vertices are then removed using set-based
+     * deletes, which cascade to their edges and properties.
+     *
+     * @param root           the root of the closure
+     * @param referenceLabel the label of the edges leading from the removed vertices to the vertices shared with other
+     *                       vertices. Such vertices are removed, too, once no edge with this label leads to them. May
+     *                       be null.
+     * @param labels         the labels of the edges to follow when computing the closure
+     */
+    public void removeTransitiveClosure(SqlVertex root, String referenceLabel, String... labels) {
+        execute(() -> {
+            //the removal cascades to the edges and properties, so they need to be in the database
+            flushAllWrites();
+
+            //H2 doesn't support the recursive queries in the deletes, so we need to read the ids of the closure first
+            SqlVertex.Closure closure = root.closure(Direction.OUT, labels);
+            List<Long> ids = new ArrayList<>();
+            ids.add(root.getId());
+            try (PreparedStatement st = connection.prepareStatement(closure.with + " SELECT CAST(id AS BIGINT) FROM "
+                    + closure.name)) {
+                int i = 1;
+                for (Object p : closure.params) {
+                    st.setObject(i++, p);
+                }
+
+                try (ResultSet rs = st.executeQuery()) {
+                    while (rs.next()) {
+                        ids.add(rs.getLong(1));
+                    }
+                }
+            }
+
+            List<Long> referenced = new ArrayList<>();
+            if (referenceLabel != null) {
+                for (List<Long> chunk : chunks(ids)) {
+                    PreparedStatement stmt = prepareBulk("SELECT DISTINCT vertex_in FROM " + edgesTableName
+                            + " WHERE vertex_out", chunk, " AND label = ?", referenceLabel);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            referenced.add(rs.getLong(1));
+                        }
+                    }
+                }
+            }
+
+            for (List<Long> chunk : chunks(ids)) {
+                prepareBulk("DELETE FROM " + verticesTableName + " WHERE id", chunk, "", null).executeUpdate();
+            }
+
+            for (List<Long> chunk : chunks(referenced)) {
+                prepareBulk("DELETE FROM " + verticesTableName + " WHERE id", chunk, " AND NOT EXISTS (SELECT 1 FROM "
+                        + edgesTableName + " WHERE " + edgesTableName + ".vertex_in = " + verticesTableName
+                        + ".id AND " + edgesTableName + ".label = ?)", referenceLabel).executeUpdate();
+            }
+
+            ids.forEach(vertexCache::remove);
+            referenced.forEach(vertexCache::remove);
+
+            //the removal cascades to the edges and properties
+            clearCache();
             return null;
         });
     }
 
     @Override
-    public synchronized CloseableIterable<Vertex> getVertices() {
+    public CloseableIterable<Vertex> getVertices() {
         initConnection();
         try {
             PreparedStatement stmt = statements.getAllVertices();
@@ -404,47 +584,42 @@ public final class SqlGraph implements ThreadedTransactionalGraph, KeyIndexableG
     }
 
     @Override
-    public synchronized CloseableIterable<Vertex> getVertices(String key, Object value) {
+    public CloseableIterable<Vertex> getVertices(String key, Object value) {
         return query().has(key, value).vertices();
     }
 
     @Override
-    public synchronized SqlEdge addEdge(Object id, Vertex outVertex, Vertex inVertex, String label) {
+    public SqlEdge addEdge(Object id, Vertex outVertex, Vertex inVertex, String label) {
         if (label == null) {
             throw new IllegalArgumentException("null label");
         }
 
-        return withSavePoint(() -> {
-            PreparedStatement stmt = statements
-                    .getAddEdge((Long) inVertex.getId(), (Long) outVertex.getId(), label);
+        return execute(() -> {
+            long inId = (Long) inVertex.getId();
+            long outId = (Long) outVertex.getId();
+
+            PreparedStatement stmt = statements.getAddEdge(inId, outId, label);
 
             if (stmt.executeUpdate() == 0) {
                 return null;
             }
 
-            long eid = -1;
             try (ResultSet rs = stmt.getGeneratedKeys()) {
                 if (!rs.next()) {
                     return null;
                 }
 
-                eid = rs.getLong(1);
-            }
-
-            try (ResultSet rs = statements.getGetEdge(eid).executeQuery()) {
-                if (!rs.next()) {
-                    return null;
-                }
-
-                SqlEdge ret = SqlEdge.GENERATOR.generate(this, rs);
-                dirty = true;
+                //we know everything about the new edge, so there's no need to read it back
+                SqlEdge ret = new SqlEdge(this, rs.getLong(1), inId, outId, label);
+                invalidateCache(edgesTableName);
+                created(ret);
                 return ret;
             }
         });
     }
 
     @Override
-    public synchronized SqlEdge getEdge(Object id) {
+    public SqlEdge getEdge(Object id) {
         Long eid = getId(id);
         if (eid == null) {
             return null;
@@ -453,36 +628,30 @@ public final class SqlGraph implements ThreadedTransactionalGraph, KeyIndexableG
         initConnection();
 
         try {
-            PreparedStatement stmt = statements.getGetEdge(eid);
-            if (!stmt.execute()) {
-                return null;
-            }
+            List<Object[]> rows = statements.query("SELECT id, vertex_in, vertex_out, label FROM " + edgesTableName
+                    + " WHERE id = ?", Collections.singletonList(eid), edgesTableName);
 
-            try (ResultSet rs = stmt.getResultSet()) {
-                if (!rs.next()) {
-                    return null;
-                }
-                return SqlEdge.GENERATOR.generate(this, rs);
-            }
+            return rows.isEmpty() ? null : SqlEdge.GENERATOR.generate(this, rows.get(0));
         } catch (SQLException e) {
             throw new SqlGraphException(e);
         }
     }
 
     @Override
-    public synchronized void removeEdge(Edge edge) {
-        withSavePoint(() -> {
+    public void removeEdge(Edge edge) {
+        execute(() -> {
+            flushAllWrites();
             PreparedStatement stmt = statements.getRemoveEdge((Long) edge.getId());
             if (stmt.executeUpdate() == 0) {
                 throw new IllegalStateException("Edge with id " + edge.getId() + " doesn't exist.");
             }
-            dirty = true;
+            invalidateCache(edgesTableName, edgePropertiesTableName, uniqueEdgePropertiesTableName);
             return null;
         });
     }
 
     @Override
-    public synchronized Iterable<Edge> getEdges() {
+    public Iterable<Edge> getEdges() {
         initConnection();
 
         try {
@@ -494,37 +663,39 @@ public final class SqlGraph implements ThreadedTransactionalGraph, KeyIndexableG
     }
 
     @Override
-    public synchronized CloseableIterable<Edge> getEdges(String key, Object value) {
+    public CloseableIterable<Edge> getEdges(String key, Object value) {
         return query().has(key, value).edges();
     }
 
     @Override
-    public synchronized SqlGraphQuery query() {
+    public SqlGraphQuery query() {
         return new SqlGraphQuery(this);
     }
 
     @Override
-    public synchronized void shutdown() {
-        if (connection != null) {
-            try {
-                connection.commit();
-                connection.close();
-                statements.clearCache();
-                Log.LOG.debugf("Shut down. Closed connection %s", connection);
-            } catch (SQLException e) {
-                throw new SqlGraphException(e);
-            }
+    public void shutdown() {
+        try {
+            commit();
+            shared.connectionPool.close();
+            Log.LOG.debug("Shut down.");
+        } catch (SQLException e) {
+            throw new SqlGraphException(e);
         }
     }
 
     @Override
-    public synchronized <T extends Element> void createKeyIndex(String key, Class<T> elementClass, Parameter...
+    public <T extends Element> void createKeyIndex(String key, Class<T> elementClass, Parameter...
             indexParameters) {
         if (key == null || elementClass == null) {
             throw new IllegalArgumentException();
         }
         initConnection();
+        execute(() -> {
+            flushAllWrites();
+            return null;
+        });
         indexUpdater.on(elementClass).createIndex(key);
+        clearCache();
     }
 
     @Override public <T extends Element> void dropKeyIndex(String key, Class<T> elementClass) {
@@ -532,7 +703,12 @@ public final class SqlGraph implements ThreadedTransactionalGraph, KeyIndexableG
             throw new IllegalArgumentException();
         }
         initConnection();
+        execute(() -> {
+            flushAllWrites();
+            return null;
+        });
         indexUpdater.on(elementClass).dropIndex(key);
+        clearCache();
     }
 
     @Override public <T extends Element> Set<String> getIndexedKeys(Class<T> elementClass) {
@@ -541,9 +717,9 @@ public final class SqlGraph implements ThreadedTransactionalGraph, KeyIndexableG
         }
         initConnection();
         if (Vertex.class.isAssignableFrom(elementClass)) {
-            return vertexPropertyIndices;
+            return shared.vertexPropertyIndices;
         } else if (Edge.class.isAssignableFrom(elementClass)) {
-            return edgePropertyIndices;
+            return shared.edgePropertyIndices;
         } else {
             return Collections.emptySet();
         }
@@ -551,20 +727,81 @@ public final class SqlGraph implements ThreadedTransactionalGraph, KeyIndexableG
 
     @Override
     public String toString() {
-        return "sqlgraph(" + dataSource.toString() + ")";
+        return "sqlgraph(" + shared.connectionPool.getDataSource() + ")";
     }
 
-    synchronized Connection getConnection() {
+    Connection getConnection() {
         initConnection();
         return connection;
     }
 
-    synchronized Statements getStatements() {
+    Statements getStatements() {
         initConnection();
         return statements;
     }
 
-    synchronized long getTransactionCount() {
+    /**
+     * @return the number of queries served from the transaction cache by this graph and all the transactions opened
+     * from it
+     */
+    public long getSelectCacheHits() {
+        return shared.selectCacheHits.get();
+    }
+
+    /**
+     * @return the number of queries that had to be sent to the database because they were not found in the transaction
+     * cache
+     */
+    public long getSelectCacheMisses() {
+        return shared.selectCacheMisses.get();
+    }
+
+    /**
+     * @return the cache of the query results or null if the results are not to be cached
+     */
+    TransactionCache getTransactionCache() {
+        return transactionCache;
+    }
+
+    /**
+     * Evicts the cached results read from the provided tables. Needs to be called whenever the tables are modified.
+     */
+    void invalidateCache(String... tables) {
+        if (transactionCache != null) {
+            transactionCache.invalidate(tables);
+        }
+    }
+
+    /**
+     * @return the buffer of the writes or null if the writes are not to be buffered
+     */
+    WriteBuffer getWriteBuffer() {
+        return writeBuffer;
+    }
+
+    /**
+     * Writes the buffered inserts into the provided tables to the database. Needs to be called before reading from or
+     * deleting from the tables.
+     */
+    void flushWrites(String... tables) throws SQLException {
+        if (writeBuffer != null) {
+            writeBuffer.flush(tables);
+        }
+    }
+
+    void flushAllWrites() throws SQLException {
+        if (writeBuffer != null) {
+            writeBuffer.flushAll();
+        }
+    }
+
+    void clearCache() {
+        if (transactionCache != null) {
+            transactionCache.clear();
+        }
+    }
+
+    long getTransactionCount() {
         return transactionCount;
     }
 
@@ -580,6 +817,10 @@ public final class SqlGraph implements ThreadedTransactionalGraph, KeyIndexableG
         return vertexPropertiesTableName;
     }
 
+    String getSchemaVersionTableName() {
+        return verticesTableName + "_schema";
+    }
+
     String getUniqueEdgePropertiesTableName() {
         return uniqueEdgePropertiesTableName;
     }
@@ -592,14 +833,58 @@ public final class SqlGraph implements ThreadedTransactionalGraph, KeyIndexableG
         return edgePropertiesTableName;
     }
 
-    synchronized void setDirty() {
-        dirty = true;
-    }
-
     boolean isLoadPropertiesEagerly() {
         return loadPropertiesEagerly;
     }
 
+    /**
+     * The SQL clause to append to a string expression so that it is compared the same way as
+     * {@link String#compareTo(String)} does. H2 compares the strings that way by default, Postgres needs the binary
+     * "C" collation, which orders by the code points. That only differs from the Java order for the characters
+     * outside of the basic multilingual plane compared to the characters above U+E000.
+     */
+    String binaryCollation() throws SQLException {
+        return isH2() ? "" : " COLLATE \"C\"";
+    }
+
+    private boolean isH2() throws SQLException {
+        if (shared.h2 == null) {
+            shared.h2 = "H2".equals(getConnection().getMetaData().getDatabaseProductName());
+        }
+
+        return shared.h2;
+    }
+
+    /**
+     * Produces the SQL expression of a value used inside a recursive query. The value is normally bound as a parameter
+     * of the query. H2 doesn't support parameters inside the recursive queries though, so there the numbers are
+     * inlined and the strings are passed in session variables. Each distinct string gets its own variable, so the SQL
+     * of the query still identifies the values and its results can be cached.
+     *
+     * @param value  the value, either a long or a string
+     * @param params the parameters of the query, the value is added to them if it is bound as a parameter
+     * @return the SQL expression of the value
+     */
+    String recursiveQueryValue(Object value, List<Object> params) throws SQLException {
+        if (!isH2()) {
+            params.add(value);
+            return "?";
+        }
+
+        if (value instanceof Long) {
+            return value.toString();
+        }
+
+        String variable = "@hwk_value_" + shared.sessionVariables.computeIfAbsent((String) value,
+                v -> shared.sessionVariableCount.getAndIncrement());
+
+        PreparedStatement st = getStatements().get("SET " + variable + " = ?");
+        st.setString(1, (String) value);
+        st.executeUpdate();
+
+        return variable;
+    }
+
     boolean isCacheStatements() {
         return cacheStatements;
     }
@@ -615,14 +900,36 @@ public final class SqlGraph implements ThreadedTransactionalGraph, KeyIndexableG
         }
     }
 
+    /**
+     * Executes the payload in a savepoint so that a failure of the payload doesn't fail the whole transaction. This is
+     * only needed for the writes that can violate the uniqueness constraints, because those failures are translated
+     * to an {@link InsertException} which the callers can recover from.
+     *
+     * @throws InsertException if the payload violated some integrity constraint
+     */
     <R> R withSavePoint(SQLCallable<R> payload) throws SqlGraphException {
         initConnection();
-        //Savepoint sp = null;
+        Savepoint sp = null;
+        try {
+            sp = connection.setSavepoint();
+            R ret = payload.call();
+            connection.releaseSavepoint(sp);
+            return ret;
+        } catch (SQLException e) {
+            Log.LOG.iRollingBackFailedCommand(e);
+            rollbackToSavePoint(sp);
+            if (e.getSQLState() != null && e.getSQLState().startsWith("23")) {
+                throw new InsertException(e);
+            }
+            throw new SqlGraphException(e);
+        }
+    }
+
+    <R> R execute(SQLCallable<R> payload) throws SqlGraphException {
+        initConnection();
         try {
-            //sp = connection.setSavepoint();
             return payload.call();
         } catch (SQLException e) {
-            //rollbackToSavePoint(sp);
             throw new SqlGraphException(e);
         }
     }
@@ -630,10 +937,7 @@ public final class SqlGraph implements ThreadedTransactionalGraph, KeyIndexableG
     private void ensureConnection() {
         if (connection == null) {
             try {
-                connection = dataSource.getConnection();
-                connection.setAutoCommit(false);
-                connection.setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
-                Log.LOG.debugf("Opened connection %s", connection);
+                connection = shared.connectionPool.borrow();
                 statements = new Statements(this);
             } catch (SQLException e) {
                 throw new SqlGraphException(e);
@@ -646,6 +950,39 @@ public final class SqlGraph implements ThreadedTransactionalGraph, KeyIndexableG
         refreshIndices();
     }
 
+    private static List<List<Long>> chunks(List<Long> ids) {
+        List<List<Long>> ret = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i += BULK_SIZE) {
+            ret.add(ids.subList(i, Math.min(ids.size(), i + BULK_SIZE)));
+        }
+        return ret;
+    }
+
+    /**
+     * Prepares the statement {@code sqlStart IN (?, ...) sqlEnd} with the ids and the optional parameter of the
+     * {@code sqlEnd}.
+     */
+    private PreparedStatement prepareBulk(String sqlStart, List<Long> ids, String sqlEnd, String param)
+            throws SQLException {
+        StringBuilder sql = new StringBuilder(sqlStart).append(" IN (?");
+        for (int i = 1; i < ids.size(); ++i) {
+            sql.append(", ?");
+        }
+        sql.append(")").append(sqlEnd);
+
+        PreparedStatement stmt = statements.get(sql.toString());
+        int i = 1;
+        for (Long id : ids) {
+            stmt.setLong(i++, id);
+        }
+
+        if (param != null) {
+            stmt.setString(i, param);
+        }
+
+        return stmt;
+    }
+
     private Long getId(Object id) {
         if (id == null) {
             throw new IllegalArgumentException("null id");
@@ -662,6 +999,15 @@ public final class SqlGraph implements ThreadedTransactionalGraph, KeyIndexableG
         }
     }
 
+    private void created(SqlElement element) {
+        if (element != null) {
+            element.initEmptyPropertyCache();
+            if (writeBuffer != null) {
+                writeBuffer.created(element);
+            }
+        }
+    }
+
     private SqlVertex cache(SqlVertex v) {
         if (v != null) {
             vertexCache.put(v.getId(), new WeakReference<>(v));
@@ -670,17 +1016,64 @@ public final class SqlGraph implements ThreadedTransactionalGraph, KeyIndexableG
         return v;
     }
 
+    /**
+     * Rolls back the transaction the commit of which failed and releases its connection, so that the graph can be used
+     * for a new transaction. This doesn't throw, so that the cause of the failed commit is not lost.
+     */
+    private void endFailedCommit() {
+        if (connection != null) {
+            try {
+                connection.rollback();
+            } catch (SQLException e) {
+                Log.LOG.wRollbackAfterFailedCommitFailed(e);
+            }
+        }
+
+        try {
+            accountForTransactionEnd();
+        } catch (SQLException e) {
+            Log.LOG.debugf(e, "Failed to release the connection after a failed commit.");
+        }
+    }
+
     private void accountForTransactionEnd() throws SQLException {
-        if (closeConnectionOnTransactionEnd) {
-            connection.close();
-            Log.LOG.debugf("Closed connection %s", connection);
-            connection = null;
+        if (connection != null) {
             statements.clearCache();
+            if (closeConnectionOnTransactionEnd) {
+                connection.close();
+                Log.LOG.debugf("Closed connection %s", connection);
+            } else {
+                shared.connectionPool.release(connection);
+            }
+            connection = null;
+            statements = null;
+        }
+        clearCache();
+        if (writeBuffer != null) {
+            writeBuffer.discard();
         }
-        dirty = false;
         transactionCount++;
     }
 
+    /**
+     * The state shared by the graph and all the transactions opened from it.
+     */
+    private static final class SharedState {
+        final ConnectionPool connectionPool;
+        final Set<String> vertexPropertyIndices = Collections.newSetFromMap(new ConcurrentHashMap<>());
+        final Set<String> edgePropertyIndices = Collections.newSetFromMap(new ConcurrentHashMap<>());
+        final AtomicLong selectCacheHits = new AtomicLong();
+        final AtomicLong selectCacheMisses = new AtomicLong();
+        final Map<String, Integer> sessionVariables = new ConcurrentHashMap<>();
+        final AtomicInteger sessionVariableCount = new AtomicInteger();
+        volatile boolean indicesLoaded;
+        volatile Boolean h2;
+
+        SharedState(ConnectionPool connectionPool) {
+            this.connectionPool = connectionPool;
+        }
+    }
+
     interface SQLCallable<R> {
         R call() throws SQLException;
     }
@@ -694,13 +1087,13 @@ public final class SqlGraph implements ThreadedTransactionalGraph, KeyIndexableG
 
         public IndexUpdater on(Class<?> elementClass) {
             if (Vertex.class.isAssignableFrom(elementClass)) {
-                indices = vertexPropertyIndices;
+                indices = shared.vertexPropertyIndices;
                 indexTable = vertexIndicesTableName;
                 uPropTable = uniqueVertexPropertiesTableName;
                 nuPropTable = vertexPropertiesTableName;
                 propTableFk = "vertex_id";
             } else if (Edge.class.isAssignableFrom(elementClass)) {
-                indices = edgePropertyIndices;
+                indices = shared.edgePropertyIndices;
                 indexTable = edgeIndicesTableName;
                 uPropTable = uniqueEdgePropertiesTableName;
                 nuPropTable = edgePropertiesTableName;
@@ -785,10 +1178,14 @@ public final class SqlGraph implements ThreadedTransactionalGraph, KeyIndexableG
             String sql = "SELECT name FROM " + indexTable;
 
             try (ResultSet rs = statements.get(sql).executeQuery()) {
-                indices.clear();
+                Set<String> current = new HashSet<>();
                 while (rs.next()) {
-                    indices.add(rs.getString(1));
+                    current.add(rs.getString(1));
                 }
+
+                //the indices are shared with the concurrent transactions, so never leave them empty in between
+                indices.addAll(current);
+                indices.retainAll(current);
             } catch (SQLException e) {
                 throw new SqlGraphException(e);
             }
@@ -16,10 +16,9 @@
  */
 package org.hawkular.inventory.impl.tinkerpop.sql.impl;
 
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.List;
+import java.util.Set;
 
 import com.tinkerpop.blueprints.CloseableIterable;
 import com.tinkerpop.blueprints.Edge;
@@ -95,12 +94,14 @@ public final class SqlGraphQuery implements GraphQuery {
     @Override
     public CloseableIterable<Edge> edges() {
         try {
-            PreparedStatement stmt = generateStatement("SELECT id, vertex_in, vertex_out, label",
-                graph.getEdgesTableName(), graph.getUniqueEdgePropertiesTableName(),
-                    graph.getEdgePropertiesTableName(), SqlEdge.getPropertyTableForeignKey(),
-                    SqlEdge.DISALLOWED_PROPERTY_NAMES);
-
-            return new StatementIterable<Edge>(SqlEdge.GENERATOR, graph, stmt);
+            QueryFilters.SqlAndParams sql = generateStatement("SELECT id, vertex_in, vertex_out, label",
+                graph.getEdgesTableName(), graph.getEdgePropertiesTableName(),
+                    graph.getUniqueEdgePropertiesTableName(), SqlEdge.getPropertyTableForeignKey(),
+                    SqlEdge.DISALLOWED_PROPERTY_NAMES, graph.getIndexedKeys(Edge.class));
+
+            return new StatementIterable<Edge>(SqlEdge.GENERATOR, graph, sql.sql.toString(), sql.params, -1,
+                    graph.getEdgesTableName(), graph.getEdgePropertiesTableName(),
+                    graph.getUniqueEdgePropertiesTableName());
         } catch (SQLException e) {
             throw new SqlGraphException(e);
         }
@@ -109,37 +110,32 @@ public final class SqlGraphQuery implements GraphQuery {
     @Override
     public CloseableIterable<Vertex> vertices() {
         try {
-            PreparedStatement stmt = generateStatement("SELECT id", graph.getVerticesTableName(),
+            QueryFilters.SqlAndParams sql = generateStatement("SELECT id", graph.getVerticesTableName(),
                 graph.getVertexPropertiesTableName(), graph.getUniqueVertexPropertiesTableName(),
                     SqlVertex.getPropertyTableForeignKey(),
-                SqlVertex.DISALLOWED_PROPERTY_NAMES);
+                SqlVertex.DISALLOWED_PROPERTY_NAMES, graph.getIndexedKeys(Vertex.class));
 
-            return new StatementIterable<Vertex>(SqlVertex.GENERATOR, graph, stmt);
+            return new StatementIterable<Vertex>(SqlVertex.GENERATOR, graph, sql.sql.toString(), sql.params, -1,
+                    graph.getVerticesTableName(), graph.getVertexPropertiesTableName(),
+                    graph.getUniqueVertexPropertiesTableName());
         } catch (SQLException e) {
             throw new SqlGraphException(e);
         }
     }
 
-    private PreparedStatement generateStatement(String select, String mainTable, String propsTable,
-                                                String uniquePropsTable, String propsTableFK,
-                                                List<String> specialProps) throws SQLException {
+    private QueryFilters.SqlAndParams generateStatement(String select, String mainTable, String propsTable,
+                                                        String uniquePropsTable, String propsTableFK,
+                                                        List<String> specialProps, Set<String> indexedProps)
+            throws SQLException {
 
         QueryFilters.SqlAndParams sql = filters.generateStatement(select, mainTable, propsTable, uniquePropsTable,
-                propsTableFK, specialProps, null);
+                propsTableFK, specialProps, indexedProps, null);
 
         if (limit >= 0) {
             sql.sql.append(" LIMIT ").append(limit);
         }
 
-        PreparedStatement stmt = graph.getConnection()
-            .prepareStatement(sql.sql.toString(), ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
-
-        int i = 1;
-        for (Object p : sql.params) {
-            stmt.setObject(i++, p);
-        }
-
-        return stmt;
+        return sql;
     }
 
 }
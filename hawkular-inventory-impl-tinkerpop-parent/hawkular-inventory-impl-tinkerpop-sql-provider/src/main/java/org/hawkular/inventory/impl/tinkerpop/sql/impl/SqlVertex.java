@@ -19,6 +19,7 @@ package org.hawkular.inventory.impl.tinkerpop.sql.impl;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -43,6 +44,11 @@ public final class SqlVertex extends SqlElement implements Vertex {
                 throw new SqlGraphException("Failed to generate SqlVertex from resultset", e);
             }
         }
+
+        @Override
+        public SqlVertex generate(SqlGraph graph, Object[] row) {
+            return new SqlVertex(graph, ((Number) row[0]).longValue());
+        }
     };
 
     public static final List<String> DISALLOWED_PROPERTY_NAMES = Arrays.asList("id");
@@ -57,14 +63,14 @@ public final class SqlVertex extends SqlElement implements Vertex {
 
     @Override
     public void remove() {
-        synchronized (graph) {
-            graph.withSavePoint(() -> {
-                PreparedStatement stmt = graph.getStatements().getRemoveVertex(getId());
-                stmt.executeUpdate();
-                graph.setDirty();
-                return null;
-            });
-        }
+        graph.execute(() -> {
+            graph.flushAllWrites();
+            PreparedStatement stmt = graph.getStatements().getRemoveVertex(getId());
+            stmt.executeUpdate();
+            //the removal cascades to the edges and properties
+            graph.clearCache();
+            return null;
+        });
     }
 
     @Override
@@ -109,34 +115,8 @@ public final class SqlVertex extends SqlElement implements Vertex {
 
         addLabelConditions(sql, "e", labels);
 
-        synchronized (graph) {
-            try {
-                PreparedStatement stmt = graph.getConnection()
-                        .prepareStatement(sql.toString(), ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet
-                                .CONCUR_READ_ONLY);
-                stmt.setLong(1, getId());
-                int inc = 2;
-                if (direction == Direction.BOTH) {
-                    for (int i = 0; i < labels.length; ++i) {
-                        stmt.setString(i + inc, labels[i]);
-                    }
-
-                    inc += labels.length;
-
-                    stmt.setLong(inc, getId());
-
-                    inc++;
-                }
-
-                for (int i = 0; i < labels.length; ++i) {
-                    stmt.setString(i + inc, labels[i]);
-                }
-
-                return new StatementIterable<Edge>(SqlEdge.GENERATOR, graph, stmt);
-            } catch (SQLException e) {
-                throw new SqlGraphException(e);
-            }
-        }
+        return new StatementIterable<Edge>(SqlEdge.GENERATOR, graph, sql.toString(),
+                queryParams(direction, labels), -1, graph.getEdgesTableName(), graph.getVerticesTableName());
     }
 
     @Override
@@ -160,35 +140,103 @@ public final class SqlVertex extends SqlElement implements Vertex {
 
         addLabelConditions(sql, "e", labels);
 
-        synchronized (graph) {
-            try {
-                PreparedStatement stmt = graph.getConnection()
-                        .prepareStatement(sql.toString(), ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet
-                                .CONCUR_READ_ONLY);
-                stmt.setLong(1, getId());
-                int inc = 2;
-                if (direction == Direction.BOTH) {
-                    for (int i = 0; i < labels.length; ++i) {
-                        stmt.setString(i + inc, labels[i]);
-                    }
+        return new StatementIterable<Vertex>(SqlVertex.GENERATOR, graph, sql.toString(),
+                queryParams(direction, labels), -1, graph.getEdgesTableName(), graph.getVerticesTableName());
+    }
 
-                    inc += labels.length;
+    /**
+     * Returns all the vertices reachable from this vertex over the edges with the provided labels in the provided
+     * direction, in the breadth-first order. The whole closure is read using a single recursive query. The edges
+     * reachable from this vertex must not form a cycle.
+     *
+     * <p>Just as with a Gremlin loop, a vertex is returned once for each path leading to it.
+     *
+     * @param direction either {@link Direction#OUT} or {@link Direction#IN}
+     * @param labels    the labels of the edges to follow
+     * @return the vertices in the transitive closure, not including this vertex
+     */
+    public Iterable<Vertex> getTransitiveClosure(Direction direction, String... labels) {
+        Closure closure = closure(direction, labels);
+        String sql = closure.with + " SELECT CAST(id AS BIGINT) FROM " + closure.name + " ORDER BY CAST(depth AS INT)";
+
+        return new StatementIterable<Vertex>(SqlVertex.GENERATOR, graph, sql, closure.params, -1,
+                graph.getEdgesTableName(), graph.getVerticesTableName());
+    }
 
-                    stmt.setLong(inc, getId());
+    /**
+     * Finds the vertices among this vertex and its outgoing transitive closure over the edges with the provided labels
+     * that have an outgoing edge with given label leading to a vertex outside of the closure. This is a single
+     * anti-join of the edges with the closure.
+     *
+     * @param label         the label of the edges leading outside of the closure
+     * @param closureLabels the labels of the edges to follow when computing the closure
+     * @return the distinct vertices with the edges leading outside of the closure
+     */
+    public Iterable<Vertex> getVerticesLinkingOutsideOfClosure(String label, String... closureLabels) {
+        Closure closure = closure(Direction.OUT, closureLabels);
+        String edges = graph.getEdgesTableName();
+        String members = "SELECT CAST(id AS BIGINT) FROM " + closure.name;
+
+        String sql = closure.with + " SELECT DISTINCT " + edges + ".vertex_out FROM " + edges + " WHERE " + edges
+                + ".label = ? AND (" + edges + ".vertex_out = ? OR " + edges + ".vertex_out IN (" + members
+                + ")) AND " + edges + ".vertex_in <> ? AND " + edges + ".vertex_in NOT IN (" + members + ")";
+
+        List<Object> params = new ArrayList<>(closure.params);
+        params.add(label);
+        params.add(getId());
+        params.add(getId());
+
+        return new StatementIterable<Vertex>(SqlVertex.GENERATOR, graph, sql, params, -1, edges,
+                graph.getVerticesTableName());
+    }
 
-                    inc++;
-                }
+    /**
+     * Produces the recursive common table expression computing the transitive closure of this vertex. The expression
+     * defines the {@code id} and {@code depth} columns. The values used in the expression are in the parameters of
+     * the closure, which need to precede any other parameters of the query.
+     */
+    Closure closure(Direction direction, String... labels) {
+        if (direction == Direction.BOTH) {
+            throw new IllegalArgumentException("Transitive closure not supported in both directions.");
+        }
 
-                for (int i = 0; i < labels.length; ++i) {
-                    stmt.setString(i + inc, labels[i]);
-                }
+        String from = direction == Direction.OUT ? "vertex_out" : "vertex_in";
+        String to = direction == Direction.OUT ? "vertex_in" : "vertex_out";
 
-                return new StatementIterable<Vertex>(
-                        SqlVertex.GENERATOR, graph, stmt);
-            } catch (SQLException e) {
-                throw new SqlGraphException(e);
+        return graph.execute(() -> {
+            //the anchor and the recursive part both filter by the labels, so each label is used twice
+            List<Object> params = new ArrayList<>();
+            String id = graph.recursiveQueryValue(getId(), params);
+            String anchorLabels = labelCondition(labels, params);
+            String recursiveLabels = labelCondition(labels, params);
+
+            //H2 treats all the columns of the recursive query as varchars and needs different names for different
+            //recursive queries in the same session.
+            String body = "SELECT %2$s." + to + ", 1 FROM %2$s WHERE %2$s." + from + " = " + id + anchorLabels
+                    + " UNION ALL SELECT %2$s." + to + ", CAST(%1$s.depth AS INT) + 1 FROM %1$s, %2$s WHERE %2$s."
+                    + from + " = CAST(%1$s.id AS BIGINT)" + recursiveLabels;
+
+            String name = "closure_" + Integer.toHexString(body.hashCode());
+
+            return new Closure(name, String.format("WITH RECURSIVE %1$s(id, depth) AS (" + body + ")", name,
+                    graph.getEdgesTableName()), params);
+        });
+    }
+
+    private String labelCondition(String[] labels, List<Object> params) throws SQLException {
+        if (labels.length == 0) {
+            return "";
+        }
+
+        StringBuilder condition = new StringBuilder(" AND %2$s.label IN (");
+        for (int i = 0; i < labels.length; ++i) {
+            if (i > 0) {
+                condition.append(", ");
             }
+            condition.append(graph.recursiveQueryValue(labels[i], params));
         }
+
+        return condition.append(")").toString();
     }
 
     @Override
@@ -201,6 +249,18 @@ public final class SqlVertex extends SqlElement implements Vertex {
         return graph.addEdge(null, this, inVertex, label);
     }
 
+    private List<Object> queryParams(Direction direction, String... labels) {
+        List<Object> params = new ArrayList<>();
+        params.add(getId());
+        if (direction == Direction.BOTH) {
+            params.addAll(Arrays.asList(labels));
+            params.add(getId());
+        }
+        params.addAll(Arrays.asList(labels));
+
+        return params;
+    }
+
     private boolean addLabelConditions(StringBuilder sql, String tableName, String... labels) {
         if (labels.length > 0) {
             sql.append("AND ").append(tableName).append(".label IN (?");
@@ -216,4 +276,16 @@ public final class SqlVertex extends SqlElement implements Vertex {
 
         return labels.length > 0;
     }
+
+    static final class Closure {
+        final String name;
+        final String with;
+        final List<Object> params;
+
+        private Closure(String name, String with, List<Object> params) {
+            this.name = name;
+            this.with = with;
+            this.params = params;
+        }
+    }
 }
@@ -16,10 +16,9 @@
  */
 package org.hawkular.inventory.impl.tinkerpop.sql.impl;
 
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.Arrays;
+import java.util.List;
 
 import com.tinkerpop.blueprints.CloseableIterable;
 import com.tinkerpop.blueprints.Contains;
@@ -61,24 +60,22 @@ public final class SqlVertexQuery implements VertexQuery {
 
     @Override
     public long count() {
-        synchronized (graph) {
-            try (PreparedStatement stmt = generateCountEdgeQuery()) {
-                try (ResultSet rs = stmt.executeQuery()) {
-                    if (!rs.next()) {
-                        return 0;
-                    }
-
-                    long cnt = rs.getLong(1);
-
-                    if (limit < 0) {
-                        return cnt;
-                    } else {
-                        return cnt > limit ? limit : cnt;
-                    }
-                }
-            } catch (SQLException e) {
-                throw new SqlGraphException(e);
+        try {
+            QueryFilters.SqlAndParams sql = generateQueryString("SELECT COUNT(*)");
+            List<Object[]> rows = graph.getStatements().query(sql.sql.toString(), sql.params, queriedTables());
+            if (rows.isEmpty()) {
+                return 0;
             }
+
+            long cnt = ((Number) rows.get(0)[0]).longValue();
+
+            if (limit < 0) {
+                return cnt;
+            } else {
+                return cnt > limit ? limit : cnt;
+            }
+        } catch (SQLException e) {
+            throw new SqlGraphException(e);
         }
     }
 
@@ -137,43 +134,38 @@ public final class SqlVertexQuery implements VertexQuery {
 
     @Override
     public CloseableIterable<Edge> edges() {
-        synchronized (graph) {
-            try {
-                PreparedStatement stmt = generateEdgeQuery();
-                return new StatementIterable<Edge>(SqlEdge.GENERATOR, graph, stmt);
-            } catch (SQLException e) {
-                throw new SqlGraphException(e);
-            }
+        try {
+            QueryFilters.SqlAndParams sql = generateQueryString("SELECT id, vertex_in, vertex_out, label");
+            return new StatementIterable<Edge>(SqlEdge.GENERATOR, graph, sql.sql.toString(), sql.params, -1,
+                    queriedTables());
+        } catch (SQLException e) {
+            throw new SqlGraphException(e);
         }
     }
 
     @Override
     public CloseableIterable<Vertex> vertices() {
-        synchronized (graph) {
-            try {
-                PreparedStatement stmt = generateVertexQuery();
-                long artificialLimit = direction == Direction.BOTH ? limit : -1;
-                return new StatementIterable<Vertex>(SqlVertex.GENERATOR, graph, stmt, artificialLimit);
-            } catch (SQLException e) {
-                throw new SqlGraphException(e);
-            }
+        try {
+            QueryFilters.SqlAndParams sql = generateVertexQuery();
+            long artificialLimit = direction == Direction.BOTH ? limit : -1;
+            return new StatementIterable<Vertex>(SqlVertex.GENERATOR, graph, sql.sql.toString(), sql.params,
+                    artificialLimit, queriedTables());
+        } catch (SQLException e) {
+            throw new SqlGraphException(e);
         }
     }
 
-    private PreparedStatement generateCountEdgeQuery() throws SQLException {
-        return generateQuery("SELECT COUNT(*)");
-    }
-
-    private PreparedStatement generateEdgeQuery() throws SQLException {
-        return generateQuery("SELECT id, vertex_in, vertex_out, label");
+    private String[] queriedTables() {
+        return new String[] {graph.getEdgesTableName(), graph.getEdgePropertiesTableName(),
+                graph.getUniqueEdgePropertiesTableName()};
     }
 
-    private PreparedStatement generateVertexQuery() throws SQLException {
+    private QueryFilters.SqlAndParams generateVertexQuery() throws SQLException {
         switch (direction) {
         case IN:
-            return generateQuery("SELECT vertex_out");
+            return generateQueryString("SELECT vertex_out");
         case OUT:
-            return generateQuery("SELECT vertex_in");
+            return generateQueryString("SELECT vertex_in");
         case BOTH:
             direction = Direction.IN;
             QueryFilters.SqlAndParams sql = generateQueryString("SELECT vertex_out");
@@ -184,30 +176,13 @@ public final class SqlVertexQuery implements VertexQuery {
             sql.sql.append(" UNION ALL ").append(sql2.sql);
             sql.params.addAll(sql2.params);
 
-            return generateQuery(sql);
+            return sql;
         default:
             throw new IllegalStateException("unknown direction value");
         }
 
     }
 
-    private PreparedStatement generateQuery(String select) throws SQLException {
-        return generateQuery(generateQueryString(select));
-    }
-
-    private PreparedStatement generateQuery(QueryFilters.SqlAndParams sql) throws
-            SQLException {
-        PreparedStatement stmt = graph.getConnection()
-            .prepareStatement(sql.sql.toString(), ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
-
-        int i = 1;
-        for (Object p : sql.params) {
-            stmt.setObject(i++, p);
-        }
-
-        return stmt;
-    }
-
     private QueryFilters.SqlAndParams generateQueryString(String select) throws
             SQLException {
         String edges = graph.getEdgesTableName();
@@ -227,7 +202,8 @@ public final class SqlVertexQuery implements VertexQuery {
 
         QueryFilters.SqlAndParams sql = filters.generateStatement(select, graph.getEdgesTableName(),
             graph.getEdgePropertiesTableName(), graph.getUniqueEdgePropertiesTableName(),
-            SqlEdge.getPropertyTableForeignKey(), SqlEdge.DISALLOWED_PROPERTY_NAMES, directionFilter);
+            SqlEdge.getPropertyTableForeignKey(), SqlEdge.DISALLOWED_PROPERTY_NAMES, graph.getIndexedKeys(Edge.class),
+            directionFilter);
 
 
         if (limit >= 0) {
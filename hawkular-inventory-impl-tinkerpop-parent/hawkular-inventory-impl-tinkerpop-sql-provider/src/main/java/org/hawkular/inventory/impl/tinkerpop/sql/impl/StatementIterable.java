@@ -20,7 +20,11 @@ import java.io.Closeable;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
 
 import com.tinkerpop.blueprints.CloseableIterable;
@@ -33,12 +37,18 @@ class StatementIterable<T> implements CloseableIterable<T> {
     private final ElementGenerator<? extends T> generator;
     private final SqlGraph graph;
     private final PreparedStatement st;
+    private final String sql;
+    private final List<?> params;
+    private final String[] tables;
     private final long artificialLimit;
 
     private StatementIterable() {
         generator = null;
         graph = null;
         st = null;
+        sql = null;
+        params = null;
+        tables = null;
         artificialLimit = -1;
     }
 
@@ -51,6 +61,28 @@ class StatementIterable<T> implements CloseableIterable<T> {
         this.generator = generator;
         this.graph = graph;
         this.st = st;
+        this.sql = null;
+        this.params = null;
+        this.tables = null;
+        this.artificialLimit = artificialLimit;
+    }
+
+    /**
+     * Unlike the iterables constructed from a prepared statement, the results of this one can be served from the
+     * transaction cache of the graph.
+     *
+     * @param sql    the query
+     * @param params the parameters of the query
+     * @param tables the tables the query reads from
+     */
+    StatementIterable(ElementGenerator<? extends T> generator, SqlGraph graph, String sql, List<?> params,
+                      long artificialLimit, String... tables) {
+        this.generator = generator;
+        this.graph = graph;
+        this.st = null;
+        this.sql = sql;
+        this.params = params;
+        this.tables = tables;
         this.artificialLimit = artificialLimit;
     }
 
@@ -84,8 +116,33 @@ class StatementIterable<T> implements CloseableIterable<T> {
 
     @Override
     public Iterator<T> iterator() {
+        Iterator<T> it = rawIterator();
+        return graph.isLoadPropertiesEagerly() ? new PropertyLoadingIterator(it) : it;
+    }
+
+    private Iterator<T> rawIterator() {
         try {
-            return new ResultSetIterator(st.executeQuery());
+            if (st != null) {
+                return new ResultSetIterator(st.executeQuery());
+            }
+
+            if (graph.getTransactionCache() != null) {
+                return new RowIterator(graph.getStatements().query(sql, params, tables));
+            }
+
+            graph.flushWrites(tables);
+
+            //the cached statements cannot be used here, because the iteration of the results might be interleaved
+            //with another execution of the same statement, which would close the result set we're reading.
+            PreparedStatement stmt = graph.getConnection().prepareStatement(sql,
+                    ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
+
+            int i = 1;
+            for (Object p : params) {
+                stmt.setObject(i++, p);
+            }
+
+            return new ResultSetIterator(stmt.executeQuery());
         } catch (SQLException e) {
             throw new SqlGraphException(e);
         }
@@ -106,6 +163,90 @@ class StatementIterable<T> implements CloseableIterable<T> {
         super.finalize();
     }
 
+    /**
+     * Reads the elements ahead in batches and loads their properties using a single query per batch.
+     */
+    class PropertyLoadingIterator implements Iterator<T> {
+        final Iterator<T> source;
+        final Deque<T> batch = new ArrayDeque<>(SqlElement.PROPERTY_BATCH_SIZE);
+
+        PropertyLoadingIterator(Iterator<T> source) {
+            this.source = source;
+        }
+
+        @Override
+        public boolean hasNext() {
+            fillBatch();
+            return !batch.isEmpty();
+        }
+
+        @Override
+        public T next() {
+            fillBatch();
+            if (batch.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+
+            return batch.poll();
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        private void fillBatch() {
+            if (!batch.isEmpty()) {
+                return;
+            }
+
+            List<SqlElement> elements = new ArrayList<>(SqlElement.PROPERTY_BATCH_SIZE);
+            while (batch.size() < SqlElement.PROPERTY_BATCH_SIZE && source.hasNext()) {
+                T e = source.next();
+                batch.add(e);
+                if (e instanceof SqlElement) {
+                    elements.add((SqlElement) e);
+                }
+            }
+
+            SqlElement.loadProperties(graph, elements);
+        }
+    }
+
+    class RowIterator implements Iterator<T> {
+        final Iterator<Object[]> rows;
+        long cnt;
+
+        RowIterator(List<Object[]> rows) {
+            this.rows = rows.iterator();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !isPastLimit() && rows.hasNext();
+        }
+
+        @Override
+        public T next() {
+            if (isPastLimit()) {
+                throw new NoSuchElementException();
+            }
+
+            T ret = generator.generate(graph, rows.next());
+            cnt++;
+            return ret;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        private boolean isPastLimit() {
+            return artificialLimit >= 0 && cnt >= artificialLimit;
+        }
+    }
+
     class ResultSetIterator implements Iterator<T>, Closeable {
         final ResultSet rs;
         T next;
@@ -20,7 +20,9 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 
 /**
  * @author Lukas Krejci
@@ -30,7 +32,8 @@ final class Statements {
 
     private final SqlGraph graph;
 
-    private final HashMap<String, ThreadLocal<PreparedStatement>> statementCache = new HashMap<>();
+    //the statements are owned by a single transaction, so there's no need for any synchronization
+    private final HashMap<String, PreparedStatement> statementCache = new HashMap<>();
 
     public Statements(SqlGraph graph) {
         this.graph = graph;
@@ -50,20 +53,6 @@ final class Statements {
         return stmt;
     }
 
-    public PreparedStatement getGetEdge(long id) throws SQLException {
-        String sql = "SELECT id, vertex_in, vertex_out, label FROM edges WHERE id = ?";
-        PreparedStatement stmt = get(sql);
-        stmt.setLong(1, id);
-        return stmt;
-    }
-
-    public PreparedStatement getGetVertex(long id) throws SQLException {
-        String sql = "SELECT id FROM vertices WHERE id = ?";
-        PreparedStatement stmt = get(sql);
-        stmt.setLong(1, id);
-        return stmt;
-    }
-
     public PreparedStatement getRemoveVertex(long id) throws SQLException {
         String sql = "DELETE FROM vertices WHERE id = ?";
         PreparedStatement stmt = get(sql);
@@ -96,6 +85,49 @@ final class Statements {
         return SqlVertex.GENERATOR.generate(graph, rs);
     }
 
+    /**
+     * Executes the query and reads all the rows of its result. If the graph caches the selects, the result is served
+     * from the transaction cache, if possible.
+     *
+     * @param sql    the query
+     * @param params the parameters of the query
+     * @param tables the tables the query reads from. Modifying any of them evicts the result from the cache. The
+     *               buffered writes to these tables are flushed before the query.
+     * @return the rows of the result, each row being an array of column values
+     */
+    public List<Object[]> query(String sql, List<?> params, String... tables) throws SQLException {
+        graph.flushWrites(tables);
+
+        TransactionCache cache = graph.getTransactionCache();
+
+        if (cache != null) {
+            List<Object[]> rows = cache.get(sql, params);
+            if (rows != null) {
+                return rows;
+            }
+        }
+
+        PreparedStatement st = get(sql);
+        int i = 1;
+        for (Object p : params) {
+            st.setObject(i++, p);
+        }
+
+        List<Object[]> rows = new ArrayList<>();
+        try (ResultSet rs = st.executeQuery()) {
+            int columnCount = rs.getMetaData().getColumnCount();
+            while (rs.next()) {
+                Object[] row = new Object[columnCount];
+                for (int c = 0; c < columnCount; ++c) {
+                    row[c] = rs.getObject(c + 1);
+                }
+                rows.add(row);
+            }
+        }
+
+        return cache == null ? rows : cache.put(sql, params, rows, tables);
+    }
+
     public PreparedStatement get(String sql) throws SQLException {
         return get(sql, Statement.NO_GENERATED_KEYS);
     }
@@ -104,20 +136,10 @@ final class Statements {
         PreparedStatement st;
 
         if (graph.isCacheStatements()) {
-            ThreadLocal<PreparedStatement> sts;
-
-            synchronized (statementCache) {
-                sts = statementCache.get(sql);
-                if (sts == null) {
-                    sts = new ThreadLocal<>();
-                    statementCache.put(sql, sts);
-                }
-            }
-
-            st = sts.get();
+            st = statementCache.get(sql);
             if (st == null) {
                 st = graph.getConnection().prepareStatement(sql, autogenerateKeys);
-                sts.set(st);
+                statementCache.put(sql, st);
             }
         } else {
             st = graph.getConnection().prepareStatement(sql, autogenerateKeys);
@@ -127,11 +149,14 @@ final class Statements {
     }
 
     public void clearCache() {
-        if (graph.isCacheStatements()) {
-            synchronized (statementCache) {
-                //XXX properly close the statements?
-                statementCache.clear();
+        for (PreparedStatement st : statementCache.values()) {
+            try {
+                st.close();
+            } catch (SQLException e) {
+                Log.LOG.debugf(e, "Failed to close the statement %s", st);
             }
         }
+
+        statementCache.clear();
     }
 }
@@ -16,1858 +16,198 @@
  */
 package org.hawkular.inventory.impl.tinkerpop.sql.impl;
 
-import java.io.InputStream;
-import java.io.Reader;
-import java.math.BigDecimal;
-import java.net.URL;
-import java.sql.Array;
-import java.sql.Blob;
-import java.sql.Clob;
-import java.sql.Date;
-import java.sql.NClob;
-import java.sql.Ref;
-import java.sql.ResultSet;
-import java.sql.ResultSetMetaData;
-import java.sql.RowId;
-import java.sql.SQLException;
-import java.sql.SQLType;
-import java.sql.SQLWarning;
-import java.sql.SQLXML;
-import java.sql.Statement;
-import java.sql.Time;
-import java.sql.Timestamp;
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Calendar;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.ListIterator;
 import java.util.Map;
-import java.util.concurrent.Callable;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * TODO this could one day be used to cache results of SELECTs inside a transaction.
- * Thinking is that this could speed things up for repeated reads.
+ * Caches the results of SELECTs inside a transaction. The inventory tends to re-read the same vertices, edges and
+ * properties many times during a single transaction, so serving these reads from memory saves a lot of roundtrips to
+ * the database.
+ *
+ * <p>Each cached result remembers the tables it was read from and is evicted as soon as any of those tables is
+ * modified. The whole cache is cleared at the end of each transaction.
+ *
+ * <p>Note that this means that the cached reads don't see the changes committed by other transactions in the
+ * meantime, i.e. the reads behave as if under the repeatable read isolation level.
+ *
+ * <p>The cache holds at most the configured number of rows in total. The least recently used results are evicted to
+ * make space for the new ones and a result that has more rows than the limit on its own is not cached at all, so that
+ * a large traversal doesn't keep all its rows in memory until the end of the transaction.
+ *
+ * <p>The cache is owned by a single transaction and is therefore not thread-safe.
  *
  * @author Lukas Krejci
  * @since 0.13.0
  */
 final class TransactionCache {
 
-    private final Map<StatementAndParams, List<Object>> resultCache = new HashMap<>();
-
-    private static final class StatementAndParams {
-        final String statement;
-        final Object[] params;
-
-        StatementAndParams(Object[] params, String statement) {
-            this.params = params;
-            this.statement = statement;
-        }
-
-        @Override public boolean equals(Object o) {
-            if (this == o) return true;
-            if (o == null || getClass() != o.getClass()) return false;
-
-            StatementAndParams that = (StatementAndParams) o;
-
-            return statement.equals(that.statement) && Arrays.equals(params, that.params);
-
-        }
-
-        @Override public int hashCode() {
-            int result = statement.hashCode();
-            result = 31 * result + Arrays.hashCode(params);
-            return result;
-        }
+    //in the access order so that the eldest entry is the least recently used one
+    private final LinkedHashMap<StatementAndParams, CachedResult> resultCache = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Set<StatementAndParams>> resultsByTable = new HashMap<>();
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+    private final int maxRows;
+    private int cachedRows;
+
+    /**
+     * @param hits    the counter of cache hits, possibly shared with other caches
+     * @param misses  the counter of cache misses, possibly shared with other caches
+     * @param maxRows the maximum number of rows held by the cache
+     */
+    TransactionCache(AtomicLong hits, AtomicLong misses, int maxRows) {
+        this.hits = hits;
+        this.misses = misses;
+        this.maxRows = maxRows;
     }
 
-    private static final class Row {
-        private final String[] columnNames;
-        private final Object[] values;
-
-        public Row(String[] columnNames, Object[] values) {
-            this.columnNames = columnNames;
-            this.values = values;
-        }
+    int getMaxRows() {
+        return maxRows;
     }
 
-    private static final class CachingResultSet implements ResultSet {
-        private final ResultSet rs;
-        private final List<Row> cachedResults = new ArrayList<>();
-
-        CachingResultSet(ResultSet rs) {
-            this.rs = rs;
-        }
-
-        public List<Row> getCachedResults() {
-            return cachedResults;
-        }
-
-        @Override public boolean absolute(int row) throws SQLException {
-            return rs.absolute(row);
-        }
-
-        @Override public void afterLast() throws SQLException {
-            rs.afterLast();
-        }
-
-        @Override public void beforeFirst() throws SQLException {
-            rs.beforeFirst();
-        }
-
-        @Override public void cancelRowUpdates() throws SQLException {
-            rs.cancelRowUpdates();
-        }
-
-        @Override public void clearWarnings() throws SQLException {
-            rs.clearWarnings();
-        }
-
-        @Override public void close() throws SQLException {
-            rs.close();
-        }
-
-        @Override public void deleteRow() throws SQLException {
-            rs.deleteRow();
-        }
-
-        @Override public int findColumn(String columnLabel) throws SQLException {
-            return rs.findColumn(columnLabel);
-        }
-
-        @Override public boolean first() throws SQLException {
-            return rs.first();
-        }
-
-        @Override public Array getArray(int columnIndex) throws SQLException {
-            return rs.getArray(columnIndex);
-        }
-
-        @Override public Array getArray(String columnLabel) throws SQLException {
-            return rs.getArray(columnLabel);
-        }
-
-        @Override public InputStream getAsciiStream(int columnIndex) throws SQLException {
-            return rs.getAsciiStream(columnIndex);
-        }
-
-        @Override public InputStream getAsciiStream(String columnLabel) throws SQLException {
-            return rs.getAsciiStream(columnLabel);
-        }
-
-        @Override public BigDecimal getBigDecimal(int columnIndex) throws SQLException {
-            return rs.getBigDecimal(columnIndex);
-        }
-
-        @Override @Deprecated public BigDecimal getBigDecimal(int columnIndex, int scale) throws SQLException {
-            return rs.getBigDecimal(columnIndex, scale);
-        }
-
-        @Override public BigDecimal getBigDecimal(String columnLabel) throws SQLException {
-            return rs.getBigDecimal(columnLabel);
-        }
-
-        @Override @Deprecated public BigDecimal getBigDecimal(String columnLabel, int scale) throws SQLException {
-            return rs.getBigDecimal(columnLabel, scale);
-        }
-
-        @Override public InputStream getBinaryStream(int columnIndex) throws SQLException {
-            return rs.getBinaryStream(columnIndex);
-        }
-
-        @Override public InputStream getBinaryStream(String columnLabel) throws SQLException {
-            return rs.getBinaryStream(columnLabel);
-        }
-
-        @Override public Blob getBlob(int columnIndex) throws SQLException {
-            return rs.getBlob(columnIndex);
-        }
-
-        @Override public Blob getBlob(String columnLabel) throws SQLException {
-            return rs.getBlob(columnLabel);
-        }
-
-        @Override public boolean getBoolean(int columnIndex) throws SQLException {
-            return rs.getBoolean(columnIndex);
-        }
-
-        @Override public boolean getBoolean(String columnLabel) throws SQLException {
-            return rs.getBoolean(columnLabel);
-        }
-
-        @Override public byte getByte(int columnIndex) throws SQLException {
-            return rs.getByte(columnIndex);
-        }
-
-        @Override public byte getByte(String columnLabel) throws SQLException {
-            return rs.getByte(columnLabel);
-        }
-
-        @Override public byte[] getBytes(int columnIndex) throws SQLException {
-            return rs.getBytes(columnIndex);
-        }
-
-        @Override public byte[] getBytes(String columnLabel) throws SQLException {
-            return rs.getBytes(columnLabel);
-        }
-
-        @Override public Reader getCharacterStream(int columnIndex) throws SQLException {
-            return rs.getCharacterStream(columnIndex);
-        }
-
-        @Override public Reader getCharacterStream(String columnLabel) throws SQLException {
-            return rs.getCharacterStream(columnLabel);
-        }
-
-        @Override public Clob getClob(int columnIndex) throws SQLException {
-            return rs.getClob(columnIndex);
-        }
-
-        @Override public Clob getClob(String columnLabel) throws SQLException {
-            return rs.getClob(columnLabel);
-        }
-
-        @Override public int getConcurrency() throws SQLException {
-            return rs.getConcurrency();
-        }
-
-        @Override public String getCursorName() throws SQLException {
-            return rs.getCursorName();
-        }
-
-        @Override public Date getDate(int columnIndex) throws SQLException {
-            return rs.getDate(columnIndex);
-        }
-
-        @Override public Date getDate(int columnIndex, Calendar cal) throws SQLException {
-            return rs.getDate(columnIndex, cal);
-        }
-
-        @Override public Date getDate(String columnLabel) throws SQLException {
-            return rs.getDate(columnLabel);
-        }
-
-        @Override public Date getDate(String columnLabel, Calendar cal) throws SQLException {
-            return rs.getDate(columnLabel, cal);
-        }
-
-        @Override public double getDouble(int columnIndex) throws SQLException {
-            return rs.getDouble(columnIndex);
-        }
-
-        @Override public double getDouble(String columnLabel) throws SQLException {
-            return rs.getDouble(columnLabel);
-        }
-
-        @Override public int getFetchDirection() throws SQLException {
-            return rs.getFetchDirection();
-        }
-
-        @Override public int getFetchSize() throws SQLException {
-            return rs.getFetchSize();
-        }
-
-        @Override public float getFloat(int columnIndex) throws SQLException {
-            return rs.getFloat(columnIndex);
-        }
-
-        @Override public float getFloat(String columnLabel) throws SQLException {
-            return rs.getFloat(columnLabel);
-        }
-
-        @Override public int getHoldability() throws SQLException {
-            return rs.getHoldability();
-        }
-
-        @Override public int getInt(int columnIndex) throws SQLException {
-            return rs.getInt(columnIndex);
-        }
-
-        @Override public int getInt(String columnLabel) throws SQLException {
-            return rs.getInt(columnLabel);
-        }
-
-        @Override public long getLong(int columnIndex) throws SQLException {
-            return rs.getLong(columnIndex);
-        }
-
-        @Override public long getLong(String columnLabel) throws SQLException {
-            return rs.getLong(columnLabel);
-        }
-
-        @Override public ResultSetMetaData getMetaData() throws SQLException {
-            return rs.getMetaData();
-        }
-
-        @Override public Reader getNCharacterStream(int columnIndex) throws SQLException {
-            return rs.getNCharacterStream(columnIndex);
-        }
-
-        @Override public Reader getNCharacterStream(String columnLabel) throws SQLException {
-            return rs.getNCharacterStream(columnLabel);
-        }
-
-        @Override public NClob getNClob(int columnIndex) throws SQLException {
-            return rs.getNClob(columnIndex);
-        }
-
-        @Override public NClob getNClob(String columnLabel) throws SQLException {
-            return rs.getNClob(columnLabel);
-        }
-
-        @Override public String getNString(int columnIndex) throws SQLException {
-            return rs.getNString(columnIndex);
-        }
-
-        @Override public String getNString(String columnLabel) throws SQLException {
-            return rs.getNString(columnLabel);
-        }
-
-        @Override public Object getObject(int columnIndex) throws SQLException {
-            return rs.getObject(columnIndex);
-        }
-
-        @Override public Object getObject(int columnIndex, Map<String, Class<?>> map) throws SQLException {
-            return rs.getObject(columnIndex, map);
-        }
-
-        @Override public <T> T getObject(int columnIndex, Class<T> type) throws SQLException {
-            return rs.getObject(columnIndex, type);
-        }
-
-        @Override public Object getObject(String columnLabel) throws SQLException {
-            return rs.getObject(columnLabel);
-        }
-
-        @Override public Object getObject(String columnLabel, Map<String, Class<?>> map) throws SQLException {
-            return rs.getObject(columnLabel, map);
-        }
-
-        @Override public <T> T getObject(String columnLabel, Class<T> type) throws SQLException {
-            return rs.getObject(columnLabel, type);
-        }
-
-        @Override public Ref getRef(int columnIndex) throws SQLException {
-            return rs.getRef(columnIndex);
-        }
-
-        @Override public Ref getRef(String columnLabel) throws SQLException {
-            return rs.getRef(columnLabel);
-        }
-
-        @Override public int getRow() throws SQLException {
-            return rs.getRow();
-        }
-
-        @Override public RowId getRowId(int columnIndex) throws SQLException {
-            return rs.getRowId(columnIndex);
-        }
-
-        @Override public RowId getRowId(String columnLabel) throws SQLException {
-            return rs.getRowId(columnLabel);
-        }
-
-        @Override public short getShort(int columnIndex) throws SQLException {
-            return rs.getShort(columnIndex);
-        }
-
-        @Override public short getShort(String columnLabel) throws SQLException {
-            return rs.getShort(columnLabel);
-        }
-
-        @Override public SQLXML getSQLXML(int columnIndex) throws SQLException {
-            return rs.getSQLXML(columnIndex);
-        }
-
-        @Override public SQLXML getSQLXML(String columnLabel) throws SQLException {
-            return rs.getSQLXML(columnLabel);
-        }
-
-        @Override public Statement getStatement() throws SQLException {
-            return rs.getStatement();
-        }
-
-        @Override public String getString(int columnIndex) throws SQLException {
-            return rs.getString(columnIndex);
-        }
-
-        @Override public String getString(String columnLabel) throws SQLException {
-            return rs.getString(columnLabel);
-        }
-
-        @Override public Time getTime(int columnIndex) throws SQLException {
-            return rs.getTime(columnIndex);
-        }
-
-        @Override public Time getTime(int columnIndex, Calendar cal) throws SQLException {
-            return rs.getTime(columnIndex, cal);
-        }
-
-        @Override public Time getTime(String columnLabel) throws SQLException {
-            return rs.getTime(columnLabel);
-        }
-
-        @Override public Time getTime(String columnLabel, Calendar cal) throws SQLException {
-            return rs.getTime(columnLabel, cal);
-        }
-
-        @Override public Timestamp getTimestamp(int columnIndex) throws SQLException {
-            return rs.getTimestamp(columnIndex);
-        }
-
-        @Override public Timestamp getTimestamp(int columnIndex, Calendar cal) throws SQLException {
-            return rs.getTimestamp(columnIndex, cal);
-        }
-
-        @Override public Timestamp getTimestamp(String columnLabel) throws SQLException {
-            return rs.getTimestamp(columnLabel);
-        }
-
-        @Override public Timestamp getTimestamp(String columnLabel, Calendar cal) throws SQLException {
-            return rs.getTimestamp(columnLabel, cal);
-        }
-
-        @Override public int getType() throws SQLException {
-            return rs.getType();
-        }
-
-        @Override @Deprecated public InputStream getUnicodeStream(int columnIndex) throws SQLException {
-            return rs.getUnicodeStream(columnIndex);
-        }
-
-        @Override @Deprecated public InputStream getUnicodeStream(String columnLabel) throws SQLException {
-            return rs.getUnicodeStream(columnLabel);
-        }
-
-        @Override public URL getURL(int columnIndex) throws SQLException {
-            return rs.getURL(columnIndex);
-        }
-
-        @Override public URL getURL(String columnLabel) throws SQLException {
-            return rs.getURL(columnLabel);
-        }
-
-        @Override public SQLWarning getWarnings() throws SQLException {
-            return rs.getWarnings();
-        }
-
-        @Override public void insertRow() throws SQLException {
-            rs.insertRow();
-        }
-
-        @Override public boolean isAfterLast() throws SQLException {
-            return rs.isAfterLast();
-        }
-
-        @Override public boolean isBeforeFirst() throws SQLException {
-            return rs.isBeforeFirst();
-        }
-
-        @Override public boolean isClosed() throws SQLException {
-            return rs.isClosed();
-        }
-
-        @Override public boolean isFirst() throws SQLException {
-            return rs.isFirst();
-        }
-
-        @Override public boolean isLast() throws SQLException {
-            return rs.isLast();
-        }
-
-        @Override public boolean last() throws SQLException {
-            return rs.last();
-        }
+    /**
+     * @return the total number of the rows currently held by the cache
+     */
+    int getCachedRows() {
+        return cachedRows;
+    }
 
-        @Override public void moveToCurrentRow() throws SQLException {
-            rs.moveToCurrentRow();
+    /**
+     * @return the cached rows of the result of the statement with given parameters or null if not cached
+     */
+    List<Object[]> get(String statement, List<?> params) {
+        CachedResult ret = resultCache.get(new StatementAndParams(params.toArray(), statement));
+        if (ret == null) {
+            misses.incrementAndGet();
+            return null;
+        } else {
+            hits.incrementAndGet();
+            return ret.rows;
         }
+    }
 
-        @Override public void moveToInsertRow() throws SQLException {
-            rs.moveToInsertRow();
+    /**
+     * Caches the rows of the result of the statement.
+     *
+     * @param statement the SQL of the statement
+     * @param params    the parameters the statement was executed with
+     * @param rows      the rows of the result
+     * @param tables    the tables the statement read from
+     * @return the unmodifiable rows
+     */
+    List<Object[]> put(String statement, List<?> params, List<Object[]> rows, String... tables) {
+        List<Object[]> ret = Collections.unmodifiableList(rows);
+        if (rows.size() > maxRows) {
+            return ret;
         }
 
-        @Override public boolean next() throws SQLException {
-            return rs.next();
-        }
+        StatementAndParams key = new StatementAndParams(params.toArray(), statement);
 
-        @Override public boolean previous() throws SQLException {
-            return rs.previous();
+        CachedResult previous = resultCache.put(key, new CachedResult(ret, tables));
+        if (previous != null) {
+            cachedRows -= previous.rows.size();
         }
+        cachedRows += rows.size();
 
-        @Override public void refreshRow() throws SQLException {
-            rs.refreshRow();
-        }
+        evictOverLimit();
 
-        @Override public boolean relative(int rows) throws SQLException {
-            return rs.relative(rows);
-        }
+        for (String table : tables) {
+            Set<StatementAndParams> keys = resultsByTable.get(table);
+            if (keys == null) {
+                keys = new HashSet<>();
+                resultsByTable.put(table, keys);
+            }
 
-        @Override public boolean rowDeleted() throws SQLException {
-            return rs.rowDeleted();
+            keys.add(key);
         }
 
-        @Override public boolean rowInserted() throws SQLException {
-            return rs.rowInserted();
-        }
+        return ret;
+    }
 
-        @Override public boolean rowUpdated() throws SQLException {
-            return rs.rowUpdated();
+    /**
+     * Evicts all the results read from any of the provided tables.
+     *
+     * @param tables the modified tables
+     */
+    void invalidate(String... tables) {
+        for (String table : tables) {
+            Set<StatementAndParams> keys = resultsByTable.remove(table);
+            if (keys != null) {
+                keys.forEach(k -> {
+                    CachedResult r = resultCache.remove(k);
+                    if (r != null) {
+                        cachedRows -= r.rows.size();
+                    }
+                });
+            }
         }
+    }
 
-        @Override public void setFetchDirection(int direction) throws SQLException {
-            rs.setFetchDirection(direction);
-        }
+    void clear() {
+        resultCache.clear();
+        resultsByTable.clear();
+        cachedRows = 0;
+    }
 
-        @Override public void setFetchSize(int rows) throws SQLException {
-            rs.setFetchSize(rows);
+    private void evictOverLimit() {
+        Iterator<Map.Entry<StatementAndParams, CachedResult>> it = resultCache.entrySet().iterator();
+        while (cachedRows > maxRows && it.hasNext()) {
+            Map.Entry<StatementAndParams, CachedResult> eldest = it.next();
+            it.remove();
+            cachedRows -= eldest.getValue().rows.size();
+
+            for (String table : eldest.getValue().tables) {
+                Set<StatementAndParams> keys = resultsByTable.get(table);
+                if (keys != null) {
+                    keys.remove(eldest.getKey());
+                    if (keys.isEmpty()) {
+                        resultsByTable.remove(table);
+                    }
+                }
+            }
         }
+    }
 
-        @Override public void updateArray(int columnIndex, Array x) throws SQLException {
-            rs.updateArray(columnIndex, x);
-        }
+    private static final class CachedResult {
+        final List<Object[]> rows;
+        final String[] tables;
 
-        @Override public void updateArray(String columnLabel, Array x) throws SQLException {
-            rs.updateArray(columnLabel, x);
+        CachedResult(List<Object[]> rows, String[] tables) {
+            this.rows = rows;
+            this.tables = tables;
         }
+    }
 
-        @Override public void updateAsciiStream(int columnIndex, InputStream x) throws SQLException {
-            rs.updateAsciiStream(columnIndex, x);
-        }
+    private static final class StatementAndParams {
+        final String statement;
+        final Object[] params;
 
-        @Override public void updateAsciiStream(int columnIndex, InputStream x, int length) throws SQLException {
-            rs.updateAsciiStream(columnIndex, x, length);
+        StatementAndParams(Object[] params, String statement) {
+            this.params = params;
+            this.statement = statement;
         }
 
-        @Override public void updateAsciiStream(int columnIndex, InputStream x, long length) throws SQLException {
-            rs.updateAsciiStream(columnIndex, x, length);
-        }
+        @Override public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
 
-        @Override public void updateAsciiStream(String columnLabel, InputStream x) throws SQLException {
-            rs.updateAsciiStream(columnLabel, x);
-        }
+            StatementAndParams that = (StatementAndParams) o;
 
-        @Override public void updateAsciiStream(String columnLabel, InputStream x, int length) throws SQLException {
-            rs.updateAsciiStream(columnLabel, x, length);
-        }
+            return statement.equals(that.statement) && Arrays.equals(params, that.params);
 
-        @Override public void updateAsciiStream(String columnLabel, InputStream x, long length) throws SQLException {
-            rs.updateAsciiStream(columnLabel, x, length);
         }
 
-        @Override public void updateBigDecimal(int columnIndex, BigDecimal x) throws SQLException {
-            rs.updateBigDecimal(columnIndex, x);
-        }
-
-        @Override public void updateBigDecimal(String columnLabel, BigDecimal x) throws SQLException {
-            rs.updateBigDecimal(columnLabel, x);
-        }
-
-        @Override public void updateBinaryStream(int columnIndex, InputStream x) throws SQLException {
-            rs.updateBinaryStream(columnIndex, x);
-        }
-
-        @Override public void updateBinaryStream(int columnIndex, InputStream x, int length) throws SQLException {
-            rs.updateBinaryStream(columnIndex, x, length);
-        }
-
-        @Override public void updateBinaryStream(int columnIndex, InputStream x, long length) throws SQLException {
-            rs.updateBinaryStream(columnIndex, x, length);
-        }
-
-        @Override public void updateBinaryStream(String columnLabel, InputStream x) throws SQLException {
-            rs.updateBinaryStream(columnLabel, x);
-        }
-
-        @Override public void updateBinaryStream(String columnLabel, InputStream x, int length) throws SQLException {
-            rs.updateBinaryStream(columnLabel, x, length);
-        }
-
-        @Override public void updateBinaryStream(String columnLabel, InputStream x, long length) throws SQLException {
-            rs.updateBinaryStream(columnLabel, x, length);
-        }
-
-        @Override public void updateBlob(int columnIndex, InputStream inputStream) throws SQLException {
-            rs.updateBlob(columnIndex, inputStream);
-        }
-
-        @Override public void updateBlob(int columnIndex, InputStream inputStream, long length) throws SQLException {
-            rs.updateBlob(columnIndex, inputStream, length);
-        }
-
-        @Override public void updateBlob(int columnIndex, Blob x) throws SQLException {
-            rs.updateBlob(columnIndex, x);
-        }
-
-        @Override public void updateBlob(String columnLabel, InputStream inputStream) throws SQLException {
-            rs.updateBlob(columnLabel, inputStream);
-        }
-
-        @Override public void updateBlob(String columnLabel, InputStream inputStream, long length) throws SQLException {
-            rs.updateBlob(columnLabel, inputStream, length);
-        }
-
-        @Override public void updateBlob(String columnLabel, Blob x) throws SQLException {
-            rs.updateBlob(columnLabel, x);
-        }
-
-        @Override public void updateBoolean(int columnIndex, boolean x) throws SQLException {
-            rs.updateBoolean(columnIndex, x);
-        }
-
-        @Override public void updateBoolean(String columnLabel, boolean x) throws SQLException {
-            rs.updateBoolean(columnLabel, x);
-        }
-
-        @Override public void updateByte(int columnIndex, byte x) throws SQLException {
-            rs.updateByte(columnIndex, x);
-        }
-
-        @Override public void updateByte(String columnLabel, byte x) throws SQLException {
-            rs.updateByte(columnLabel, x);
-        }
-
-        @Override public void updateBytes(int columnIndex, byte[] x) throws SQLException {
-            rs.updateBytes(columnIndex, x);
-        }
-
-        @Override public void updateBytes(String columnLabel, byte[] x) throws SQLException {
-            rs.updateBytes(columnLabel, x);
-        }
-
-        @Override public void updateCharacterStream(int columnIndex, Reader x) throws SQLException {
-            rs.updateCharacterStream(columnIndex, x);
-        }
-
-        @Override public void updateCharacterStream(int columnIndex, Reader x, int length) throws SQLException {
-            rs.updateCharacterStream(columnIndex, x, length);
-        }
-
-        @Override public void updateCharacterStream(int columnIndex, Reader x, long length) throws SQLException {
-            rs.updateCharacterStream(columnIndex, x, length);
-        }
-
-        @Override public void updateCharacterStream(String columnLabel, Reader reader) throws SQLException {
-            rs.updateCharacterStream(columnLabel, reader);
-        }
-
-        @Override public void updateCharacterStream(String columnLabel, Reader reader, int length) throws SQLException {
-            rs.updateCharacterStream(columnLabel, reader, length);
-        }
-
-        @Override public void updateCharacterStream(String columnLabel, Reader reader, long length)
-                throws SQLException {
-            rs.updateCharacterStream(columnLabel, reader, length);
-        }
-
-        @Override public void updateClob(int columnIndex, Reader reader) throws SQLException {
-            rs.updateClob(columnIndex, reader);
-        }
-
-        @Override public void updateClob(int columnIndex, Reader reader, long length) throws SQLException {
-            rs.updateClob(columnIndex, reader, length);
-        }
-
-        @Override public void updateClob(int columnIndex, Clob x) throws SQLException {
-            rs.updateClob(columnIndex, x);
-        }
-
-        @Override public void updateClob(String columnLabel, Reader reader) throws SQLException {
-            rs.updateClob(columnLabel, reader);
-        }
-
-        @Override public void updateClob(String columnLabel, Reader reader, long length) throws SQLException {
-            rs.updateClob(columnLabel, reader, length);
-        }
-
-        @Override public void updateClob(String columnLabel, Clob x) throws SQLException {
-            rs.updateClob(columnLabel, x);
-        }
-
-        @Override public void updateDate(int columnIndex, Date x) throws SQLException {
-            rs.updateDate(columnIndex, x);
-        }
-
-        @Override public void updateDate(String columnLabel, Date x) throws SQLException {
-            rs.updateDate(columnLabel, x);
-        }
-
-        @Override public void updateDouble(int columnIndex, double x) throws SQLException {
-            rs.updateDouble(columnIndex, x);
-        }
-
-        @Override public void updateDouble(String columnLabel, double x) throws SQLException {
-            rs.updateDouble(columnLabel, x);
-        }
-
-        @Override public void updateFloat(int columnIndex, float x) throws SQLException {
-            rs.updateFloat(columnIndex, x);
-        }
-
-        @Override public void updateFloat(String columnLabel, float x) throws SQLException {
-            rs.updateFloat(columnLabel, x);
-        }
-
-        @Override public void updateInt(int columnIndex, int x) throws SQLException {
-            rs.updateInt(columnIndex, x);
-        }
-
-        @Override public void updateInt(String columnLabel, int x) throws SQLException {
-            rs.updateInt(columnLabel, x);
-        }
-
-        @Override public void updateLong(int columnIndex, long x) throws SQLException {
-            rs.updateLong(columnIndex, x);
-        }
-
-        @Override public void updateLong(String columnLabel, long x) throws SQLException {
-            rs.updateLong(columnLabel, x);
-        }
-
-        @Override public void updateNCharacterStream(int columnIndex, Reader x) throws SQLException {
-            rs.updateNCharacterStream(columnIndex, x);
-        }
-
-        @Override public void updateNCharacterStream(int columnIndex, Reader x, long length) throws SQLException {
-            rs.updateNCharacterStream(columnIndex, x, length);
-        }
-
-        @Override public void updateNCharacterStream(String columnLabel, Reader reader) throws SQLException {
-            rs.updateNCharacterStream(columnLabel, reader);
-        }
-
-        @Override public void updateNCharacterStream(String columnLabel, Reader reader, long length)
-                throws SQLException {
-            rs.updateNCharacterStream(columnLabel, reader, length);
-        }
-
-        @Override public void updateNClob(int columnIndex, NClob nClob) throws SQLException {
-            rs.updateNClob(columnIndex, nClob);
-        }
-
-        @Override public void updateNClob(int columnIndex, Reader reader) throws SQLException {
-            rs.updateNClob(columnIndex, reader);
-        }
-
-        @Override public void updateNClob(int columnIndex, Reader reader, long length) throws SQLException {
-            rs.updateNClob(columnIndex, reader, length);
-        }
-
-        @Override public void updateNClob(String columnLabel, NClob nClob) throws SQLException {
-            rs.updateNClob(columnLabel, nClob);
-        }
-
-        @Override public void updateNClob(String columnLabel, Reader reader) throws SQLException {
-            rs.updateNClob(columnLabel, reader);
-        }
-
-        @Override public void updateNClob(String columnLabel, Reader reader, long length) throws SQLException {
-            rs.updateNClob(columnLabel, reader, length);
-        }
-
-        @Override public void updateNString(int columnIndex, String nString) throws SQLException {
-            rs.updateNString(columnIndex, nString);
-        }
-
-        @Override public void updateNString(String columnLabel, String nString) throws SQLException {
-            rs.updateNString(columnLabel, nString);
-        }
-
-        @Override public void updateNull(int columnIndex) throws SQLException {
-            rs.updateNull(columnIndex);
-        }
-
-        @Override public void updateNull(String columnLabel) throws SQLException {
-            rs.updateNull(columnLabel);
-        }
-
-        @Override public void updateObject(int columnIndex, Object x) throws SQLException {
-            rs.updateObject(columnIndex, x);
-        }
-
-        @Override public void updateObject(int columnIndex, Object x, int scaleOrLength) throws SQLException {
-            rs.updateObject(columnIndex, x, scaleOrLength);
-        }
-
-        @Override public void updateObject(int columnIndex, Object x, SQLType targetSqlType) throws SQLException {
-            rs.updateObject(columnIndex, x, targetSqlType);
-        }
-
-        @Override public void updateObject(int columnIndex, Object x, SQLType targetSqlType, int scaleOrLength)
-                throws SQLException {
-            rs.updateObject(columnIndex, x, targetSqlType, scaleOrLength);
-        }
-
-        @Override public void updateObject(String columnLabel, Object x) throws SQLException {
-            rs.updateObject(columnLabel, x);
-        }
-
-        @Override public void updateObject(String columnLabel, Object x, int scaleOrLength) throws SQLException {
-            rs.updateObject(columnLabel, x, scaleOrLength);
-        }
-
-        @Override public void updateObject(String columnLabel, Object x, SQLType targetSqlType) throws SQLException {
-            rs.updateObject(columnLabel, x, targetSqlType);
-        }
-
-        @Override public void updateObject(String columnLabel, Object x, SQLType targetSqlType, int scaleOrLength)
-                throws SQLException {
-            rs.updateObject(columnLabel, x, targetSqlType, scaleOrLength);
-        }
-
-        @Override public void updateRef(int columnIndex, Ref x) throws SQLException {
-            rs.updateRef(columnIndex, x);
-        }
-
-        @Override public void updateRef(String columnLabel, Ref x) throws SQLException {
-            rs.updateRef(columnLabel, x);
-        }
-
-        @Override public void updateRow() throws SQLException {
-            rs.updateRow();
-        }
-
-        @Override public void updateRowId(int columnIndex, RowId x) throws SQLException {
-            rs.updateRowId(columnIndex, x);
-        }
-
-        @Override public void updateRowId(String columnLabel, RowId x) throws SQLException {
-            rs.updateRowId(columnLabel, x);
-        }
-
-        @Override public void updateShort(int columnIndex, short x) throws SQLException {
-            rs.updateShort(columnIndex, x);
-        }
-
-        @Override public void updateShort(String columnLabel, short x) throws SQLException {
-            rs.updateShort(columnLabel, x);
-        }
-
-        @Override public void updateSQLXML(int columnIndex, SQLXML xmlObject) throws SQLException {
-            rs.updateSQLXML(columnIndex, xmlObject);
-        }
-
-        @Override public void updateSQLXML(String columnLabel, SQLXML xmlObject) throws SQLException {
-            rs.updateSQLXML(columnLabel, xmlObject);
-        }
-
-        @Override public void updateString(int columnIndex, String x) throws SQLException {
-            rs.updateString(columnIndex, x);
-        }
-
-        @Override public void updateString(String columnLabel, String x) throws SQLException {
-            rs.updateString(columnLabel, x);
-        }
-
-        @Override public void updateTime(int columnIndex, Time x) throws SQLException {
-            rs.updateTime(columnIndex, x);
-        }
-
-        @Override public void updateTime(String columnLabel, Time x) throws SQLException {
-            rs.updateTime(columnLabel, x);
-        }
-
-        @Override public void updateTimestamp(int columnIndex, Timestamp x) throws SQLException {
-            rs.updateTimestamp(columnIndex, x);
-        }
-
-        @Override public void updateTimestamp(String columnLabel, Timestamp x) throws SQLException {
-            rs.updateTimestamp(columnLabel, x);
-        }
-
-        @Override public boolean wasNull() throws SQLException {
-            return rs.wasNull();
-        }
-
-        @Override public boolean isWrapperFor(Class<?> iface) throws SQLException {
-            return rs.isWrapperFor(iface);
-        }
-
-        @Override public <T> T unwrap(Class<T> iface) throws SQLException {
-            return rs.unwrap(iface);
-        }
-    }
-
-    private static final class ListResultSet implements ResultSet {
-        private final ListIterator<Row> iterator;
-        private Row current;
-        private int lastReadIndex = -1;
-
-        ListResultSet(List<Row> results) {
-            iterator = results.listIterator();
-        }
-
-        @Override public boolean next() throws SQLException {
-            return onErrorThrow(() -> {
-                if (iterator.hasNext()) {
-                    current = iterator.next();
-                    return true;
-                }
-
-                current = null;
-                lastReadIndex = -1;
-                return false;
-            });
-        }
-
-        @Override public void close() throws SQLException {
-        }
-
-        @Override public boolean wasNull() throws SQLException {
-            return onErrorThrow(() -> {
-                return current.values[lastReadIndex] == null;
-            });
-        }
-
-        @Override public String getString(int columnIndex) throws SQLException {
-            //TODO implement
-            return null;
-        }
-
-        @Override public boolean getBoolean(int columnIndex) throws SQLException {
-            //TODO implement
-            return false;
-        }
-
-        @Override public byte getByte(int columnIndex) throws SQLException {
-            //TODO implement
-            return 0;
-        }
-
-        @Override public short getShort(int columnIndex) throws SQLException {
-            //TODO implement
-            return 0;
-        }
-
-        @Override public int getInt(int columnIndex) throws SQLException {
-            //TODO implement
-            return 0;
-        }
-
-        @Override public long getLong(int columnIndex) throws SQLException {
-            //TODO implement
-            return 0;
-        }
-
-        @Override public float getFloat(int columnIndex) throws SQLException {
-            //TODO implement
-            return 0;
-        }
-
-        @Override public double getDouble(int columnIndex) throws SQLException {
-            //TODO implement
-            return 0;
-        }
-
-        @Override public BigDecimal getBigDecimal(int columnIndex, int scale) throws SQLException {
-            //TODO implement
-            return null;
-        }
-
-        @Override public byte[] getBytes(int columnIndex) throws SQLException {
-            //TODO implement
-            return new byte[0];
-        }
-
-        @Override public Date getDate(int columnIndex) throws SQLException {
-            //TODO implement
-            return null;
-        }
-
-        @Override public Time getTime(int columnIndex) throws SQLException {
-            //TODO implement
-            return null;
-        }
-
-        @Override public Timestamp getTimestamp(int columnIndex) throws SQLException {
-            //TODO implement
-            return null;
-        }
-
-        @Override public InputStream getAsciiStream(int columnIndex) throws SQLException {
-            //TODO implement
-            return null;
-        }
-
-        @Override public InputStream getUnicodeStream(int columnIndex) throws SQLException {
-            //TODO implement
-            return null;
-        }
-
-        @Override public InputStream getBinaryStream(int columnIndex) throws SQLException {
-            //TODO implement
-            return null;
-        }
-
-        @Override public String getString(String columnLabel) throws SQLException {
-            //TODO implement
-            return null;
-        }
-
-        @Override public boolean getBoolean(String columnLabel) throws SQLException {
-            //TODO implement
-            return false;
-        }
-
-        @Override public byte getByte(String columnLabel) throws SQLException {
-            //TODO implement
-            return 0;
-        }
-
-        @Override public short getShort(String columnLabel) throws SQLException {
-            //TODO implement
-            return 0;
-        }
-
-        @Override public int getInt(String columnLabel) throws SQLException {
-            //TODO implement
-            return 0;
-        }
-
-        @Override public long getLong(String columnLabel) throws SQLException {
-            //TODO implement
-            return 0;
-        }
-
-        @Override public float getFloat(String columnLabel) throws SQLException {
-            //TODO implement
-            return 0;
-        }
-
-        @Override public double getDouble(String columnLabel) throws SQLException {
-            //TODO implement
-            return 0;
-        }
-
-        @Override public BigDecimal getBigDecimal(String columnLabel, int scale) throws SQLException {
-            //TODO implement
-            return null;
-        }
-
-        @Override public byte[] getBytes(String columnLabel) throws SQLException {
-            //TODO implement
-            return new byte[0];
-        }
-
-        @Override public Date getDate(String columnLabel) throws SQLException {
-            //TODO implement
-            return null;
-        }
-
-        @Override public Time getTime(String columnLabel) throws SQLException {
-            //TODO implement
-            return null;
-        }
-
-        @Override public Timestamp getTimestamp(String columnLabel) throws SQLException {
-            //TODO implement
-            return null;
-        }
-
-        @Override public InputStream getAsciiStream(String columnLabel) throws SQLException {
-            //TODO implement
-            return null;
-        }
-
-        @Override public InputStream getUnicodeStream(String columnLabel) throws SQLException {
-            //TODO implement
-            return null;
-        }
-
-        @Override public InputStream getBinaryStream(String columnLabel) throws SQLException {
-            //TODO implement
-            return null;
-        }
-
-        @Override public SQLWarning getWarnings() throws SQLException {
-            //TODO implement
-            return null;
-        }
-
-        @Override public void clearWarnings() throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public String getCursorName() throws SQLException {
-            //TODO implement
-            return null;
-        }
-
-        @Override public ResultSetMetaData getMetaData() throws SQLException {
-            //TODO implement
-            return null;
-        }
-
-        @Override public Object getObject(int columnIndex) throws SQLException {
-            //TODO implement
-            return null;
-        }
-
-        @Override public Object getObject(String columnLabel) throws SQLException {
-            //TODO implement
-            return null;
-        }
-
-        @Override public int findColumn(String columnLabel) throws SQLException {
-            //TODO implement
-            return 0;
-        }
-
-        @Override public Reader getCharacterStream(int columnIndex) throws SQLException {
-            //TODO implement
-            return null;
-        }
-
-        @Override public Reader getCharacterStream(String columnLabel) throws SQLException {
-            //TODO implement
-            return null;
-        }
-
-        @Override public BigDecimal getBigDecimal(int columnIndex) throws SQLException {
-            //TODO implement
-            return null;
-        }
-
-        @Override public BigDecimal getBigDecimal(String columnLabel) throws SQLException {
-            //TODO implement
-            return null;
-        }
-
-        @Override public boolean isBeforeFirst() throws SQLException {
-            //TODO implement
-            return false;
-        }
-
-        @Override public boolean isAfterLast() throws SQLException {
-            //TODO implement
-            return false;
-        }
-
-        @Override public boolean isFirst() throws SQLException {
-            //TODO implement
-            return false;
-        }
-
-        @Override public boolean isLast() throws SQLException {
-            //TODO implement
-            return false;
-        }
-
-        @Override public void beforeFirst() throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void afterLast() throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public boolean first() throws SQLException {
-            //TODO implement
-            return false;
-        }
-
-        @Override public boolean last() throws SQLException {
-            //TODO implement
-            return false;
-        }
-
-        @Override public int getRow() throws SQLException {
-            //TODO implement
-            return 0;
-        }
-
-        @Override public boolean absolute(int row) throws SQLException {
-            //TODO implement
-            return false;
-        }
-
-        @Override public boolean relative(int rows) throws SQLException {
-            //TODO implement
-            return false;
-        }
-
-        @Override public boolean previous() throws SQLException {
-            //TODO implement
-            return false;
-        }
-
-        @Override public void setFetchDirection(int direction) throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public int getFetchDirection() throws SQLException {
-            //TODO implement
-            return 0;
-        }
-
-        @Override public void setFetchSize(int rows) throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public int getFetchSize() throws SQLException {
-            //TODO implement
-            return 0;
-        }
-
-        @Override public int getType() throws SQLException {
-            //TODO implement
-            return 0;
-        }
-
-        @Override public int getConcurrency() throws SQLException {
-            //TODO implement
-            return 0;
-        }
-
-        @Override public boolean rowUpdated() throws SQLException {
-            //TODO implement
-            return false;
-        }
-
-        @Override public boolean rowInserted() throws SQLException {
-            //TODO implement
-            return false;
-        }
-
-        @Override public boolean rowDeleted() throws SQLException {
-            //TODO implement
-            return false;
-        }
-
-        @Override public void updateNull(int columnIndex) throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void updateBoolean(int columnIndex, boolean x) throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void updateByte(int columnIndex, byte x) throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void updateShort(int columnIndex, short x) throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void updateInt(int columnIndex, int x) throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void updateLong(int columnIndex, long x) throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void updateFloat(int columnIndex, float x) throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void updateDouble(int columnIndex, double x) throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void updateBigDecimal(int columnIndex, BigDecimal x) throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void updateString(int columnIndex, String x) throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void updateBytes(int columnIndex, byte[] x) throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void updateDate(int columnIndex, Date x) throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void updateTime(int columnIndex, Time x) throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void updateTimestamp(int columnIndex, Timestamp x) throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void updateAsciiStream(int columnIndex, InputStream x, int length) throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void updateBinaryStream(int columnIndex, InputStream x, int length) throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void updateCharacterStream(int columnIndex, Reader x, int length) throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void updateObject(int columnIndex, Object x, int scaleOrLength) throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void updateObject(int columnIndex, Object x) throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void updateNull(String columnLabel) throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void updateBoolean(String columnLabel, boolean x) throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void updateByte(String columnLabel, byte x) throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void updateShort(String columnLabel, short x) throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void updateInt(String columnLabel, int x) throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void updateLong(String columnLabel, long x) throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void updateFloat(String columnLabel, float x) throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void updateDouble(String columnLabel, double x) throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void updateBigDecimal(String columnLabel, BigDecimal x) throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void updateString(String columnLabel, String x) throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void updateBytes(String columnLabel, byte[] x) throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void updateDate(String columnLabel, Date x) throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void updateTime(String columnLabel, Time x) throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void updateTimestamp(String columnLabel, Timestamp x) throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void updateAsciiStream(String columnLabel, InputStream x, int length) throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void updateBinaryStream(String columnLabel, InputStream x, int length) throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void updateCharacterStream(String columnLabel, Reader reader, int length) throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void updateObject(String columnLabel, Object x, int scaleOrLength) throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void updateObject(String columnLabel, Object x) throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void insertRow() throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void updateRow() throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void deleteRow() throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void refreshRow() throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void cancelRowUpdates() throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void moveToInsertRow() throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void moveToCurrentRow() throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public Statement getStatement() throws SQLException {
-            //TODO implement
-            return null;
-        }
-
-        @Override public Object getObject(int columnIndex, Map<String, Class<?>> map) throws SQLException {
-            //TODO implement
-            return null;
-        }
-
-        @Override public Ref getRef(int columnIndex) throws SQLException {
-            //TODO implement
-            return null;
-        }
-
-        @Override public Blob getBlob(int columnIndex) throws SQLException {
-            //TODO implement
-            return null;
-        }
-
-        @Override public Clob getClob(int columnIndex) throws SQLException {
-            //TODO implement
-            return null;
-        }
-
-        @Override public Array getArray(int columnIndex) throws SQLException {
-            //TODO implement
-            return null;
-        }
-
-        @Override public Object getObject(String columnLabel, Map<String, Class<?>> map) throws SQLException {
-            //TODO implement
-            return null;
-        }
-
-        @Override public Ref getRef(String columnLabel) throws SQLException {
-            //TODO implement
-            return null;
-        }
-
-        @Override public Blob getBlob(String columnLabel) throws SQLException {
-            //TODO implement
-            return null;
-        }
-
-        @Override public Clob getClob(String columnLabel) throws SQLException {
-            //TODO implement
-            return null;
-        }
-
-        @Override public Array getArray(String columnLabel) throws SQLException {
-            //TODO implement
-            return null;
-        }
-
-        @Override public Date getDate(int columnIndex, Calendar cal) throws SQLException {
-            //TODO implement
-            return null;
-        }
-
-        @Override public Date getDate(String columnLabel, Calendar cal) throws SQLException {
-            //TODO implement
-            return null;
-        }
-
-        @Override public Time getTime(int columnIndex, Calendar cal) throws SQLException {
-            //TODO implement
-            return null;
-        }
-
-        @Override public Time getTime(String columnLabel, Calendar cal) throws SQLException {
-            //TODO implement
-            return null;
-        }
-
-        @Override public Timestamp getTimestamp(int columnIndex, Calendar cal) throws SQLException {
-            //TODO implement
-            return null;
-        }
-
-        @Override public Timestamp getTimestamp(String columnLabel, Calendar cal) throws SQLException {
-            //TODO implement
-            return null;
-        }
-
-        @Override public URL getURL(int columnIndex) throws SQLException {
-            //TODO implement
-            return null;
-        }
-
-        @Override public URL getURL(String columnLabel) throws SQLException {
-            //TODO implement
-            return null;
-        }
-
-        @Override public void updateRef(int columnIndex, Ref x) throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void updateRef(String columnLabel, Ref x) throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void updateBlob(int columnIndex, Blob x) throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void updateBlob(String columnLabel, Blob x) throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void updateClob(int columnIndex, Clob x) throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void updateClob(String columnLabel, Clob x) throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void updateArray(int columnIndex, Array x) throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void updateArray(String columnLabel, Array x) throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public RowId getRowId(int columnIndex) throws SQLException {
-            //TODO implement
-            return null;
-        }
-
-        @Override public RowId getRowId(String columnLabel) throws SQLException {
-            //TODO implement
-            return null;
-        }
-
-        @Override public void updateRowId(int columnIndex, RowId x) throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void updateRowId(String columnLabel, RowId x) throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public int getHoldability() throws SQLException {
-            //TODO implement
-            return 0;
-        }
-
-        @Override public boolean isClosed() throws SQLException {
-            //TODO implement
-            return false;
-        }
-
-        @Override public void updateNString(int columnIndex, String nString) throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void updateNString(String columnLabel, String nString) throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void updateNClob(int columnIndex, NClob nClob) throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void updateNClob(String columnLabel, NClob nClob) throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public NClob getNClob(int columnIndex) throws SQLException {
-            //TODO implement
-            return null;
-        }
-
-        @Override public NClob getNClob(String columnLabel) throws SQLException {
-            //TODO implement
-            return null;
-        }
-
-        @Override public SQLXML getSQLXML(int columnIndex) throws SQLException {
-            //TODO implement
-            return null;
-        }
-
-        @Override public SQLXML getSQLXML(String columnLabel) throws SQLException {
-            //TODO implement
-            return null;
-        }
-
-        @Override public void updateSQLXML(int columnIndex, SQLXML xmlObject) throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void updateSQLXML(String columnLabel, SQLXML xmlObject) throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public String getNString(int columnIndex) throws SQLException {
-            //TODO implement
-            return null;
-        }
-
-        @Override public String getNString(String columnLabel) throws SQLException {
-            //TODO implement
-            return null;
-        }
-
-        @Override public Reader getNCharacterStream(int columnIndex) throws SQLException {
-            //TODO implement
-            return null;
-        }
-
-        @Override public Reader getNCharacterStream(String columnLabel) throws SQLException {
-            //TODO implement
-            return null;
-        }
-
-        @Override public void updateNCharacterStream(int columnIndex, Reader x, long length) throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void updateNCharacterStream(String columnLabel, Reader reader, long length)
-                throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void updateAsciiStream(int columnIndex, InputStream x, long length) throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void updateBinaryStream(int columnIndex, InputStream x, long length) throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void updateCharacterStream(int columnIndex, Reader x, long length) throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void updateAsciiStream(String columnLabel, InputStream x, long length) throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void updateBinaryStream(String columnLabel, InputStream x, long length) throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void updateCharacterStream(String columnLabel, Reader reader, long length)
-                throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void updateBlob(int columnIndex, InputStream inputStream, long length) throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void updateBlob(String columnLabel, InputStream inputStream, long length) throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void updateClob(int columnIndex, Reader reader, long length) throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void updateClob(String columnLabel, Reader reader, long length) throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void updateNClob(int columnIndex, Reader reader, long length) throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void updateNClob(String columnLabel, Reader reader, long length) throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void updateNCharacterStream(int columnIndex, Reader x) throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void updateNCharacterStream(String columnLabel, Reader reader) throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void updateAsciiStream(int columnIndex, InputStream x) throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void updateBinaryStream(int columnIndex, InputStream x) throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void updateCharacterStream(int columnIndex, Reader x) throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void updateAsciiStream(String columnLabel, InputStream x) throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void updateBinaryStream(String columnLabel, InputStream x) throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void updateCharacterStream(String columnLabel, Reader reader) throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void updateBlob(int columnIndex, InputStream inputStream) throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void updateBlob(String columnLabel, InputStream inputStream) throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void updateClob(int columnIndex, Reader reader) throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void updateClob(String columnLabel, Reader reader) throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void updateNClob(int columnIndex, Reader reader) throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public void updateNClob(String columnLabel, Reader reader) throws SQLException {
-            //TODO implement
-
-        }
-
-        @Override public <T> T getObject(int columnIndex, Class<T> type) throws SQLException {
-            //TODO implement
-            return null;
-        }
-
-        @Override public <T> T getObject(String columnLabel, Class<T> type) throws SQLException {
-            //TODO implement
-            return null;
-        }
-
-        @Override public <T> T unwrap(Class<T> iface) throws SQLException {
-            //TODO implement
-            return null;
-        }
-
-        @Override public boolean isWrapperFor(Class<?> iface) throws SQLException {
-            //TODO implement
-            return false;
-        }
-
-        private <R> R onErrorThrow(Callable<R> payload) throws SQLException {
-            try {
-                return payload.call();
-            } catch (Exception e) {
-                throw new SQLException(e);
-            }
+        @Override public int hashCode() {
+            int result = statement.hashCode();
+            result = 31 * result + Arrays.hashCode(params);
+            return result;
         }
     }
 }
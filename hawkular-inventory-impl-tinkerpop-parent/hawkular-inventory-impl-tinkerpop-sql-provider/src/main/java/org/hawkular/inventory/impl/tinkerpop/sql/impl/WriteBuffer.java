@@ -0,0 +1,148 @@
+/*
+ * Copyright 2015-2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.impl.tinkerpop.sql.impl;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Buffers the inserts of the properties of the elements created in the current transaction and writes them to the
+ * database in JDBC batches.
+ *
+ * <p>Only the properties of the elements created in the transaction are buffered, because only for those we know
+ * that the properties don't exist in the database yet and therefore can be inserted without first trying to update
+ * them. Once any of the buffered inserts is flushed, all the elements are considered "old", because it is no longer
+ * possible to tell which of their properties are already in the database.
+ *
+ * <p>The buffered inserts of a table need to be flushed before any statement that reads from or deletes from that
+ * table. The whole buffer needs to be flushed before the commit.
+ *
+ * @author Lukas Krejci
+ * @since 0.19.0
+ */
+final class WriteBuffer {
+    private final SqlGraph graph;
+    private final Set<Long> newVertices = new HashSet<>();
+    private final Set<Long> newEdges = new HashSet<>();
+    private final Map<String, TableInserts> inserts = new LinkedHashMap<>();
+
+    WriteBuffer(SqlGraph graph) {
+        this.graph = graph;
+    }
+
+    void created(SqlElement element) {
+        (element instanceof SqlVertex ? newVertices : newEdges).add(element.getId());
+    }
+
+    boolean isNew(SqlElement element) {
+        return (element instanceof SqlVertex ? newVertices : newEdges).contains(element.getId());
+    }
+
+    /**
+     * Buffers the insert of the property. If the same property of the element has already been buffered, the new
+     * value replaces the old one.
+     */
+    void insertProperty(String table, String elementIdColumn, long elementId, String name, Object stringValue,
+                        Object numericValue, int valueType) {
+        TableInserts tableInserts = inserts.get(table);
+        if (tableInserts == null) {
+            tableInserts = new TableInserts(elementIdColumn);
+            inserts.put(table, tableInserts);
+        }
+
+        tableInserts.rows.put(Arrays.asList(elementId, name),
+                new Object[]{elementId, name, stringValue, numericValue, valueType});
+    }
+
+    /**
+     * Removes the buffered insert of the property, if any.
+     *
+     * @return true if the insert was buffered, false otherwise
+     */
+    boolean removeProperty(String table, long elementId, String name) {
+        TableInserts tableInserts = inserts.get(table);
+        return tableInserts != null && tableInserts.rows.remove(Arrays.asList(elementId, name)) != null;
+    }
+
+    /**
+     * Writes the buffered inserts into the provided tables to the database.
+     */
+    void flush(String... tables) throws SQLException {
+        for (String table : tables) {
+            TableInserts tableInserts = inserts.remove(table);
+            if (tableInserts != null) {
+                execute(table, tableInserts);
+            }
+        }
+    }
+
+    void flushAll() throws SQLException {
+        List<String> tables = new ArrayList<>(inserts.keySet());
+        flush(tables.toArray(new String[tables.size()]));
+    }
+
+    void discard() {
+        newVertices.clear();
+        newEdges.clear();
+        inserts.clear();
+    }
+
+    private void execute(String table, TableInserts tableInserts) throws SQLException {
+        newVertices.clear();
+        newEdges.clear();
+
+        if (tableInserts.rows.isEmpty()) {
+            return;
+        }
+
+        String sql = "INSERT INTO " + table + " (" + tableInserts.elementIdColumn
+                + ", name, string_value, numeric_value, value_type) VALUES (?, ?, ?, ?, ?)";
+
+        PreparedStatement stmt = graph.getStatements().get(sql);
+
+        for (Object[] row : tableInserts.rows.values()) {
+            stmt.setLong(1, (Long) row[0]);
+            stmt.setString(2, (String) row[1]);
+            stmt.setObject(3, row[2]);
+            stmt.setObject(4, row[3]);
+            stmt.setInt(5, (Integer) row[4]);
+            stmt.addBatch();
+        }
+
+        try {
+            stmt.executeBatch();
+        } finally {
+            stmt.clearBatch();
+        }
+    }
+
+    private static final class TableInserts {
+        final String elementIdColumn;
+        final Map<List<Object>, Object[]> rows = new LinkedHashMap<>();
+
+        TableInserts(String elementIdColumn) {
+            this.elementIdColumn = elementIdColumn;
+        }
+    }
+}
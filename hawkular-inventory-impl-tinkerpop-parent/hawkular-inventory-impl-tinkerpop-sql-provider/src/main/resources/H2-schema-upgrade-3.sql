@@ -0,0 +1,23 @@
+--
+-- Copyright 2015-2016 Red Hat, Inc. and/or its affiliates
+-- and other contributors as indicated by the @author tags.
+--
+-- Licensed under the Apache License, Version 2.0 (the "License");
+-- you may not use this file except in compliance with the License.
+-- You may obtain a copy of the License at
+--
+--    http://www.apache.org/licenses/LICENSE-2.0
+--
+-- Unless required by applicable law or agreed to in writing, software
+-- distributed under the License is distributed on an "AS IS" BASIS,
+-- WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+-- See the License for the specific language governing permissions and
+-- limitations under the License.
+--
+
+-- H2 doesn't limit the size of the index entries and doesn't support the partial indices, so the index of the string
+-- values of the vertex properties keeps covering the compactly stored structured data. The index is only recreated so
+-- that it is the same as in a freshly created schema.
+
+DROP INDEX IF EXISTS idx_%VERTEX_PROPERTIES%_2;
+CREATE INDEX idx_%VERTEX_PROPERTIES%_2 ON %VERTEX_PROPERTIES% (name, string_value);
@@ -32,6 +32,9 @@ CREATE TABLE %EDGES% (
 
 CREATE INDEX idx_edge_labels ON %EDGES% (label);
 
+CREATE INDEX idx_%EDGES%_out_label ON %EDGES% (vertex_out, label);
+CREATE INDEX idx_%EDGES%_in_label ON %EDGES% (vertex_in, label);
+
 CREATE TABLE %VERTEX_PROPERTIES% (
   vertex_id INT NOT NULL,
   name CHARACTER VARYING(255) NOT NULL,
@@ -62,6 +65,7 @@ CREATE INDEX idx_%VERTEX_PROPERTIES%_3 ON %VERTEX_PROPERTIES% (name, numeric_val
 CREATE INDEX idx_%VERTEX_PROPERTIES%_uq ON %VERTEX_PROPERTIES%_UQ (name);
 CREATE INDEX idx_%VERTEX_PROPERTIES%_uq_2 ON %VERTEX_PROPERTIES%_UQ (name, string_value);
 CREATE INDEX idx_%VERTEX_PROPERTIES%_uq_3 ON %VERTEX_PROPERTIES%_UQ (name, numeric_value);
+CREATE INDEX idx_%VERTEX_PROPERTIES%_uq_4 ON %VERTEX_PROPERTIES%_UQ (vertex_id, name);
 
 CREATE TABLE %EDGE_PROPERTIES% (
   edge_id INT NOT NULL,
@@ -93,6 +97,7 @@ CREATE INDEX idx_%EDGE_PROPERTIES%_3 ON %EDGE_PROPERTIES% (name, numeric_value);
 CREATE INDEX idx_%EDGE_PROPERTIES%_uq ON %EDGE_PROPERTIES%_UQ (name);
 CREATE INDEX idx_%EDGE_PROPERTIES%_uq_2 ON %EDGE_PROPERTIES%_UQ (name, string_value);
 CREATE INDEX idx_%EDGE_PROPERTIES%_uq_3 ON %EDGE_PROPERTIES%_UQ (name, numeric_value);
+CREATE INDEX idx_%EDGE_PROPERTIES%_uq_4 ON %EDGE_PROPERTIES%_UQ (edge_id, name);
 
 CREATE TABLE %VERTICES%_uidxs (
   name VARCHAR(255) NOT NULL PRIMARY KEY
@@ -101,3 +106,7 @@ CREATE TABLE %VERTICES%_uidxs (
 CREATE TABLE %EDGES%_uidxs (
   name VARCHAR(255) NOT NULL PRIMARY KEY
 );
+
+CREATE TABLE %VERTICES%_schema (
+  version INT NOT NULL
+);
@@ -0,0 +1,29 @@
+--
+-- Copyright 2015-2016 Red Hat, Inc. and/or its affiliates
+-- and other contributors as indicated by the @author tags.
+--
+-- Licensed under the Apache License, Version 2.0 (the "License");
+-- you may not use this file except in compliance with the License.
+-- You may obtain a copy of the License at
+--
+--    http://www.apache.org/licenses/LICENSE-2.0
+--
+-- Unless required by applicable law or agreed to in writing, software
+-- distributed under the License is distributed on an "AS IS" BASIS,
+-- WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+-- See the License for the specific language governing permissions and
+-- limitations under the License.
+--
+
+-- Upgrades the schema created before the schema versioning was introduced.
+-- Adds the indices for the traversals of the edges and the lookups of the unique properties.
+
+CREATE INDEX idx_%EDGES%_out_label ON %EDGES% (vertex_out, label);
+CREATE INDEX idx_%EDGES%_in_label ON %EDGES% (vertex_in, label);
+
+CREATE INDEX idx_%VERTEX_PROPERTIES%_uq_4 ON %VERTEX_PROPERTIES%_UQ (vertex_id, name);
+CREATE INDEX idx_%EDGE_PROPERTIES%_uq_4 ON %EDGE_PROPERTIES%_UQ (edge_id, name);
+
+CREATE TABLE %VERTICES%_schema (
+  version INT NOT NULL
+);
@@ -0,0 +1,23 @@
+--
+-- Copyright 2015-2016 Red Hat, Inc. and/or its affiliates
+-- and other contributors as indicated by the @author tags.
+--
+-- Licensed under the Apache License, Version 2.0 (the "License");
+-- you may not use this file except in compliance with the License.
+-- You may obtain a copy of the License at
+--
+--    http://www.apache.org/licenses/LICENSE-2.0
+--
+-- Unless required by applicable law or agreed to in writing, software
+-- distributed under the License is distributed on an "AS IS" BASIS,
+-- WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+-- See the License for the specific language governing permissions and
+-- limitations under the License.
+--
+
+-- Excludes the compactly stored structured data from the index of the string values of the vertex properties.
+-- The JSON blobs can be larger than the maximum size of an index entry and are never looked up by their value.
+
+DROP INDEX idx_%VERTEX_PROPERTIES%_2;
+CREATE INDEX idx_%VERTEX_PROPERTIES%_2 ON %VERTEX_PROPERTIES% (name, string_value)
+  WHERE name <> '__structuredDataBlob';
@@ -0,0 +1,21 @@
+--
+-- Copyright 2015-2016 Red Hat, Inc. and/or its affiliates
+-- and other contributors as indicated by the @author tags.
+--
+-- Licensed under the Apache License, Version 2.0 (the "License");
+-- you may not use this file except in compliance with the License.
+-- You may obtain a copy of the License at
+--
+--    http://www.apache.org/licenses/LICENSE-2.0
+--
+-- Unless required by applicable law or agreed to in writing, software
+-- distributed under the License is distributed on an "AS IS" BASIS,
+-- WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+-- See the License for the specific language governing permissions and
+-- limitations under the License.
+--
+
+-- Adds the index of the unique string values in the binary collation. The cursor-based paging seeks in the values and
+-- orders them the same way as Java does, which the index in the default collation of the database can't be used for.
+
+CREATE INDEX idx_%VERTEX_PROPERTIES%_uq_5 ON %VERTEX_PROPERTIES%_UQ (name, string_value COLLATE "C");
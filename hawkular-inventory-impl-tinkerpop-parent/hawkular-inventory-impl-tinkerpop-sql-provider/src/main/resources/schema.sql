@@ -32,6 +32,9 @@ CREATE TABLE %EDGES% (
 
 CREATE INDEX idx_edge_labels ON %EDGES% (label);
 
+CREATE INDEX idx_%EDGES%_out_label ON %EDGES% (vertex_out, label);
+CREATE INDEX idx_%EDGES%_in_label ON %EDGES% (vertex_in, label);
+
 CREATE TABLE %VERTEX_PROPERTIES% (
   vertex_id INT NOT NULL,
   name CHARACTER VARYING(255) NOT NULL,
@@ -56,12 +59,18 @@ CREATE TABLE %VERTEX_PROPERTIES%_uq (
 );
 
 CREATE INDEX idx_%VERTEX_PROPERTIES% ON %VERTEX_PROPERTIES% (name);
-CREATE INDEX idx_%VERTEX_PROPERTIES%_2 ON %VERTEX_PROPERTIES% (name, string_value);
+-- the compactly stored structured data can be larger than the maximum size of an index entry
+-- the queries repeat the condition as a literal, so that the index is used by the generic plans, too (QueryFilters)
+CREATE INDEX idx_%VERTEX_PROPERTIES%_2 ON %VERTEX_PROPERTIES% (name, string_value)
+  WHERE name <> '__structuredDataBlob';
 CREATE INDEX idx_%VERTEX_PROPERTIES%_3 ON %VERTEX_PROPERTIES% (name, numeric_value);
 
 CREATE INDEX idx_%VERTEX_PROPERTIES%_uq ON %VERTEX_PROPERTIES%_UQ (name);
 CREATE INDEX idx_%VERTEX_PROPERTIES%_uq_2 ON %VERTEX_PROPERTIES%_UQ (name, string_value);
 CREATE INDEX idx_%VERTEX_PROPERTIES%_uq_3 ON %VERTEX_PROPERTIES%_UQ (name, numeric_value);
+CREATE INDEX idx_%VERTEX_PROPERTIES%_uq_4 ON %VERTEX_PROPERTIES%_UQ (vertex_id, name);
+-- the cursor-based paging seeks in the values compared the same way as in Java
+CREATE INDEX idx_%VERTEX_PROPERTIES%_uq_5 ON %VERTEX_PROPERTIES%_UQ (name, string_value COLLATE "C");
 
 CREATE TABLE %EDGE_PROPERTIES% (
   edge_id INT NOT NULL,
@@ -93,6 +102,7 @@ CREATE INDEX idx_%EDGE_PROPERTIES%_3 ON %EDGE_PROPERTIES% (name, numeric_value);
 CREATE INDEX idx_%EDGE_PROPERTIES%_uq ON %EDGE_PROPERTIES%_UQ (name);
 CREATE INDEX idx_%EDGE_PROPERTIES%_uq_2 ON %EDGE_PROPERTIES%_UQ (name, string_value);
 CREATE INDEX idx_%EDGE_PROPERTIES%_uq_3 ON %EDGE_PROPERTIES%_UQ (name, numeric_value);
+CREATE INDEX idx_%EDGE_PROPERTIES%_uq_4 ON %EDGE_PROPERTIES%_UQ (edge_id, name);
 
 CREATE TABLE %VERTICES%_uidxs (
   name VARCHAR(255) NOT NULL PRIMARY KEY
@@ -101,3 +111,7 @@ CREATE TABLE %VERTICES%_uidxs (
 CREATE TABLE %EDGES%_uidxs (
   name VARCHAR(255) NOT NULL PRIMARY KEY
 );
+
+CREATE TABLE %VERTICES%_schema (
+  version INT NOT NULL
+);
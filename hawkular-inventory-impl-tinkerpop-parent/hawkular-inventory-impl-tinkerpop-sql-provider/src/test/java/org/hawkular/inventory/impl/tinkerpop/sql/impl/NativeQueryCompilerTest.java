@@ -0,0 +1,136 @@
+/*
+ * Copyright 2015-2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.impl.tinkerpop.sql.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.hawkular.inventory.impl.tinkerpop.spi.NativeQuery;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Vertex;
+
+/**
+ * @author Lukas Krejci
+ * @since 0.19.0
+ */
+public class NativeQueryCompilerTest {
+
+    @Test
+    public void testFiltersAndHops() throws Exception {
+        Map<String, Object> conf = new HashMap<>();
+        conf.put("sql.datasource.class", "org.h2.jdbcx.JdbcDataSource");
+        conf.put("sql.datasource.url", "jdbc:h2:mem:native-query;DB_CLOSE_DELAY=-1");
+        SqlGraph graph = new SqlGraph(conf);
+        graph.createSchemaIfNeeded();
+        graph.createKeyIndex("cp", Vertex.class);
+
+        Vertex root = vertex(graph, "/root", "root", "tenant");
+        for (int i = 0; i < 3; ++i) {
+            Vertex child = vertex(graph, "/root/c" + i, "c" + i, i == 0 ? "environment" : "resource");
+            graph.addEdge(null, root, child, "contains");
+            for (int j = 0; j < 2; ++j) {
+                Vertex grandChild = vertex(graph, "/root/c" + i + "/g" + j, "g" + i + j, "resource");
+                graph.addEdge(null, child, grandChild, "contains");
+            }
+        }
+        graph.commit();
+
+        Assert.assertEquals(new HashSet<>(Arrays.asList("c1", "c2")), names(graph, NativeQuery.builder()
+                .filter("cp", "/root").hop("contains", Direction.OUT).filter("type", "resource").build()));
+
+        Assert.assertEquals(new HashSet<>(Arrays.asList("g10", "g11", "g21")), names(graph, NativeQuery.builder()
+                .filter("cp", "/root/c1", "/root/c2").hop("contains", Direction.OUT)
+                .filter("name", "g10", "g11", "g21").build()));
+
+        Assert.assertEquals(new HashSet<>(Arrays.asList("root")), names(graph, NativeQuery.builder()
+                .filter("name", "g00").hop("contains", Direction.IN).hop("contains", Direction.IN).build()));
+
+        Assert.assertEquals(new HashSet<>(Arrays.asList("root", "g00", "g01")), names(graph, NativeQuery.builder()
+                .filter("cp", "/root/c0").hop("contains", Direction.BOTH).build()));
+
+        //mixed value types are not supported
+        Assert.assertNull(NativeQueryCompiler.execute(graph, NativeQuery.builder().filter("name", "c0", 1).build()));
+
+        graph.shutdown();
+    }
+
+    @Test
+    public void testSeekOrdersLikeJava() throws Exception {
+        Map<String, Object> conf = new HashMap<>();
+        conf.put("sql.datasource.class", "org.h2.jdbcx.JdbcDataSource");
+        conf.put("sql.datasource.url", "jdbc:h2:mem:native-query-seek;DB_CLOSE_DELAY=-1");
+        SqlGraph graph = new SqlGraph(conf);
+        graph.createSchemaIfNeeded();
+        graph.createKeyIndex("cp", Vertex.class);
+
+        List<String> paths = new ArrayList<>();
+        for (String id : Arrays.asList("b", "B", "a", "A", "_", "-", "a.b", "a-b", "Z", "z", "1", "10", "9")) {
+            paths.add("/t;" + id);
+            vertex(graph, "/t;" + id, id, "tenant");
+        }
+        vertex(graph, "/e;x", "x", "environment");
+        graph.commit();
+
+        Collections.sort(paths);
+
+        Assert.assertEquals(paths, paths(graph, NativeQuery.builder().filter("type", "tenant")
+                .seek("cp", null, -1).build()));
+
+        Assert.assertEquals(paths.subList(0, 4), paths(graph, NativeQuery.builder().filter("type", "tenant")
+                .seek("cp", null, 4).build()));
+
+        Assert.assertEquals(paths.subList(5, 9), paths(graph, NativeQuery.builder().filter("type", "tenant")
+                .seek("cp", paths.get(4), 4).build()));
+
+        Assert.assertEquals(paths.subList(11, paths.size()), paths(graph, NativeQuery.builder()
+                .filter("type", "tenant").seek("cp", paths.get(10), 4).build()));
+
+        //only the indexed properties can be seeked in
+        Assert.assertNull(NativeQueryCompiler.execute(graph, NativeQuery.builder().seek("name", null, 1).build()));
+
+        graph.shutdown();
+    }
+
+    private static Vertex vertex(SqlGraph graph, String cp, String name, String type) {
+        Vertex v = graph.addVertex(null);
+        v.setProperty("cp", cp);
+        v.setProperty("name", name);
+        v.setProperty("type", type);
+        return v;
+    }
+
+    private static List<String> paths(SqlGraph graph, NativeQuery query) {
+        List<String> ret = new ArrayList<>();
+        NativeQueryCompiler.execute(graph, query).forEach(v -> ret.add(v.getProperty("cp")));
+        return ret;
+    }
+
+    private static Set<String> names(SqlGraph graph, NativeQuery query) {
+        Set<String> ret = new HashSet<>();
+        NativeQueryCompiler.execute(graph, query).forEach(v -> ret.add(v.getProperty("name")));
+        return ret;
+    }
+}
@@ -0,0 +1,290 @@
+/*
+ * Copyright 2015-2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.impl.tinkerpop.sql.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.tinkerpop.blueprints.Compare;
+import com.tinkerpop.blueprints.Contains;
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Vertex;
+
+/**
+ * @author Lukas Krejci
+ * @since 0.19.0
+ */
+public class SqlGraphQueryTest {
+
+    @Test
+    public void testMultiValueLookupOfIndexedAndNonIndexedProperties() throws Exception {
+        Map<String, Object> conf = new HashMap<>();
+        conf.put("sql.datasource.class", "org.h2.jdbcx.JdbcDataSource");
+        conf.put("sql.datasource.url", "jdbc:h2:mem:query-in;DB_CLOSE_DELAY=-1");
+        SqlGraph graph = new SqlGraph(conf);
+        graph.createSchemaIfNeeded();
+        graph.createKeyIndex("cp", Vertex.class);
+
+        for (int i = 0; i < 10; ++i) {
+            Vertex v = graph.addVertex(null);
+            v.setProperty("cp", "/v" + i);
+            v.setProperty("name", "v" + i);
+        }
+        graph.commit();
+
+        Assert.assertEquals(new HashSet<>(Arrays.asList("v1", "v3", "v7")),
+                names(graph.query().has("cp", Contains.IN, Arrays.asList("/v1", "/v3", "/v7", "/nonexistent"))
+                        .vertices()));
+
+        Assert.assertEquals(new HashSet<>(Arrays.asList("v2", "v4")),
+                names(graph.query().has("name", Contains.IN, Arrays.asList("v2", "v4")).vertices()));
+
+        Assert.assertEquals(new HashSet<>(Arrays.asList("v5")), names(graph.getVertices("cp", "/v5")));
+
+        Assert.assertEquals(new HashSet<>(Arrays.asList("v8", "v9")),
+                names(graph.query().has("cp", Compare.GREATER_THAN, "/v7").vertices()));
+
+        graph.shutdown();
+    }
+
+    @Test
+    public void testTransitiveClosureInBreadthFirstOrder() throws Exception {
+        Map<String, Object> conf = new HashMap<>();
+        conf.put("sql.datasource.class", "org.h2.jdbcx.JdbcDataSource");
+        conf.put("sql.datasource.url", "jdbc:h2:mem:closure;DB_CLOSE_DELAY=-1");
+        SqlGraph graph = new SqlGraph(conf);
+        graph.createSchemaIfNeeded();
+
+        SqlVertex root = (SqlVertex) graph.addVertex(null);
+        root.setProperty("name", "root");
+        Vertex parent = root;
+        for (int depth = 1; depth <= 3; ++depth) {
+            Vertex next = null;
+            for (int i = 0; i < 2; ++i) {
+                Vertex v = graph.addVertex(null);
+                v.setProperty("name", "v" + depth);
+                graph.addEdge(null, parent, v, "contains");
+                next = v;
+            }
+            graph.addEdge(null, parent, graph.addVertex(null), "other");
+            parent = next;
+        }
+        graph.commit();
+
+        List<String> names = new ArrayList<>();
+        root.getTransitiveClosure(Direction.OUT, "contains").forEach(v -> names.add(v.getProperty("name")));
+        Assert.assertEquals(Arrays.asList("v1", "v1", "v2", "v2", "v3", "v3"), names);
+
+        names.clear();
+        ((SqlVertex) parent).getTransitiveClosure(Direction.IN, "contains")
+                .forEach(v -> names.add(v.getProperty("name")));
+        Assert.assertEquals(Arrays.asList("v2", "v1", "root"), names);
+
+        graph.shutdown();
+    }
+
+    @Test
+    public void testTransitiveClosureWithSpecialCharactersInLabels() throws Exception {
+        Map<String, Object> conf = new HashMap<>();
+        conf.put("sql.datasource.class", "org.h2.jdbcx.JdbcDataSource");
+        conf.put("sql.datasource.url", "jdbc:h2:mem:closure-labels;DB_CLOSE_DELAY=-1");
+        SqlGraph graph = new SqlGraph(conf);
+        graph.createSchemaIfNeeded();
+
+        String quoted = "it's";
+        String injected = "x') OR 1=1 OR ('";
+
+        SqlVertex root = (SqlVertex) named(graph, "root");
+        Vertex child = named(graph, "child");
+        Vertex other = named(graph, "other");
+        graph.addEdge(null, root, child, quoted);
+        graph.addEdge(null, child, named(graph, "grandChild"), quoted);
+        graph.addEdge(null, root, other, "%s");
+        graph.addEdge(null, child, other, "defines");
+        graph.commit();
+
+        Assert.assertEquals(new HashSet<>(Arrays.asList("child", "grandChild")),
+                names(root.getTransitiveClosure(Direction.OUT, quoted)));
+        Assert.assertEquals(Collections.singleton("other"), names(root.getTransitiveClosure(Direction.OUT, "%s")));
+        Assert.assertEquals(Collections.emptySet(), names(root.getTransitiveClosure(Direction.OUT, injected)));
+        //the same query with different labels must not be answered from the cache of the previous one
+        Assert.assertEquals(new HashSet<>(Arrays.asList("child", "grandChild")),
+                names(root.getTransitiveClosure(Direction.OUT, quoted)));
+
+        Assert.assertEquals(Collections.singleton("child"),
+                names(root.getVerticesLinkingOutsideOfClosure("defines", quoted)));
+        Assert.assertEquals(Collections.emptySet(),
+                names(root.getVerticesLinkingOutsideOfClosure(injected, quoted)));
+
+        graph.removeTransitiveClosure(root, null, quoted);
+        graph.commit();
+
+        Assert.assertEquals(Collections.singleton("other"), names(graph.getVertices()));
+
+        graph.shutdown();
+    }
+
+    @Test
+    public void testSubtreeRemoval() throws Exception {
+        Map<String, Object> conf = new HashMap<>();
+        conf.put("sql.datasource.class", "org.h2.jdbcx.JdbcDataSource");
+        conf.put("sql.datasource.url", "jdbc:h2:mem:subtree;DB_CLOSE_DELAY=-1");
+        SqlGraph graph = new SqlGraph(conf);
+        graph.createSchemaIfNeeded();
+
+        Vertex outside = named(graph, "outside");
+        SqlVertex root = (SqlVertex) named(graph, "root");
+        Vertex child = named(graph, "child");
+        Vertex grandChild = named(graph, "grandChild");
+        Vertex data = named(graph, "data");
+        Vertex hash = named(graph, "hash");
+        Vertex sharedHash = named(graph, "sharedHash");
+
+        graph.addEdge(null, outside, root, "contains");
+        graph.addEdge(null, root, child, "contains");
+        graph.addEdge(null, child, grandChild, "contains");
+        graph.addEdge(null, grandChild, data, "hasData");
+        graph.addEdge(null, child, grandChild, "defines");
+        graph.addEdge(null, grandChild, outside, "defines");
+        graph.addEdge(null, child, hash, "withHash");
+        graph.addEdge(null, grandChild, sharedHash, "withHash");
+        graph.addEdge(null, outside, sharedHash, "withHash");
+        graph.commit();
+
+        Assert.assertEquals(new HashSet<>(Collections.singletonList("grandChild")),
+                names(root.getVerticesLinkingOutsideOfClosure("defines", "contains")));
+        //the edges leading back to the root are not leading outside
+        Assert.assertEquals(Collections.emptySet(),
+                names(((SqlVertex) outside).getVerticesLinkingOutsideOfClosure("defines", "contains")));
+
+        graph.removeTransitiveClosure(root, "withHash", "contains", "hasData");
+        graph.commit();
+
+        Assert.assertEquals(new HashSet<>(Arrays.asList("outside", "sharedHash")), names(graph.getVertices()));
+        Assert.assertFalse(outside.getEdges(Direction.BOTH, "contains", "defines").iterator().hasNext());
+
+        graph.shutdown();
+    }
+
+    @Test
+    public void testLoadsPropertiesOfManyVerticesInBatches() throws Exception {
+        Map<String, Object> conf = new HashMap<>();
+        conf.put("sql.datasource.class", "org.h2.jdbcx.JdbcDataSource");
+        conf.put("sql.datasource.url", "jdbc:h2:mem:property-batches;DB_CLOSE_DELAY=-1");
+        SqlGraph graph = new SqlGraph(conf);
+        graph.createSchemaIfNeeded();
+        graph.createKeyIndex("cp", Vertex.class);
+
+        //a bit more than one batch, every third vertex has no properties
+        int vertexCount = SqlElement.PROPERTY_BATCH_SIZE + SqlElement.PROPERTY_BATCH_SIZE / 2;
+        for (int i = 0; i < vertexCount; ++i) {
+            Vertex v = graph.addVertex(null);
+            if (i % 3 != 0) {
+                v.setProperty("cp", "/v" + i);
+                v.setProperty("name", "v" + i);
+            }
+        }
+        graph.commit();
+
+        long lookups = graph.getSelectCacheHits() + graph.getSelectCacheMisses();
+
+        int withProperties = 0;
+        int withoutProperties = 0;
+        for (Vertex v : graph.getVertices()) {
+            String name = v.getProperty("name");
+            String cp = v.getProperty("cp");
+            if (name == null) {
+                Assert.assertNull(cp);
+                Assert.assertTrue(v.getPropertyKeys().isEmpty());
+                withoutProperties++;
+            } else {
+                Assert.assertEquals("/" + name, cp);
+                withProperties++;
+            }
+        }
+
+        Assert.assertEquals(vertexCount / 3, withoutProperties);
+        Assert.assertEquals(vertexCount - vertexCount / 3, withProperties);
+
+        //one query per properties table for each of the 2 batches, none for the individual vertices
+        Assert.assertEquals(4, graph.getSelectCacheHits() + graph.getSelectCacheMisses() - lookups);
+
+        graph.commit();
+        graph.shutdown();
+    }
+
+    @Test
+    public void testCachedSelectsSeeWritesOfTheTransaction() throws Exception {
+        Map<String, Object> conf = new HashMap<>();
+        conf.put("sql.datasource.class", "org.h2.jdbcx.JdbcDataSource");
+        conf.put("sql.datasource.url", "jdbc:h2:mem:select-cache;DB_CLOSE_DELAY=-1");
+        SqlGraph graph = new SqlGraph(conf);
+        graph.createSchemaIfNeeded();
+
+        Vertex a = named(graph, "a");
+        Vertex other = named(graph, "other");
+        graph.commit();
+
+        Assert.assertEquals(1, count(graph.getVertices("name", "a")));
+        long hits = graph.getSelectCacheHits();
+        Assert.assertEquals(1, count(graph.getVertices("name", "a")));
+        Assert.assertTrue(graph.getSelectCacheHits() > hits);
+
+        other.setProperty("name", "a");
+        Assert.assertEquals(2, count(graph.getVertices("name", "a")));
+
+        Assert.assertEquals(0, count(a.getVertices(Direction.OUT, "contains")));
+        graph.addEdge(null, a, other, "contains");
+        Assert.assertEquals(1, count(a.getVertices(Direction.OUT, "contains")));
+
+        graph.removeVertex(other);
+        Assert.assertEquals(1, count(graph.getVertices("name", "a")));
+        Assert.assertEquals(0, count(a.getVertices(Direction.OUT, "contains")));
+
+        graph.commit();
+        graph.shutdown();
+    }
+
+    private static Vertex named(SqlGraph graph, String name) {
+        Vertex v = graph.addVertex(null);
+        v.setProperty("name", name);
+        return v;
+    }
+
+    private static Set<String> names(Iterable<Vertex> vertices) {
+        Set<String> ret = new HashSet<>();
+        vertices.forEach(v -> ret.add(v.getProperty("name")));
+        return ret;
+    }
+
+    private static int count(Iterable<?> elements) {
+        int ret = 0;
+        for (Object ignored : elements) {
+            ret++;
+        }
+        return ret;
+    }
+}
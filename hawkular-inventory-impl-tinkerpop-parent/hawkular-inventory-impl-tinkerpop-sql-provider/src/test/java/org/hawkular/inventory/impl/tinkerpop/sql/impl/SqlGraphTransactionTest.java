@@ -0,0 +1,91 @@
+/*
+ * Copyright 2015-2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.impl.tinkerpop.sql.impl;
+
+import java.sql.PreparedStatement;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.tinkerpop.blueprints.Vertex;
+
+/**
+ * @author Lukas Krejci
+ * @since 0.19.0
+ */
+public class SqlGraphTransactionTest {
+
+    @Test
+    public void testFailedCommitRollsBackAndEndsTransaction() throws Exception {
+        Map<String, Object> conf = new HashMap<>();
+        conf.put("sql.datasource.class", "org.h2.jdbcx.JdbcDataSource");
+        conf.put("sql.datasource.url", "jdbc:h2:mem:failed-commit;DB_CLOSE_DELAY=-1");
+        SqlGraph graph = new SqlGraph(conf);
+        graph.createSchemaIfNeeded();
+
+        named(graph, "committed");
+        graph.commit();
+
+        named(graph, "rolledBack");
+        Vertex broken = graph.addVertex(null);
+        //the property of the new vertex is buffered until the commit...
+        broken.setProperty("name", "broken");
+        //... by which time the vertex no longer exists, so the commit fails on the foreign key
+        try (PreparedStatement st = graph.getConnection().prepareStatement("DELETE FROM "
+                + graph.getVerticesTableName() + " WHERE id = ?")) {
+            st.setLong(1, (Long) broken.getId());
+            st.executeUpdate();
+        }
+
+        try {
+            graph.commit();
+            Assert.fail("The commit should have failed.");
+        } catch (SqlGraphException e) {
+            //expected
+        }
+
+        //the graph is usable again and nothing from the failed transaction was committed
+        Assert.assertEquals(new HashSet<>(Collections.singletonList("committed")), names(graph));
+
+        named(graph, "after");
+        graph.commit();
+
+        Set<String> expected = new HashSet<>();
+        expected.add("committed");
+        expected.add("after");
+        Assert.assertEquals(expected, names(graph));
+
+        graph.shutdown();
+    }
+
+    private static Vertex named(SqlGraph graph, String name) {
+        Vertex v = graph.addVertex(null);
+        v.setProperty("name", name);
+        return v;
+    }
+
+    private static Set<String> names(SqlGraph graph) {
+        Set<String> ret = new HashSet<>();
+        graph.getVertices().forEach(v -> ret.add(v.getProperty("name")));
+        return ret;
+    }
+}
@@ -0,0 +1,276 @@
+/*
+ * Copyright 2015-2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.impl.tinkerpop.sql.impl;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Vertex;
+
+/**
+ * Checks that the traversals over the "contains" edges use the edge indices, that the large compactly stored structured
+ * data fit in the schema and that the schemas from before the versioning are upgraded.
+ *
+ * <p>The checks of the Postgres query plans only run with the {@code postgres} profile, which provides the driver and
+ * passes the {@code postgres.url} of a scratch database to the tests.
+ *
+ * @author Lukas Krejci
+ * @since 0.19.0
+ */
+public class SqlSchemaTest {
+    private static final int PARENTS = 10;
+    private static final int CHILDREN_PER_PARENT = 10;
+    private static final String CONTAINS_QUERY = "SELECT id FROM edges WHERE vertex_out = 1 AND label = 'contains'";
+    private static final List<String> UPGRADE_INDICES = Arrays.asList("IDX_EDGES_OUT_LABEL", "IDX_EDGES_IN_LABEL",
+            "IDX_VERTEX_PROPERTIES_UQ_4", "IDX_EDGE_PROPERTIES_UQ_4");
+    private static final List<String> TABLES = Arrays.asList("vertices_schema", "vertices_uidxs", "edges_uidxs",
+            "edge_properties_uq", "edge_properties", "vertex_properties_uq", "vertex_properties", "edges", "vertices");
+
+    @Test
+    public void testContainsTraversalUsesEdgeIndices() throws Exception {
+        SqlGraph graph = newGraph("schema-indices");
+        graph.createSchemaIfNeeded();
+
+        Assert.assertEquals(Collections.singletonList(SqlGraph.SCHEMA_VERSION), schemaVersions(graph));
+
+        List<Vertex> parents = createContainsTree(graph);
+
+        String plan = explain(graph, CONTAINS_QUERY);
+        Assert.assertTrue(plan, plan.toUpperCase().contains("IDX_EDGES_OUT_LABEL"));
+        assertTraversal(parents);
+
+        execute(graph, "DROP INDEX idx_edges_out_label", "DROP INDEX idx_edges_in_label");
+
+        plan = explain(graph, CONTAINS_QUERY);
+        Assert.assertFalse(plan, plan.toUpperCase().contains("IDX_EDGES_OUT_LABEL"));
+        assertTraversal(parents);
+
+        graph.shutdown();
+    }
+
+    @Test
+    public void testSchemaWithoutVersionUpgraded() throws Exception {
+        SqlGraph graph = newGraph("schema-upgrade");
+        graph.createSchemaIfNeeded();
+
+        //simulate the schema as it was before the versioning
+        execute(graph, "DROP TABLE vertices_schema", "DROP INDEX idx_edges_out_label",
+                "DROP INDEX idx_edges_in_label", "DROP INDEX idx_vertex_properties_uq_4",
+                "DROP INDEX idx_edge_properties_uq_4");
+
+        Assert.assertFalse(explain(graph, CONTAINS_QUERY).toUpperCase().contains("IDX_EDGES_OUT_LABEL"));
+        Assert.assertTrue(Collections.disjoint(UPGRADE_INDICES, indices(graph)));
+
+        graph.createSchemaIfNeeded();
+
+        Assert.assertEquals(Collections.singletonList(SqlGraph.SCHEMA_VERSION), schemaVersions(graph));
+        Assert.assertTrue(indices(graph).containsAll(UPGRADE_INDICES));
+        Assert.assertTrue(explain(graph, CONTAINS_QUERY).toUpperCase().contains("IDX_EDGES_OUT_LABEL"));
+
+        //and the upgrade is not attempted again (it would fail on the existing indices)
+        graph.createSchemaIfNeeded();
+        Assert.assertEquals(Collections.singletonList(SqlGraph.SCHEMA_VERSION), schemaVersions(graph));
+
+        graph.shutdown();
+    }
+
+    @Test
+    public void testLargeStructuredDataBlob() throws Exception {
+        SqlGraph graph = newGraph("schema-blob");
+        graph.createSchemaIfNeeded();
+
+        //much larger than the maximum size of an index entry in Postgres
+        StringBuilder bld = new StringBuilder("[");
+        for (int i = 0; i < 20_000; ++i) {
+            bld.append(i).append(',');
+        }
+        String blob = bld.append("0]").toString();
+
+        Vertex data = graph.addVertex(null);
+        data.setProperty("__structuredDataBlob", blob);
+        data.setProperty("__cp", "/data");
+        graph.commit();
+
+        Vertex read = graph.getVertex(data.getId());
+        Assert.assertEquals(blob, read.getProperty("__structuredDataBlob"));
+        Assert.assertEquals(data.getId(), graph.getVertices("__cp", "/data").iterator().next().getId());
+
+        String updated = blob.replace("[", "[-1,");
+        read.setProperty("__structuredDataBlob", updated);
+        graph.commit();
+
+        Assert.assertEquals(updated, graph.getVertex(data.getId()).getProperty("__structuredDataBlob"));
+
+        //the blob is not in the index of the string values, but can still be looked up
+        Assert.assertEquals(data.getId(), graph.query().has("__structuredDataBlob", updated).vertices().iterator()
+                .next().getId());
+
+        graph.shutdown();
+    }
+
+    @Test
+    public void testStringPropertyFilterUsesPartialIndexInGenericPlanOnPostgres() throws Exception {
+        String url = System.getProperty("postgres.url");
+        Assume.assumeTrue("No Postgres database to check the query plans in.", url != null && !url.isEmpty());
+
+        Map<String, Object> conf = new HashMap<>();
+        conf.put("sql.datasource.class", "org.postgresql.ds.PGSimpleDataSource");
+        conf.put("sql.datasource.url", url);
+        conf.put("sql.cacheSelects", false);
+        SqlGraph graph = new SqlGraph(conf);
+
+        try {
+            execute(graph, TABLES.stream().map(t -> "DROP TABLE IF EXISTS " + t + " CASCADE").toArray(String[]::new));
+            graph.createSchemaIfNeeded();
+
+            for (int i = 0; i < 1000; ++i) {
+                Vertex v = graph.addVertex(null);
+                v.setProperty("__type", i % 2 == 0 ? "resource" : "metric");
+                v.setProperty("__eid", "entity-" + i);
+            }
+            graph.commit();
+            execute(graph, "ANALYZE vertex_properties");
+
+            QueryFilters filters = new QueryFilters();
+            filters.has("__eid", "entity-42");
+            QueryFilters.SqlAndParams sql = filters.generateStatement("SELECT id", graph.getVerticesTableName(),
+                    graph.getVertexPropertiesTableName(), graph.getUniqueVertexPropertiesTableName(),
+                    SqlVertex.getPropertyTableForeignKey(), SqlVertex.DISALLOWED_PROPERTY_NAMES,
+                    graph.getIndexedKeys(Vertex.class), null);
+
+            //the generic plan is what the prepared statements end up with after a couple of executions
+            StringBuilder prepared = new StringBuilder();
+            StringBuilder args = new StringBuilder();
+            int param = 0;
+            for (char c : sql.sql.toString().toCharArray()) {
+                if (c == '?') {
+                    prepared.append('$').append(++param);
+                    args.append(param == 1 ? "" : ", ").append('\'').append(sql.params.get(param - 1)).append('\'');
+                } else {
+                    prepared.append(c);
+                }
+            }
+
+            //the settings and the prepared statement are bound to the connection of the current transaction
+            try (Statement st = graph.getConnection().createStatement()) {
+                st.execute("SET plan_cache_mode = force_generic_plan");
+                st.execute("PREPARE string_filter AS " + prepared);
+            }
+
+            String plan = explain(graph, "EXECUTE string_filter(" + args + ")");
+            Assert.assertTrue(plan, plan.toUpperCase().contains("IDX_VERTEX_PROPERTIES_2"));
+        } finally {
+            graph.rollback();
+            execute(graph, TABLES.stream().map(t -> "DROP TABLE IF EXISTS " + t + " CASCADE").toArray(String[]::new));
+            graph.shutdown();
+        }
+    }
+
+    private static SqlGraph newGraph(String dbName) throws Exception {
+        Map<String, Object> conf = new HashMap<>();
+        conf.put("sql.datasource.class", "org.h2.jdbcx.JdbcDataSource");
+        conf.put("sql.datasource.url", "jdbc:h2:mem:" + dbName + ";DB_CLOSE_DELAY=-1");
+        //we want to query the database, not the cache
+        conf.put("sql.cacheSelects", false);
+        return new SqlGraph(conf);
+    }
+
+    private static List<Vertex> createContainsTree(SqlGraph graph) {
+        Vertex root = graph.addVertex(null);
+        List<Vertex> parents = new ArrayList<>(PARENTS);
+        for (int i = 0; i < PARENTS; ++i) {
+            Vertex parent = graph.addVertex(null);
+            root.addEdge("contains", parent);
+            parents.add(parent);
+
+            for (int j = 0; j < CHILDREN_PER_PARENT; ++j) {
+                Vertex child = graph.addVertex(null);
+                parent.addEdge("contains", child);
+                child.addEdge("defines", parent);
+            }
+        }
+
+        graph.commit();
+
+        return parents;
+    }
+
+    private static void assertTraversal(List<Vertex> parents) {
+        for (Vertex p : parents) {
+            int cnt = 0;
+            for (Vertex ignored : p.getVertices(Direction.OUT, "contains")) {
+                cnt++;
+            }
+            Assert.assertEquals(CHILDREN_PER_PARENT, cnt);
+        }
+    }
+
+    private static List<Integer> schemaVersions(SqlGraph graph) throws Exception {
+        try (Statement st = graph.getConnection().createStatement();
+             ResultSet rs = st.executeQuery("SELECT version FROM vertices_schema")) {
+            List<Integer> ret = new ArrayList<>();
+            while (rs.next()) {
+                ret.add(rs.getInt(1));
+            }
+            return ret;
+        }
+    }
+
+    private static Set<String> indices(SqlGraph graph) throws Exception {
+        try (Statement st = graph.getConnection().createStatement();
+             ResultSet rs = st.executeQuery("SELECT index_name FROM information_schema.indexes")) {
+            Set<String> ret = new HashSet<>();
+            while (rs.next()) {
+                ret.add(rs.getString(1).toUpperCase());
+            }
+            return ret;
+        }
+    }
+
+    private static String explain(SqlGraph graph, String query) throws Exception {
+        try (Statement st = graph.getConnection().createStatement();
+             ResultSet rs = st.executeQuery("EXPLAIN " + query)) {
+            StringBuilder bld = new StringBuilder();
+            while (rs.next()) {
+                bld.append(rs.getString(1));
+            }
+            return bld.toString();
+        }
+    }
+
+    private static void execute(SqlGraph graph, String... statements) throws Exception {
+        try (Statement st = graph.getConnection().createStatement()) {
+            for (String sql : statements) {
+                st.execute(sql);
+            }
+        }
+        graph.commit();
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2015-2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.impl.tinkerpop.sql.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Lukas Krejci
+ * @since 0.19.0
+ */
+public class TransactionCacheTest {
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    @Test
+    public void testCountsHitsAndMisses() throws Exception {
+        TransactionCache cache = new TransactionCache(hits, misses, 100);
+
+        Assert.assertNull(cache.get("SELECT 1", Collections.singletonList(1L)));
+        cache.put("SELECT 1", Collections.singletonList(1L), rows(3), "vertices");
+
+        Assert.assertEquals(3, cache.get("SELECT 1", Collections.singletonList(1L)).size());
+        Assert.assertEquals(3, cache.get("SELECT 1", Collections.singletonList(1L)).size());
+        //different parameters are a different result
+        Assert.assertNull(cache.get("SELECT 1", Collections.singletonList(2L)));
+
+        Assert.assertEquals(2, hits.get());
+        Assert.assertEquals(2, misses.get());
+    }
+
+    @Test
+    public void testInvalidatesResultsOfModifiedTables() throws Exception {
+        TransactionCache cache = new TransactionCache(hits, misses, 100);
+
+        cache.put("SELECT v", Collections.emptyList(), rows(1), "vertices");
+        cache.put("SELECT e", Collections.emptyList(), rows(1), "edges");
+        cache.put("SELECT ve", Collections.emptyList(), rows(1), "vertices", "edges");
+
+        cache.invalidate("edges");
+
+        Assert.assertNotNull(cache.get("SELECT v", Collections.emptyList()));
+        Assert.assertNull(cache.get("SELECT e", Collections.emptyList()));
+        Assert.assertNull(cache.get("SELECT ve", Collections.emptyList()));
+        Assert.assertEquals(1, cache.getCachedRows());
+
+        cache.clear();
+        Assert.assertNull(cache.get("SELECT v", Collections.emptyList()));
+        Assert.assertEquals(0, cache.getCachedRows());
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsedResultsOverLimit() throws Exception {
+        TransactionCache cache = new TransactionCache(hits, misses, 10);
+
+        cache.put("SELECT 1", Collections.emptyList(), rows(4), "vertices");
+        cache.put("SELECT 2", Collections.emptyList(), rows(4), "vertices");
+        //make the first one more recently used than the second one
+        cache.get("SELECT 1", Collections.emptyList());
+
+        cache.put("SELECT 3", Collections.emptyList(), rows(4), "vertices");
+
+        Assert.assertNotNull(cache.get("SELECT 1", Collections.emptyList()));
+        Assert.assertNull(cache.get("SELECT 2", Collections.emptyList()));
+        Assert.assertNotNull(cache.get("SELECT 3", Collections.emptyList()));
+        Assert.assertEquals(8, cache.getCachedRows());
+    }
+
+    @Test
+    public void testDoesNotCacheResultsLargerThanLimit() throws Exception {
+        TransactionCache cache = new TransactionCache(hits, misses, 10);
+
+        cache.put("SELECT 1", Collections.emptyList(), rows(2), "vertices");
+        List<Object[]> large = cache.put("SELECT 2", Collections.emptyList(), rows(11), "vertices");
+
+        Assert.assertEquals(11, large.size());
+        Assert.assertNull(cache.get("SELECT 2", Collections.emptyList()));
+        //and the smaller results are kept
+        Assert.assertNotNull(cache.get("SELECT 1", Collections.emptyList()));
+        Assert.assertEquals(2, cache.getCachedRows());
+    }
+
+    private static List<Object[]> rows(int count) {
+        List<Object[]> ret = new ArrayList<>(count);
+        for (int i = 0; i < count; ++i) {
+            ret.add(new Object[]{(long) i});
+        }
+        return ret;
+    }
+}
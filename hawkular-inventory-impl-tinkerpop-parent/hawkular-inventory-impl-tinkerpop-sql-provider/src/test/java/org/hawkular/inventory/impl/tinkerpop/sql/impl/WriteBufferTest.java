@@ -0,0 +1,155 @@
+/*
+ * Copyright 2015-2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.impl.tinkerpop.sql.impl;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Vertex;
+
+/**
+ * The properties of the new elements are buffered by the graph. These tests read the properties from the database
+ * (i.e. without the eager loading into the elements) so that they only see what's been flushed.
+ *
+ * @author Lukas Krejci
+ * @since 0.19.0
+ */
+public class WriteBufferTest {
+
+    private static int dbCounter;
+
+    private SqlGraph graph;
+
+    @Before
+    public void setup() throws Exception {
+        Map<String, Object> conf = new HashMap<>();
+        conf.put("sql.datasource.class", "org.h2.jdbcx.JdbcDataSource");
+        conf.put("sql.datasource.url", "jdbc:h2:mem:write-buffer-" + dbCounter++ + ";DB_CLOSE_DELAY=-1");
+        conf.put("sql.loadPropertiesEagerly", false);
+        graph = new SqlGraph(conf);
+        graph.createSchemaIfNeeded();
+    }
+
+    @After
+    public void teardown() throws Exception {
+        graph.shutdown();
+    }
+
+    @Test
+    public void testBufferedWriteIsVisibleInSameTransaction() throws Exception {
+        Vertex v = graph.addVertex(null);
+        v.setProperty("name", "v");
+        v.setProperty("size", 42);
+
+        Assert.assertNotNull(graph.getWriteBuffer());
+        Assert.assertTrue(graph.getWriteBuffer().isNew((SqlVertex) v));
+
+        Assert.assertEquals("v", v.getProperty("name"));
+        Assert.assertEquals(42, ((Number) v.getProperty("size")).intValue());
+        Assert.assertEquals(v.getId(), graph.getVertices("name", "v").iterator().next().getId());
+
+        //once flushed, the element is no longer new
+        Assert.assertFalse(graph.getWriteBuffer().isNew((SqlVertex) v));
+
+        graph.commit();
+
+        Assert.assertEquals("v", graph.getVertex(v.getId()).getProperty("name"));
+    }
+
+    @Test
+    public void testLaterBufferedWriteOfSamePropertyWins() throws Exception {
+        Vertex v = graph.addVertex(null);
+        v.setProperty("name", "first");
+        v.setProperty("name", "second");
+        graph.commit();
+
+        Assert.assertEquals("second", graph.getVertex(v.getId()).getProperty("name"));
+        Assert.assertEquals(Collections.singleton("name"), graph.getVertex(v.getId()).getPropertyKeys());
+    }
+
+    @Test
+    public void testWritesAfterFlushUpdateTheFlushedProperties() throws Exception {
+        Vertex v = graph.addVertex(null);
+        v.setProperty("name", "first");
+
+        //reading flushes the buffered insert...
+        Assert.assertEquals("first", v.getProperty("name"));
+
+        //... so this must update the row instead of inserting another one
+        v.setProperty("name", "second");
+        v.setProperty("other", "value");
+        graph.commit();
+
+        Vertex read = graph.getVertex(v.getId());
+        Assert.assertEquals("second", read.getProperty("name"));
+        Assert.assertEquals("value", read.getProperty("other"));
+    }
+
+    @Test
+    public void testFlushesVertexAndEdgePropertiesOnCommit() throws Exception {
+        Vertex a = graph.addVertex(null);
+        Vertex b = graph.addVertex(null);
+        a.setProperty("name", "a");
+        Edge e = graph.addEdge(null, a, b, "contains");
+        e.setProperty("weight", 1);
+        b.setProperty("name", "b");
+        graph.commit();
+
+        Edge read = graph.getVertex(a.getId()).getEdges(Direction.OUT, "contains").iterator().next();
+        Assert.assertEquals(1, ((Number) read.getProperty("weight")).intValue());
+        Assert.assertEquals("b", read.getVertex(Direction.IN).getProperty("name"));
+    }
+
+    @Test
+    public void testRemovingBufferedProperty() throws Exception {
+        Vertex v = graph.addVertex(null);
+        v.setProperty("name", "v");
+        v.setProperty("removed", "value");
+        Assert.assertEquals("value", v.removeProperty("removed"));
+        graph.commit();
+
+        Vertex read = graph.getVertex(v.getId());
+        Assert.assertNull(read.getProperty("removed"));
+        Assert.assertEquals(Collections.singleton("name"), read.getPropertyKeys());
+    }
+
+    @Test
+    public void testRemovingElementsAfterBufferedWrites() throws Exception {
+        Vertex kept = graph.addVertex(null);
+        kept.setProperty("name", "kept");
+        Vertex removed = graph.addVertex(null);
+        removed.setProperty("name", "removed");
+        Edge e = graph.addEdge(null, kept, removed, "contains");
+        e.setProperty("weight", 1);
+
+        graph.removeEdge(e);
+        graph.removeVertex(removed);
+        graph.commit();
+
+        Assert.assertNull(graph.getVertex(removed.getId()));
+        Assert.assertNull(graph.getEdge(e.getId()));
+        Assert.assertEquals("kept", graph.getVertex(kept.getId()).getProperty("name"));
+    }
+}
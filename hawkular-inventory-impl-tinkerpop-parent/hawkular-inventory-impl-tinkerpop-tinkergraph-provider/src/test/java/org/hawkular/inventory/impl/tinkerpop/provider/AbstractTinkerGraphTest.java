@@ -27,8 +27,19 @@ import java.util.Collections;
 import java.util.List;
 
 import org.hawkular.inventory.api.Configuration;
+import org.hawkular.inventory.api.Feeds;
+import org.hawkular.inventory.api.TransactionFrame;
+import org.hawkular.inventory.api.model.Feed;
+import org.hawkular.inventory.api.model.IdentityHash;
+import org.hawkular.inventory.api.model.Resource;
+import org.hawkular.inventory.api.model.ResourceType;
+import org.hawkular.inventory.api.model.Tenant;
 import org.hawkular.inventory.api.test.AbstractBaseInventoryTestsuite;
 import org.hawkular.inventory.base.BaseInventory;
+import org.hawkular.inventory.base.spi.InventoryBackend;
+import org.hawkular.inventory.paths.CanonicalPath;
+import org.junit.Assert;
+import org.junit.Test;
 
 import com.tinkerpop.blueprints.Element;
 
@@ -38,6 +49,58 @@ import com.tinkerpop.blueprints.Element;
  */
 abstract class AbstractTinkerGraphTest extends AbstractBaseInventoryTestsuite<Element> {
 
+    @Test
+    public void testIdentityHashWithManyChangesNextToEntitiesWithoutStoredHash() throws Exception {
+        String tenantId = "testIdentityHashWithManyChangesNextToEntitiesWithoutStoredHash";
+        try {
+            Feeds.Single f = inventory.tenants().create(Tenant.Blueprint.builder().withId(tenantId).build())
+                    .feeds().create(Feed.Blueprint.builder().withId("feed").build());
+
+            f.resourceTypes().create(ResourceType.Blueprint.builder().withId("resourceType").build());
+            CanonicalPath legacy = f.resources().create(Resource.Blueprint.builder().withId("legacy")
+                    .withResourceTypePath("resourceType").build()).entity().getPath();
+            f.resources().get("legacy").resources().create(Resource.Blueprint.builder().withId("child")
+                    .withResourceTypePath("../resourceType").build());
+
+            //pretend the resources were stored before the identity hashes were
+            forgetIdentityHash(legacy);
+            forgetIdentityHash(legacy.extend(Resource.SEGMENT_TYPE, "child").get());
+
+            //enough changes for the children of the changed entities to be loaded using a single query. The unchanged
+            //resource without a stored hash must be hashed together with its child.
+            TransactionFrame frame = inventory.newTransactionFrame();
+            try {
+                Feeds.Single feed = frame.boundInventory().tenants().get(tenantId).feeds().get("feed");
+                for (int i = 0; i < 50; ++i) {
+                    feed.resources().create(Resource.Blueprint.builder().withId("r" + i)
+                            .withResourceTypePath("resourceType").build());
+                }
+                frame.commit();
+            } catch (RuntimeException e) {
+                frame.rollback();
+                throw e;
+            }
+
+            Feed feed = f.entity();
+            Assert.assertEquals(IdentityHash.of(feed, inventory), feed.getIdentityHash());
+        } finally {
+            if (inventory.tenants().get(tenantId).exists()) {
+                inventory.tenants().get(tenantId).delete();
+            }
+        }
+    }
+
+    private void forgetIdentityHash(CanonicalPath path) throws Exception {
+        InventoryBackend<Element> backend = inventory.getBackend().startTransaction();
+        try {
+            backend.find(path).removeProperty("__identityHash");
+            backend.commit();
+        } catch (Exception e) {
+            backend.rollback();
+            throw e;
+        }
+    }
+
     protected static void teardown(BaseInventory<?> inventory) throws Exception {
         String pathName = inventory.getConfiguration().getProperty(new DirProperty(), null);
 
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2015-2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.impl.tinkerpop.provider;
+
+import static org.hawkular.inventory.paths.DataRole.Resource.configuration;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.hawkular.inventory.api.Configuration;
+import org.hawkular.inventory.api.Data;
+import org.hawkular.inventory.api.Resources;
+import org.hawkular.inventory.api.feeds.AcceptWithFallbackFeedIdStrategy;
+import org.hawkular.inventory.api.feeds.RandomUUIDFeedIdStrategy;
+import org.hawkular.inventory.api.model.DataEntity;
+import org.hawkular.inventory.api.model.Feed;
+import org.hawkular.inventory.api.model.InventoryStructure;
+import org.hawkular.inventory.api.model.Resource;
+import org.hawkular.inventory.api.model.ResourceType;
+import org.hawkular.inventory.api.model.StructuredData;
+import org.hawkular.inventory.api.model.Tenant;
+import org.hawkular.inventory.impl.tinkerpop.TinkerpopInventory;
+import org.hawkular.inventory.paths.CanonicalPath;
+import org.hawkular.inventory.paths.DataRole;
+import org.hawkular.inventory.paths.RelativePath;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Vertex;
+
+/**
+ * Checks how the updates of the structured data touch the vertices they are stored in. The TinkerGraph vertices are
+ * live, so the tests can modify the stored data behind the back of the inventory and see what the update rewrites.
+ *
+ * @author Lukas Krejci
+ * @since 0.19.0
+ */
+public class StructuredDataUpdateTest {
+    private static final CanonicalPath RESOURCE_PATH = CanonicalPath.of().tenant("t").feed("f").resource("r").get();
+    private static final CanonicalPath DATA_PATH = RESOURCE_PATH.extend(DataEntity.SEGMENT_TYPE,
+            configuration.name()).get();
+
+    private Path directory;
+    private TinkerpopInventory inventory;
+
+    @Before
+    public void setup() throws Exception {
+        directory = Files.createTempDirectory("structured-data-update");
+        inventory = open("vertices");
+        inventory.importTenant(InventoryStructure.Offline.of(Tenant.Blueprint.builder().withId("t").build())
+                .startChild(Feed.Blueprint.builder().withId("f").build())
+                /**/.addChild(ResourceType.Blueprint.builder().withId("rt").build())
+                /**/.addChild(Resource.Blueprint.builder().withId("r").withResourceTypePath("rt").build())
+                .end()
+                .build());
+    }
+
+    @After
+    public void teardown() throws Exception {
+        inventory.close();
+
+        Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    @Test
+    public void testUpdateSkipsSubtreesWithUnchangedHash() throws Exception {
+        createData(StructuredData.get().map()
+                .putMap("unchanged").putIntegral("a", 1L).putList("b").addString("x").closeList().closeMap()
+                .putMap("changed").putIntegral("x", 1L).closeMap()
+                .build());
+
+        //tamper with the stored value without updating the hashes
+        member(member(dataRoot(), "unchanged"), "a").setProperty("__structuredDataValue", 666L);
+
+        updateData(StructuredData.get().map()
+                .putMap("unchanged").putIntegral("a", 1L).putList("b").addString("x").closeList().closeMap()
+                .putMap("changed").putIntegral("x", 2L).closeMap()
+                .build());
+
+        //the subtree with the same hash as the new value was not even looked at...
+        Assert.assertEquals(StructuredData.get().integral(666L), data("unchanged", "a"));
+        //... while the changed one was updated
+        Assert.assertEquals(StructuredData.get().integral(2L), data("changed", "x"));
+
+        updateData(StructuredData.get().map()
+                .putMap("unchanged").putIntegral("a", 1L).putList("b").addString("x").closeList()
+                .putIntegral("c", 3L).closeMap()
+                .putMap("changed").putIntegral("x", 2L).closeMap()
+                .build());
+
+        //once the hash differs, the subtree is diffed member by member
+        Assert.assertEquals(StructuredData.get().integral(1L), data("unchanged", "a"));
+        Assert.assertEquals(StructuredData.get().integral(3L), data("unchanged", "c"));
+    }
+
+    @Test
+    public void testUpdateSwitchesBetweenCompactAndTreeStorage() throws Exception {
+        inventory.close();
+        inventory = open("compact");
+
+        StructuredData map = StructuredData.get().map().putMap("m").putIntegral("a", 1L).closeMap().build();
+        createData(map);
+        Assert.assertNotNull(dataRoot().getProperty("__structuredDataBlob"));
+        Assert.assertEquals(map, dataAccess().entity().getValue());
+
+        //the scalars are stored in the tree form even in the compact mode
+        StructuredData scalar = StructuredData.get().string("scalar");
+        updateData(scalar);
+        Assert.assertNull(dataRoot().getProperty("__structuredDataBlob"));
+        Assert.assertEquals(scalar, dataAccess().entity().getValue());
+
+        StructuredData list = StructuredData.get().list().addIntegral(1L).addString("two").build();
+        updateData(list);
+        Assert.assertNotNull(dataRoot().getProperty("__structuredDataBlob"));
+        Assert.assertEquals(list, dataAccess().entity().getValue());
+
+        //the data stored compactly is converted to the tree form once the inventory is configured to use it
+        inventory.close();
+        inventory = open("vertices");
+        Assert.assertEquals(list, dataAccess().entity().getValue());
+
+        updateData(map);
+        Assert.assertNull(dataRoot().getProperty("__structuredDataBlob"));
+        Assert.assertEquals(map, dataAccess().entity().getValue());
+        Assert.assertEquals(StructuredData.get().integral(1L), data("m", "a"));
+    }
+
+    private TinkerpopInventory open(String structuredDataStorage) {
+        Map<String, String> config = new HashMap<>();
+        config.put("blueprints.tg.directory", directory.resolve("graph").toString());
+        config.put(TinkerpopInventory.STRUCTURED_DATA_STORAGE.getPropertyName(), structuredDataStorage);
+
+        TinkerpopInventory ret = new TinkerpopInventory();
+        ret.initialize(Configuration.builder()
+                .withFeedIdStrategy(new AcceptWithFallbackFeedIdStrategy(new RandomUUIDFeedIdStrategy()))
+                .withConfiguration(config)
+                .build());
+
+        return ret;
+    }
+
+    private Data.Single dataAccess() {
+        return inventory.inspect(DATA_PATH, Data.Single.class);
+    }
+
+    private void createData(StructuredData value) {
+        inventory.inspect(RESOURCE_PATH, Resources.Single.class).data()
+                .create(DataEntity.Blueprint.<DataRole.Resource>builder().withRole(configuration).withValue(value)
+                        .build());
+    }
+
+    private void updateData(StructuredData value) {
+        dataAccess().update(DataEntity.Update.builder().withValue(value).build());
+    }
+
+    private StructuredData data(String key, String subKey) {
+        return dataAccess().data(RelativePath.to().structuredData().key(key).key(subKey).get());
+    }
+
+    private Vertex dataRoot() throws Exception {
+        Vertex dataEntity = (Vertex) inventory.getBackend().find(DATA_PATH);
+        return dataEntity.getVertices(Direction.OUT, "hasData").iterator().next();
+    }
+
+    private static Vertex member(Vertex parent, String key) {
+        for (Vertex v : parent.getVertices(Direction.OUT, "contains")) {
+            if (key.equals(v.getProperty("__structuredDataKey"))) {
+                return v;
+            }
+        }
+
+        throw new AssertionError("No member '" + key + "' found.");
+    }
+}
@@ -0,0 +1,274 @@
+/*
+ * Copyright 2015-2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.impl.tinkerpop;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.Map;
+
+import org.hawkular.inventory.api.model.StructuredData;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.tinkerpop.blueprints.Vertex;
+
+/**
+ * Support for storing the lists and maps of the structured data in the compact form.
+ *
+ * <p>In the compact form, the whole value is encoded as JSON in the {@link Constants.Property#__structuredDataBlob}
+ * property of a single vertex, so it is stored and loaded using a single backend operation regardless of its size. The
+ * vertex also has the type of the value in the {@link Constants.Property#__structuredDataType} property, like the
+ * structured data vertices stored in the tree form.
+ *
+ * <p>The queries navigate into the compactly stored values using the {@link StructuredDataVertex} in-memory vertices
+ * that the blob is expanded into (see {@link #expand(Object)}), so that the filters on the data work the same no matter
+ * how the data is stored.
+ *
+ * @author Lukas Krejci
+ * @since 0.19.0
+ */
+final class CompactStructuredData {
+    private static final JsonFactory JSON_FACTORY = new JsonFactory()
+            .disable(JsonGenerator.Feature.QUOTE_NON_NUMERIC_NUMBERS)
+            .enable(JsonParser.Feature.ALLOW_NON_NUMERIC_NUMBERS);
+
+    private CompactStructuredData() {
+        //no instances, thank you
+    }
+
+    /**
+     * @param data the data to check
+     * @return true if the data is a list or a map and therefore can be stored compactly
+     */
+    static boolean isCompactable(StructuredData data) {
+        StructuredData.Type type = data.getType();
+        return type == StructuredData.Type.list || type == StructuredData.Type.map;
+    }
+
+    /**
+     * If the element is a structured data vertex storing its value compactly, this returns the in-memory vertex
+     * representing the value. Otherwise the element is returned as is.
+     *
+     * <p>This is meant to be used as a transform function in the pipelines navigating into the structured data.
+     *
+     * @param element the element to expand
+     * @return the expanded element
+     */
+    static Object expand(Object element) {
+        if (!(element instanceof Vertex) || element instanceof StructuredDataVertex) {
+            return element;
+        }
+
+        Vertex v = (Vertex) element;
+        String blob = v.getProperty(Constants.Property.__structuredDataBlob.name());
+
+        return blob == null ? v : new StructuredDataVertex(v.getId(), decode(blob));
+    }
+
+    static String encode(StructuredData data) {
+        StringWriter out = new StringWriter();
+        try (JsonGenerator gen = JSON_FACTORY.createGenerator(out)) {
+            write(gen, data);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to encode structured data.", e);
+        }
+
+        return out.toString();
+    }
+
+    static StructuredData decode(String blob) {
+        try (JsonParser parser = JSON_FACTORY.createParser(blob)) {
+            switch (parser.nextToken()) {
+                case START_ARRAY:
+                    StructuredData.ListBuilder lst = StructuredData.get().list();
+                    readList(parser, lst);
+                    return lst.build();
+                case START_OBJECT:
+                    StructuredData.MapBuilder mp = StructuredData.get().map();
+                    readMap(parser, mp);
+                    return mp.build();
+                default:
+                    throw new IllegalArgumentException("Compact structured data must be a list or a map.");
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Failed to decode structured data.", e);
+        }
+    }
+
+    private static void write(JsonGenerator gen, StructuredData data) throws IOException {
+        try {
+            data.accept(new StructuredData.Visitor.Simple<Void, Void>() {
+                @Override
+                protected Void defaultAction(Serializable value, Void parameter) {
+                    throw new IllegalArgumentException("Unsupported structured data value: " + value);
+                }
+
+                @Override
+                public Void visitBool(boolean value, Void parameter) {
+                    return io(() -> gen.writeBoolean(value));
+                }
+
+                @Override
+                public Void visitIntegral(long value, Void parameter) {
+                    return io(() -> gen.writeNumber(value));
+                }
+
+                @Override
+                public Void visitFloatingPoint(double value, Void parameter) {
+                    //doubles are always written with a decimal point or an exponent, so they read back as doubles
+                    return io(() -> gen.writeNumber(value));
+                }
+
+                @Override
+                public Void visitString(String value, Void parameter) {
+                    return io(() -> gen.writeString(value));
+                }
+
+                @Override
+                public Void visitUndefined(Void parameter) {
+                    return io(gen::writeNull);
+                }
+
+                @Override
+                public Void visitList(List<StructuredData> value, Void parameter) {
+                    return io(() -> {
+                        gen.writeStartArray();
+                        for (StructuredData d : value) {
+                            write(gen, d);
+                        }
+                        gen.writeEndArray();
+                    });
+                }
+
+                @Override
+                public Void visitMap(Map<String, StructuredData> value, Void parameter) {
+                    return io(() -> {
+                        gen.writeStartObject();
+                        for (Map.Entry<String, StructuredData> e : value.entrySet()) {
+                            gen.writeFieldName(e.getKey());
+                            write(gen, e.getValue());
+                        }
+                        gen.writeEndObject();
+                    });
+                }
+            }, null);
+        } catch (TransferIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static void readList(JsonParser parser, StructuredData.AbstractListBuilder<?> bld) throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            switch (token) {
+                case VALUE_TRUE:
+                case VALUE_FALSE:
+                    bld.addBool(parser.getBooleanValue());
+                    break;
+                case VALUE_NUMBER_INT:
+                    bld.addIntegral(parser.getLongValue());
+                    break;
+                case VALUE_NUMBER_FLOAT:
+                    bld.addFloatingPoint(parser.getDoubleValue());
+                    break;
+                case VALUE_STRING:
+                    bld.addString(parser.getText());
+                    break;
+                case VALUE_NULL:
+                    bld.addUndefined();
+                    break;
+                case START_ARRAY:
+                    StructuredData.InnerListBuilder<?> lst = bld.addList();
+                    readList(parser, lst);
+                    lst.closeList();
+                    break;
+                case START_OBJECT:
+                    StructuredData.InnerMapBuilder<?> mp = bld.addMap();
+                    readMap(parser, mp);
+                    mp.closeMap();
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unexpected token in compact structured data: " + token);
+            }
+        }
+    }
+
+    private static void readMap(JsonParser parser, StructuredData.AbstractMapBuilder<?> bld) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String key = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            switch (token) {
+                case VALUE_TRUE:
+                case VALUE_FALSE:
+                    bld.putBool(key, parser.getBooleanValue());
+                    break;
+                case VALUE_NUMBER_INT:
+                    bld.putIntegral(key, parser.getLongValue());
+                    break;
+                case VALUE_NUMBER_FLOAT:
+                    bld.putFloatingPoint(key, parser.getDoubleValue());
+                    break;
+                case VALUE_STRING:
+                    bld.putString(key, parser.getText());
+                    break;
+                case VALUE_NULL:
+                    bld.putUndefined(key);
+                    break;
+                case START_ARRAY:
+                    StructuredData.InnerListBuilder<?> lst = bld.putList(key);
+                    readList(parser, lst);
+                    lst.closeList();
+                    break;
+                case START_OBJECT:
+                    StructuredData.InnerMapBuilder<?> mp = bld.putMap(key);
+                    readMap(parser, mp);
+                    mp.closeMap();
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unexpected token in compact structured data: " + token);
+            }
+        }
+    }
+
+    private static Void io(IOAction action) {
+        try {
+            action.run();
+            return null;
+        } catch (IOException e) {
+            throw new TransferIOException(e);
+        }
+    }
+
+    private interface IOAction {
+        void run() throws IOException;
+    }
+
+    private static final class TransferIOException extends RuntimeException {
+        TransferIOException(IOException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized IOException getCause() {
+            return (IOException) super.getCause();
+        }
+    }
+}
@@ -23,6 +23,8 @@ import static org.hawkular.inventory.impl.tinkerpop.Constants.Property.__metric_
 import static org.hawkular.inventory.impl.tinkerpop.Constants.Property.__sourceCp;
 import static org.hawkular.inventory.impl.tinkerpop.Constants.Property.__sourceEid;
 import static org.hawkular.inventory.impl.tinkerpop.Constants.Property.__sourceType;
+import static org.hawkular.inventory.impl.tinkerpop.Constants.Property.__structuredDataBlob;
+import static org.hawkular.inventory.impl.tinkerpop.Constants.Property.__structuredDataHash;
 import static org.hawkular.inventory.impl.tinkerpop.Constants.Property.__structuredDataIndex;
 import static org.hawkular.inventory.impl.tinkerpop.Constants.Property.__structuredDataKey;
 import static org.hawkular.inventory.impl.tinkerpop.Constants.Property.__structuredDataType;
@@ -133,6 +135,22 @@ final class Constants {
          */
         __structuredDataValue,
 
+        /**
+         * The list or map stored in the compact form, i.e. encoded in a single property of the root structured data
+         * vertex instead of in the child vertices.
+         *
+         * @see CompactStructuredData
+         */
+        __structuredDataBlob,
+
+        /**
+         * The content hash of a list or map stored in the tree form. Used to skip the unchanged parts of the data when
+         * updating it.
+         *
+         * @see StructuredDataHashes
+         */
+        __structuredDataHash,
+
         __sourceType("sourceType"),
 
         __targetType("targetType"),
@@ -214,7 +232,8 @@ final class Constants {
         relationship(Relationship.class, __sourceType, __targetType, __sourceCp, __targetCp, __sourceEid, __targetEid),
         dataEntity(DataEntity.class, name, __identityHash, __contentHash, __syncHash),
         structuredData(StructuredData.class, __structuredDataType,
-                __structuredDataValue, __structuredDataIndex, __structuredDataKey);
+                __structuredDataValue, __structuredDataIndex, __structuredDataKey, __structuredDataBlob,
+                __structuredDataHash);
 
         private final String[] mappedProperties;
         private final Class<?> entityType;
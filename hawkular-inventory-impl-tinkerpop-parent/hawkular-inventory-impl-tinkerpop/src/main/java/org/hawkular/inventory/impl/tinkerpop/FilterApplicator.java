@@ -25,6 +25,8 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 import org.hawkular.inventory.api.FilterFragment;
 import org.hawkular.inventory.api.Query;
@@ -58,6 +60,8 @@ import com.tinkerpop.pipes.transform.VerticesEdgesPipe;
  */
 abstract class FilterApplicator<T extends Filter> {
     private static Map<Class<? extends Filter>, Class<? extends FilterApplicator<?>>> applicators;
+    private static final ConcurrentHashMap<Class<? extends Filter>, Function<Filter, FilterApplicator<?>>> factories =
+            new ConcurrentHashMap<>();
 
     static {
         applicators = new HashMap<>();
@@ -97,7 +101,21 @@ abstract class FilterApplicator<T extends Filter> {
         if (filter == null) {
             throw new IllegalArgumentException("filter == null");
         }
-        Class<? extends Filter> filterClazz = filter.getClass();
+
+        return factoryOf(filter.getClass()).apply(filter);
+    }
+
+    /**
+     * Looks up the applicator of the filters of given type. The lookup is done only once for each filter type.
+     *
+     * @param filterClazz the type of the filters
+     * @return the function to create the applicator for a filter of given type
+     */
+    private static Function<Filter, FilterApplicator<?>> factoryOf(Class<? extends Filter> filterClazz) {
+        return factories.computeIfAbsent(filterClazz, FilterApplicator::resolveFactory);
+    }
+
+    private static Function<Filter, FilterApplicator<?>> resolveFactory(Class<? extends Filter> filterClazz) {
         Class<? extends FilterApplicator<?>> applicatorClazz = applicators.get(filterClazz);
         if (applicatorClazz == null) {
             throw new IllegalArgumentException("Unsupported filter type " + filterClazz);
@@ -113,12 +131,16 @@ abstract class FilterApplicator<T extends Filter> {
                 throw new IllegalArgumentException("Unable to create an instance of " + applicatorClazz);
             }
         }
-        try {
-            constructor.setAccessible(true);
-            return constructor.newInstance(filter);
-        } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
-            throw new IllegalArgumentException("Unable to create an instance of " + applicatorClazz);
-        }
+        constructor.setAccessible(true);
+
+        Constructor<? extends FilterApplicator<?>> ctor = constructor;
+        return filter -> {
+            try {
+                return ctor.newInstance(filter);
+            } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
+                throw new IllegalArgumentException("Unable to create an instance of " + applicatorClazz);
+            }
+        };
     }
 
     /**
@@ -134,7 +156,22 @@ abstract class FilterApplicator<T extends Filter> {
             return;
         }
 
+        applyAll(filterTree, null, q);
+    }
+
+    /**
+     * Applies all the filters from the applicator tree to the provided Gremlin query.
+     *
+     * @param filterTree the tree of filters to apply to the query
+     * @param context    the context of the inventory, enabling the use of the graph provider specific features, can
+     *                   be null
+     * @param q          the query to update with filters from the tree
+     * @param <S>        type of the source of the query
+     * @param <E>        type of the output of the query
+     */
+    public static <S, E> void applyAll(Query filterTree, InventoryContext context, HawkularPipeline<S, E> q) {
         QueryTranslationState state = new QueryTranslationState();
+        state.setContext(context);
 
         if (applyAll(filterTree, q, false, state)) {
             q.recall();
@@ -50,6 +50,7 @@ import org.hawkular.inventory.paths.SegmentType;
 import com.tinkerpop.blueprints.Compare;
 import com.tinkerpop.blueprints.Direction;
 import com.tinkerpop.blueprints.Element;
+import com.tinkerpop.blueprints.Vertex;
 import com.tinkerpop.pipes.Pipe;
 import com.tinkerpop.pipes.filter.PropertyFilterPipe;
 import com.tinkerpop.pipes.util.Pipeline;
@@ -407,6 +408,8 @@ class FilterVisitor {
     public void visit(HawkularPipeline<?, ?> query, With.DataAt dataPos, QueryTranslationState state) {
         goBackFromEdges(query, state);
         query.out(hasData);
+        //the compactly stored data is navigated in memory, the data stored as a tree of vertices is left as is
+        query.transform(CompactStructuredData::expand);
         for (Path.Segment seg : dataPos.getDataPath().getPath()) {
             if (SegmentType.up.equals(seg.getElementType())) {
                 query.in(contains);
@@ -462,6 +465,18 @@ class FilterVisitor {
     public void visit(HawkularPipeline<?, ?> query, RecurseFilter recurseFilter, QueryTranslationState state) {
         goBackFromEdges(query, state);
 
+        Related over = simpleRecursion(recurseFilter);
+        if (over != null && state.getContext() != null) {
+            //the graph provider might be able to compute the whole closure of each vertex at once, which is much
+            //faster than going through the loop vertex by vertex
+            InventoryContext context = state.getContext();
+            Direction direction = TinkerpopBackend.asDirection(over.getEntityRole());
+            String name = over.getRelationshipName();
+
+            query.transform(v -> TinkerpopBackend.transitiveClosure(context, (Vertex) v, direction, name)).scatter();
+            return;
+        }
+
         String label = query.nextRandomLabel();
         query.__().as(label);
 
@@ -489,6 +504,25 @@ class FilterVisitor {
         query.loop(label, (x) -> true, (x) -> true);
     }
 
+    /**
+     * @return the related filter if the recursion only follows the relationships of one name in one direction, null
+     * otherwise
+     */
+    private static Related simpleRecursion(RecurseFilter recurseFilter) {
+        if (recurseFilter.getLoopChains().length != 1 || recurseFilter.getLoopChains()[0].length != 1
+                || !(recurseFilter.getLoopChains()[0][0] instanceof Related)) {
+            return null;
+        }
+
+        Related related = (Related) recurseFilter.getLoopChains()[0][0];
+        if (related.getRelationshipName() == null || related.getRelationshipId() != null
+                || related.getEntityPath() != null || related.getEntityRole() == Related.EntityRole.ANY) {
+            return null;
+        }
+
+        return related;
+    }
+
     public void visit(HawkularPipeline<?, ?> query, @SuppressWarnings("UnusedParameters") With.SameIdentityHash filter,
                       QueryTranslationState state) {
         goBackFromEdges(query, state);
@@ -0,0 +1,204 @@
+/*
+ * Copyright 2015-2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.impl.tinkerpop;
+
+import static org.hawkular.inventory.api.Relationships.WellKnown.contains;
+import static org.hawkular.inventory.api.Relationships.WellKnown.hasData;
+import static org.hawkular.inventory.impl.tinkerpop.Constants.Property.__cp;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.hawkular.inventory.api.InventoryBusyException;
+import org.hawkular.inventory.paths.CanonicalPath;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.MappingJsonFactory;
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Element;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.util.io.graphson.GraphSONMode;
+import com.tinkerpop.blueprints.util.io.graphson.GraphSONTokens;
+import com.tinkerpop.blueprints.util.io.graphson.GraphSONUtility;
+
+/**
+ * Exports the subgraph of a single tenant in the GraphSON format.
+ *
+ * <p>The subgraph consists of the tenant and everything it (transitively) contains, including the structured data
+ * and the identity hash nodes, and of the edges going out of these vertices. The GraphSON is written incrementally
+ * into a pipe the caller reads from, so only the ids of the vertices in the subgraph are held in memory. The vertices
+ * are loaded in batches, each in its own read-only transaction, so that the caches of the transactions don't grow with
+ * the size of the subgraph.
+ *
+ * <p>The properties are written in the {@link GraphSONMode#EXTENDED extended} mode, which records their types. In the
+ * normal mode, a long with a small value would come back as an integer, which the backend can't read.
+ *
+ * <p>The exports run on a bounded pool of threads. If all of them are busy, a new export is refused.
+ *
+ * @author Lukas Krejci
+ * @since 0.19.0
+ */
+final class GraphSONExporter implements AutoCloseable {
+    //a failed dump must not be closed as a valid JSON
+    private static final JsonFactory JSON_FACTORY = new MappingJsonFactory()
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+
+    private static final String[] TENANT_CONTENT = {contains.name(), hasData.name(),
+            Constants.InternalEdge.__containsIdentityHash.name()};
+
+    private static final GraphSONMode MODE = GraphSONMode.EXTENDED;
+
+    private static final int PIPE_SIZE = 64 * 1024;
+    private static final int BATCH_SIZE = 1000;
+
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * @param maxConcurrentExports the maximum number of the exports running at the same time
+     */
+    GraphSONExporter(int maxConcurrentExports) {
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(maxConcurrentExports, maxConcurrentExports, 60, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), r -> {
+            Thread t = new Thread(r, "hawkular-inventory-graphson-export-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Starts the export of the subgraph of the tenant.
+     *
+     * @param context  the context to read the graph with
+     * @param tenantId the id of the tenant to export
+     * @return the stream of the GraphSON, empty graph if the tenant doesn't exist
+     * @throws InventoryBusyException if there are too many exports running already
+     */
+    InputStream export(InventoryContext context, String tenantId) {
+        PipedInputStream in = new PipedInputStream(PIPE_SIZE);
+        PipedOutputStream out;
+        try {
+            out = new PipedOutputStream(in);
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to create the GraphSON dump.", e);
+        }
+
+        try {
+            executor.execute(() -> write(context, tenantId, out));
+        } catch (RejectedExecutionException e) {
+            throw new InventoryBusyException("Too many GraphSON dumps running at the moment. Try again later.", e);
+        }
+
+        return in;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private void write(InventoryContext context, String tenantId, OutputStream out) {
+        //closing the generator closes the pipe, which signals the end of the data to the reader
+        try (JsonGenerator gen = JSON_FACTORY.createGenerator(out)) {
+            List<Object> ids = subgraphOf(context, tenantId);
+
+            gen.writeStartObject();
+            gen.writeStringField(GraphSONTokens.MODE, MODE.toString());
+
+            gen.writeArrayFieldStart(GraphSONTokens.VERTICES);
+            inBatches(context, ids, v -> writeElement(gen, v));
+            gen.writeEndArray();
+
+            gen.writeArrayFieldStart(GraphSONTokens.EDGES);
+            inBatches(context, ids, v -> {
+                for (Edge e : v.getEdges(Direction.OUT)) {
+                    writeElement(gen, e);
+                }
+            });
+            gen.writeEndArray();
+
+            gen.writeEndObject();
+        } catch (IOException e) {
+            //this also happens when the reader closes the stream before reading it all
+            Log.LOG.debugf(e, "GraphSON dump of tenant %s failed.", tenantId);
+        } catch (RuntimeException e) {
+            Log.LOG.warnf(e, "GraphSON dump of tenant %s failed.", tenantId);
+        }
+    }
+
+    private static List<Object> subgraphOf(InventoryContext context, String tenantId) {
+        InventoryContext tx = context.cloneWith(context.startTransaction());
+        try {
+            List<Object> ids = new ArrayList<>();
+
+            Iterator<Vertex> tenants = tx.getGraph().query()
+                    .has(__cp.name(), CanonicalPath.of().tenant(tenantId).get().toString()).vertices().iterator();
+
+            if (tenants.hasNext()) {
+                Vertex tenant = tenants.next();
+                ids.add(tenant.getId());
+                for (Element e : TinkerpopBackend.transitiveClosure(tx, tenant, Direction.OUT, TENANT_CONTENT)) {
+                    ids.add(e.getId());
+                }
+            }
+
+            return ids;
+        } finally {
+            tx.rollback();
+        }
+    }
+
+    private static void inBatches(InventoryContext context, List<Object> ids, VertexWriter writer)
+            throws IOException {
+        for (int i = 0; i < ids.size(); i += BATCH_SIZE) {
+            InventoryContext tx = context.cloneWith(context.startTransaction());
+            try {
+                for (Object id : ids.subList(i, Math.min(ids.size(), i + BATCH_SIZE))) {
+                    Vertex v = tx.getGraph().getVertex(id);
+                    //the vertex might have been deleted in the meantime
+                    if (v != null) {
+                        writer.write(v);
+                    }
+                }
+            } finally {
+                tx.rollback();
+            }
+        }
+    }
+
+    private static void writeElement(JsonGenerator gen, Element element) throws IOException {
+        gen.writeTree(GraphSONUtility.objectNodeFromElement(element, null, MODE));
+    }
+
+    private interface VertexWriter {
+        void write(Vertex vertex) throws IOException;
+    }
+}
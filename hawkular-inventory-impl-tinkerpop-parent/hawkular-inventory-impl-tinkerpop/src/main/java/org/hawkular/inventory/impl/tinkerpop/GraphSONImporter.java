@@ -0,0 +1,168 @@
+/*
+ * Copyright 2015-2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.impl.tinkerpop;
+
+import static org.hawkular.inventory.impl.tinkerpop.Constants.Property.__cp;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.hawkular.inventory.paths.CanonicalPath;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingJsonFactory;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.TransactionalGraph;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.util.io.graphson.ElementFactory;
+import com.tinkerpop.blueprints.util.io.graphson.GraphSONMode;
+import com.tinkerpop.blueprints.util.io.graphson.GraphSONTokens;
+import com.tinkerpop.blueprints.util.io.graphson.GraphSONUtility;
+import com.tinkerpop.blueprints.util.wrappers.batch.BatchGraph;
+
+/**
+ * Imports the GraphSON dump of a single tenant, as produced by the {@link GraphSONExporter}.
+ *
+ * <p>The dump is read as a stream and the vertices and edges are written through the {@link BatchGraph}, which commits
+ * the transaction after each batch. Only the mapping from the ids in the dump to the newly created vertices is held in
+ * memory. The vertices must precede the edges in the dump. The edges to the vertices not in the dump are ignored.
+ *
+ * @author Lukas Krejci
+ * @since 0.19.0
+ */
+final class GraphSONImporter {
+    private static final JsonFactory JSON_FACTORY = new MappingJsonFactory();
+
+    private static final int BATCH_SIZE = 1000;
+
+    private GraphSONImporter() {
+        //no instances, thank you
+    }
+
+    /**
+     * @param context  the context to write the graph with
+     * @param tenantId the id of the tenant in the dump
+     * @param graphSON the dump
+     * @throws IllegalArgumentException if the dump is malformed or contains vertices of other tenants
+     */
+    static void importTenant(InventoryContext context, String tenantId, InputStream graphSON) {
+        TransactionalGraph tx = context.startTransaction();
+
+        @SuppressWarnings("unchecked")
+        BatchGraph<TransactionalGraph> graph = BatchGraph.wrap(tx, BATCH_SIZE);
+
+        try (JsonParser parser = JSON_FACTORY.createParser(graphSON)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("GraphSON expected.");
+            }
+
+            GraphSONMode mode = GraphSONMode.NORMAL;
+            GraphSONUtility reader = new GraphSONUtility(mode, new Factory(graph), null, null);
+            int edgesSkipped = 0;
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+
+                if (GraphSONTokens.MODE.equals(field)) {
+                    mode = GraphSONMode.valueOf(parser.getText());
+                    reader = new GraphSONUtility(mode, new Factory(graph), null, null);
+                } else if (GraphSONTokens.VERTICES.equals(field)) {
+                    while (parser.nextToken() != JsonToken.END_ARRAY) {
+                        JsonNode vertex = parser.readValueAsTree();
+                        checkTenant(vertex, tenantId, mode);
+                        reader.vertexFromJson(vertex);
+                    }
+                } else if (GraphSONTokens.EDGES.equals(field)) {
+                    while (parser.nextToken() != JsonToken.END_ARRAY) {
+                        JsonNode edge = parser.readValueAsTree();
+                        Vertex out = graph.getVertex(key(edge.get(GraphSONTokens._OUT_V)));
+                        Vertex in = graph.getVertex(key(edge.get(GraphSONTokens._IN_V)));
+                        if (out == null || in == null) {
+                            edgesSkipped++;
+                        } else {
+                            reader.edgeFromJson(edge, out, in);
+                        }
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+
+            graph.commit();
+
+            if (edgesSkipped > 0) {
+                Log.LOG.debugf("Skipped %d edges going out of the imported tenant %s.", edgesSkipped, tenantId);
+            }
+        } catch (IOException e) {
+            tx.rollback();
+            throw new IllegalArgumentException("Failed to read the GraphSON of tenant " + tenantId + ".", e);
+        } catch (RuntimeException e) {
+            tx.rollback();
+            throw e;
+        }
+    }
+
+    private static void checkTenant(JsonNode vertex, String tenantId, GraphSONMode mode) {
+        JsonNode cp = vertex.get(__cp.name());
+        if (cp == null) {
+            //the backend-internal vertices, like the identity hashes, don't have a canonical path
+            return;
+        }
+
+        //in the extended mode, the properties are wrapped in objects with the type and the value
+        String path = mode == GraphSONMode.EXTENDED ? cp.get(GraphSONTokens.VALUE).asText() : cp.asText();
+        if (!tenantId.equals(CanonicalPath.fromString(path).ids().getTenantId())) {
+            throw new IllegalArgumentException("Vertex with canonical path '" + path + "' doesn't belong to the" +
+                    " tenant '" + tenantId + "'.");
+        }
+    }
+
+    /**
+     * The ids of the vertices can be numbers or strings in the dump depending on the backend that produced it. We
+     * convert them to strings, so that the vertices and the ends of the edges match no matter how the ids got parsed.
+     */
+    private static String key(JsonNode id) {
+        if (id == null) {
+            throw new IllegalArgumentException("Edge without the incoming or outgoing vertex found.");
+        }
+
+        //in the extended mode, the ids are wrapped in objects with the type and the value
+        return id.isObject() ? id.get(GraphSONTokens.VALUE).asText() : id.asText();
+    }
+
+    private static final class Factory implements ElementFactory<Vertex, Edge> {
+        private final BatchGraph<?> graph;
+
+        Factory(BatchGraph<?> graph) {
+            this.graph = graph;
+        }
+
+        @Override
+        public Edge createEdge(Object id, Vertex out, Vertex in, String label) {
+            return graph.addEdge(id, out, in, label);
+        }
+
+        @Override
+        public Vertex createVertex(Object id) {
+            return graph.addVertex(String.valueOf(id));
+        }
+    }
+}
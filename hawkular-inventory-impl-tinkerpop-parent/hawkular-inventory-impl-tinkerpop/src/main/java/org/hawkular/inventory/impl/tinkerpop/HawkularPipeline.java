@@ -20,12 +20,14 @@ import java.lang.reflect.Field;
 import java.util.ArrayDeque;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Deque;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.function.BiFunction;
+import java.util.function.Function;
 
 import org.hawkular.inventory.api.Relationships;
 import org.hawkular.inventory.api.paging.Order;
@@ -129,6 +131,8 @@ class HawkularPipeline<S, E> extends GremlinPipeline<S, E> implements Cloneable
 
     private final Map<String, Long> counters = new HashMap<>();
 
+    private String nextPageKey;
+
     public HawkularPipeline() {
     }
 
@@ -242,22 +246,10 @@ class HawkularPipeline<S, E> extends GremlinPipeline<S, E> implements Cloneable
                 }
             }
             if (specific) {
-                //the order pipe holds on to the whole result set to be able to order, so we'd better do just
-                //1 order step.
-                this.order(p -> {
-                    int ret = 0;
-                    for (Order ord : order) {
-                        if (ord.isSpecific()) {
-                            Comparable a = propertyValueExtractor.apply(p.getA(), ord.getField());
-                            Comparable b = propertyValueExtractor.apply(p.getB(), ord.getField());
-                            ret = ord.isAscending() ? safeCompare(a, b) : safeCompare(b, a);
-                            if (ret != 0) {
-                                break;
-                            }
-                        }
-                    }
-                    return ret;
-                });
+                //only the elements up to the end of the requested page need to be ordered, the rest is dropped anyway
+                int k = pager.isLimited()
+                        ? (int) Math.min((long) pager.getStart() + pager.getPageSize(), Integer.MAX_VALUE) : -1;
+                add(new TopKPipe<>(k, order, propertyValueExtractor));
             }
         }
 
@@ -265,21 +257,86 @@ class HawkularPipeline<S, E> extends GremlinPipeline<S, E> implements Cloneable
             if (pager.getStart() != 0) {
                 this.dropN(pager.getStart());
             }
-            this.takeN(pager.getPageSize());
+            if (pager.isTotalSizeLimited()) {
+                //drain only up to the limit of the total size (or just past the end of the page, so that we know if
+                //there are more results)
+                long drain = Math.max((long) pager.getTotalSizeLimit() - pager.getEnd(), 0) + 1;
+                add(new TakeNPipe<>(pager.getPageSize(), drain));
+            } else {
+                this.takeN(pager.getPageSize());
+            }
 //            this.drainedRange(pager.getStart(), pager.getEnd() - 1);
         }
 
         return this;
     }
 
-    private static <T extends Comparable<T>> int safeCompare(T a, T b) {
-        if (a == null) {
-            return b == null ? 0 : -1;
-        } else if (b == null) {
-            return 1;
-        } else {
-            return a.compareTo(b);
+    /**
+     * Applies the cursor-based paging. The elements are ordered by the provided key and only the elements with the key
+     * greater than {@code afterKey} are returned.
+     *
+     * <p>Both the ordering and the seek compare the keys as Java strings. If the elements already come ordered that
+     * way, e.g. from a database seeking in the keys using a binary collation, they are only filtered and the page is
+     * taken from the start of them. Otherwise all the elements are read and only the page of them with the smallest
+     * keys is kept in memory.
+     *
+     * <p>Once the page has been read, {@link #getNextPageKey()} returns the key of the last element on the page, if
+     * there are more elements after it.
+     *
+     * @param pager        the cursor-based pager
+     * @param afterKey     the key of the last element of the previous page or null to start from the beginning
+     * @param keyExtractor the function to extract the key from an element
+     * @param sorted       whether the elements already come ordered by the keys
+     * @return this pipeline
+     */
+    public HawkularPipeline<S, E> pageAfter(Pager pager, String afterKey, Function<E, String> keyExtractor,
+                                            boolean sorted) {
+        if (afterKey != null) {
+            filter(e -> {
+                String key = keyExtractor.apply(e);
+                return key != null && key.compareTo(afterKey) > 0;
+            });
         }
+
+        List<Order> order = Collections.singletonList(Order.by("key", Order.Direction.ASCENDING));
+
+        if (!pager.isLimited()) {
+            if (!sorted) {
+                add(new TopKPipe<E>(-1, order, (e, p) -> keyExtractor.apply(e)));
+            }
+            return this;
+        }
+
+        int pageSize = pager.getPageSize();
+
+        //read 1 element past the page to know whether there's a next page
+        if (!sorted) {
+            add(new TopKPipe<E>(pageSize + 1, order, (e, p) -> keyExtractor.apply(e)));
+        }
+
+        long[] seen = new long[1];
+        String[] lastKey = new String[1];
+        sideEffect(e -> {
+            if (++seen[0] == pageSize) {
+                lastKey[0] = keyExtractor.apply(e);
+            } else if (seen[0] > pageSize) {
+                nextPageKey = lastKey[0];
+            }
+            return null;
+        });
+
+        add(new TakeNPipe<>(pageSize, 1L));
+
+        return this;
+    }
+
+    /**
+     * @return the key of the last element of the page produced by the cursor-based paging or null if there are no more
+     * elements after the page
+     * @see #pageAfter(Pager, String, Function, boolean)
+     */
+    public String getNextPageKey() {
+        return nextPageKey;
     }
 
     /**
@@ -16,10 +16,16 @@
  */
 package org.hawkular.inventory.impl.tinkerpop;
 
+import java.util.Collection;
+
 import org.hawkular.inventory.impl.tinkerpop.spi.GraphProvider;
+import org.hawkular.inventory.impl.tinkerpop.spi.NativeQuery;
 import org.hawkular.inventory.paths.CanonicalPath;
 
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Element;
 import com.tinkerpop.blueprints.TransactionalGraph;
+import com.tinkerpop.blueprints.Vertex;
 
 /**
  * Data needed by various services. Mostly coming from configuration.
@@ -32,21 +38,46 @@ final class InventoryContext {
     private final TransactionalGraph graph;
     private final TinkerpopInventory inventory;
     private final GraphProvider graphProvider;
+    private final QueryPlanCache queryPlanCache;
+    private final GraphSONExporter graphSONExporter;
+    private final boolean compactStructuredData;
 
-    public InventoryContext(TinkerpopInventory inventory, TransactionalGraph graph, GraphProvider graphProvider) {
+    public InventoryContext(TinkerpopInventory inventory, TransactionalGraph graph, GraphProvider graphProvider,
+                            QueryPlanCache queryPlanCache, GraphSONExporter graphSONExporter,
+                            boolean compactStructuredData) {
         this.inventory = inventory;
         this.graph = graph;
         this.graphProvider = graphProvider;
+        this.queryPlanCache = queryPlanCache;
+        this.graphSONExporter = graphSONExporter;
+        this.compactStructuredData = compactStructuredData;
     }
 
     public InventoryContext cloneWith(TransactionalGraph graph) {
-        return new InventoryContext(inventory, graph, graphProvider);
+        return new InventoryContext(inventory, graph, graphProvider, queryPlanCache, graphSONExporter,
+                compactStructuredData);
     }
 
     public TinkerpopInventory getInventory() {
         return inventory;
     }
 
+    public QueryPlanCache getQueryPlanCache() {
+        return queryPlanCache;
+    }
+
+    public GraphSONExporter getGraphSONExporter() {
+        return graphSONExporter;
+    }
+
+    /**
+     * @return true if the lists and maps in the structured data should be stored in a single vertex
+     * @see TinkerpopInventory#STRUCTURED_DATA_STORAGE
+     */
+    public boolean isStructuredDataCompact() {
+        return compactStructuredData;
+    }
+
     public TransactionalGraph getGraph() {
         return graph;
     }
@@ -83,4 +114,24 @@ final class InventoryContext {
         return graphProvider.requiresRollbackAfterFailure(t);
     }
 
+    public Iterable<Element> getByIndexedKey(Class<? extends Element> elementType, String key, Collection<?> values) {
+        return graphProvider.getByIndexedKey(graph, elementType, key, values);
+    }
+
+    public Iterable<Element> query(NativeQuery query) {
+        return graphProvider.query(graph, query);
+    }
+
+    public Iterable<Element> getTransitiveClosure(Vertex start, Direction direction, String... labels) {
+        return graphProvider.getTransitiveClosure(graph, start, direction, labels);
+    }
+
+    public Iterable<Element> getVerticesLinkingOutsideOfClosure(Vertex root, String label, String... closureLabels) {
+        return graphProvider.getVerticesLinkingOutsideOfClosure(graph, root, label, closureLabels);
+    }
+
+    public boolean removeTransitiveClosure(Vertex root, String referenceLabel, String... labels) {
+        return graphProvider.removeTransitiveClosure(graph, root, referenceLabel, labels);
+    }
+
 }
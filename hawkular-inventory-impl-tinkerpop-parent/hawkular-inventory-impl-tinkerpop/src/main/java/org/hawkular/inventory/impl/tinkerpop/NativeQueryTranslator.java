@@ -0,0 +1,201 @@
+/*
+ * Copyright 2015-2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.impl.tinkerpop;
+
+import static org.hawkular.inventory.impl.tinkerpop.Constants.Property.__cp;
+import static org.hawkular.inventory.impl.tinkerpop.Constants.Property.__eid;
+import static org.hawkular.inventory.impl.tinkerpop.Constants.Property.__type;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+import org.hawkular.inventory.api.FilterFragment;
+import org.hawkular.inventory.api.PathFragment;
+import org.hawkular.inventory.api.Query;
+import org.hawkular.inventory.api.QueryFragment;
+import org.hawkular.inventory.api.filters.Filter;
+import org.hawkular.inventory.api.filters.Related;
+import org.hawkular.inventory.api.filters.With;
+import org.hawkular.inventory.base.spi.NoopFilter;
+import org.hawkular.inventory.impl.tinkerpop.spi.NativeQuery;
+import org.hawkular.inventory.paths.SegmentType;
+
+/**
+ * Translates the simple queries to {@link NativeQuery}s that the graph providers can execute without the Gremlin
+ * pipes.
+ *
+ * <p>Only the queries that start at all the vertices, progress only along the relationships of given name and filter
+ * the vertices by types, ids, canonical paths, names or property values are supported. The translation of the filters
+ * mirrors what the {@link FilterVisitor} does.
+ *
+ * <p>The translation is done in two phases. A query is first compiled into a {@link Template}, which only depends on
+ * the {@link QueryPlan#shapeOf(Query) shape} of the query. The template is then bound to the values of the filters of
+ * any query of the same shape.
+ *
+ * @author Lukas Krejci
+ * @since 0.19.0
+ */
+final class NativeQueryTranslator {
+
+    private NativeQueryTranslator() {
+        //no instances, thank you
+    }
+
+    /**
+     * @param query the query to compile
+     * @return the template of the native queries equivalent to the queries of the same shape as the provided one or
+     * null if such queries are not supported
+     */
+    static Template compile(Query query) {
+        List<QueryFragment> fragments = fragments(query);
+        if (fragments == null) {
+            return null;
+        }
+
+        List<Slot> slots = new ArrayList<>(fragments.size());
+        for (int i = 0; i < fragments.size(); ++i) {
+            if (!compile(i, fragments.get(i), slots)) {
+                return null;
+            }
+        }
+
+        return new Template(slots);
+    }
+
+    /**
+     * @return the fragments of the query and its subtrees or null if the query branches
+     */
+    private static List<QueryFragment> fragments(Query query) {
+        List<QueryFragment> ret = new ArrayList<>();
+
+        Query current = query;
+        while (true) {
+            Collections.addAll(ret, current.getFragments());
+
+            if (current.getSubTrees().isEmpty()) {
+                return ret;
+            } else if (current.getSubTrees().size() > 1) {
+                return null;
+            }
+
+            current = current.getSubTrees().get(0);
+        }
+    }
+
+    private static boolean compile(int index, QueryFragment fragment, List<Slot> slots) {
+        if (!(fragment instanceof PathFragment || fragment instanceof FilterFragment)) {
+            return false;
+        }
+
+        Filter filter = fragment.getFilter();
+
+        if (filter instanceof NoopFilter) {
+            return true;
+        } else if (filter instanceof With.Types) {
+            slots.add(new Slot(index, __type.name(), f -> Arrays.stream(((With.Types) f).getTypes())
+                    .map(t -> Constants.Type.of(t).name()).toArray()));
+        } else if (filter instanceof With.Ids) {
+            slots.add(new Slot(index, __eid.name(), f -> ((With.Ids) f).getIds()));
+        } else if (filter instanceof With.Names) {
+            slots.add(new Slot(index, Constants.Property.name.name(), f -> ((With.Names) f).getNames()));
+        } else if (filter instanceof With.CanonicalPaths) {
+            With.CanonicalPaths cps = (With.CanonicalPaths) filter;
+            if (Arrays.stream(cps.getPaths()).anyMatch(p -> SegmentType.rl == p.getSegment().getElementType())) {
+                //relationships are edges
+                return false;
+            }
+
+            slots.add(new Slot(index, __cp.name(), f -> Arrays.stream(((With.CanonicalPaths) f).getPaths())
+                    .map(Object::toString).toArray()));
+        } else if (filter instanceof With.PropertyValues) {
+            With.PropertyValues pvs = (With.PropertyValues) filter;
+            if (pvs.getValues().length == 0) {
+                return false;
+            }
+
+            slots.add(new Slot(index, Constants.Property.mapUserDefined(pvs.getName()),
+                    f -> ((With.PropertyValues) f).getValues()));
+        } else if (filter instanceof Related && fragment instanceof PathFragment) {
+            //the related filters in the filter fragments only check the existence of the relationships, which is not
+            //supported
+            Related related = (Related) filter;
+            if (related.getRelationshipName() == null || related.getRelationshipId() != null
+                    || related.getEntityPath() != null) {
+                return false;
+            }
+
+            slots.add(new Slot(new NativeQuery.Hop(related.getRelationshipName(),
+                    TinkerpopBackend.asDirection(related.getEntityRole()))));
+        } else {
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * The native query with the values of the filters left out. The property names, the hops and the positions of
+     * the filters in the query are resolved once, binding just picks the values from the filters of the query.
+     */
+    static final class Template {
+        private final List<Slot> slots;
+
+        private Template(List<Slot> slots) {
+            this.slots = slots;
+        }
+
+        /**
+         * @param query the query of the same shape as the one this template was compiled from
+         * @return the native query with the values of the filters of the provided query
+         */
+        NativeQuery bind(Query query) {
+            List<QueryFragment> fragments = fragments(query);
+
+            List<NativeQuery.Step> steps = new ArrayList<>(slots.size());
+            for (Slot s : slots) {
+                steps.add(s.hop != null ? s.hop : new NativeQuery.PropertyFilter(s.property,
+                        Arrays.asList(s.values.apply(fragments.get(s.fragmentIndex).getFilter()))));
+            }
+
+            return new NativeQuery(steps);
+        }
+    }
+
+    private static final class Slot {
+        final NativeQuery.Hop hop;
+        final int fragmentIndex;
+        final String property;
+        final Function<Filter, Object[]> values;
+
+        Slot(NativeQuery.Hop hop) {
+            this.hop = hop;
+            this.fragmentIndex = -1;
+            this.property = null;
+            this.values = null;
+        }
+
+        Slot(int fragmentIndex, String property, Function<Filter, Object[]> values) {
+            this.hop = null;
+            this.fragmentIndex = fragmentIndex;
+            this.property = property;
+            this.values = values;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2015-2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.impl.tinkerpop;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.hawkular.inventory.api.Query;
+import org.hawkular.inventory.api.QueryFragment;
+import org.hawkular.inventory.api.filters.Filter;
+import org.hawkular.inventory.api.filters.Related;
+import org.hawkular.inventory.api.filters.RelationFilter;
+import org.hawkular.inventory.api.filters.With;
+import org.hawkular.inventory.impl.tinkerpop.spi.NativeQuery;
+import org.hawkular.inventory.paths.CanonicalPath;
+import org.hawkular.inventory.paths.SegmentType;
+
+/**
+ * The part of the translation of a query that doesn't depend on the values in the filters of the query but only on
+ * its {@link #shapeOf(Query) shape}. The plan is compiled once per shape and then bound to the values of each query
+ * of that shape.
+ *
+ * <p>The plan consists of the template of the native query, if the query can be executed natively, and the type of
+ * the elements the Gremlin pipeline needs to start with otherwise. The Gremlin pipes are stateful and capture the
+ * filter values, so the pipeline itself is constructed for each query.
+ *
+ * @author Lukas Krejci
+ * @since 0.19.0
+ */
+final class QueryPlan {
+    private final NativeQueryTranslator.Template nativeTemplate;
+    private final boolean startingWithEdges;
+
+    private QueryPlan(NativeQueryTranslator.Template nativeTemplate, boolean startingWithEdges) {
+        this.nativeTemplate = nativeTemplate;
+        this.startingWithEdges = startingWithEdges;
+    }
+
+    /**
+     * Compiles the plan of the provided query. The plan can then be used for any query of the same shape.
+     *
+     * @param query the query to compile
+     * @return the plan of the query
+     */
+    static QueryPlan compile(Query query) {
+        Filter first = query.getFragments()[0].getFilter();
+
+        boolean edges;
+        if (first instanceof RelationFilter) {
+            edges = true;
+        } else if (first instanceof With.CanonicalPaths) {
+            //XXX this does NOT handle the situation where we mix relationships and entities in one filter
+            edges = SegmentType.rl == ((With.CanonicalPaths) first).getPaths()[0].getSegment().getElementType();
+        } else {
+            edges = false;
+        }
+
+        return new QueryPlan(NativeQueryTranslator.compile(query), edges);
+    }
+
+    /**
+     * The shape of the query is the structure of the types of its fragments and filters and of the parts of the
+     * filters that the translation depends on, disregarding the values the filters look for. Two queries with equal
+     * shapes have the same plan.
+     *
+     * @param query the query
+     * @return an object representing the shape of the query, usable as a key in a hash map
+     */
+    static Object shapeOf(Query query) {
+        QueryFragment[] fragments = query.getFragments();
+
+        List<Object> ret = new ArrayList<>(3 * fragments.length + query.getSubTrees().size());
+        for (QueryFragment f : fragments) {
+            ret.add(f.getClass());
+            ret.add(f.getFilter().getClass());
+            ret.add(shapeOf(f.getFilter()));
+        }
+
+        for (Query q : query.getSubTrees()) {
+            ret.add(shapeOf(q));
+        }
+
+        return ret;
+    }
+
+    private static Object shapeOf(Filter filter) {
+        if (filter instanceof With.CanonicalPaths) {
+            //the relationships are looked up among the edges, the rest among the vertices
+            CanonicalPath[] paths = ((With.CanonicalPaths) filter).getPaths();
+            return Arrays.asList(paths.length == 0 ? null : paths[0].getSegment().getElementType(),
+                    Arrays.stream(paths).anyMatch(p -> SegmentType.rl == p.getSegment().getElementType()));
+        } else if (filter instanceof With.PropertyValues) {
+            With.PropertyValues pvs = (With.PropertyValues) filter;
+            return Arrays.asList(pvs.getName(), pvs.getValues().length == 0);
+        } else if (filter instanceof Related) {
+            Related related = (Related) filter;
+            return Arrays.asList(related.getRelationshipName(), related.getEntityRole(),
+                    related.getRelationshipId() != null, related.getEntityPath() != null);
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * @param query the query of the same shape as the one this plan was compiled from
+     * @return the native query with the values from the provided query or null if the query cannot be executed
+     * natively
+     */
+    NativeQuery bindNative(Query query) {
+        return nativeTemplate == null ? null : nativeTemplate.bind(query);
+    }
+
+    /**
+     * @return true if the Gremlin pipeline of the query needs to start with all the edges instead of all the vertices
+     */
+    boolean isStartingWithEdges() {
+        return startingWithEdges;
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2015-2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.impl.tinkerpop;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.hawkular.inventory.api.Query;
+
+/**
+ * Caches the plans of the queries by their shape. The clients tend to issue the same few query shapes over and over
+ * again, differing only in the ids and paths they look for, so the number of the cached plans stays small.
+ *
+ * <p>The cache is shared by all the transactions and is thread-safe. It holds at most {@code maxSize} plans. Once full,
+ * the plans of the new shapes are compiled for each query and not cached.
+ *
+ * @author Lukas Krejci
+ * @since 0.19.0
+ */
+final class QueryPlanCache {
+    private final ConcurrentHashMap<Object, QueryPlan> plans = new ConcurrentHashMap<>();
+    private final int maxSize;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @param maxSize the maximum number of the cached plans, 0 disables the caching
+     */
+    QueryPlanCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    QueryPlan get(Query query) {
+        if (maxSize == 0) {
+            misses.incrementAndGet();
+            return QueryPlan.compile(query);
+        }
+
+        Object shape = QueryPlan.shapeOf(query);
+
+        QueryPlan plan = plans.get(shape);
+        if (plan != null) {
+            hits.incrementAndGet();
+            return plan;
+        }
+
+        misses.incrementAndGet();
+        plan = QueryPlan.compile(query);
+
+        Log.LOG.debugf("Query plan cache miss (hit rate: %.2f, cached plans: %d) for query %s", getHitRate(),
+                plans.size(), query);
+
+        //the size check is racy but it doesn't matter if we overshoot the max size by a couple of plans
+        if (plans.size() < maxSize) {
+            QueryPlan existing = plans.putIfAbsent(shape, plan);
+            if (existing != null) {
+                plan = existing;
+            }
+        }
+
+        return plan;
+    }
+
+    long getHits() {
+        return hits.get();
+    }
+
+    long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return the ratio of the hits to all the lookups of the plans or 0 if no plans were looked up yet
+     */
+    double getHitRate() {
+        long h = hits.get();
+        long total = h + misses.get();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    int size() {
+        return plans.size();
+    }
+}
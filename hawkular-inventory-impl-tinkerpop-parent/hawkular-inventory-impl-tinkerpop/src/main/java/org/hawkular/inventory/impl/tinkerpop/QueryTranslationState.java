@@ -26,6 +26,7 @@ final class QueryTranslationState implements Cloneable {
     private boolean inEdges;
     private boolean explicitChange;
     private Direction comingFrom;
+    private InventoryContext context;
 
     public boolean isInEdges() {
         return inEdges;
@@ -53,6 +54,17 @@ final class QueryTranslationState implements Cloneable {
         this.explicitChange = explicitChange;
     }
 
+    /**
+     * @return the context of the inventory the query is being translated for or null if not known
+     */
+    public InventoryContext getContext() {
+        return context;
+    }
+
+    public void setContext(InventoryContext context) {
+        this.context = context;
+    }
+
     @Override
     public QueryTranslationState clone() {
         try {
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2015-2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.impl.tinkerpop;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.hawkular.inventory.api.model.StructuredData;
+
+/**
+ * Computes the content hashes of the structured data values. The hashes of the lists and maps are stored with their
+ * vertices so that the update of the data can skip the parts that didn't change without loading them.
+ *
+ * <p>The hash of a list or a map is computed from the hashes of its members, which are remembered by the instance, so
+ * the hashes of all the values in a tree are computed in a single pass over it.
+ *
+ * @author Lukas Krejci
+ * @since 0.19.0
+ */
+final class StructuredDataHashes {
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Map<StructuredData, String> hashes = new IdentityHashMap<>();
+    private final MessageDigest digest;
+
+    StructuredDataHashes() {
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Could not instantiate SHA-1 digest algorithm.", e);
+        }
+    }
+
+    String of(StructuredData data) {
+        String ret = hashes.get(data);
+        if (ret != null) {
+            return ret;
+        }
+
+        StringBuilder content = new StringBuilder(data.getType().name()).append(':');
+        switch (data.getType()) {
+            case list:
+                data.list().forEach(d -> content.append(of(d)));
+                break;
+            case map:
+                //the hashes have a fixed length, so only the keys need to be delimited to keep the content unambiguous
+                data.map().forEach((k, v) -> content.append(k.length()).append(':').append(k).append(of(v)));
+                break;
+            default:
+                content.append(data.getValue());
+        }
+
+        byte[] bytes = digest.digest(content.toString().getBytes(StandardCharsets.UTF_8));
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; ++i) {
+            chars[i * 2] = HEX[(bytes[i] >> 4) & 0xf];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0xf];
+        }
+
+        ret = new String(chars);
+        hashes.put(data, ret);
+        return ret;
+    }
+}
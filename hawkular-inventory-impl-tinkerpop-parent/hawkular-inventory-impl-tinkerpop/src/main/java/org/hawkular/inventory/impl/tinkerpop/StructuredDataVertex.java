@@ -0,0 +1,308 @@
+/*
+ * Copyright 2015-2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.impl.tinkerpop;
+
+import static org.hawkular.inventory.api.Relationships.WellKnown.contains;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.hawkular.inventory.api.model.StructuredData;
+
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.VertexQuery;
+import com.tinkerpop.blueprints.util.DefaultVertexQuery;
+import com.tinkerpop.blueprints.util.ElementHelper;
+import com.tinkerpop.blueprints.util.ExceptionFactory;
+
+/**
+ * A read-only in-memory vertex representing a value inside the structured data stored in the compact form.
+ *
+ * <p>The vertex has the same properties as the structured data vertices stored in the tree form and the values in the
+ * lists and maps are reachable over the in-memory {@code contains} edges, so that the pipelines navigating through the
+ * structured data don't need to care how the data is stored.
+ *
+ * @author Lukas Krejci
+ * @see CompactStructuredData
+ * @since 0.19.0
+ */
+final class StructuredDataVertex implements Vertex {
+    private final List<Object> id;
+    private final StructuredData data;
+    private final StructuredDataVertex parent;
+    private final String key;
+    private final Integer index;
+    private List<StructuredDataVertex> children;
+
+    /**
+     * Creates the vertex representing the root of the compactly stored data.
+     *
+     * @param storageId the id of the vertex the data is stored in
+     * @param data      the data
+     */
+    StructuredDataVertex(Object storageId, StructuredData data) {
+        this(Collections.singletonList(storageId), data, null, null, null);
+    }
+
+    private StructuredDataVertex(List<Object> id, StructuredData data, StructuredDataVertex parent, String key,
+                                 Integer index) {
+        this.id = id;
+        this.data = data;
+        this.parent = parent;
+        this.key = key;
+        this.index = index;
+    }
+
+    StructuredData getData() {
+        return data;
+    }
+
+    @Override
+    public Iterable<Edge> getEdges(Direction direction, String... labels) {
+        if (!isContains(labels)) {
+            return Collections.emptyList();
+        }
+
+        List<Edge> ret = new ArrayList<>();
+        if (direction != Direction.IN) {
+            getChildren().forEach(c -> ret.add(new ContainsEdge(this, c)));
+        }
+
+        if (direction != Direction.OUT && parent != null) {
+            ret.add(new ContainsEdge(parent, this));
+        }
+
+        return ret;
+    }
+
+    @Override
+    public Iterable<Vertex> getVertices(Direction direction, String... labels) {
+        if (!isContains(labels)) {
+            return Collections.emptyList();
+        }
+
+        List<Vertex> ret = new ArrayList<>();
+        if (direction != Direction.IN) {
+            ret.addAll(getChildren());
+        }
+
+        if (direction != Direction.OUT && parent != null) {
+            ret.add(parent);
+        }
+
+        return ret;
+    }
+
+    @Override
+    public VertexQuery query() {
+        return new DefaultVertexQuery(this);
+    }
+
+    @Override
+    public Edge addEdge(String label, Vertex inVertex) {
+        throw readOnly();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T getProperty(String key) {
+        Constants.Property prop;
+        try {
+            prop = Constants.Property.valueOf(key);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+
+        switch (prop) {
+            case __type:
+                return (T) Constants.Type.structuredData.name();
+            case __structuredDataType:
+                return (T) data.getType().name();
+            case __structuredDataValue:
+                return CompactStructuredData.isCompactable(data) ? null : (T) data.getValue();
+            case __structuredDataKey:
+                return (T) this.key;
+            case __structuredDataIndex:
+                return (T) index;
+            default:
+                return null;
+        }
+    }
+
+    @Override
+    public Set<String> getPropertyKeys() {
+        return Arrays.asList(Constants.Property.__type, Constants.Property.__structuredDataType,
+                Constants.Property.__structuredDataValue, Constants.Property.__structuredDataKey,
+                Constants.Property.__structuredDataIndex).stream().map(Enum::name)
+                .filter(k -> getProperty(k) != null).collect(Collectors.toCollection(HashSet::new));
+    }
+
+    @Override
+    public void setProperty(String key, Object value) {
+        throw readOnly();
+    }
+
+    @Override
+    public <T> T removeProperty(String key) {
+        throw readOnly();
+    }
+
+    @Override
+    public void remove() {
+        throw readOnly();
+    }
+
+    @Override
+    public Object getId() {
+        return id;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return ElementHelper.areEqual(this, o);
+    }
+
+    @Override
+    public int hashCode() {
+        return id.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "StructuredDataVertex[" + id + "]";
+    }
+
+    private List<StructuredDataVertex> getChildren() {
+        if (children == null) {
+            switch (data.getType()) {
+                case list:
+                    List<StructuredData> list = data.list();
+                    children = new ArrayList<>(list.size());
+                    for (int i = 0; i < list.size(); ++i) {
+                        children.add(new StructuredDataVertex(childId(i), list.get(i), this, null, i));
+                    }
+                    break;
+                case map:
+                    Map<String, StructuredData> map = data.map();
+                    children = new ArrayList<>(map.size());
+                    //the maps remember the order of the keys, which is the order the tree form stores them in, too
+                    int idx = 0;
+                    for (Map.Entry<String, StructuredData> e : map.entrySet()) {
+                        children.add(new StructuredDataVertex(childId(e.getKey()), e.getValue(), this, e.getKey(),
+                                idx++));
+                    }
+                    break;
+                default:
+                    children = Collections.emptyList();
+            }
+        }
+
+        return children;
+    }
+
+    private List<Object> childId(Object segment) {
+        List<Object> ret = new ArrayList<>(id.size() + 1);
+        ret.addAll(id);
+        ret.add(segment);
+        return ret;
+    }
+
+    private static boolean isContains(String... labels) {
+        return labels.length == 0 || Arrays.asList(labels).contains(contains.name());
+    }
+
+    private static UnsupportedOperationException readOnly() {
+        return new UnsupportedOperationException("The compactly stored structured data can only be modified as" +
+                " a whole.");
+    }
+
+    private static final class ContainsEdge implements Edge {
+        private final StructuredDataVertex out;
+        private final StructuredDataVertex in;
+
+        ContainsEdge(StructuredDataVertex out, StructuredDataVertex in) {
+            this.out = out;
+            this.in = in;
+        }
+
+        @Override
+        public Vertex getVertex(Direction direction) {
+            switch (direction) {
+                case OUT:
+                    return out;
+                case IN:
+                    return in;
+                default:
+                    throw ExceptionFactory.bothIsNotSupported();
+            }
+        }
+
+        @Override
+        public String getLabel() {
+            return contains.name();
+        }
+
+        @Override
+        public <T> T getProperty(String key) {
+            return null;
+        }
+
+        @Override
+        public Set<String> getPropertyKeys() {
+            return Collections.emptySet();
+        }
+
+        @Override
+        public void setProperty(String key, Object value) {
+            throw readOnly();
+        }
+
+        @Override
+        public <T> T removeProperty(String key) {
+            throw readOnly();
+        }
+
+        @Override
+        public void remove() {
+            throw readOnly();
+        }
+
+        @Override
+        public Object getId() {
+            //each value has exactly one parent, so the id of the child identifies the edge, too
+            return Arrays.asList(contains.name(), in.getId());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return ElementHelper.areEqual(this, o);
+        }
+
+        @Override
+        public int hashCode() {
+            return getId().hashCode();
+        }
+    }
+}
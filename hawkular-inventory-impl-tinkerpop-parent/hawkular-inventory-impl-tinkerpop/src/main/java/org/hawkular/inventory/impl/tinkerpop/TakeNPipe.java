@@ -25,30 +25,47 @@ import com.tinkerpop.pipes.util.PipeHelper;
  * <p>
  * This simple pipe takes the following n elements and skips the rest
  *
+ * <p>The rest can either be left alone, drained fully or drained only up to a certain number of elements. The draining
+ * is useful for counting the total number of elements using a counter placed before this pipe.
+ *
  * @author Jirka Kremser
  * @since 0.4.0
  */
 class TakeNPipe<S> extends AbstractPipe<S, S> implements FilterPipe<S> {
+    private final int n;
     private int counter;
-    private final boolean drainTheRest;
+    private final long drainLimit;
 
     public TakeNPipe(final int n, boolean drainTheRest) {
+        this(n, drainTheRest ? -1 : 0);
+    }
+
+    /**
+     * @param n          the number of elements to take
+     * @param drainLimit the maximum number of elements to drain after the n elements have been taken, -1 to drain all
+     */
+    public TakeNPipe(final int n, long drainLimit) {
         if (n < 0) {
             throw new IllegalArgumentException("Not a legal n: [" + n + "]");
         }
+        this.n = n;
         this.counter = n;
-        this.drainTheRest = drainTheRest;
+        this.drainLimit = drainLimit;
     }
 
     protected S processNextStart() {
-        if (this.counter-- == 0) {
-            if (!drainTheRest) {
-                throw FastNoSuchElementException.instance();
-            }
-            while (true) {
-                this.starts.next();
+        if (this.counter <= 0) {
+            if (this.counter == 0) {
+                //drain only once, the subsequent calls must not let any more elements through
+                this.counter = -1;
+                long drained = 0;
+                while (drainLimit < 0 || drained++ < drainLimit) {
+                    this.starts.next();
+                }
             }
+            throw FastNoSuchElementException.instance();
         }
+        this.counter--;
         return this.starts.next();
     }
 
@@ -57,7 +74,7 @@ class TakeNPipe<S> extends AbstractPipe<S, S> implements FilterPipe<S> {
     }
 
     public void reset() {
-        this.counter = -1;
+        this.counter = n;
         super.reset();
     }
 
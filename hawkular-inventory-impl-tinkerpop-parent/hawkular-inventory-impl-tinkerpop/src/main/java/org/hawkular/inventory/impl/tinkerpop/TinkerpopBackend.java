@@ -21,6 +21,7 @@ import static java.util.stream.Collectors.toSet;
 import static org.hawkular.inventory.api.Relationships.Direction.incoming;
 import static org.hawkular.inventory.api.Relationships.Direction.outgoing;
 import static org.hawkular.inventory.api.Relationships.WellKnown.contains;
+import static org.hawkular.inventory.api.Relationships.WellKnown.defines;
 import static org.hawkular.inventory.api.Relationships.WellKnown.hasData;
 import static org.hawkular.inventory.impl.tinkerpop.Constants.Property.__cp;
 import static org.hawkular.inventory.impl.tinkerpop.Constants.Property.__eid;
@@ -33,18 +34,18 @@ import static org.hawkular.inventory.impl.tinkerpop.Constants.Property.__targetT
 import static org.hawkular.inventory.impl.tinkerpop.Constants.Property.__type;
 import static org.hawkular.inventory.impl.tinkerpop.Constants.Type.relationship;
 
-import java.io.IOException;
 import java.io.InputStream;
-import java.io.PipedInputStream;
-import java.io.PipedOutputStream;
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Set;
 import java.util.function.Function;
@@ -56,7 +57,6 @@ import org.hawkular.inventory.api.Query;
 import org.hawkular.inventory.api.Relationships;
 import org.hawkular.inventory.api.filters.Filter;
 import org.hawkular.inventory.api.filters.Related;
-import org.hawkular.inventory.api.filters.RelationFilter;
 import org.hawkular.inventory.api.filters.With;
 import org.hawkular.inventory.api.model.AbstractElement;
 import org.hawkular.inventory.api.model.Blueprint;
@@ -79,6 +79,7 @@ import org.hawkular.inventory.api.model.Resource;
 import org.hawkular.inventory.api.model.ResourceType;
 import org.hawkular.inventory.api.model.StructuredData;
 import org.hawkular.inventory.api.model.Tenant;
+import org.hawkular.inventory.api.paging.Cursor;
 import org.hawkular.inventory.api.paging.Page;
 import org.hawkular.inventory.api.paging.Pager;
 import org.hawkular.inventory.api.paging.SizeAwarePage;
@@ -86,6 +87,7 @@ import org.hawkular.inventory.base.spi.CommitFailureException;
 import org.hawkular.inventory.base.spi.ElementNotFoundException;
 import org.hawkular.inventory.base.spi.InventoryBackend;
 import org.hawkular.inventory.base.spi.ShallowStructuredData;
+import org.hawkular.inventory.impl.tinkerpop.spi.NativeQuery;
 import org.hawkular.inventory.paths.CanonicalPath;
 import org.hawkular.inventory.paths.DataRole;
 import org.hawkular.inventory.paths.RelativePath;
@@ -98,8 +100,6 @@ import com.tinkerpop.blueprints.Graph;
 import com.tinkerpop.blueprints.GraphQuery;
 import com.tinkerpop.blueprints.Vertex;
 import com.tinkerpop.blueprints.util.ElementHelper;
-import com.tinkerpop.blueprints.util.io.graphson.GraphSONMode;
-import com.tinkerpop.blueprints.util.io.graphson.GraphSONWriter;
 import com.tinkerpop.pipes.PipeFunction;
 
 /**
@@ -113,6 +113,20 @@ final class TinkerpopBackend implements InventoryBackend<Element> {
         this.context = context;
     }
 
+    /**
+     * @return the number of the queries that were translated using a cached query plan
+     */
+    public long getQueryPlanCacheHits() {
+        return context.getQueryPlanCache().getHits();
+    }
+
+    /**
+     * @return the number of the queries for which the query plan needed to be compiled
+     */
+    public long getQueryPlanCacheMisses() {
+        return context.getQueryPlanCache().getMisses();
+    }
+
     @Override public boolean isUniqueIndexSupported() {
         return context.isUniqueIndexSupported();
     }
@@ -145,6 +159,21 @@ final class TinkerpopBackend implements InventoryBackend<Element> {
 
     @Override
     public Page<Element> traverse(Element startingPoint, Query query, Pager pager) {
+        if (pager.isCursorBased()) {
+            String afterKey = Cursor.decode(pager.getCursor());
+
+            HawkularPipeline<?, Element> seeking = startingPoint == null ? seek(query, afterKey, pager) : null;
+            HawkularPipeline<?, Element> q = seeking != null ? seeking
+                    : translate(startingPoint, query).cast(Element.class);
+
+            q.pageAfter(pager, afterKey, TinkerpopBackend::cursorKey, seeking != null);
+
+            Log.LOG.debugf("Query execution (starting at %s):\nquery:\n%s\n\npipeline:\n%s", startingPoint, query, q);
+
+            return new SizeAwarePage<>(q.iterator(), pager, () -> SizeAwarePage.HasTotalSize.NOT_DEPLETED,
+                    () -> nextCursor(q));
+        }
+
         HawkularPipeline<?, ? extends Element> q = translate(startingPoint, query);
 
         q.counter("total").page(pager);
@@ -177,44 +206,144 @@ final class TinkerpopBackend implements InventoryBackend<Element> {
     private HawkularPipeline<?, ? extends Element> translate(Element startingPoint, Query query) {
         HawkularPipeline<?, ? extends Element> q;
 
-        Object start = startingPoint == null ? context.getGraph() : startingPoint;
-
-        q = new HawkularPipeline<>(start);
+        if (startingPoint != null) {
+            q = new HawkularPipeline<>(startingPoint);
+            FilterApplicator.applyAll(query, context, q);
+            return q;
+        }
 
-        if (startingPoint == null) {
-            Filter first = query.getFragments()[0].getFilter();
+        QueryPlan plan = context.getQueryPlanCache().get(query);
 
-            if (first instanceof RelationFilter) {
-                q = q.E();
-            } else if (first instanceof With.CanonicalPaths) {
-                //XXX this does NOT handle the situation where we mix relationships and entities in one filter
-                SegmentType elementType = ((With.CanonicalPaths) first).getPaths()[0].getSegment().getElementType();
-                if (SegmentType.rl == elementType) {
-                    q = q.E();
-                } else {
-                    q = q.V();
-                }
-            } else {
-                q = q.V();
+        //the simple queries can be executed by the graph provider in one go instead of element by element
+        NativeQuery nativeQuery = plan.bindNative(query);
+        if (nativeQuery != null) {
+            Iterable<Element> results = context.query(nativeQuery);
+            if (results != null) {
+                return new HawkularPipeline<>(results);
             }
         }
 
-        FilterApplicator.applyAll(query, q);
+        //the queries looking for several elements by their paths or ids are answered by the index lookups instead
+        //of scanning the whole graph. The filter is still applied to the results below, which is cheap.
+        Iterable<Element> indexed = lookupByIndex(query.getFragments()[0].getFilter());
+        if (indexed != null) {
+            q = new HawkularPipeline<>(indexed);
+            FilterApplicator.applyAll(query, context, q);
+            return q;
+        }
+
+        q = new HawkularPipeline<>(context.getGraph());
+        q = plan.isStartingWithEdges() ? q.E() : q.V();
+
+        FilterApplicator.applyAll(query, context, q);
 
         return q;
     }
 
+    /**
+     * Executes the query natively, ordered by the canonical paths and seeking right after the provided one, if the
+     * query and the graph provider support that. The ordering and the seek then happen in the database, which reads
+     * only the results of the page instead of all the results of the query.
+     *
+     * @param query    the query to execute
+     * @param afterKey the canonical path to seek after or null to start at the beginning
+     * @param pager    the cursor-based pager
+     * @return the pipeline over the ordered results or null if the query cannot be executed natively
+     */
+    private HawkularPipeline<?, Element> seek(Query query, String afterKey, Pager pager) {
+        NativeQuery nativeQuery = context.getQueryPlanCache().get(query).bindNative(query);
+        if (nativeQuery == null) {
+            return null;
+        }
+
+        //one past the end of the page, so that we know if there is a next page
+        int limit = pager.isLimited() ? pager.getPageSize() + 1 : -1;
+        nativeQuery = nativeQuery.withSeek(new NativeQuery.Seek(__cp.name(), afterKey, limit));
+
+        Iterable<Element> results = context.query(nativeQuery);
+        if (results == null) {
+            return null;
+        }
+
+        return new HawkularPipeline<>(new SeekingIterator(nativeQuery, results));
+    }
+
+    private static String cursorKey(Element e) {
+        return e.getProperty(__cp.name());
+    }
+
+    private static String nextCursor(HawkularPipeline<?, ?> q) {
+        String key = q.getNextPageKey();
+        return key == null ? null : Cursor.encode(key);
+    }
+
+    /**
+     * If the filter looks for more than one element by canonical paths or ids, this looks the elements up using the
+     * indices.
+     *
+     * @param first the first filter of a query
+     * @return the elements found using the index or null if the filter cannot be resolved using an index
+     */
+    private Iterable<Element> lookupByIndex(Filter first) {
+        if (first instanceof With.CanonicalPaths) {
+            CanonicalPath[] paths = ((With.CanonicalPaths) first).getPaths();
+            if (paths.length < 2) {
+                return null;
+            }
+
+            boolean relationships = SegmentType.rl == paths[0].getSegment().getElementType();
+            if (Arrays.stream(paths).anyMatch(p -> (SegmentType.rl == p.getSegment().getElementType())
+                    != relationships)) {
+                return null;
+            }
+
+            //relationships are indexed by their ids, which are unique
+            return relationships
+                    ? context.getByIndexedKey(Edge.class, __eid.name(),
+                        Arrays.stream(paths).map(p -> p.getSegment().getElementId()).collect(toSet()))
+                    : context.getByIndexedKey(Vertex.class, __cp.name(),
+                        Arrays.stream(paths).map(CanonicalPath::toString).collect(toSet()));
+        } else if (first instanceof With.Ids) {
+            String[] ids = ((With.Ids) first).getIds();
+            return ids.length < 2 ? null : context.getByIndexedKey(Vertex.class, __eid.name(), Arrays.asList(ids));
+        }
+
+        return null;
+    }
+
     @Override
     public <T> Page<T> query(Query query, Pager pager,
             Function<Element, T> conversion, Function<T, Boolean> filter) {
 
-        HawkularPipeline<?, ? extends Element> q = translate(null, query);
+        String afterKey = pager.isCursorBased() ? Cursor.decode(pager.getCursor()) : null;
+
+        HawkularPipeline<?, Element> seeking = pager.isCursorBased() ? seek(query, afterKey, pager) : null;
+        boolean sorted = seeking != null;
+
+        HawkularPipeline<?, ? extends Element> q = sorted ? seeking : translate(null, query);
 
         //XXX this probably would be more efficient as a proper pipe
         q.filter(e -> !isBackendInternal(e));
 
         HawkularPipeline<?, T> q2;
-        if (filter == null) {
+        if (pager.isCursorBased()) {
+            if (filter == null) {
+                q2 = q.cast(Element.class).pageAfter(pager, afterKey, TinkerpopBackend::cursorKey, sorted)
+                        .transform(conversion::apply);
+            } else {
+                //the filtering needs the converted elements, but we still order by the canonical paths of the
+                //original elements, so we need to carry them along
+                q2 = q.cast(Element.class).transform(e -> new Keyed<>(cursorKey(e), conversion.apply(e)))
+                        .filter(k -> filter.apply(k.value))
+                        .pageAfter(pager, afterKey, k -> k.key, sorted)
+                        .transform(k -> k.value);
+            }
+
+            Log.LOG.debugf("Query execution:\nquery:\n%s\n\npipeline:\n%s", query, q2);
+
+            return new SizeAwarePage<>(q2.iterator(), pager, () -> SizeAwarePage.HasTotalSize.NOT_DEPLETED,
+                    () -> nextCursor(q));
+        } else if (filter == null) {
             q2 = q.counter("total").page(pager).transform(conversion::apply);
         } else {
             //the ResultFilter interface requires an entity to check its applicability and can rule out some of the
@@ -276,24 +405,41 @@ final class TinkerpopBackend implements InventoryBackend<Element> {
         if (!(startingPoint instanceof Vertex)) {
             return Collections.<Element>emptyList();
         } else {
-            HawkularPipeline<?, Element> ret = new HawkularPipeline<Element, Element>(startingPoint).as("start");
+            //eager evaluation of the closure is important - the callers might modify the conditions for the
+            //evaluation during the iteration which would skew the results.
+            List<Element> ret = new ArrayList<>();
+            transitiveClosure(context, (Vertex) startingPoint, toNative(direction), relationshipNames)
+                    .forEach(ret::add);
+            return ret;
+        }
+    }
 
-            switch (direction) {
-                case incoming:
-                    ret.in(relationshipNames);
-                    break;
-                case outgoing:
-                    ret.out(relationshipNames);
-                    break;
-                case both:
-                    ret.both(relationshipNames);
-                    break;
-            }
+    /**
+     * Computes the transitive closure natively in the graph if the graph provider supports it or using a Gremlin loop
+     * otherwise.
+     */
+    static Iterable<Element> transitiveClosure(InventoryContext context, Vertex startingPoint, Direction direction,
+                                               String... relationshipNames) {
+        Iterable<Element> ret = context.getTransitiveClosure(startingPoint, direction, relationshipNames);
+        if (ret != null) {
+            return ret;
+        }
+
+        HawkularPipeline<?, Element> q = new HawkularPipeline<Element, Element>(startingPoint).as("start");
 
-            //toList() is important as it ensures eager evaluation of the closure - the callers might modify the
-            //conditions for the evaluation during the iteration which would skew the results.
-            return ret.loop("start", (x) -> true, (x) -> true).toList();
+        switch (direction) {
+            case IN:
+                q.in(relationshipNames);
+                break;
+            case OUT:
+                q.out(relationshipNames);
+                break;
+            case BOTH:
+                q.both(relationshipNames);
+                break;
         }
+
+        return q.loop("start", (x) -> true, (x) -> true);
     }
 
     @Override
@@ -692,7 +838,7 @@ final class TinkerpopBackend implements InventoryBackend<Element> {
 
         HawkularPipeline<Element, Element> pipeline = new HawkularPipeline<>(dataEntityRepresentation);
 
-        FilterApplicator.applyAll(q, pipeline);
+        FilterApplicator.applyAll(q, context, pipeline);
 
         return drainAfter(pipeline, () -> {
             if (pipeline.hasNext()) {
@@ -838,8 +984,20 @@ final class TinkerpopBackend implements InventoryBackend<Element> {
 
     @Override
     public Vertex persist(StructuredData structuredData) {
+        return persist(structuredData, new StructuredDataHashes());
+    }
+
+    private Vertex persist(StructuredData structuredData, StructuredDataHashes hashes) {
         Vertex thisVertex = context.getGraph().addVertex(null);
 
+        if (context.isStructuredDataCompact() && CompactStructuredData.isCompactable(structuredData)) {
+            thisVertex.setProperty(__type.name(), Constants.Type.structuredData.name());
+            thisVertex.setProperty(Constants.Property.__structuredDataType.name(), structuredData.getType().name());
+            thisVertex.setProperty(Constants.Property.__structuredDataBlob.name(),
+                    CompactStructuredData.encode(structuredData));
+            return thisVertex;
+        }
+
         Pair<Vertex, Vertex> parentAndCurrent = new Pair<>(null, thisVertex);
 
         structuredData.accept(new StructuredData.Visitor.Simple<Void, StructuredData>() {
@@ -863,6 +1021,8 @@ final class TinkerpopBackend implements InventoryBackend<Element> {
                         Constants.Type.structuredData.name());
                 parentAndCurrent.second.setProperty(Constants.Property.__structuredDataType.name(),
                         StructuredData.Type.list.name());
+                parentAndCurrent.second.setProperty(Constants.Property.__structuredDataHash.name(),
+                        hashes.of(data));
 
                 Vertex currentParent = parentAndCurrent.first;
                 Vertex currentCurrent = parentAndCurrent.second;
@@ -889,6 +1049,8 @@ final class TinkerpopBackend implements InventoryBackend<Element> {
                         Constants.Type.structuredData.name());
                 parentAndCurrent.second.setProperty(Constants.Property.__structuredDataType.name(),
                         StructuredData.Type.map.name());
+                parentAndCurrent.second.setProperty(Constants.Property.__structuredDataHash.name(),
+                        hashes.of(data));
 
                 Vertex currentParent = parentAndCurrent.first;
                 Vertex currentCurrent = parentAndCurrent.second;
@@ -992,22 +1154,31 @@ final class TinkerpopBackend implements InventoryBackend<Element> {
                 Vertex dataVertex = v.getVertices(Direction.OUT, Relationships.WellKnown.hasData.name()).iterator()
                         .next();
 
-                Iterator<Element> children = getTransitiveClosureOver(dataVertex,
-                        Relationships.Direction.outgoing, Relationships.WellKnown.contains.name());
-
-                while (children.hasNext()) {
-                    Vertex c = (Vertex) children.next();
-                    context.getGraph().removeVertex(c);
-                }
-                context.getGraph().removeVertex(dataVertex);
-
                 StructuredData dataValue = data.getValue();
                 if (dataValue == null) {
                     dataValue = StructuredData.get().undefined();
                 }
-                Element newData = persist(dataValue);
 
-                relate(v, newData, Relationships.WellKnown.hasData.name(), null);
+                boolean storedCompactly = dataVertex.getProperty(Constants.Property.__structuredDataBlob.name())
+                        != null;
+                boolean storeCompactly = context.isStructuredDataCompact()
+                        && CompactStructuredData.isCompactable(dataValue);
+
+                if (storedCompactly && storeCompactly) {
+                    String blob = CompactStructuredData.encode(dataValue);
+                    if (!blob.equals(dataVertex.getProperty(Constants.Property.__structuredDataBlob.name()))) {
+                        dataVertex.setProperty(Constants.Property.__structuredDataType.name(),
+                                dataValue.getType().name());
+                        dataVertex.setProperty(Constants.Property.__structuredDataBlob.name(), blob);
+                    }
+                } else if (!storedCompactly && !storeCompactly) {
+                    updateStructuredData(dataVertex, dataValue, new StructuredDataHashes());
+                } else {
+                    //the storage form changes, so there's nothing to reuse
+                    deleteStructuredData(dataVertex);
+                    relate(v, persist(dataValue), Relationships.WellKnown.hasData.name(), null);
+                }
+
                 return null;
             }
 
@@ -1059,6 +1230,25 @@ final class TinkerpopBackend implements InventoryBackend<Element> {
         });
     }
 
+    @Override
+    public Iterator<Element> getEntitiesDefiningOutsideOfSubtree(Element subtreeRoot) {
+        Iterable<Element> definers = context.getVerticesLinkingOutsideOfClosure((Vertex) subtreeRoot, defines.name(),
+                contains.name());
+
+        return definers == null ? InventoryBackend.super.getEntitiesDefiningOutsideOfSubtree(subtreeRoot)
+                : definers.iterator();
+    }
+
+    @Override
+    public void deleteSubtree(Element subtreeRoot) {
+        //the structured data hang off the entities on the hasData edges and the hash nodes are shared among the
+        //entities with the same identity hash
+        if (!context.removeTransitiveClosure((Vertex) subtreeRoot, Constants.InternalEdge.__withIdentityHash.name(),
+                contains.name(), hasData.name())) {
+            InventoryBackend.super.deleteSubtree(subtreeRoot);
+        }
+    }
+
     @Override
     public void commit() throws CommitFailureException {
         try {
@@ -1086,6 +1276,7 @@ final class TinkerpopBackend implements InventoryBackend<Element> {
 
     @Override
     public void close() throws Exception {
+        context.getGraphSONExporter().close();
         context.getGraph().shutdown();
     }
 
@@ -1093,6 +1284,101 @@ final class TinkerpopBackend implements InventoryBackend<Element> {
         return context.requiresRollbackAfterFailure(t);
     }
 
+    /**
+     * Updates the structured data stored in the tree form in place, touching only the vertices of the values that
+     * changed. The lists and maps with the same content hash as the new value are skipped without loading them.
+     *
+     * @param v       the vertex with the current value
+     * @param newData the new value
+     * @param hashes  the hashes of the new value
+     */
+    private void updateStructuredData(Vertex v, StructuredData newData, StructuredDataHashes hashes) {
+        StructuredData.Type type = newData.getType();
+
+        if (!type.name().equals(v.getProperty(Constants.Property.__structuredDataType.name()))) {
+            //the value changed its type, so only the vertex itself can be reused
+            List<Vertex> children = new ArrayList<>();
+            v.getVertices(Direction.OUT, contains.name()).forEach(children::add);
+            children.forEach(this::deleteStructuredData);
+            v.removeProperty(Constants.Property.__structuredDataValue.name());
+            v.removeProperty(Constants.Property.__structuredDataHash.name());
+            v.setProperty(Constants.Property.__structuredDataType.name(), type.name());
+        }
+
+        switch (type) {
+            case list:
+            case map:
+                String hash = hashes.of(newData);
+                if (hash.equals(v.getProperty(Constants.Property.__structuredDataHash.name()))) {
+                    return;
+                }
+
+                if (type == StructuredData.Type.list) {
+                    updateStructuredDataList(v, newData.list(), hashes);
+                } else {
+                    updateStructuredDataMap(v, newData.map(), hashes);
+                }
+
+                v.setProperty(Constants.Property.__structuredDataHash.name(), hash);
+                break;
+            case undefined:
+                break;
+            default:
+                if (!newData.getValue().equals(v.getProperty(Constants.Property.__structuredDataValue.name()))) {
+                    v.setProperty(Constants.Property.__structuredDataValue.name(), newData.getValue());
+                }
+        }
+    }
+
+    private void updateStructuredDataList(Vertex list, List<StructuredData> newValues, StructuredDataHashes hashes) {
+        List<Vertex> children = new ArrayList<>();
+        list.getVertices(Direction.OUT, contains.name()).forEach(children::add);
+        children.sort(Comparator.comparing((Vertex c) -> c.<Integer>getProperty(
+                Constants.Property.__structuredDataIndex.name())));
+
+        for (int i = 0; i < Math.max(children.size(), newValues.size()); ++i) {
+            if (i >= newValues.size()) {
+                deleteStructuredData(children.get(i));
+            } else if (i >= children.size()) {
+                Vertex child = persist(newValues.get(i), hashes);
+                child.setProperty(Constants.Property.__structuredDataIndex.name(), i);
+                relate(list, child, contains.name(), null);
+            } else {
+                updateStructuredData(children.get(i), newValues.get(i), hashes);
+            }
+        }
+    }
+
+    private void updateStructuredDataMap(Vertex map, Map<String, StructuredData> newValues,
+                                         StructuredDataHashes hashes) {
+        Map<String, Vertex> children = new HashMap<>();
+        for (Vertex child : map.getVertices(Direction.OUT, contains.name())) {
+            children.put(child.getProperty(Constants.Property.__structuredDataKey.name()).toString(), child);
+        }
+
+        int idx = 0;
+        for (Map.Entry<String, StructuredData> e : newValues.entrySet()) {
+            Vertex child = children.remove(e.getKey());
+            if (child == null) {
+                child = persist(e.getValue(), hashes);
+                child.setProperty(Constants.Property.__structuredDataKey.name(), e.getKey());
+                relate(map, child, contains.name(), null);
+            } else {
+                updateStructuredData(child, e.getValue(), hashes);
+            }
+
+            //the index keeps the order of the keys
+            if (!Integer.valueOf(idx).equals(child.getProperty(Constants.Property.__structuredDataIndex.name()))) {
+                child.setProperty(Constants.Property.__structuredDataIndex.name(), idx);
+            }
+            idx++;
+        }
+
+        for (Vertex removed : children.values()) {
+            deleteStructuredData(removed);
+        }
+    }
+
     private StructuredData loadStructuredData(Vertex owner, Relationships.WellKnown owningEdge) {
         Iterator<Vertex> it = owner.getVertices(Direction.OUT, owningEdge.name()).iterator();
         if (!it.hasNext()) {
@@ -1104,6 +1390,17 @@ final class TinkerpopBackend implements InventoryBackend<Element> {
     }
 
     private StructuredData loadStructuredData(Vertex root, boolean recurse) {
+        if (recurse) {
+            if (root instanceof StructuredDataVertex) {
+                return ((StructuredDataVertex) root).getData();
+            }
+
+            String blob = root.getProperty(Constants.Property.__structuredDataBlob.name());
+            if (blob != null) {
+                return CompactStructuredData.decode(blob);
+            }
+        }
+
         StructuredData.Type type = StructuredData.Type.valueOf(root.getProperty(
                 Constants.Property.__structuredDataType.name()));
 
@@ -1367,16 +1664,12 @@ final class TinkerpopBackend implements InventoryBackend<Element> {
     }
 
     public InputStream getGraphSON(String tenantId) {
-        PipedInputStream in = new PipedInputStream();
-        //PartitionGraph pGraph = new PartitionGraph(context.getGraph(), Constants.Property.__eid.name(), tenantId);
-        new Thread(() -> {
-            try (PipedOutputStream out = new PipedOutputStream(in)) {
-                GraphSONWriter.outputGraph(/*pGraph*/context.getGraph(), out, GraphSONMode.NORMAL);
-            } catch (IOException e) {
-                throw new IllegalStateException("Unable to create the GraphSON dump.", e);
-            }
-        }).start();
-        return in;
+        return context.getGraphSONExporter().export(context, tenantId);
+    }
+
+    @Override
+    public void importGraphSON(String tenantId, InputStream graphSON) {
+        GraphSONImporter.importTenant(context, tenantId, graphSON);
     }
 
     private void drainIfNeeded(HawkularPipeline<?, ?> pipeline) {
@@ -1416,4 +1709,62 @@ final class TinkerpopBackend implements InventoryBackend<Element> {
             this.second = second;
         }
     }
+
+    /**
+     * Iterates over the results of a native query with a seek. The pipeline can filter out some of the results, so
+     * if the page is not full after the first chunk of results has been read, the next chunk is read, seeking right
+     * after the last canonical path of the previous one, until a chunk comes back not full. The pipes pull the results
+     * lazily, so no more chunks are read than needed to fill the page.
+     */
+    private final class SeekingIterator implements Iterator<Element> {
+        private NativeQuery query;
+        private Iterator<Element> chunk;
+        private int chunkCount;
+        private String lastKey;
+
+        SeekingIterator(NativeQuery query, Iterable<Element> firstChunk) {
+            this.query = query;
+            this.chunk = firstChunk.iterator();
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (chunk.hasNext()) {
+                return true;
+            }
+
+            NativeQuery.Seek seek = query.getSeek();
+            if (seek.getLimit() < 0 || chunkCount < seek.getLimit()) {
+                return false;
+            }
+
+            query = query.withSeek(new NativeQuery.Seek(seek.getProperty(), lastKey, seek.getLimit()));
+            chunk = context.query(query).iterator();
+            chunkCount = 0;
+
+            return chunk.hasNext();
+        }
+
+        @Override
+        public Element next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            Element e = chunk.next();
+            chunkCount++;
+            lastKey = cursorKey(e);
+            return e;
+        }
+    }
+
+    private static final class Keyed<T> {
+        final String key;
+        final T value;
+
+        Keyed(String key, T value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
 }
@@ -39,6 +39,29 @@ public final class TinkerpopInventory extends BaseInventory<Element> {
             .withPropertyNameAndSystemProperty("hawkular.inventory.tinkerpop.graph-provider-impl")
             .withEnvironmentVariables("HAWKULAR_INVENTORY_TINKERPOP_GRAPH_PROVIDER_IMPL").build();
 
+    /**
+     * The maximum number of the query plans cached by the shape of the queries. 0 disables the caching.
+     */
+    public static final Configuration.Property QUERY_PLAN_CACHE_SIZE = Configuration.Property.builder()
+            .withPropertyNameAndSystemProperty("hawkular.inventory.tinkerpop.query-plan-cache-size")
+            .withEnvironmentVariables("HAWKULAR_INVENTORY_TINKERPOP_QUERY_PLAN_CACHE_SIZE").build();
+
+    /**
+     * The maximum number of the GraphSON dumps running at the same time.
+     */
+    public static final Configuration.Property GRAPHSON_EXPORT_THREADS = Configuration.Property.builder()
+            .withPropertyNameAndSystemProperty("hawkular.inventory.tinkerpop.graphson-export-threads")
+            .withEnvironmentVariables("HAWKULAR_INVENTORY_TINKERPOP_GRAPHSON_EXPORT_THREADS").build();
+
+    /**
+     * How the lists and maps in the structured data are stored. Either "vertices" (the default), which stores each
+     * value in its own vertex, or "compact", which stores the whole value encoded in a single vertex. The data stored
+     * using either of the modes can be read regardless of the mode that is currently configured.
+     */
+    public static final Configuration.Property STRUCTURED_DATA_STORAGE = Configuration.Property.builder()
+            .withPropertyNameAndSystemProperty("hawkular.inventory.tinkerpop.structured-data-storage")
+            .withEnvironmentVariables("HAWKULAR_INVENTORY_TINKERPOP_STRUCTURED_DATA_STORAGE").build();
+
 
     public TinkerpopInventory() {
     }
@@ -65,7 +88,26 @@ public final class TinkerpopInventory extends BaseInventory<Element> {
 
         TransactionalGraph g = ensureIndices(gp, configuration);
 
-        return new InventoryContext(this, g, gp);
+        int planCacheSize = Integer.parseInt(configuration.getProperty(QUERY_PLAN_CACHE_SIZE, "1000"));
+
+        int exportThreads = Integer.parseInt(configuration.getProperty(GRAPHSON_EXPORT_THREADS, "2"));
+
+        String dataStorage = configuration.getProperty(STRUCTURED_DATA_STORAGE, "vertices");
+        boolean compactStructuredData;
+        switch (dataStorage) {
+            case "vertices":
+                compactStructuredData = false;
+                break;
+            case "compact":
+                compactStructuredData = true;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown structured data storage: '" + dataStorage
+                        + "'. Only 'vertices' and 'compact' are supported.");
+        }
+
+        return new InventoryContext(this, g, gp, new QueryPlanCache(planCacheSize),
+                new GraphSONExporter(exportThreads), compactStructuredData);
     }
 
     private TransactionalGraph ensureIndices(GraphProvider graphProvider, Configuration config) {
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.impl.tinkerpop;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+
+import org.hawkular.inventory.api.paging.Order;
+
+import com.tinkerpop.pipes.AbstractPipe;
+import com.tinkerpop.pipes.util.FastNoSuchElementException;
+import com.tinkerpop.pipes.util.PipeHelper;
+
+/**
+ * Orders the elements and emits only the first k of them.
+ *
+ * <p>Unlike the order pipe followed by the range filter, this only ever holds on to the k best elements seen so far
+ * (using a bounded heap), so ordering n elements takes O(n log k) time and O(k) memory. The sort keys of each element
+ * are extracted only once, not on every comparison.
+ *
+ * <p>The order is stable, i.e. the elements with equal sort keys are emitted in the order they came in.
+ *
+ * @author Lukas Krejci
+ * @since 0.19.0
+ */
+class TopKPipe<S> extends AbstractPipe<S, S> {
+    private final int k;
+    private final List<Order> order;
+    private final BiFunction<S, String, ? extends Comparable> propertyValueExtractor;
+    private final Comparator<Entry<S>> comparator;
+    private Iterator<Entry<S>> results;
+
+    /**
+     * @param k                      the number of elements to emit or -1 to emit all of them
+     * @param order                  the order of the elements (the unspecified orders are ignored)
+     * @param propertyValueExtractor the function to extract the value of the sort property from an element
+     */
+    public TopKPipe(int k, List<Order> order, BiFunction<S, String, ? extends Comparable> propertyValueExtractor) {
+        if (k < -1) {
+            throw new IllegalArgumentException("Not a legal k: [" + k + "]");
+        }
+        this.k = k;
+        this.order = order.stream().filter(Order::isSpecific).collect(Collectors.toList());
+        this.propertyValueExtractor = propertyValueExtractor;
+        this.comparator = (a, b) -> {
+            for (int i = 0; i < this.order.size(); ++i) {
+                int ret = this.order.get(i).isAscending()
+                        ? safeCompare(a.keys[i], b.keys[i])
+                        : safeCompare(b.keys[i], a.keys[i]);
+                if (ret != 0) {
+                    return ret;
+                }
+            }
+            return Long.compare(a.sequence, b.sequence);
+        };
+    }
+
+    protected S processNextStart() {
+        if (results == null) {
+            results = k == -1 ? sortAll() : selectTopK();
+        }
+
+        if (!results.hasNext()) {
+            throw FastNoSuchElementException.instance();
+        }
+
+        return results.next().element;
+    }
+
+    private Iterator<Entry<S>> sortAll() {
+        List<Entry<S>> all = new ArrayList<>();
+        long sequence = 0;
+        while (this.starts.hasNext()) {
+            all.add(toEntry(this.starts.next(), sequence++));
+        }
+
+        all.sort(comparator);
+        return all.iterator();
+    }
+
+    private Iterator<Entry<S>> selectTopK() {
+        if (k == 0) {
+            //we still need to drain the input so that the side-effects before this pipe see all the elements
+            while (this.starts.hasNext()) {
+                this.starts.next();
+            }
+            return Collections.emptyIterator();
+        }
+
+        //the head of the heap is the "worst" of the k best elements seen so far
+        PriorityQueue<Entry<S>> heap = new PriorityQueue<>(Math.min(k, 1024), comparator.reversed());
+        long sequence = 0;
+        while (this.starts.hasNext()) {
+            Entry<S> e = toEntry(this.starts.next(), sequence++);
+            if (heap.size() < k) {
+                heap.add(e);
+            } else if (comparator.compare(e, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(e);
+            }
+        }
+
+        List<Entry<S>> ret = new ArrayList<>(heap);
+        ret.sort(comparator);
+        return ret.iterator();
+    }
+
+    private Entry<S> toEntry(S element, long sequence) {
+        Comparable[] keys = new Comparable[order.size()];
+        for (int i = 0; i < keys.length; ++i) {
+            keys[i] = propertyValueExtractor.apply(element, order.get(i).getField());
+        }
+        return new Entry<>(element, keys, sequence);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static int safeCompare(Comparable a, Comparable b) {
+        if (a == null) {
+            return b == null ? 0 : -1;
+        } else if (b == null) {
+            return 1;
+        } else {
+            return a.compareTo(b);
+        }
+    }
+
+    public String toString() {
+        return PipeHelper.makePipeString(this, this.k, this.order);
+    }
+
+    public void reset() {
+        this.results = null;
+        super.reset();
+    }
+
+    private static final class Entry<S> {
+        final S element;
+        final Comparable[] keys;
+        final long sequence;
+
+        Entry(S element, Comparable[] keys, long sequence) {
+            this.element = element;
+            this.keys = keys;
+            this.sequence = sequence;
+        }
+    }
+}
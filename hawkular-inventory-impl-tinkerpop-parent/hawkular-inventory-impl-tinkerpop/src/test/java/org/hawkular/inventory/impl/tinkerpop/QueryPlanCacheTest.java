@@ -0,0 +1,115 @@
+/*
+ * Copyright 2015-2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.impl.tinkerpop;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.hawkular.inventory.api.Query;
+import org.hawkular.inventory.api.filters.Related;
+import org.hawkular.inventory.api.filters.With;
+import org.hawkular.inventory.api.model.Resource;
+import org.hawkular.inventory.api.model.Tenant;
+import org.hawkular.inventory.impl.tinkerpop.spi.NativeQuery;
+import org.hawkular.inventory.paths.CanonicalPath;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.tinkerpop.blueprints.Direction;
+
+/**
+ * @author Lukas Krejci
+ * @since 0.19.0
+ */
+public class QueryPlanCacheTest {
+
+    @Test
+    public void testPlanOfSameShapeBoundToDifferentValues() throws Exception {
+        QueryPlanCache cache = new QueryPlanCache(10);
+
+        Query first = resourcesOf("/t;a", "r1", "r2");
+        Query second = resourcesOf("/t;b", "r3");
+
+        Assert.assertEquals(Arrays.asList("__cp=[/t;a]", "contains>", "__type=[resource]", "__eid=[r1, r2]"),
+                steps(cache.get(first).bindNative(first)));
+        Assert.assertEquals(Arrays.asList("__cp=[/t;b]", "contains>", "__type=[resource]", "__eid=[r3]"),
+                steps(cache.get(second).bindNative(second)));
+
+        Assert.assertEquals(1, cache.getMisses());
+        Assert.assertEquals(1, cache.getHits());
+        Assert.assertEquals(0.5, cache.getHitRate(), 0);
+        Assert.assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testShapeIncludesWhatTheTranslationDependsOn() throws Exception {
+        QueryPlanCache cache = new QueryPlanCache(10);
+
+        //the existence of a property can't be checked natively, but its value can
+        Query exists = Query.path().with(With.type(Tenant.class)).filter().with(With.property("p")).get();
+        Query valued = Query.path().with(With.type(Tenant.class)).filter().with(With.propertyValue("p", "v")).get();
+        Query otherProperty = Query.path().with(With.type(Tenant.class)).filter().with(With.propertyValue("q", "v"))
+                .get();
+
+        Assert.assertNull(cache.get(exists).bindNative(exists));
+        Assert.assertEquals(Arrays.asList("__type=[tenant]", "p=[v]"), steps(cache.get(valued).bindNative(valued)));
+        Assert.assertEquals(Arrays.asList("__type=[tenant]", "q=[v]"),
+                steps(cache.get(otherProperty).bindNative(otherProperty)));
+
+        //the relationships are edges, which are not supported by the native queries
+        Query entity = Query.path().with(With.path(CanonicalPath.of().tenant("t").get())).get();
+        Query relationship = Query.path().with(With.path(CanonicalPath.of().relationship("r").get())).get();
+
+        Assert.assertFalse(cache.get(entity).isStartingWithEdges());
+        Assert.assertNotNull(cache.get(entity).bindNative(entity));
+        Assert.assertTrue(cache.get(relationship).isStartingWithEdges());
+        Assert.assertNull(cache.get(relationship).bindNative(relationship));
+
+        Assert.assertEquals(5, cache.getMisses());
+        Assert.assertEquals(2, cache.getHits());
+    }
+
+    @Test
+    public void testDisabledCacheCompilesEveryQuery() throws Exception {
+        QueryPlanCache cache = new QueryPlanCache(0);
+
+        Query query = resourcesOf("/t;a", "r");
+        cache.get(query);
+        cache.get(query);
+
+        Assert.assertEquals(2, cache.getMisses());
+        Assert.assertEquals(0, cache.getHits());
+        Assert.assertEquals(0, cache.size());
+    }
+
+    private static Query resourcesOf(String parent, String... ids) {
+        return Query.path().with(With.path(CanonicalPath.fromString(parent))).with(Related.by("contains"))
+                .with(With.type(Resource.class)).filter().with(With.ids(ids)).get();
+    }
+
+    private static List<String> steps(NativeQuery query) {
+        return Arrays.asList(query.getSteps().stream().map(s -> {
+            if (s instanceof NativeQuery.Hop) {
+                NativeQuery.Hop hop = (NativeQuery.Hop) s;
+                return hop.getLabel() + (hop.getDirection() == Direction.OUT ? ">" : "<");
+            } else {
+                NativeQuery.PropertyFilter filter = (NativeQuery.PropertyFilter) s;
+                return filter.getName() + "=" + filter.getValues();
+            }
+        }).toArray(String[]::new));
+    }
+}
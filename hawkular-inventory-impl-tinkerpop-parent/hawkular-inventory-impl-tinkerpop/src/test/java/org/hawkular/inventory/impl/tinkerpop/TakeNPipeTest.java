@@ -0,0 +1,132 @@
+/*
+ * Copyright 2015-2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.impl.tinkerpop;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Lukas Krejci
+ * @since 0.19.0
+ */
+public class TakeNPipeTest {
+
+    @Test
+    public void testNotDrainingLeavesTheRestUnread() throws Exception {
+        CountingIterator input = new CountingIterator(10);
+        Assert.assertEquals(Arrays.asList(0, 1, 2), take(new TakeNPipe<>(3, false), input));
+        Assert.assertEquals(3, input.read);
+    }
+
+    @Test
+    public void testDrainingReadsEverything() throws Exception {
+        CountingIterator input = new CountingIterator(10);
+        Assert.assertEquals(Arrays.asList(0, 1, 2), take(new TakeNPipe<>(3, true), input));
+        Assert.assertEquals(10, input.read);
+    }
+
+    @Test
+    public void testDrainsOnlyUpToTheLimit() throws Exception {
+        CountingIterator input = new CountingIterator(10);
+        Assert.assertEquals(Arrays.asList(0, 1, 2), take(new TakeNPipe<>(3, 4L), input));
+        Assert.assertEquals(7, input.read);
+
+        //the limit past the end of the input
+        input = new CountingIterator(10);
+        Assert.assertEquals(Arrays.asList(0, 1, 2), take(new TakeNPipe<>(3, 100L), input));
+        Assert.assertEquals(10, input.read);
+
+        //the zero limit
+        input = new CountingIterator(10);
+        Assert.assertEquals(Arrays.asList(0, 1, 2), take(new TakeNPipe<>(3, 0L), input));
+        Assert.assertEquals(3, input.read);
+    }
+
+    @Test
+    public void testTakesFewerIfInputIsShort() throws Exception {
+        CountingIterator input = new CountingIterator(2);
+        Assert.assertEquals(Arrays.asList(0, 1), take(new TakeNPipe<>(3, 1L), input));
+        Assert.assertEquals(2, input.read);
+
+        input = new CountingIterator(0);
+        Assert.assertEquals(Collections.emptyList(), take(new TakeNPipe<>(3, 1L), input));
+    }
+
+    @Test
+    public void testTakingZeroOnlyDrains() throws Exception {
+        CountingIterator input = new CountingIterator(10);
+        Assert.assertEquals(Collections.emptyList(), take(new TakeNPipe<>(0, 2L), input));
+        Assert.assertEquals(2, input.read);
+    }
+
+    @Test
+    public void testDoesNotEmitAnythingAfterDraining() throws Exception {
+        TakeNPipe<Integer> pipe = new TakeNPipe<>(1, 1L);
+        CountingIterator input = new CountingIterator(10);
+        pipe.setStarts(input);
+
+        Assert.assertEquals(Integer.valueOf(0), pipe.next());
+        Assert.assertFalse(pipe.hasNext());
+        Assert.assertFalse(pipe.hasNext());
+        Assert.assertEquals(2, input.read);
+    }
+
+    @Test
+    public void testResetStartsOver() throws Exception {
+        TakeNPipe<Integer> pipe = new TakeNPipe<>(2, 1L);
+        Assert.assertEquals(Arrays.asList(0, 1), take(pipe, new CountingIterator(10)));
+
+        pipe.reset();
+        Assert.assertEquals(Arrays.asList(0, 1), take(pipe, new CountingIterator(10)));
+    }
+
+    private static List<Integer> take(TakeNPipe<Integer> pipe, Iterator<Integer> input) {
+        pipe.setStarts(input);
+        List<Integer> ret = new ArrayList<>();
+        pipe.forEachRemaining(ret::add);
+        return ret;
+    }
+
+    private static final class CountingIterator implements Iterator<Integer> {
+        private final Iterator<Integer> source;
+        int read;
+
+        CountingIterator(int size) {
+            this.source = IntStream.range(0, size).boxed().collect(Collectors.toList()).iterator();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return source.hasNext();
+        }
+
+        @Override
+        public Integer next() {
+            Integer ret = source.next();
+            read++;
+            return ret;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2015-2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.impl.tinkerpop;
+
+import static org.hawkular.inventory.api.paging.Order.Direction.ASCENDING;
+import static org.hawkular.inventory.api.paging.Order.Direction.DESCENDING;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.hawkular.inventory.api.paging.Order;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Lukas Krejci
+ * @since 0.19.0
+ */
+public class TopKPipeTest {
+
+    @Test
+    public void testEmptyInput() throws Exception {
+        Assert.assertEquals(Collections.emptyList(), topK(5, Collections.emptyList(), Order.by("a", ASCENDING)));
+        Assert.assertEquals(Collections.emptyList(), topK(-1, Collections.emptyList(), Order.by("a", ASCENDING)));
+        Assert.assertEquals(Collections.emptyList(), topK(0, Collections.emptyList(), Order.by("a", ASCENDING)));
+    }
+
+    @Test
+    public void testZeroKEmitsNothing() throws Exception {
+        Assert.assertEquals(Collections.emptyList(), topK(0, items(10, 3, new Random(0)), Order.by("a", ASCENDING)));
+    }
+
+    @Test
+    public void testKLargerThanInput() throws Exception {
+        List<Item> input = items(10, 100, new Random(1));
+        List<Order> order = Collections.singletonList(Order.by("a", ASCENDING));
+
+        Assert.assertEquals(sortAndLimit(input, -1, order), topK(11, input, order));
+        Assert.assertEquals(sortAndLimit(input, -1, order), topK(1000, input, order));
+        Assert.assertEquals(10, topK(1000, input, order).size());
+    }
+
+    @Test
+    public void testTiesKeepTheInputOrder() throws Exception {
+        List<Item> input = Arrays.asList(new Item(0, 1, 0), new Item(1, 0, 0), new Item(2, 1, 0),
+                new Item(3, 0, 0), new Item(4, 1, 0));
+
+        Assert.assertEquals(Arrays.asList(1, 3, 0), ids(topK(3, input, Order.by("a", ASCENDING))));
+        Assert.assertEquals(Arrays.asList(0, 2, 4, 1), ids(topK(4, input, Order.by("a", DESCENDING))));
+        //all equal
+        Assert.assertEquals(Arrays.asList(0, 1, 2), ids(topK(3, input, Order.by("b", DESCENDING))));
+    }
+
+    @Test
+    public void testNullsAreOrderedFirst() throws Exception {
+        List<Item> input = Arrays.asList(new Item(0, 2, 0), new Item(1, null, 0), new Item(2, 1, 0));
+
+        Assert.assertEquals(Arrays.asList(1, 2), ids(topK(2, input, Order.by("a", ASCENDING))));
+        Assert.assertEquals(Arrays.asList(0, 2), ids(topK(2, input, Order.by("a", DESCENDING))));
+    }
+
+    @Test
+    public void testUnspecifiedOrdersAreIgnored() throws Exception {
+        List<Item> input = items(20, 5, new Random(2));
+        List<Order> order = Arrays.asList(Order.unspecified(), Order.by("b", DESCENDING));
+
+        Assert.assertEquals(sortAndLimit(input, 7, order), topK(7, input, order));
+    }
+
+    @Test
+    public void testMatchesFullSortFollowedByLimit() throws Exception {
+        Random rnd = new Random(42);
+        List<List<Order>> orders = Arrays.asList(
+                Collections.singletonList(Order.by("a", ASCENDING)),
+                Collections.singletonList(Order.by("a", DESCENDING)),
+                Arrays.asList(Order.by("a", ASCENDING), Order.by("b", DESCENDING)),
+                Arrays.asList(Order.by("b", DESCENDING), Order.by("a", DESCENDING)));
+
+        for (int n : new int[]{1, 2, 10, 100, 1000}) {
+            //the small range of the values makes for a lot of ties
+            List<Item> input = items(n, 1 + n / 10, rnd);
+            for (List<Order> order : orders) {
+                for (int k : new int[]{-1, 0, 1, 2, n / 2, n - 1, n, n + 1, 2 * n}) {
+                    Assert.assertEquals("n=" + n + ", k=" + k + ", order=" + order,
+                            sortAndLimit(input, k, order), topK(k, input, order));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testResetAllowsReuse() throws Exception {
+        List<Item> input = items(50, 10, new Random(3));
+        List<Order> order = Collections.singletonList(Order.by("a", DESCENDING));
+
+        TopKPipe<Item> pipe = new TopKPipe<>(5, order, Item::get);
+        pipe.setStarts(input.iterator());
+        List<Item> first = drain(pipe);
+
+        pipe.reset();
+        pipe.setStarts(input.iterator());
+
+        Assert.assertEquals(first, drain(pipe));
+        Assert.assertEquals(sortAndLimit(input, 5, order), first);
+    }
+
+    private static List<Item> topK(int k, List<Item> input, Order... order) {
+        return topK(k, input, Arrays.asList(order));
+    }
+
+    private static List<Item> topK(int k, List<Item> input, List<Order> order) {
+        TopKPipe<Item> pipe = new TopKPipe<>(k, order, Item::get);
+        pipe.setStarts(input.iterator());
+        return drain(pipe);
+    }
+
+    private static List<Item> drain(TopKPipe<Item> pipe) {
+        List<Item> ret = new ArrayList<>();
+        pipe.forEachRemaining(ret::add);
+        return ret;
+    }
+
+    /**
+     * The reference implementation - a stable sort of all the elements followed by the limit.
+     */
+    private static List<Item> sortAndLimit(List<Item> input, int k, List<Order> order) {
+        Comparator<Item> cmp = (a, b) -> 0;
+        for (Order o : order) {
+            if (!o.isSpecific()) {
+                continue;
+            }
+            Comparator<Item> byField = Comparator.comparing((Item i) -> i.get(o.getField()),
+                    Comparator.nullsFirst(Comparator.<Integer>naturalOrder()));
+            cmp = cmp.thenComparing(o.isAscending() ? byField : byField.reversed());
+        }
+
+        List<Item> sorted = new ArrayList<>(input);
+        sorted.sort(cmp);
+        return k == -1 ? sorted : sorted.subList(0, Math.min(k, sorted.size()));
+    }
+
+    private static List<Item> items(int count, int valueRange, Random rnd) {
+        List<Item> ret = new ArrayList<>(count);
+        for (int i = 0; i < count; ++i) {
+            ret.add(new Item(i, rnd.nextInt(valueRange), rnd.nextInt(valueRange)));
+        }
+        return ret;
+    }
+
+    private static List<Integer> ids(List<Item> items) {
+        List<Integer> ret = new ArrayList<>(items.size());
+        items.forEach(i -> ret.add(i.id));
+        return ret;
+    }
+
+    private static final class Item {
+        final int id;
+        final Integer a;
+        final Integer b;
+
+        Item(int id, Integer a, Integer b) {
+            this.id = id;
+            this.a = a;
+            this.b = b;
+        }
+
+        Integer get(String field) {
+            return "a".equals(field) ? a : b;
+        }
+
+        @Override
+        public String toString() {
+            return "Item[id=" + id + ", a=" + a + ", b=" + b + "]";
+        }
+    }
+}
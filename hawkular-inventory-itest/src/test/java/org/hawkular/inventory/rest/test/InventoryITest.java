@@ -1466,6 +1466,82 @@ public class InventoryITest extends AbstractTestBase {
         }
     }
 
+    @Test
+    public void testSyncNegotiation() throws Throwable {
+        String structure = "{ \"structure\": {"//
+                + "\"type\": \"feed\","//
+                + "\"data\": {"//
+                + "    \"id\": \"negotiated-feed\""//
+                + "},"//
+                + "\"children\": {"//
+                + "    \"resourceType\": ["//
+                + "        {"//
+                + "            \"data\": {"//
+                + "                \"id\": \"resourceType\""//
+                + "            }"//
+                + "        }"//
+                + "    ],"//
+                + "    \"resource\": ["//
+                + "        {"//
+                + "            \"data\": {"//
+                + "                \"id\": \"resource\","//
+                + "                \"resourceTypePath\": \"resourceType\""//
+                + "            }"//
+                + "        }"//
+                + "    ]"//
+                + "}"//
+                + "}}";
+
+        try {
+            Response response = post(basePath + "/entity/feed", "{\"id\": \"negotiated-feed\"}");
+            assertEquals(201, response.code());
+
+            response = post(basePath + "/sync/f;negotiated-feed", structure);
+            assertEquals(204, response.code());
+
+            response = get(basePath + "/entity/f;negotiated-feed/treeHash");
+            assertEquals(200, response.code());
+            SyncHash.Tree tree = mapper.readValue(response.body().string(), SyncHash.Tree.class);
+
+            //the same tree doesn't differ at all
+            JsonNode diffs = negotiate("/sync/negotiate/f;negotiated-feed", tree);
+            assertEquals(0, diffs.get("subtrees").size());
+            assertEquals(0, diffs.get("entities").size());
+
+            //the resource changed, the feed itself might have, too
+            Path.Segment resource = Path.Segment.from("r;resource");
+            SyncHash.Tree.Builder changed = SyncHash.Tree.builder().withPath(tree.getPath()).withHash("changed");
+            for (SyncHash.Tree child : tree.getChildren()) {
+                String hash = resource.equals(child.getPath().getSegment()) ? "changed" : child.getHash();
+                changed.startChild().withPath(child.getPath()).withHash(hash).endChild();
+            }
+
+            diffs = negotiate("/sync/negotiate/f;negotiated-feed", changed.build());
+            assertEquals(1, diffs.get("subtrees").size());
+            assertEquals(tree.getChild(resource).getPath().toString(), diffs.get("subtrees").get(0).asText());
+            assertEquals(1, diffs.get("entities").size());
+            assertEquals(tree.getPath().toString(), diffs.get("entities").get(0).asText());
+
+            //a feed that doesn't exist yet needs to be synced as a whole
+            diffs = negotiate("/sync/negotiate/f;not-yet-synced-feed", tree);
+            assertEquals(1, diffs.get("subtrees").size());
+            assertEquals(tree.getPath().toString(), diffs.get("subtrees").get(0).asText());
+            assertEquals(0, diffs.get("entities").size());
+        } finally {
+            Response response = get(basePath + "/entity/f;negotiated-feed");
+            if (response.code() == 200) {
+                delete(basePath + "/entity/f;negotiated-feed");
+            }
+        }
+    }
+
+    private JsonNode negotiate(String path, SyncHash.Tree tree) throws Throwable {
+        Response response = post(basePath + path, mapper.writeValueAsString(tree));
+        assertEquals(200, response.code());
+
+        return mapper.readTree(response.body().string());
+    }
+
     @Test
     public void testTreeHash() throws Throwable {
         Response response = get(basePath + "/entity/e;" + environmentId + "/r;" + room1ResourceId + "/treeHash");
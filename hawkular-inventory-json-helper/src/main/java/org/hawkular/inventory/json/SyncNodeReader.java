@@ -0,0 +1,214 @@
+/*
+ * Copyright 2015-2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.json;
+
+import static org.hawkular.inventory.json.InventoryStructureDeserializer.LEGAL_ENTITY_TYPES;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.hawkular.inventory.api.model.Entity;
+import org.hawkular.inventory.api.model.InventoryStructure;
+import org.hawkular.inventory.api.model.SyncNode;
+import org.hawkular.inventory.paths.RelativePath;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Reads the JSON representation of an inventory structure (as understood by {@link InventoryStructureDeserializer})
+ * node by node, without ever reading the whole structure into memory. The nodes are returned in the depth-first order
+ * as required by {@link org.hawkular.inventory.api.Synced.Single#synchronize(
+ * org.hawkular.inventory.api.model.SyncConfiguration, Iterator)}.
+ *
+ * <p>Each node can optionally contain the {@code hash} property with the sync hash of the node. Because the nodes are
+ * read as they come, the {@code type} (in case of the root), {@code hash} and {@code data} properties need to precede
+ * the {@code children} in each node.
+ *
+ * <p>The parser needs to have a codec set and be positioned at the start of the object representing the root of the
+ * structure.
+ *
+ * @author Lukas Krejci
+ * @since 0.19.0
+ */
+public final class SyncNodeReader implements Iterator<SyncNode> {
+    private final JsonParser parser;
+    private final Deque<Frame> frames = new ArrayDeque<>();
+    private boolean rootRead;
+    private SyncNode next;
+
+    public SyncNodeReader(JsonParser parser) {
+        this.parser = parser;
+    }
+
+    @Override public boolean hasNext() {
+        if (next == null) {
+            try {
+                next = advance();
+            } catch (JsonProcessingException e) {
+                throw new IllegalArgumentException("Failed to parse the inventory structure: " + e.getMessage(), e);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        return next != null;
+    }
+
+    @Override public SyncNode next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        SyncNode ret = next;
+        next = null;
+        return ret;
+    }
+
+    private SyncNode advance() throws IOException {
+        if (!rootRead) {
+            rootRead = true;
+            if (parser.getCurrentToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException("Inventory structure expected.", parser.getCurrentLocation());
+            }
+
+            return readNode(RelativePath.empty().get(), null);
+        }
+
+        while (!frames.isEmpty()) {
+            Frame frame = frames.peek();
+            JsonToken token = parser.nextToken();
+
+            if (frame.childType != null) {
+                //we're in the array of children of certain type
+                if (token == JsonToken.START_OBJECT) {
+                    return readNode(frame.path, frame.childType);
+                } else if (token == JsonToken.END_ARRAY) {
+                    frame.childType = null;
+                } else {
+                    throw new JsonParseException("Child entity expected.", parser.getCurrentLocation());
+                }
+            } else {
+                //we're in the "children" object
+                if (token == JsonToken.FIELD_NAME) {
+                    InventoryStructure.EntityType type = parseType(parser.getCurrentName());
+                    if (parser.nextToken() == JsonToken.START_ARRAY) {
+                        frame.childType = type;
+                    } else {
+                        parser.skipChildren();
+                    }
+                } else if (token == JsonToken.END_OBJECT) {
+                    //skip anything that might follow the children in the entity object
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        parser.nextToken();
+                        parser.skipChildren();
+                    }
+                    frames.pop();
+                } else {
+                    throw new JsonParseException("Children types expected.", parser.getCurrentLocation());
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Reads the node the parser is positioned at up until its children, if any.
+     *
+     * @param parentPath the path to the parent or, in case of the root, the empty path
+     * @param type the type of the node or null if the type is read from the node (in case of the root)
+     */
+    private SyncNode readNode(RelativePath parentPath, InventoryStructure.EntityType type) throws IOException {
+        boolean isRoot = type == null;
+        String hash = null;
+        Entity.Blueprint blueprint = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+
+            switch (field) {
+                case "type":
+                    if (isRoot) {
+                        type = parseType(parser.getValueAsString());
+                    }
+                    break;
+                case "hash":
+                    hash = parser.getValueAsString();
+                    break;
+                case "data":
+                    if (type == null) {
+                        throw new JsonParseException("'type' must precede 'data'.", parser.getCurrentLocation());
+                    }
+                    blueprint = parser.readValueAs(type.blueprintType);
+                    break;
+                case "children":
+                    if (parser.getCurrentToken() != JsonToken.START_OBJECT) {
+                        parser.skipChildren();
+                        break;
+                    }
+
+                    SyncNode node = toNode(parentPath, isRoot, type, hash, blueprint);
+                    frames.push(new Frame(node.getPath()));
+                    return node;
+                default:
+                    parser.skipChildren();
+            }
+        }
+
+        return toNode(parentPath, isRoot, type, hash, blueprint);
+    }
+
+    private SyncNode toNode(RelativePath parentPath, boolean isRoot, InventoryStructure.EntityType type, String hash,
+                            Entity.Blueprint blueprint) throws JsonParseException {
+        if (blueprint == null) {
+            throw new JsonParseException("'data' must be present and must precede 'children'.",
+                    parser.getCurrentLocation());
+        }
+
+        RelativePath path = isRoot
+                ? parentPath
+                : parentPath.modified().extend(type.segmentType, blueprint.getId()).get();
+
+        return SyncNode.of(path, hash, blueprint);
+    }
+
+    private InventoryStructure.EntityType parseType(String typeName) throws JsonParseException {
+        try {
+            return InventoryStructure.EntityType.valueOf(typeName);
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new JsonParseException("Unrecognized value of 'type'. Supported values are " + LEGAL_ENTITY_TYPES
+                    + " but got '" + typeName + "'.", parser.getCurrentLocation());
+        }
+    }
+
+    private static final class Frame {
+        final RelativePath path;
+        InventoryStructure.EntityType childType;
+
+        Frame(RelativePath path) {
+            this.path = path;
+        }
+    }
+}
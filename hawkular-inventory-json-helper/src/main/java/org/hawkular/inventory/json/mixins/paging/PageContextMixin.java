@@ -41,4 +41,18 @@ public abstract class PageContextMixin {
 
     @JsonIgnore
     public abstract boolean isLimited();
+
+    //the limit of the total size and the cursor are not part of the serialized form so that the old clients can
+    //still read it
+    @JsonIgnore
+    public abstract int getTotalSizeLimit();
+
+    @JsonIgnore
+    public abstract boolean isTotalSizeLimited();
+
+    @JsonIgnore
+    public abstract String getCursor();
+
+    @JsonIgnore
+    public abstract boolean isCursorBased();
 }
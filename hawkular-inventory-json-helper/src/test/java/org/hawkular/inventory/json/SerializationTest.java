@@ -66,6 +66,7 @@ import org.hawkular.inventory.api.model.Resource;
 import org.hawkular.inventory.api.model.ResourceType;
 import org.hawkular.inventory.api.model.StructuredData;
 import org.hawkular.inventory.api.model.SyncHash;
+import org.hawkular.inventory.api.model.SyncNode;
 import org.hawkular.inventory.api.model.Tenant;
 import org.hawkular.inventory.api.paging.Order;
 import org.hawkular.inventory.api.paging.Pager;
@@ -615,6 +616,27 @@ public class SerializationTest {
         test(s);
     }
 
+    @Test
+    public void testStreamedInventoryStructure() throws Exception {
+        InventoryStructure<?> s = InventoryStructure.Offline.of(Feed.Blueprint.builder().withId("feed").build())
+                .addChild(ResourceType.Blueprint.builder().withId("resourceType").build())
+                .startChild(
+                        Resource.Blueprint.builder().withId("resource").withResourceTypePath("resourceType").build())
+                .addChild(Resource.Blueprint.builder().withId("childResource").withResourceTypePath("../.resourceType")
+                        .build())
+                .end()
+                .addChild(Resource.Blueprint.builder().withId("resource2").withResourceTypePath("resourceType")
+                        .build())
+                .build();
+
+        JsonParser parser = mapper.getFactory().createParser(serialize(s));
+        parser.nextToken();
+
+        Iterator<SyncNode> nodes = new SyncNodeReader(parser);
+
+        Assert.assertEquals(s, SyncNode.toStructure(nodes));
+    }
+
     @Test
     public void testIdentityHashTree() throws Exception {
         InventoryStructure<?> s = InventoryStructure.Offline.of(Feed.Blueprint.builder().withId("feed").build())
@@ -185,11 +185,31 @@ object FakeDataScenarios extends Helpers {
       }
     }
 
+    // the traversals over the "contains" edges, which are most sensitive to the indices on the edges
+    def traverseContainedEntitiesMultipleTimes(environment: String) = {
+      repeat(readEntityNumber) {
+        exec(
+          http("Traverse the contained resources")
+            .get(s"traversal/e;$environment/type=r")
+            .check(status is 200)
+        )
+      }
+        .pause(interval millis)
+        .repeat(readEntityNumber) {
+        exec(
+          http("Traverse the contained metrics recursively")
+            .get(s"traversal/e;$environment/recursive/type=m")
+            .check(status is 200)
+        )
+      }
+    }
+
     readEntityMultipleTimes("resourceType")
       .exec(readEntityMultipleTimes("metricType"))
       .exec(readEntityMultipleTimes("resource", "test/"))
       .exec(readEntityMultipleTimes("metric", "test/"))
       .exec(getAllResourcesOfGivenTypeMultipleTimes("resType-something"))
+      .exec(traverseContainedEntitiesMultipleTimes("test"))
   }
 
   val scenario1 = scenario("AgentSimulation (fill the inventory)")
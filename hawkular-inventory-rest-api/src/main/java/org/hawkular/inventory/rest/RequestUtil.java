@@ -53,9 +53,13 @@ public final class RequestUtil {
         String perPageS = params.getFirst("per_page");
         List<String> sort = params.get("sort");
         List<String> order = params.get("order");
+        String totalS = params.getFirst("total");
+        //an empty cursor means the first page of the cursor-based paging
+        String cursor = params.getFirst("cursor");
 
         int page = pageS == null ? 0 : Integer.parseInt(pageS);
         int perPage = perPageS == null ? PageContext.UNLIMITED_PAGE_SIZE : Integer.parseInt(perPageS);
+        int totalSizeLimit = parseTotalSizeLimit(totalS);
 
         List<Order> ordering = new ArrayList<>();
 
@@ -73,7 +77,27 @@ public final class RequestUtil {
             }
         }
 
-        return new Pager(page, perPage, ordering);
+        return new Pager(page, perPage, totalSizeLimit, cursor, ordering);
+    }
+
+    /**
+     * The total size of the results can be counted {@code exact}ly (the default), not counted at all ({@code none}) or
+     * counted only up to the provided number.
+     */
+    private static int parseTotalSizeLimit(String total) {
+        if (total == null || "exact".equals(total)) {
+            return PageContext.UNLIMITED_TOTAL_SIZE;
+        } else if ("none".equals(total)) {
+            return 0;
+        }
+
+        int limit = Integer.parseInt(total);
+        if (limit < 0) {
+            throw new IllegalArgumentException("The 'total' query parameter must be 'exact', 'none' or a non-negative"
+                    + " number but was: " + total);
+        }
+
+        return limit;
     }
 
     public static CanonicalPath toCanonicalPath(String restPath) {
@@ -167,7 +167,11 @@ public final class ResponseUtil {
     /**
      * Create the paging headers for collections and attach them to the passed builder. Those are represented as
      * <i>Link:</i> http headers that carry the URL for the pages and the respective relation.
-     * <br/>In addition a <i>X-Total-Count</i> header is created that contains the whole collection size.
+     * <br/>In addition a <i>X-Total-Count</i> header is created that contains the whole collection size. If the total
+     * size was only counted up to some limit and there are more results, the header contains the limit followed by
+     * "+" (e.g. "10000+"). If the total size was not requested at all, the header is omitted unless there are no
+     * results.
+     * <br/>The cursor-based pages only link to the next page (if there is one) and don't report the total size.
      *
      * @param builder    The ResponseBuilder that receives the headers
      * @param uriInfo    The uriInfo of the incoming request to build the urls
@@ -179,11 +183,19 @@ public final class ResponseUtil {
         UriBuilder uriBuilder;
 
         PageContext pc = resultList.getPageContext();
+
+        if (pc.isCursorBased()) {
+            createCursorPagingHeader(builder, uriInfo, resultList);
+            return;
+        }
+
         int page = pc.getPageNumber();
+        long totalSize = resultList.getTotalSize();
+        boolean totalSizeExact = !pc.isTotalSizeLimited() || totalSize <= pc.getTotalSizeLimit();
 
         List<Link> links = new ArrayList<>();
 
-        if (pc.isLimited() && resultList.getTotalSize() > (pc.getPageNumber() + 1) * pc.getPageSize()) {
+        if (pc.isLimited() && totalSize > (pc.getPageNumber() + 1) * pc.getPageSize()) {
             int nextPage = page + 1;
             uriBuilder = uriInfo.getRequestUriBuilder(); // adds ?q, ?per_page, ?page, etc. if needed
             uriBuilder.replaceQueryParam("page", nextPage);
@@ -198,10 +210,10 @@ public final class ResponseUtil {
             links.add(new Link("prev", uriBuilder.build().toString()));
         }
 
-        // A link to the last page
-        if (pc.isLimited()) {
-            long lastPage = resultList.getTotalSize() / pc.getPageSize();
-            if (resultList.getTotalSize() % pc.getPageSize() == 0) {
+        // A link to the last page, if we know where it is
+        if (pc.isLimited() && totalSizeExact) {
+            long lastPage = totalSize / pc.getPageSize();
+            if (totalSize % pc.getPageSize() == 0) {
                 lastPage -= 1;
             }
 
@@ -223,6 +235,25 @@ public final class ResponseUtil {
         builder.header("Link", linkHeader.toString());
 
         // Create a total size header
-        builder.header("X-Total-Count", resultList.getTotalSize());
+        if (totalSizeExact) {
+            builder.header("X-Total-Count", totalSize);
+        } else if (pc.getTotalSizeLimit() > 0) {
+            builder.header("X-Total-Count", pc.getTotalSizeLimit() + "+");
+        }
+    }
+
+    private static void createCursorPagingHeader(Response.ResponseBuilder builder, UriInfo uriInfo,
+                                                 Page<?> resultList) {
+        StringBuilder linkHeader = new StringBuilder(new Link("current",
+                uriInfo.getRequestUriBuilder().build().toString()).rfc5988String());
+
+        String nextCursor = resultList.getNextCursor();
+        if (nextCursor != null) {
+            UriBuilder uriBuilder = uriInfo.getRequestUriBuilder();
+            uriBuilder.replaceQueryParam("cursor", nextCursor);
+            linkHeader.append(", ").append(new Link("next", uriBuilder.build().toString()).rfc5988String());
+        }
+
+        builder.header("Link", linkHeader.toString());
     }
 }
@@ -40,7 +40,7 @@ import io.swagger.annotations.ApiResponses;
 @Path("/graph")
 @Produces(APPLICATION_JSON)
 @Consumes(APPLICATION_JSON)
-@Api(value = "/graph", description = "Retrieves whole graph in the JSON representation.", tags = "Graph")
+@Api(value = "/graph", description = "Retrieves the graph of the tenant in the JSON representation.", tags = "Graph")
 public class RestGraphSON extends RestBase {
 
     public RestGraphSON() {
@@ -49,12 +49,15 @@ public class RestGraphSON extends RestBase {
 
     @GET
     @Path("/")
-    @ApiOperation("Gets the graph.")
+    @ApiOperation(value = "Gets the graph of the tenant.",
+            notes = "The graph is streamed as it is read. The response is compressed if the client accepts gzip.")
     @ApiResponses({
             @ApiResponse(code = 200, message = "OK"),
             @ApiResponse(code = 401, message = "Unauthorized access"),
             @ApiResponse(code = 404, message = "Tenant doesn't exist", response = ApiError.class),
-            @ApiResponse(code = 500, message = "Server error", response = ApiError.class)
+            @ApiResponse(code = 500, message = "Server error", response = ApiError.class),
+            @ApiResponse(code = 503, message = "Too many graphs being retrieved at the moment, retry after the " +
+                    "number of seconds in the Retry-After header", response = ApiError.class)
     })
     public Response getGraph() {
         String tenantId = getTenantId();
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2015-2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.rest;
+
+import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
+
+import java.io.InputStream;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.Response;
+
+import org.hawkular.inventory.api.model.InventoryStructure;
+import org.hawkular.inventory.api.model.Tenant;
+import org.hawkular.inventory.rest.json.ApiError;
+
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiResponse;
+import io.swagger.annotations.ApiResponses;
+
+/**
+ * The tenant is not auto-created for the requests to this endpoint (see
+ * {@link org.hawkular.inventory.rest.interceptors.AutocreateTenantRequestFilter}), because the import requires the
+ * tenant not to exist.
+ *
+ * @author Lukas Krejci
+ * @since 0.19.0
+ */
+@Path("/import")
+@Produces(APPLICATION_JSON)
+@Consumes(APPLICATION_JSON)
+@Api(value = "/import", description = "Bulk import of the whole tenants", tags = "Import")
+public class RestImport extends RestBase {
+
+    public RestImport() {
+        super("/import".length());
+    }
+
+    @POST
+    @Path("/graph")
+    @ApiOperation(value = "Imports the tenant from its graph, as returned from the /graph endpoint.",
+            notes = "The tenant must not exist. The graph is processed as it is read. No events are sent about the" +
+                    " imported entities.")
+    @ApiResponses({
+            @ApiResponse(code = 204, message = "Import success"),
+            @ApiResponse(code = 400, message = "The graph is malformed or contains entities of other tenants",
+                    response = ApiError.class),
+            @ApiResponse(code = 401, message = "Unauthorized access"),
+            @ApiResponse(code = 409, message = "Tenant already exists", response = ApiError.class),
+            @ApiResponse(code = 500, message = "Server error", response = ApiError.class)
+    })
+    public Response importGraph(InputStream graphSON) {
+        inventory.importTenant(getTenantId(), graphSON);
+        return Response.noContent().build();
+    }
+
+    @POST
+    @Path("/structure")
+    @ApiOperation(value = "Imports the tenant from its inventory structure.",
+            notes = "The tenant must not exist. The root of the structure must be the tenant. The hashes of the" +
+                    " entities are computed once for the whole structure and no events are sent about the imported" +
+                    " entities.")
+    @ApiResponses({
+            @ApiResponse(code = 204, message = "Import success"),
+            @ApiResponse(code = 400, message = "The root of the structure is not the tenant or the structure is" +
+                    " invalid", response = ApiError.class),
+            @ApiResponse(code = 401, message = "Unauthorized access"),
+            @ApiResponse(code = 409, message = "Tenant already exists", response = ApiError.class),
+            @ApiResponse(code = 500, message = "Server error", response = ApiError.class)
+    })
+    @SuppressWarnings("unchecked")
+    public Response importStructure(InventoryStructure<?> structure) {
+        String tenantId = getTenantId();
+        if (!(structure.getRoot() instanceof Tenant.Blueprint) || !tenantId.equals(structure.getRoot().getId())) {
+            throw new IllegalArgumentException("The root of the structure must be the tenant '" + tenantId + "'.");
+        }
+
+        inventory.importTenant((InventoryStructure<Tenant.Blueprint>) structure);
+        return Response.noContent().build();
+    }
+}
@@ -18,7 +18,12 @@ package org.hawkular.inventory.rest;
 
 import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 import javax.ws.rs.Consumes;
 import javax.ws.rs.Encoded;
@@ -29,12 +34,20 @@ import javax.ws.rs.Produces;
 import javax.ws.rs.core.PathSegment;
 import javax.ws.rs.core.Response;
 
+import org.hawkular.inventory.api.EntityNotFoundException;
 import org.hawkular.inventory.api.Synced;
 import org.hawkular.inventory.api.model.InventoryStructure;
+import org.hawkular.inventory.api.model.SyncConfiguration;
+import org.hawkular.inventory.api.model.SyncHash;
 import org.hawkular.inventory.api.model.SyncRequest;
+import org.hawkular.inventory.json.SyncNodeReader;
 import org.hawkular.inventory.paths.CanonicalPath;
+import org.hawkular.inventory.paths.RelativePath;
 import org.hawkular.inventory.rest.json.ApiError;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiResponse;
@@ -67,6 +80,95 @@ public class RestSync extends RestBase {
     })
     @SuppressWarnings("unchecked")
     public Response sync(@Encoded @PathParam("path") List<PathSegment> path, SyncRequest<?> req) {
+        CanonicalPath cp = parseSyncedPath(path);
+
+        inventory.inspect(cp, Synced.SingleWithRelationships.class).synchronize(req);
+
+        return Response.noContent().build();
+    }
+
+    @POST
+    @Path("/stream/{path:.+}")
+    @ApiOperation("Same as the normal synchronization, but the inventory structure is processed as it is read. The " +
+            "request has the same format as the normal sync request, but the 'configuration' must precede the " +
+            "'structure' and in each entity the 'type', 'hash' and 'data' must precede its 'children'. The " +
+            "optional 'hash' is the sync hash of the entity - the subtrees with the hash matching the one stored " +
+            "in the inventory are skipped.")
+    @ApiResponses({
+            @ApiResponse(code = 204, message = "Synchronization success"),
+            @ApiResponse(code = 400, message = "If the entity to be synchronized doesn't support synchronization" +
+                    " or the request is malformed", response = ApiError.class),
+            @ApiResponse(code = 404, message = "Authorization problem", response = ApiError.class),
+            @ApiResponse(code = 500, message = "Internal server error", response = ApiError.class)
+    })
+    @SuppressWarnings("unchecked")
+    public Response streamingSync(@Encoded @PathParam("path") List<PathSegment> path, InputStream body)
+            throws IOException {
+        CanonicalPath cp = parseSyncedPath(path);
+
+        try (JsonParser parser = getMapper().getFactory().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("Sync request expected.");
+            }
+
+            SyncConfiguration configuration = SyncConfiguration.DEFAULT;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+
+                if ("configuration".equals(field)) {
+                    configuration = parser.readValueAs(SyncConfiguration.class);
+                } else if ("structure".equals(field)) {
+                    inventory.inspect(cp, Synced.SingleWithRelationships.class)
+                            .synchronize(configuration, new SyncNodeReader(parser));
+
+                    //we don't care about the rest of the request
+                    return Response.noContent().build();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+
+        throw new IllegalArgumentException("The sync request doesn't contain the inventory structure.");
+    }
+
+    @POST
+    @Path("/negotiate/{path:.+}")
+    @ApiOperation("Compares the provided tree hash with the one of the entity on the path and returns the relative " +
+            "paths of the subtrees that differ and need to be synchronized ('subtrees') together with the paths of " +
+            "their parents, whose own data might differ, too, and which need to be synchronized without their " +
+            "children ('entities'). The tree hash can be incomplete, e.g. contain only the root and its immediate " +
+            "children, in which case a node without children stands for its whole subtree. If there is no entity " +
+            "on the path, the root of the tree hash is reported as the only differing subtree.")
+    @ApiResponses({
+            @ApiResponse(code = 200, message = "The relative paths of the differing subtrees and entities"),
+            @ApiResponse(code = 400, message = "If the entity to be synchronized doesn't support synchronization",
+                    response = ApiError.class),
+            @ApiResponse(code = 500, message = "Internal server error", response = ApiError.class)
+    })
+    public Response negotiate(@Encoded @PathParam("path") List<PathSegment> path, SyncHash.Tree tree) {
+        CanonicalPath cp = parseSyncedPath(path);
+
+        SyncHash.Tree current;
+        try {
+            current = inventory.inspect(cp, Synced.SingleWithRelationships.class).treeHash();
+        } catch (EntityNotFoundException e) {
+            current = null;
+        }
+
+        SyncHash.Differences differences = SyncHash.differences(current, tree);
+
+        Map<String, List<String>> ret = new LinkedHashMap<>();
+        ret.put("subtrees", differences.getSubtrees().stream().map(RelativePath::toString)
+                .collect(Collectors.toList()));
+        ret.put("entities", differences.getEntities().stream().map(RelativePath::toString)
+                .collect(Collectors.toList()));
+
+        return Response.ok(ret).build();
+    }
+
+    private CanonicalPath parseSyncedPath(List<PathSegment> path) {
         CanonicalPath cp = parsePath(path);
 
         if (!InventoryStructure.EntityType.supports(cp.getSegment().getElementType())) {
@@ -74,8 +176,6 @@ public class RestSync extends RestBase {
                     + " are not synchronizable.");
         }
 
-        inventory.inspect(cp, Synced.SingleWithRelationships.class).synchronize(req);
-
-        return Response.noContent().build();
+        return cp;
     }
 }
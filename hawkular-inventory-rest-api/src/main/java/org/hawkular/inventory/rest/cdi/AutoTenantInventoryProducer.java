@@ -36,6 +36,7 @@ import org.hawkular.inventory.api.TransactionFrame;
 import org.hawkular.inventory.api.filters.Filter;
 import org.hawkular.inventory.api.model.AbstractElement;
 import org.hawkular.inventory.api.model.Entity;
+import org.hawkular.inventory.api.model.InventoryStructure;
 import org.hawkular.inventory.api.model.Tenant;
 import org.hawkular.inventory.api.paging.Page;
 import org.hawkular.inventory.api.paging.Pager;
@@ -79,6 +80,16 @@ public class AutoTenantInventoryProducer {
             return inventory.getGraphSON(tenantId);
         }
 
+        @Override
+        public void importTenant(InventoryStructure<Tenant.Blueprint> structure) {
+            inventory.importTenant(structure);
+        }
+
+        @Override
+        public void importTenant(String tenantId, InputStream graphSON) {
+            inventory.importTenant(tenantId, graphSON);
+        }
+
         @Override
         public <T extends Entity<?, ?>> Iterator<T> getTransitiveClosureOver(
                 CanonicalPath startingPoint, Relationships.Direction direction, Class<T> clazz,
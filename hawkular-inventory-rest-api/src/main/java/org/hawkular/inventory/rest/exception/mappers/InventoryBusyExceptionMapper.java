@@ -0,0 +1,47 @@
+/*
+ * Copyright 2015-2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.rest.exception.mappers;
+
+import static javax.ws.rs.core.Response.Status.SERVICE_UNAVAILABLE;
+
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.ExceptionMapper;
+import javax.ws.rs.ext.Provider;
+
+import org.hawkular.inventory.api.InventoryBusyException;
+import org.hawkular.inventory.rest.json.ApiError;
+import org.jboss.logging.Logger;
+
+/**
+ * @author Lukas Krejci
+ * @since 0.19.0
+ */
+@Provider
+public class InventoryBusyExceptionMapper implements ExceptionMapper<InventoryBusyException> {
+    /**
+     * The number of seconds the clients are advised to wait before retrying the refused operation.
+     */
+    static final int RETRY_AFTER_SECONDS = 10;
+
+    @Override
+    public Response toResponse(InventoryBusyException exception) {
+        Response response = ExceptionMapperUtils.buildResponse(Logger.Level.DEBUG,
+                new ApiError(exception.getMessage()), exception, SERVICE_UNAVAILABLE);
+        return Response.fromResponse(response).header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS).build();
+    }
+}
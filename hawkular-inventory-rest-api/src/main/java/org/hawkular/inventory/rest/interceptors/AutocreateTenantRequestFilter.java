@@ -53,7 +53,8 @@ public class AutocreateTenantRequestFilter implements ContainerRequestFilter {
 
     /* URI chunks to which this filter should not be applied */
     private static final List<Pattern> uriExceptionPatterns = Stream.of(".*/inventory/status/?",
-            ".*/inventory/ping/?", ".*/inventory/?").map(Pattern::compile).collect(Collectors.toList());
+            ".*/inventory/ping/?", ".*/inventory/?", ".*/inventory/import/.*").map(Pattern::compile)
+            .collect(Collectors.toList());
 
     private static final RestApiLogger log =
             Logger.getMessageLogger(RestApiLogger.class, AutocreateTenantRequestFilter.class.getName());
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2015-2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.rest;
+
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.util.Collections;
+
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.UriBuilder;
+import javax.ws.rs.core.UriInfo;
+
+import org.hawkular.inventory.api.paging.Page;
+import org.hawkular.inventory.api.paging.PageContext;
+import org.hawkular.inventory.api.paging.Pager;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests the parsing of the paging query parameters and the paging headers of the responses.
+ *
+ * @author Lukas Krejci
+ * @since 0.19.0
+ */
+public class PagingHeadersTest {
+
+    @Test
+    public void testTotalParameter() throws Exception {
+        Assert.assertEquals(PageContext.UNLIMITED_TOTAL_SIZE, paging("/x?per_page=10").getTotalSizeLimit());
+        Assert.assertFalse(paging("/x?per_page=10").isTotalSizeLimited());
+        Assert.assertEquals(PageContext.UNLIMITED_TOTAL_SIZE, paging("/x?per_page=10&total=exact")
+                .getTotalSizeLimit());
+        Assert.assertEquals(0, paging("/x?per_page=10&total=none").getTotalSizeLimit());
+        Assert.assertEquals(1000, paging("/x?per_page=10&total=1000").getTotalSizeLimit());
+        Assert.assertTrue(paging("/x?per_page=10&total=1000").isTotalSizeLimited());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeTotalParameterRejected() throws Exception {
+        paging("/x?per_page=10&total=-5");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownTotalParameterRejected() throws Exception {
+        paging("/x?per_page=10&total=approximate");
+    }
+
+    @Test
+    public void testExactTotalReported() throws Exception {
+        Response response = pagingHeaders("/x?per_page=10", 25);
+
+        Assert.assertEquals("25", totalCount(response));
+        Assert.assertTrue(links(response).contains("rel=\"next\""));
+        Assert.assertTrue(links(response).contains("rel=\"last\""));
+    }
+
+    @Test
+    public void testTotalUnderTheLimitStaysExact() throws Exception {
+        Response response = pagingHeaders("/x?per_page=10&total=100", 25);
+
+        Assert.assertEquals("25", totalCount(response));
+        Assert.assertTrue(links(response).contains("rel=\"last\""));
+
+        //exactly at the limit is still exact
+        response = pagingHeaders("/x?per_page=10&total=25", 25);
+        Assert.assertEquals("25", totalCount(response));
+    }
+
+    @Test
+    public void testTotalOverTheLimitReportedAsLowerBound() throws Exception {
+        //the pager counts one past the limit if there are more results
+        Response response = pagingHeaders("/x?per_page=10&total=20", 21);
+
+        Assert.assertEquals("20+", totalCount(response));
+        Assert.assertTrue(links(response).contains("rel=\"next\""));
+        Assert.assertFalse(links(response).contains("rel=\"last\""));
+    }
+
+    @Test
+    public void testTotalNotCounted() throws Exception {
+        //there is a next page...
+        Response response = pagingHeaders("/x?per_page=10&total=none", 11);
+
+        Assert.assertNull(totalCount(response));
+        Assert.assertTrue(links(response).contains("rel=\"next\""));
+        Assert.assertFalse(links(response).contains("rel=\"last\""));
+
+        //... and there are no results at all
+        response = pagingHeaders("/x?per_page=10&total=none", 0);
+        Assert.assertEquals("0", totalCount(response));
+    }
+
+    private static Pager paging(String uri) {
+        return RequestUtil.extractPaging(uriInfo(uri));
+    }
+
+    private static Response pagingHeaders(String uri, long totalSize) {
+        UriInfo uriInfo = uriInfo(uri);
+        Page<Object> page = new Page<>(Collections.emptyIterator(), RequestUtil.extractPaging(uriInfo), totalSize);
+
+        Response.ResponseBuilder builder = Response.ok();
+        ResponseUtil.createPagingHeader(builder, uriInfo, page);
+        return builder.build();
+    }
+
+    private static String totalCount(Response response) {
+        Object total = response.getMetadata().getFirst("X-Total-Count");
+        return total == null ? null : total.toString();
+    }
+
+    private static String links(Response response) {
+        return response.getMetadata().getFirst("Link").toString();
+    }
+
+    private static UriInfo uriInfo(String uri) {
+        URI requestUri = URI.create("http://localhost/hawkular/inventory" + uri);
+
+        MultivaluedMap<String, String> params = new MultivaluedHashMap<>();
+        if (requestUri.getQuery() != null) {
+            for (String param : requestUri.getQuery().split("&")) {
+                String[] nameAndValue = param.split("=", 2);
+                params.add(nameAndValue[0], nameAndValue.length > 1 ? nameAndValue[1] : "");
+            }
+        }
+
+        return (UriInfo) Proxy.newProxyInstance(PagingHeadersTest.class.getClassLoader(),
+                new Class<?>[]{UriInfo.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getQueryParameters":
+                            return params;
+                        case "getRequestUri":
+                            return requestUri;
+                        case "getRequestUriBuilder":
+                            return UriBuilder.fromUri(requestUri);
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+}